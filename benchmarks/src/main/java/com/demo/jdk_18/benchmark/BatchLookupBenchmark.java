@@ -0,0 +1,78 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.demo.jdk_18.map.HashMap;
+
+/**
+ * 比较逐个get和批量getAll在大map上的耗时,map大到远超CPU缓存时批量查询的优势才明显.
+ *
+ * <p>
+ * Each invocation looks up {@value #BATCH} random keys; the reported time
+ * is per key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+public class BatchLookupBenchmark {
+
+	static final int BATCH = 10000;
+
+	@Param({ "100000", "10000000" })
+	int size;
+
+	@Param({ "RANDOM", "STRING" })
+	String keys;
+
+	HashMap<Object, Object> map;
+	Object[][] batches;
+	Object[] results = new Object[BATCH];
+	int round;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Object[] data = Keys.generate(keys, size, 42L);
+		map = new HashMap<>();
+		map.putAll(data, data);
+		batches = new Object[16][];
+		for (int i = 0; i < batches.length; i++)
+			batches[i] = Keys.sample(data, BATCH, i);
+	}
+
+	Object[] nextBatch() {
+		return batches[round++ & 15];
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public Object[] get() {
+		Object[] batch = nextBatch();
+		for (int i = 0; i < BATCH; i++)
+			results[i] = map.get(batch[i]);
+		return results;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public Object[] getAll() {
+		map.getAll(nextBatch(), results);
+		return results;
+	}
+}
@@ -0,0 +1,53 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行所有的benchmark,结果以JSON格式写入一个文件,方便比较不同版本的结果.
+ *
+ * <p>
+ * {@link ConcurrentMapBenchmark} is run once per thread count (1, 2, 4, ...
+ * up to the number of processors); everything else single-threaded.
+ *
+ * <p>
+ * Usage: {@code BenchmarkRunner [includeRegex] [result.json]}
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		String include = args.length > 0 ? args[0] : ".*";
+		String resultFile = args.length > 1 ? args[1] : "jmh-result.json";
+		String concurrent = ConcurrentMapBenchmark.class.getSimpleName();
+
+		List<RunResult> results = new ArrayList<>();
+		Options single = new OptionsBuilder().include(include).exclude(concurrent).build();
+		results.addAll(new Runner(single).run());
+
+		if (concurrent.matches(include) || include.equals(".*")) {
+			int maxThreads = Runtime.getRuntime().availableProcessors();
+			for (int threads = 1;; threads <<= 1) {
+				int t = Math.min(threads, maxThreads);
+				Options opts = new OptionsBuilder().include(concurrent).threads(t).build();
+				results.addAll(new Runner(opts).run());
+				if (t == maxThreads)
+					break;
+			}
+		}
+		write(results, resultFile);
+	}
+
+	static void write(Collection<RunResult> results, String file) {
+		ResultFormatFactory.getInstance(ResultFormatType.JSON, file).writeOut(results);
+		System.out.println("Results written to " + file);
+	}
+}
@@ -0,0 +1,77 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.demo.jdk_18.cache.Cache;
+import com.demo.jdk_18.cache.EvictionPolicy;
+
+/**
+ * 比较不同淘汰策略的缓存在有扫描的访问序列上的耗时和命中率.
+ *
+ * <p>
+ * The trace draws keys from a skewed distribution over 100000 keys, and
+ * every fourth block of 20000 accesses is a scan of keys never seen
+ * before. Each access is a lookup followed by a put on a miss. The hit rate
+ * over the whole trial, warmup included, is printed at its end.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+	static final int TRACE = 1 << 20;
+
+	@Param({ "1000", "10000" })
+	int maximumSize;
+
+	@Param({ "LRU", "LFU", "WINDOW_TINY_LFU" })
+	EvictionPolicy policy;
+
+	Integer[] trace;
+	Cache<Integer, Integer> cache;
+	int index;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random rnd = new Random(42L);
+		trace = new Integer[TRACE];
+		for (int i = 0, scan = 1 << 24; i < TRACE; i++) {
+			if ((i / 20000) % 4 == 3)
+				trace[i] = scan++;
+			else
+				trace[i] = (int) Math.exp(rnd.nextDouble() * Math.log(100000));
+		}
+		cache = Cache.<Integer, Integer> builder().maximumSize(maximumSize).policy(policy).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.println(policy + " " + cache.stats());
+	}
+
+	@Benchmark
+	public Integer access() {
+		Integer k = trace[index++ & (TRACE - 1)], v;
+		if ((v = cache.getIfPresent(k)) == null)
+			cache.put(k, v = k);
+		return v;
+	}
+}
@@ -0,0 +1,101 @@
+package com.demo.jdk_18.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.demo.jdk_18.map.HashMap;
+import com.demo.jdk_18.map.HashMapCodec;
+import com.demo.jdk_18.map.Serializer;
+
+/**
+ * 比较Java序列化和HashMapCodec保存/恢复HashMap的耗时.
+ *
+ * <p>
+ * Both formats are written to and read from byte arrays, so the numbers
+ * exclude I/O. {@code readBuffer} loads from a heap buffer the way a
+ * memory-mapped file would be read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+	@Param({ "100000", "1000000" })
+	int size;
+
+	@Param({ "RANDOM", "STRING" })
+	String keys;
+
+	HashMap<Object, Object> map;
+	HashMapCodec<Object, Object> codec;
+	byte[] serialized;
+	byte[] encoded;
+
+	@Setup(Level.Trial)
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void setup() throws IOException {
+		Object[] data = Keys.generate(keys, size, 42L);
+		map = new HashMap<>();
+		for (Object k : data)
+			map.put(k, k);
+		Serializer s = keys.equals("STRING") ? Serializer.STRING : Serializer.INT;
+		codec = new HashMapCodec<Object, Object>(s, s);
+		serialized = serialize();
+		encoded = encode();
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+			oos.writeObject(map);
+		}
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public Object deserialize() throws IOException, ClassNotFoundException {
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+			return ois.readObject();
+		}
+	}
+
+	@Benchmark
+	public byte[] encode() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		codec.writeTo(map, Channels.newChannel(out));
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public HashMap<Object, Object> readChannel() throws IOException {
+		return codec.readFrom(Channels.newChannel(new ByteArrayInputStream(encoded)));
+	}
+
+	@Benchmark
+	public HashMap<Object, Object> readBuffer() throws IOException {
+		return codec.readFrom(ByteBuffer.wrap(encoded));
+	}
+}
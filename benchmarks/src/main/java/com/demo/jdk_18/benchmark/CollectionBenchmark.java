@@ -0,0 +1,125 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * ArrayList, LinkedList和HashSet与java.util中对应实现的对比.
+ *
+ * <p>
+ * {@code get} is {@code List.get} at a random index, or
+ * {@code Set.contains} of a random element. {@code removeAndAdd} removes a
+ * random element and inserts it back at the same index (lists) or again
+ * (sets), keeping the size constant. {@code add} builds a collection of
+ * {@code size} elements from the default capacity.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionBenchmark {
+
+	static final int SAMPLE = 1 << 12;
+
+	@Param({ "demo.ArrayList", "java.ArrayList", "demo.LinkedList", "java.LinkedList", "demo.HashSet",
+			"java.HashSet" })
+	String impl;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	@Param({ "SEQUENTIAL", "STRING", "COLLIDING" })
+	String keys;
+
+	Object[] data;
+	Object[] elements;
+	int[] indices;
+	Collection<Object> collection;
+	int index;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		data = Keys.generate(keys, size, 42L);
+		elements = Keys.sample(data, SAMPLE, 7L);
+		java.util.Random rnd = new java.util.Random(7L);
+		indices = new int[SAMPLE];
+		for (int i = 0; i < SAMPLE; i++)
+			indices[i] = rnd.nextInt(size);
+		collection = newCollection();
+		for (Object e : data)
+			collection.add(e);
+	}
+
+	Collection<Object> newCollection() {
+		switch (impl) {
+		case "demo.ArrayList":
+			return new com.demo.jdk_18.collection.ArrayList<>();
+		case "java.ArrayList":
+			return new java.util.ArrayList<>();
+		case "demo.LinkedList":
+			return new com.demo.jdk_18.collection.LinkedList<>();
+		case "java.LinkedList":
+			return new java.util.LinkedList<>();
+		case "demo.HashSet":
+			return new com.demo.jdk_18.collection.HashSet<>();
+		case "java.HashSet":
+			return new java.util.HashSet<>();
+		default:
+			throw new IllegalArgumentException("Unknown collection: " + impl);
+		}
+	}
+
+	@Benchmark
+	public Object get() {
+		int i = index++ & (SAMPLE - 1);
+		if (collection instanceof List)
+			return ((List<Object>) collection).get(indices[i]);
+		return collection.contains(elements[i]);
+	}
+
+	@Benchmark
+	public boolean removeAndAdd() {
+		int i = index++ & (SAMPLE - 1);
+		if (collection instanceof List) {
+			List<Object> list = (List<Object>) collection;
+			int at = indices[i];
+			list.add(at, list.remove(at));
+			return true;
+		}
+		Set<Object> set = (Set<Object>) collection;
+		set.remove(elements[i]);
+		return set.add(elements[i]);
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		for (Object e : collection)
+			bh.consume(e);
+	}
+
+	@Benchmark
+	public Collection<Object> add() {
+		Collection<Object> c = newCollection();
+		for (Object e : data)
+			c.add(e);
+		return c;
+	}
+}
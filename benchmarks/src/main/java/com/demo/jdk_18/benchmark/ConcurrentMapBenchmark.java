@@ -0,0 +1,87 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 并发map的扩展性测试,线程数由BenchmarkRunner从1增加到CPU数量(或者用-t指定).
+ *
+ * <p>
+ * Each operation is a {@code get} or, with probability
+ * {@code writePercent}%, a {@code put} of a random key, against a map shared
+ * by all benchmark threads and prefilled with half of the key range. The
+ * two LinkedHashMap variants keep access order.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentMapBenchmark {
+
+	@Param({ "synchronized.HashMap", "demo.ConcurrentHashMap", "java.ConcurrentHashMap",
+			"synchronized.LinkedHashMap", "demo.ConcurrentLinkedHashMap" })
+	String impl;
+
+	@Param({ "65536" })
+	int keys;
+
+	@Param({ "10" })
+	int writePercent;
+
+	Integer[] keySpace;
+	Map<Integer, Integer> map;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		keySpace = new Integer[keys];
+		for (int i = 0; i < keys; i++)
+			keySpace[i] = i;
+		switch (impl) {
+		case "synchronized.HashMap":
+			map = Collections.synchronizedMap(new com.demo.jdk_18.map.HashMap<Integer, Integer>());
+			break;
+		case "demo.ConcurrentHashMap":
+			map = new com.demo.jdk_18.map.ConcurrentHashMap<>();
+			break;
+		case "java.ConcurrentHashMap":
+			map = new java.util.concurrent.ConcurrentHashMap<>();
+			break;
+		case "synchronized.LinkedHashMap":
+			map = Collections.synchronizedMap(new com.demo.jdk_18.map.LinkedHashMap<Integer, Integer>(16, 0.75f, true));
+			break;
+		case "demo.ConcurrentLinkedHashMap":
+			map = new com.demo.jdk_18.map.ConcurrentLinkedHashMap<>();
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown map: " + impl);
+		}
+		for (int i = 0; i < keys; i += 2)
+			map.put(keySpace[i], i);
+	}
+
+	@Benchmark
+	public Integer mixed() {
+		ThreadLocalRandom rnd = ThreadLocalRandom.current();
+		Integer key = keySpace[rnd.nextInt(keySpace.length)];
+		if (rnd.nextInt(100) < writePercent)
+			return map.put(key, key);
+		return map.get(key);
+	}
+}
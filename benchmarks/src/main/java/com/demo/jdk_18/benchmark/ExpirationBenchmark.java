@@ -0,0 +1,83 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.demo.jdk_18.map.LinkedHashMap;
+
+/**
+ * 比较时间轮过期和定时扫描entrySet的写入耗时.
+ *
+ * <p>
+ * Each operation puts a random key and moves a fake clock forward by
+ * {@code 1s / size}, so with a time-to-live of 10 seconds about a tenth of
+ * the keys are live. "wheel" uses {@link LinkedHashMap#setExpireAfterWrite};
+ * "sweep" stores the write time next to the value and, once per simulated
+ * second, scans the entry set and removes the expired entries, which is
+ * the O(n) approach the timer wheel replaces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpirationBenchmark {
+
+	static final long TTL = TimeUnit.SECONDS.toNanos(10);
+
+	static final int KEYS = 1 << 20;
+
+	@Param({ "10000", "100000" })
+	int size;
+
+	@Param({ "wheel", "sweep" })
+	String mode;
+
+	Integer[] keys;
+	LinkedHashMap<Integer, long[]> map;
+	long now, step, nextSweep;
+	int index;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random rnd = new Random(42L);
+		keys = new Integer[KEYS];
+		for (int i = 0; i < KEYS; i++)
+			keys[i] = rnd.nextInt(size * 100);
+		step = TimeUnit.SECONDS.toNanos(1) / size;
+		map = new LinkedHashMap<>();
+		if (mode.equals("wheel")) {
+			map.setTicker(() -> now);
+			map.setExpireAfterWrite(TTL, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	@Benchmark
+	public Object put() {
+		long t = now += step;
+		long[] v = map.put(keys[index++ & (KEYS - 1)], new long[] { t });
+		if (t - nextSweep >= 0L && mode.equals("sweep")) {
+			for (Iterator<Map.Entry<Integer, long[]>> it = map.entrySet().iterator(); it.hasNext();)
+				if (t - it.next().getValue()[0] >= TTL)
+					it.remove();
+			nextSweep = t + TimeUnit.SECONDS.toNanos(1);
+		}
+		return v;
+	}
+}
@@ -0,0 +1,106 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.Random;
+
+/**
+ * 生成测试用的key,覆盖不同的分布.
+ *
+ * <p>
+ * {@code COLLIDING} keys share a handful of hash codes, which forces long
+ * chains and, in the HashMap variants, tree bins; they are
+ * {@link Comparable} so tree bins can order them. {@code COLLIDING_UNORDERED}
+ * keys collide the same way but are not comparable, the worst case for tree
+ * bins. {@code COLLIDING_STRING} keys are strings with only 64 distinct hash
+ * codes, built from the equal-hash blocks {@code "Aa"} and {@code "BB"}.
+ */
+public final class Keys {
+
+	private Keys() {
+	}
+
+	/**
+	 * 生成size个互不相同的key
+	 */
+	public static Object[] generate(String distribution, int size, long seed) {
+		Random rnd = new Random(seed);
+		Object[] keys = new Object[size];
+		switch (distribution) {
+		case "SEQUENTIAL":
+			for (int i = 0; i < size; i++)
+				keys[i] = i;
+			break;
+		case "RANDOM":
+			java.util.HashSet<Integer> seen = new java.util.HashSet<>();
+			for (int i = 0; i < size;) {
+				int k = rnd.nextInt();
+				if (seen.add(k))
+					keys[i++] = k;
+			}
+			break;
+		case "STRING":
+			for (int i = 0; i < size; i++)
+				keys[i] = "key-" + Integer.toHexString(rnd.nextInt()) + "-" + i;
+			break;
+		case "COLLIDING":
+			for (int i = 0; i < size; i++)
+				keys[i] = new CollidingKey(i);
+			break;
+		case "COLLIDING_UNORDERED":
+			for (int i = 0; i < size; i++)
+				keys[i] = new UnorderedCollidingKey(i);
+			break;
+		case "COLLIDING_STRING":
+			for (int i = 0; i < size; i++) {
+				// 首字符决定hash,后面的"Aa"和"BB"的hash相同,只用来区分key
+				StringBuilder sb = new StringBuilder().append((char) ('0' + (i & 63)));
+				for (int b = i >>> 6, j = 0; j < 26; j++, b >>>= 1)
+					sb.append((b & 1) == 0 ? "Aa" : "BB");
+				keys[i] = sb.toString();
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown key distribution: " + distribution);
+		}
+		return keys;
+	}
+
+	/**
+	 * 返回长度为2的n次方的数组,元素是随机挑选的key,用于循环查找
+	 */
+	public static Object[] sample(Object[] keys, int length, long seed) {
+		Random rnd = new Random(seed);
+		Object[] sample = new Object[length];
+		for (int i = 0; i < length; i++)
+			sample[i] = keys[rnd.nextInt(keys.length)];
+		return sample;
+	}
+
+	/**
+	 * hashCode只有64种取值的key
+	 */
+	public static class UnorderedCollidingKey {
+		final int id;
+
+		UnorderedCollidingKey(int id) {
+			this.id = id;
+		}
+
+		public int hashCode() {
+			return (id & 63) * 0x10000;
+		}
+
+		public boolean equals(Object o) {
+			return o instanceof UnorderedCollidingKey && ((UnorderedCollidingKey) o).id == id;
+		}
+	}
+
+	public static final class CollidingKey extends UnorderedCollidingKey implements Comparable<CollidingKey> {
+		CollidingKey(int id) {
+			super(id);
+		}
+
+		public int compareTo(CollidingKey o) {
+			return Integer.compare(id, o.id);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * HashMap, LinkedHashMap和TreeMap与java.util中对应实现的对比.
+ *
+ * <p>
+ * {@code get}, {@code getMiss}, {@code put} (update of an existing key) and
+ * {@code removeAndPut} are single operations on a map of {@code size}
+ * entries, cycling through a random sample of keys. {@code iterate} walks
+ * all entries; {@code fill} builds a map of {@code size} entries from the
+ * default capacity, so for the hash maps it includes every resize.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+	static final int SAMPLE = 1 << 12;
+
+	@Param({ "demo.HashMap", "demo.HashMap.keyed", "demo.CompactHashMap", "java.HashMap", "demo.LinkedHashMap",
+			"demo.CompactLinkedHashMap", "java.LinkedHashMap", "demo.TreeMap", "java.TreeMap" })
+	String impl;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	@Param({ "SEQUENTIAL", "RANDOM", "STRING", "COLLIDING", "COLLIDING_UNORDERED" })
+	String keys;
+
+	Object[] data;
+	Object[] hits;
+	Object[] misses;
+	Map<Object, Object> map;
+	int index;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Object[] all = Keys.generate(keys, size + SAMPLE, 42L);
+		data = java.util.Arrays.copyOf(all, size);
+		hits = Keys.sample(data, SAMPLE, 7L);
+		misses = java.util.Arrays.copyOfRange(all, size, size + SAMPLE);
+		map = newMap();
+		for (Object k : data)
+			map.put(k, k);
+	}
+
+	/**
+	 * 不可比较的key放入TreeMap时按id排序
+	 */
+	static final Comparator<Object> UNORDERED_ORDER = (a, b) -> Integer.compare(((Keys.UnorderedCollidingKey) a).id,
+			((Keys.UnorderedCollidingKey) b).id);
+
+	Map<Object, Object> newMap() {
+		Comparator<Object> cmp = "COLLIDING_UNORDERED".equals(keys) ? UNORDERED_ORDER : null;
+		switch (impl) {
+		case "demo.HashMap":
+			return new com.demo.jdk_18.map.HashMap<>();
+		case "demo.HashMap.keyed":
+			com.demo.jdk_18.map.HashMap<Object, Object> keyed = new com.demo.jdk_18.map.HashMap<>();
+			keyed.enableKeyedHashing();
+			return keyed;
+		case "demo.CompactHashMap":
+			return new com.demo.jdk_18.map.CompactHashMap<>();
+		case "java.HashMap":
+			return new java.util.HashMap<>();
+		case "demo.LinkedHashMap":
+			return new com.demo.jdk_18.map.LinkedHashMap<>();
+		case "demo.CompactLinkedHashMap":
+			return new com.demo.jdk_18.map.CompactLinkedHashMap<>();
+		case "java.LinkedHashMap":
+			return new java.util.LinkedHashMap<>();
+		case "demo.TreeMap":
+			return new com.demo.jdk_18.map.TreeMap<>(cmp);
+		case "java.TreeMap":
+			return new java.util.TreeMap<>(cmp);
+		default:
+			throw new IllegalArgumentException("Unknown map: " + impl);
+		}
+	}
+
+	@Benchmark
+	public Object get() {
+		return map.get(hits[index++ & (SAMPLE - 1)]);
+	}
+
+	@Benchmark
+	public Object getMiss() {
+		return map.get(misses[index++ & (SAMPLE - 1)]);
+	}
+
+	@Benchmark
+	public Object put() {
+		Object k = hits[index++ & (SAMPLE - 1)];
+		return map.put(k, k);
+	}
+
+	@Benchmark
+	public Object removeAndPut() {
+		Object k = hits[index++ & (SAMPLE - 1)];
+		map.remove(k);
+		return map.put(k, k);
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		for (Map.Entry<Object, Object> e : map.entrySet())
+			bh.consume(e.getValue());
+	}
+
+	@Benchmark
+	public Map<Object, Object> fill() {
+		Map<Object, Object> m = newMap();
+		for (Object k : data)
+			m.put(k, k);
+		return m;
+	}
+}
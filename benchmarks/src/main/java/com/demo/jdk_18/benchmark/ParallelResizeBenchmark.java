@@ -0,0 +1,66 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.demo.jdk_18.map.HashMap;
+
+/**
+ * 比较HashMap单线程扩容和并行扩容的耗时.
+ *
+ * <p>
+ * Before each measurement a map created with {@code capacity} is filled up
+ * to its threshold; the benchmark is the single {@code put} that triggers
+ * the resize.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ParallelResizeBenchmark {
+
+	@Param({ "1048576", "4194304", "16777216" })
+	int capacity;
+
+	@Param({ "sequential", "parallel" })
+	String mode;
+
+	Integer[] keys;
+	HashMap<Integer, Integer> map;
+
+	@Setup(Level.Trial)
+	public void keys() {
+		keys = new Integer[(int) (capacity * 0.75f) + 1];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = i;
+	}
+
+	@Setup(Level.Iteration)
+	public void fill() {
+		map = null;
+		map = new HashMap<>(capacity);
+		map.setParallelResizeThreshold("parallel".equals(mode) ? capacity : 0);
+		for (int i = 0; i < keys.length - 1; i++)
+			map.put(keys[i], i);
+	}
+
+	@Benchmark
+	public Integer resize() {
+		int last = keys.length - 1;
+		return map.put(keys[last], last);
+	}
+}
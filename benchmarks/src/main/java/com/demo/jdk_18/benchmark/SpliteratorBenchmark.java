@@ -0,0 +1,69 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.demo.jdk_18.map.HashMap;
+
+/**
+ * 并行stream遍历HashMap,比较按桶下标二分和按节点数量分割的spliterator.
+ *
+ * <p>
+ * With {@code sparse} the table is presized to 16 times the entry count, and
+ * {@code SEQUENTIAL} keys then fill only its first sixteenth, which is the
+ * case where halving the bin range leaves most workers idle. Run with
+ * {@code -t} set to the number of cores to compare scaling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class SpliteratorBenchmark {
+
+	@Param({ "1000000" })
+	int size;
+
+	@Param({ "SEQUENTIAL", "RANDOM" })
+	String keys;
+
+	@Param({ "false", "true" })
+	boolean sparse;
+
+	@Param({ "false", "true" })
+	boolean balanced;
+
+	HashMap<Object, Object> map;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Object[] data = Keys.generate(keys, size, 42L);
+		map = sparse ? new HashMap<>(size * 16) : new HashMap<>();
+		for (Object k : data)
+			map.put(k, k);
+		map.setBalancedSpliterators(balanced);
+	}
+
+	@Benchmark
+	public long keySum() {
+		return map.keySet().parallelStream().mapToLong(Object::hashCode).sum();
+	}
+
+	@Benchmark
+	public long entryCount() {
+		return map.entrySet().parallelStream().filter(e -> e.getValue() != null).count();
+	}
+}
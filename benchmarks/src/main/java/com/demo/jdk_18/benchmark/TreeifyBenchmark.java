@@ -0,0 +1,80 @@
+package com.demo.jdk_18.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.demo.jdk_18.map.HashMap;
+
+/**
+ * 比较默认树化和自适应树化在碰撞严重的key上的查询和插入耗时.
+ *
+ * <p>
+ * All three key sets have only 64 distinct hash codes. Strings and
+ * {@code COLLIDING} keys are comparable, so both modes build tree bins;
+ * {@code COLLIDING_UNORDERED} keys are not, and adaptive mode keeps their
+ * bins as lists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeifyBenchmark {
+
+	static final int SAMPLE = 1 << 12;
+
+	@Param({ "1000", "100000" })
+	int size;
+
+	@Param({ "COLLIDING_STRING", "COLLIDING", "COLLIDING_UNORDERED" })
+	String keys;
+
+	@Param({ "false", "true" })
+	boolean adaptive;
+
+	Object[] data;
+	Object[] hits;
+	HashMap<Object, Object> map;
+	int index;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		data = Keys.generate(keys, size, 42L);
+		hits = Keys.sample(data, SAMPLE, 7L);
+		map = newMap();
+		for (Object k : data)
+			map.put(k, k);
+	}
+
+	HashMap<Object, Object> newMap() {
+		HashMap<Object, Object> m = new HashMap<>();
+		m.setAdaptiveTreeification(adaptive);
+		return m;
+	}
+
+	@Benchmark
+	public Object get() {
+		return map.get(hits[index++ & (SAMPLE - 1)]);
+	}
+
+	@Benchmark
+	public HashMap<Object, Object> fill() {
+		HashMap<Object, Object> m = newMap();
+		for (Object k : data)
+			m.put(k, k);
+		return m;
+	}
+}
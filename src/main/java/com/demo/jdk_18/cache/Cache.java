@@ -0,0 +1,413 @@
+package com.demo.jdk_18.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import com.demo.jdk_18.map.LinkedHashMap;
+import com.demo.jdk_18.map.MapCursor;
+
+/**
+ * 有界缓存,支持可选的淘汰策略,按权重限制大小,写入后过期和访问后过期,以及命中率统计.
+ *
+ * <p>
+ * Entries are stored in a {@link LinkedHashMap} from key to node, kept in
+ * write order, or in access order when entries expire after access, so the
+ * entries that expire first are always at its head. Expired entries are
+ * removed from the head on every write and by {@link #cleanUp()}, and a
+ * lookup never returns an expired entry. When both expirations are set,
+ * an entry that expired after write but was read since is removed when it
+ * is next looked up or reaches the head.
+ *
+ * <p>
+ * The eviction order is kept separately by the {@link EvictionPolicy} on
+ * links stored in each node. Whenever a write takes the total weight over
+ * the maximum, the policy evicts entries until it fits again:
+ *
+ * <pre>
+ * Cache&lt;String, byte[]&gt; cache = Cache.&lt;String, byte[]&gt; builder()
+ * 		.maximumWeight(64 &lt;&lt; 20).weigher((k, v) -&gt; v.length)
+ * 		.policy(EvictionPolicy.WINDOW_TINY_LFU)
+ * 		.expireAfterWrite(10, TimeUnit.MINUTES)
+ * 		.build();
+ * </pre>
+ *
+ * Keys and values must not be {@code null}. All operations lock the cache,
+ * including the loader passed to {@link #get(Object, Function)}.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public final class Cache<K, V> {
+
+	/**
+	 * 缓存项,prev/next是淘汰策略的链表
+	 */
+	static final class Node<K, V> {
+		final K key;
+		V value;
+		int weight;
+		long writeTime;
+		long accessTime;
+		NodeDeque<K, V> deque; // 所在的链表
+		Node<K, V> prev, next;
+
+		Node(K key, V value, int weight, long now) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.writeTime = this.accessTime = now;
+		}
+	}
+
+	/**
+	 * 过期时间和最大值为-1表示没有设置
+	 */
+	static final long NEVER = -1L;
+
+	final LinkedHashMap<K, Node<K, V>> data;
+
+	final Policy<K, V> policy;
+
+	final Weigher<? super K, ? super V> weigher;
+
+	final long maximumWeight;
+
+	final long expireAfterWriteNanos;
+
+	final long expireAfterAccessNanos;
+
+	final LongSupplier ticker;
+
+	long weightedSize;
+
+	long hits, misses, evictions, evictionWeight, expirations;
+
+	MapCursor<K, Node<K, V>> cursor; // expire重复使用
+
+	Cache(Builder<K, V> b) {
+		if (b.weigher != null) {
+			maximumWeight = b.maximumWeight;
+			weigher = b.weigher;
+		} else {
+			maximumWeight = (b.maximumSize != NEVER) ? b.maximumSize : Long.MAX_VALUE;
+			weigher = (k, v) -> 1;
+		}
+		expireAfterWriteNanos = b.expireAfterWriteNanos;
+		expireAfterAccessNanos = b.expireAfterAccessNanos;
+		ticker = b.ticker;
+		policy = b.policy.create(maximumWeight);
+		data = new LinkedHashMap<>(16, 0.75f, expireAfterAccessNanos != NEVER);
+	}
+
+	/**
+	 * Returns a builder for an unbounded LRU cache without expiration.
+	 */
+	public static <K, V> Builder<K, V> builder() {
+		return new Builder<>();
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	/**
+	 * Returns the value cached for {@code key}, or {@code null} if there is
+	 * none or it has expired.
+	 */
+	public synchronized V getIfPresent(Object key) {
+		Node<K, V> n = data.get(key);
+		if (n != null && expires()) {
+			long now = ticker.getAsLong();
+			if (expired(n, now)) {
+				removeNode(n);
+				++expirations;
+				n = null;
+			} else
+				n.accessTime = now;
+		}
+		if (n == null) {
+			++misses;
+			policy.onMiss(key);
+			return null;
+		}
+		++hits;
+		policy.onHit(n);
+		return n.value;
+	}
+
+	/**
+	 * Returns the value cached for {@code key}, computing and caching it
+	 * with {@code loader} if there is none. A {@code null} result is
+	 * returned but not cached.
+	 */
+	public synchronized V get(K key, Function<? super K, ? extends V> loader) {
+		V v;
+		if ((v = getIfPresent(key)) == null && (v = loader.apply(key)) != null)
+			put(key, v);
+		return v;
+	}
+
+	/**
+	 * Caches {@code value} for {@code key}, then evicts entries if the cache
+	 * is over its maximum weight.
+	 *
+	 * @return the previous value, or {@code null} if there was none or it had
+	 *         expired
+	 * @throws IllegalArgumentException
+	 *             if the weigher returns a negative weight
+	 */
+	public synchronized V put(K key, V value) {
+		if (key == null || value == null)
+			throw new NullPointerException();
+		int w = weigher.weigh(key, value);
+		if (w < 0)
+			throw new IllegalArgumentException("Negative weight " + w);
+		long now = expires() ? ticker.getAsLong() : 0L;
+		Node<K, V> n = data.get(key);
+		V oldValue = null;
+		if (n != null) {
+			if (!expired(n, now))
+				oldValue = n.value;
+			n.value = value;
+			weightedSize += w - n.weight;
+			if (n.deque != null)
+				n.deque.weight += w - n.weight;
+			n.weight = w;
+			n.writeTime = n.accessTime = now;
+			if (expireAfterWriteNanos != NEVER && expireAfterAccessNanos == NEVER) {
+				// 按写入顺序时移到尾部
+				data.remove(key);
+				data.put(key, n);
+			}
+			policy.onHit(n);
+		} else {
+			data.put(key, n = new Node<>(key, value, w, now));
+			weightedSize += w;
+			policy.onAdd(n);
+		}
+		if (expires())
+			expire(now);
+		policy.evict(this);
+		return oldValue;
+	}
+
+	/**
+	 * Removes the entry for {@code key}.
+	 *
+	 * @return the removed value, or {@code null} if there was none or it had
+	 *         expired
+	 */
+	public synchronized V invalidate(Object key) {
+		Node<K, V> n = data.get(key);
+		if (n == null)
+			return null;
+		removeNode(n);
+		return expires() && expired(n, ticker.getAsLong()) ? null : n.value;
+	}
+
+	/**
+	 * Removes all entries. Statistics are kept.
+	 */
+	public synchronized void invalidateAll() {
+		MapCursor<K, Node<K, V>> c = cursor();
+		while (c.advance())
+			policy.onRemove(c.value());
+		data.clear();
+		weightedSize = 0L;
+	}
+
+	/**
+	 * Returns the number of entries, including expired entries not removed
+	 * yet.
+	 */
+	public synchronized int size() {
+		return data.size();
+	}
+
+	/**
+	 * Returns the total weight of the entries, including expired entries not
+	 * removed yet.
+	 */
+	public synchronized long weightedSize() {
+		return weightedSize;
+	}
+
+	/**
+	 * Removes the expired entries at the head of the expiration order.
+	 */
+	public synchronized void cleanUp() {
+		if (expires())
+			expire(ticker.getAsLong());
+	}
+
+	public synchronized CacheStats stats() {
+		return new CacheStats(hits, misses, evictions, evictionWeight, expirations);
+	}
+
+	public synchronized String toString() {
+		return "Cache[size=" + data.size() + ", weightedSize=" + weightedSize + ", maximumWeight=" + maximumWeight
+				+ "]";
+	}
+
+	/* ---------------- Internal operations -------------- */
+
+	final boolean expires() {
+		return expireAfterWriteNanos != NEVER || expireAfterAccessNanos != NEVER;
+	}
+
+	final boolean expired(Node<K, V> n, long now) {
+		return (expireAfterWriteNanos != NEVER && now - n.writeTime >= expireAfterWriteNanos)
+				|| (expireAfterAccessNanos != NEVER && now - n.accessTime >= expireAfterAccessNanos);
+	}
+
+	/**
+	 * 从data的头部删除过期的节点,遇到没有过期的就停止
+	 */
+	final void expire(long now) {
+		MapCursor<K, Node<K, V>> c = cursor();
+		while (c.advance()) {
+			Node<K, V> n = c.value();
+			if (!expired(n, now))
+				break;
+			c.remove();
+			policy.onRemove(n);
+			weightedSize -= n.weight;
+			++expirations;
+		}
+	}
+
+	final MapCursor<K, Node<K, V>> cursor() {
+		MapCursor<K, Node<K, V>> c;
+		return ((c = cursor) == null) ? cursor = data.cursor() : c.reset();
+	}
+
+	final void removeNode(Node<K, V> n) {
+		data.remove(n.key);
+		policy.onRemove(n);
+		weightedSize -= n.weight;
+	}
+
+	/**
+	 * 淘汰策略调用
+	 */
+	final void evictNode(Node<K, V> n) {
+		removeNode(n);
+		++evictions;
+		evictionWeight += n.weight;
+	}
+
+	/**
+	 * Builds a {@link Cache}. Settings left out mean unbounded, no
+	 * expiration, LRU eviction and {@link System#nanoTime()} as the time
+	 * source.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <V>
+	 *            the type of values
+	 */
+	public static final class Builder<K, V> {
+		long maximumSize = NEVER;
+		long maximumWeight = NEVER;
+		Weigher<? super K, ? super V> weigher;
+		EvictionPolicy policy = EvictionPolicy.LRU;
+		long expireAfterWriteNanos = NEVER;
+		long expireAfterAccessNanos = NEVER;
+		LongSupplier ticker = System::nanoTime;
+
+		Builder() {
+		}
+
+		/**
+		 * Limits the cache to {@code maximumSize} entries.
+		 *
+		 * @throws IllegalStateException
+		 *             if a maximum was already set
+		 */
+		public Builder<K, V> maximumSize(long maximumSize) {
+			this.maximumSize = checkMaximum(maximumSize);
+			return this;
+		}
+
+		/**
+		 * Limits the total weight of the entries, computed by the
+		 * {@link #weigher}.
+		 *
+		 * @throws IllegalStateException
+		 *             if a maximum was already set
+		 */
+		public Builder<K, V> maximumWeight(long maximumWeight) {
+			this.maximumWeight = checkMaximum(maximumWeight);
+			return this;
+		}
+
+		private long checkMaximum(long maximum) {
+			if (maximumSize != NEVER || maximumWeight != NEVER)
+				throw new IllegalStateException("Maximum already set");
+			if (maximum < 0L)
+				throw new IllegalArgumentException("Illegal maximum: " + maximum);
+			return maximum;
+		}
+
+		public Builder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+			if (weigher == null)
+				throw new NullPointerException();
+			this.weigher = weigher;
+			return this;
+		}
+
+		public Builder<K, V> policy(EvictionPolicy policy) {
+			if (policy == null)
+				throw new NullPointerException();
+			this.policy = policy;
+			return this;
+		}
+
+		/**
+		 * Expires entries {@code duration} after they were created or last
+		 * replaced.
+		 */
+		public Builder<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+			this.expireAfterWriteNanos = toNanos(duration, unit);
+			return this;
+		}
+
+		/**
+		 * Expires entries {@code duration} after they were last read or
+		 * written.
+		 */
+		public Builder<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+			this.expireAfterAccessNanos = toNanos(duration, unit);
+			return this;
+		}
+
+		private static long toNanos(long duration, TimeUnit unit) {
+			if (duration < 0L)
+				throw new IllegalArgumentException("Illegal duration: " + duration);
+			return unit.toNanos(duration);
+		}
+
+		/**
+		 * Sets the time source for expiration, in nanoseconds, for example a
+		 * fake clock in tests.
+		 */
+		public Builder<K, V> ticker(LongSupplier ticker) {
+			if (ticker == null)
+				throw new NullPointerException();
+			this.ticker = ticker;
+			return this;
+		}
+
+		/**
+		 * @throws IllegalStateException
+		 *             if exactly one of {@link #weigher} and
+		 *             {@link #maximumWeight} was set
+		 */
+		public Cache<K, V> build() {
+			if ((weigher == null) != (maximumWeight == NEVER))
+				throw new IllegalStateException("A weigher requires maximumWeight and vice versa");
+			return new Cache<>(this);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.demo.jdk_18.cache;
+
+/**
+ * 缓存的统计数据快照.
+ *
+ * <p>
+ * Every lookup through {@link Cache#getIfPresent} or {@link Cache#get}
+ * counts as one hit or one miss; an expired entry counts as a miss.
+ */
+public final class CacheStats {
+	private final long hits, misses, evictions, evictionWeight, expirations;
+
+	CacheStats(long hits, long misses, long evictions, long evictionWeight, long expirations) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.evictionWeight = evictionWeight;
+		this.expirations = expirations;
+	}
+
+	public long hits() {
+		return hits;
+	}
+
+	public long misses() {
+		return misses;
+	}
+
+	public long requests() {
+		return hits + misses;
+	}
+
+	/**
+	 * Returns the ratio of hits to requests, or 1.0 if there were no
+	 * requests.
+	 */
+	public double hitRate() {
+		long r = requests();
+		return r == 0L ? 1.0d : (double) hits / r;
+	}
+
+	/**
+	 * Returns the number of entries evicted for size.
+	 */
+	public long evictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the total weight of the entries evicted for size.
+	 */
+	public long evictionWeight() {
+		return evictionWeight;
+	}
+
+	/**
+	 * Returns the number of entries removed because they expired.
+	 */
+	public long expirations() {
+		return expirations;
+	}
+
+	public String toString() {
+		return "CacheStats[hits=" + hits + ", misses=" + misses + ", hitRate=" + hitRate() + ", evictions="
+				+ evictions + ", evictionWeight=" + evictionWeight + ", expirations=" + expirations + "]";
+	}
+}
@@ -0,0 +1,43 @@
+package com.demo.jdk_18.cache;
+
+/**
+ * 缓存超出最大权重时选择淘汰哪些缓存项.
+ */
+public enum EvictionPolicy {
+
+	/**
+	 * Evicts the least recently used entry, like a {@code LinkedHashMap} in
+	 * access order. A scan larger than the cache flushes it completely.
+	 */
+	LRU {
+		<K, V> Policy<K, V> create(long maximumWeight) {
+			return new LruPolicy<>();
+		}
+	},
+
+	/**
+	 * Evicts the least frequently used entry, and of those the oldest.
+	 * Counts are kept for the lifetime of an entry, so entries that were
+	 * popular once may outstay their use.
+	 */
+	LFU {
+		<K, V> Policy<K, V> create(long maximumWeight) {
+			return new LfuPolicy<>();
+		}
+	},
+
+	/**
+	 * Window TinyLFU: new entries enter a small LRU window and are only
+	 * admitted to the main segmented LRU region if their recent frequency,
+	 * estimated by a count-min sketch of hits and misses, beats that of the
+	 * entry they would replace. Resists scans and adapts to shifting
+	 * popularity.
+	 */
+	WINDOW_TINY_LFU {
+		<K, V> Policy<K, V> create(long maximumWeight) {
+			return new TinyLfuPolicy<>(maximumWeight);
+		}
+	};
+
+	abstract <K, V> Policy<K, V> create(long maximumWeight);
+}
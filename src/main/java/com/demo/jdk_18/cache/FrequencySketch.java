@@ -0,0 +1,105 @@
+package com.demo.jdk_18.cache;
+
+/**
+ * 估计key最近访问频率的count-min sketch,每个计数器4位,最大15.
+ *
+ * <p>
+ * Each long of the table holds sixteen counters. A key selects one long
+ * per hash function and, within it, one counter of four; its frequency is
+ * the smallest of those four counters. After ten times as many increments
+ * as the table has longs, all counters are halved, so the frequencies
+ * describe recent history rather than all time.
+ */
+final class FrequencySketch {
+
+	static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L };
+
+	static final long RESET_MASK = 0x7777777777777777L;
+
+	static final long ONE_MASK = 0x1111111111111111L;
+
+	static final int MAXIMUM_CAPACITY = 1 << 26;
+
+	long[] table;
+
+	int sampleSize;
+
+	int size; // 上次减半后增加的次数
+
+	FrequencySketch(int capacity) {
+		ensureCapacity(capacity);
+	}
+
+	/**
+	 * 保证table至少有capacity个long,扩大时重新开始计数
+	 */
+	void ensureCapacity(int capacity) {
+		int n = Math.min(Math.max(capacity, 16), MAXIMUM_CAPACITY);
+		if (table != null && table.length >= n)
+			return;
+		n = Integer.highestOneBit(n - 1) << 1;
+		table = new long[n];
+		sampleSize = 10 * n;
+		size = 0;
+	}
+
+	int frequency(Object key) {
+		int h = spread(key.hashCode()), start = (h & 3) << 2, f = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int count = (int) (table[indexOf(h, i)] >>> ((start + i) << 2)) & 0xf;
+			f = Math.min(f, count);
+		}
+		return f;
+	}
+
+	void increment(Object key) {
+		int h = spread(key.hashCode()), start = (h & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++)
+			added |= incrementAt(indexOf(h, i), start + i);
+		if (added && ++size == sampleSize)
+			reset();
+	}
+
+	/**
+	 * 计数器没有到15时加一
+	 */
+	boolean incrementAt(int i, int j) {
+		int offset = j << 2;
+		long mask = 0xfL << offset;
+		if ((table[i] & mask) != mask) {
+			table[i] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 所有计数器减半,奇数计数器丢掉的1/2也从size中减掉
+	 */
+	void reset() {
+		long[] tab = table;
+		int odd = 0;
+		for (int i = 0; i < tab.length; i++) {
+			odd += Long.bitCount(tab[i] & ONE_MASK);
+			tab[i] = (tab[i] >>> 1) & RESET_MASK;
+		}
+		size = (size - (odd >>> 2)) >>> 1;
+	}
+
+	int indexOf(int h, int i) {
+		long hash = (h + SEEDS[i]) * SEEDS[i];
+		hash += hash >>> 32;
+		return (int) hash & (table.length - 1);
+	}
+
+	static int spread(int h) {
+		h ^= h >>> 17;
+		h *= 0xed5ad4bb;
+		h ^= h >>> 11;
+		h *= 0xac4c1b51;
+		h ^= h >>> 15;
+		return h;
+	}
+}
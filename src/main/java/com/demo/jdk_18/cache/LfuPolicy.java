@@ -0,0 +1,68 @@
+package com.demo.jdk_18.cache;
+
+/**
+ * 淘汰访问次数最少的节点,次数相同时淘汰最早的.每个访问次数一个桶,桶按次数从小到大链接,
+ * 访问时节点移到下一个桶,都是O(1)
+ */
+final class LfuPolicy<K, V> extends Policy<K, V> {
+
+	static final class Bucket<K, V> extends NodeDeque<K, V> {
+		final long frequency;
+		Bucket<K, V> prev, next;
+
+		Bucket(long frequency) {
+			this.frequency = frequency;
+		}
+	}
+
+	Bucket<K, V> first; // 访问次数最少的桶
+
+	void onAdd(Cache.Node<K, V> n) {
+		Bucket<K, V> f = first;
+		if (f == null || f.frequency != 1L) {
+			Bucket<K, V> b = new Bucket<>(1L);
+			if ((b.next = f) != null)
+				f.prev = b;
+			first = f = b;
+		}
+		f.addLast(n);
+	}
+
+	void onHit(Cache.Node<K, V> n) {
+		Bucket<K, V> b = (Bucket<K, V>) n.deque, nb = b.next;
+		if (nb == null || nb.frequency != b.frequency + 1L) {
+			nb = new Bucket<>(b.frequency + 1L);
+			nb.prev = b;
+			if ((nb.next = b.next) != null)
+				nb.next.prev = nb;
+			b.next = nb;
+		}
+		remove(b, n);
+		nb.addLast(n);
+	}
+
+	void onRemove(Cache.Node<K, V> n) {
+		remove((Bucket<K, V>) n.deque, n);
+	}
+
+	void evict(Cache<K, V> cache) {
+		while (cache.weightedSize > cache.maximumWeight && first != null)
+			cache.evictNode(first.head);
+	}
+
+	/**
+	 * 从桶中删除节点,桶空了就删除桶
+	 */
+	void remove(Bucket<K, V> b, Cache.Node<K, V> n) {
+		b.remove(n);
+		if (b.isEmpty()) {
+			Bucket<K, V> p = b.prev, a = b.next;
+			if (p == null)
+				first = a;
+			else
+				p.next = a;
+			if (a != null)
+				a.prev = p;
+		}
+	}
+}
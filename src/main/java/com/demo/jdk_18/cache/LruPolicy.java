@@ -0,0 +1,26 @@
+package com.demo.jdk_18.cache;
+
+/**
+ * 淘汰最久没有访问的节点
+ */
+final class LruPolicy<K, V> extends Policy<K, V> {
+
+	final NodeDeque<K, V> deque = new NodeDeque<>();
+
+	void onAdd(Cache.Node<K, V> n) {
+		deque.addLast(n);
+	}
+
+	void onHit(Cache.Node<K, V> n) {
+		deque.moveToLast(n);
+	}
+
+	void onRemove(Cache.Node<K, V> n) {
+		deque.remove(n);
+	}
+
+	void evict(Cache<K, V> cache) {
+		while (cache.weightedSize > cache.maximumWeight && !deque.isEmpty())
+			cache.evictNode(deque.head);
+	}
+}
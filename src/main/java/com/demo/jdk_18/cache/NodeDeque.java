@@ -0,0 +1,52 @@
+package com.demo.jdk_18.cache;
+
+/**
+ * 侵入式的双向链表,节点通过prev/next链接,记录所在的链表和总权重
+ */
+class NodeDeque<K, V> {
+
+	Cache.Node<K, V> head; // 最早加入的节点
+
+	Cache.Node<K, V> tail;
+
+	long weight;
+
+	final boolean isEmpty() {
+		return head == null;
+	}
+
+	final void addLast(Cache.Node<K, V> n) {
+		Cache.Node<K, V> t = tail;
+		n.deque = this;
+		n.prev = t;
+		n.next = null;
+		if (t == null)
+			head = n;
+		else
+			t.next = n;
+		tail = n;
+		weight += n.weight;
+	}
+
+	final void remove(Cache.Node<K, V> n) {
+		Cache.Node<K, V> p = n.prev, a = n.next;
+		if (p == null)
+			head = a;
+		else
+			p.next = a;
+		if (a == null)
+			tail = p;
+		else
+			a.prev = p;
+		n.prev = n.next = null;
+		n.deque = null;
+		weight -= n.weight;
+	}
+
+	final void moveToLast(Cache.Node<K, V> n) {
+		if (tail != n) {
+			remove(n);
+			addLast(n);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.demo.jdk_18.cache;
+
+/**
+ * 淘汰策略,维护节点的顺序并在缓存超出最大权重时选择淘汰的节点.由缓存在持有锁时调用
+ */
+abstract class Policy<K, V> {
+
+	/**
+	 * 新的节点加入缓存
+	 */
+	abstract void onAdd(Cache.Node<K, V> n);
+
+	/**
+	 * 节点被读取或者覆盖
+	 */
+	abstract void onHit(Cache.Node<K, V> n);
+
+	/**
+	 * 查询不到key
+	 */
+	void onMiss(Object key) {
+	}
+
+	/**
+	 * 节点被删除,过期或者淘汰
+	 */
+	abstract void onRemove(Cache.Node<K, V> n);
+
+	/**
+	 * 通过cache.evictNode淘汰节点,直到缓存的总权重不超过最大值
+	 */
+	abstract void evict(Cache<K, V> cache);
+}
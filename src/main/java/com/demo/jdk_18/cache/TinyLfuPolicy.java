@@ -0,0 +1,93 @@
+package com.demo.jdk_18.cache;
+
+/**
+ * W-TinyLFU: 新节点先进入容量1%的LRU窗口,窗口淘汰的节点作为候选者进入主区域,和主区域的受害者比较估计的访问频率,
+ * 频率低的被淘汰.主区域是分段LRU,probation中再次访问的节点升级到protected(主区域的80%),protected超出时
+ * 最久没有访问的节点降级到probation.
+ *
+ * <p>
+ * A one-off scan therefore only churns the window and the probation
+ * segment: scanned keys have a frequency of one and lose against any
+ * entry that was used more than once recently.
+ */
+final class TinyLfuPolicy<K, V> extends Policy<K, V> {
+
+	final NodeDeque<K, V> window = new NodeDeque<>();
+
+	final NodeDeque<K, V> probation = new NodeDeque<>();
+
+	final NodeDeque<K, V> protect = new NodeDeque<>();
+
+	final long windowMaximum;
+
+	final long protectedMaximum;
+
+	final FrequencySketch sketch;
+
+	int count;
+
+	TinyLfuPolicy(long maximumWeight) {
+		windowMaximum = Math.max(1L, maximumWeight / 100L);
+		protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8d);
+		sketch = new FrequencySketch(16);
+	}
+
+	void onAdd(Cache.Node<K, V> n) {
+		sketch.ensureCapacity(++count);
+		sketch.increment(n.key);
+		window.addLast(n);
+	}
+
+	void onHit(Cache.Node<K, V> n) {
+		sketch.increment(n.key);
+		NodeDeque<K, V> d = n.deque;
+		if (d == probation) {
+			probation.remove(n);
+			protect.addLast(n);
+			while (protect.weight > protectedMaximum && protect.head != n) {
+				Cache.Node<K, V> e = protect.head;
+				protect.remove(e);
+				probation.addLast(e);
+			}
+		} else
+			d.moveToLast(n);
+	}
+
+	void onMiss(Object key) {
+		sketch.increment(key);
+	}
+
+	void onRemove(Cache.Node<K, V> n) {
+		--count;
+		n.deque.remove(n);
+	}
+
+	void evict(Cache<K, V> cache) {
+		// 窗口超出的节点移到probation的尾部,从candidate到尾部都是候选者
+		Cache.Node<K, V> candidate = null;
+		while (window.weight > windowMaximum) {
+			Cache.Node<K, V> n = window.head;
+			window.remove(n);
+			probation.addLast(n);
+			if (candidate == null)
+				candidate = n;
+		}
+		while (cache.weightedSize > cache.maximumWeight) {
+			Cache.Node<K, V> victim = probation.head;
+			if (candidate == null) {
+				if (victim == null && (victim = protect.head) == null && (victim = window.head) == null)
+					break;
+				cache.evictNode(victim);
+				continue;
+			}
+			if (victim == candidate)
+				victim = protect.head;
+			if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+				Cache.Node<K, V> next = candidate.next;
+				cache.evictNode(candidate);
+				candidate = next;
+			} else
+				cache.evictNode(victim);
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.demo.jdk_18.cache;
+
+/**
+ * 计算缓存项的权重,用于按总权重而不是个数限制缓存.
+ *
+ * <p>
+ * The weight of an entry is computed once, when it is written, and must
+ * not be negative. An entry of weight zero does not count toward the
+ * maximum weight, but it is still evicted in policy order like any other
+ * entry while the cache is over its maximum.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+	/**
+	 * Returns the weight of the entry.
+	 */
+	int weigh(K key, V value);
+}
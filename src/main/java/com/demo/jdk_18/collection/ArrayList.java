@@ -33,90 +33,90 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	private static final long serialVersionUID = 8683452581122892189L;
 
 	/**
-	 * ĬϵĳʼС(ʼʱʹ)
+	 * 默认的初始化大小(初始化时不传集合容量使用)
 	 */
 	private static final int DEFAULT_CAPACITY = 10;
 
 	/**
-	 * ʾյ
+	 * 表示空的数组
 	 */
 	private static final Object[] EMPTY_ELEMENTDATA = {};
 
 	/**
-	 * ,DEFAULT_CAPACITYһʹ
+	 * 空数组,和DEFAULT_CAPACITY一起使用
 	 */
 	private static final Object[] DEFAULTCAPACITY_EMPTY_ELEMENTDATA = {};
 
 	/**
-	 * 漯Ԫص
-	 * (ʹĬϵлʽ,ΪelementDataкܶ໹ûʹõ,ᵼ±л,ʹwriteObjectelementDataл)
+	 * 保存集合元素的数组
+	 * (不使用默认的序列化方式,因为可能elementData后面有很多还没使用到的数据,会导致被序列化,使用writeObject进行elementData的序列化)
 	 */
 	transient Object[] elementData; // non-private to simplify nested class
 									// access
 
 	/**
-	 * бԪصĴС
+	 * 集合中保存的元素的大小
 	 *
 	 * @serial
 	 */
 	private int size;
 
 	/**
-	 * ָlistĴС
+	 * 指定list的大小
 	 *
 	 * @param initialCapacity
-	 *            listĳʼС
+	 *            list的初始化大小
 	 * @throws IllegalArgumentException
-	 *             ʼֵС0׳Ĳ쳣
+	 *             初始化的值小于0，抛出错误的参数异常
 	 */
 	public ArrayList(int initialCapacity) {
 		if (initialCapacity > 0) {
-			// ʼֵ0,һinitialCapacityСObject
+			// 初始化值大于0,创建一个initialCapacity大小的Object数组
 			this.elementData = new Object[initialCapacity];
 		} else if (initialCapacity == 0) {
-			// ʼС0鸳ֵΪ
+			// 初始化大小等于0，将数组赋值为空
 			this.elementData = EMPTY_ELEMENTDATA;
 		} else {
-			// ׳쳣
+			// 抛出异常
 			throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
 		}
 	}
 
 	/**
-	 * ָlistС,鸳ֵΪĬϵĿ
+	 * 不指定list大小,将数组赋值为默认的空数组
 	 */
 	public ArrayList() {
-		// EMPTY_ELEMENTDATA,ʱ,elementDataDEFAULTCAPACITY_EMPTY_ELEMENTDATAôʼСΪ101
+		// 和EMPTY_ELEMENTDATA有区别,在扩容时,如果elementData是DEFAULTCAPACITY_EMPTY_ELEMENTDATA，那么初始化大小为10，否则是1
 		this.elementData = DEFAULTCAPACITY_EMPTY_ELEMENTDATA;
 	}
 
 	/**
-	 * ݴļϹһµ
+	 * 根据传入的集合构造一个新的数组
 	 *
 	 * @param c
-	 *            ļ
+	 *            传入的集合
 	 * @throws NullPointerException
-	 *             null,׳ָ쳣
+	 *             集合是null,抛出空指针异常
 	 */
 	public ArrayList(Collection<? extends E> c) {
-		// һµ
+		// 创建一个新的数组
 		elementData = c.toArray();
 		if ((size = elementData.length) != 0) {
 			// c.toArray might (incorrectly) not return Object[] (see 6260652)
-			// elementDataObject[]
-			// صInteger[],ô,elementData͵Ԫ
-			// ȻArrayListʱδָͣStringԪؾͻ
+			// elementData数组必须是Object[]类型
+			// 如果返回的是Integer[],那么,elementData将不能再添加其他类型的元素了
+			// 然而当创建ArrayList时未指定泛型，添加String元素就会有问题
 			if (elementData.getClass() != Object[].class)
-				// ֵΪObject[]
+				// 赋值为Object[]
 				elementData = Arrays.copyOf(elementData, size, Object[].class);
 		} else {
-			// Ϊ,յF
+			// 参数为空,创建空的数组F
 			this.elementData = EMPTY_ELEMENTDATA;
 		}
 	}
 
 	/**
-	 * ĳȲüΪϴС
+	 * 将数组的长度裁剪为集合大小
 	 */
 	public void trimToSize() {
 		modCount++;
@@ -147,13 +147,13 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * 
+	 * 容量不够进行扩容
 	 * 
 	 * @param minCapacity
 	 */
 	private void ensureCapacityInternal(int minCapacity) {
 		if (elementData == DEFAULTCAPACITY_EMPTY_ELEMENTDATA) {
-			// ʼδָ,ĬֵDEFAULT_CAPACITY(10)
+			// 初始化未指定容量,容量的默认值就是DEFAULT_CAPACITY(10)
 			minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
 		}
 
@@ -161,46 +161,46 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * 
+	 * 扩容
 	 * 
 	 * @param minCapacity
 	 */
 	private void ensureExplicitCapacity(int minCapacity) {
-		// ɾļ+1
+		// 增删查的计数器+1
 		modCount++;
 
 		// overflow-conscious code
 		if (minCapacity - elementData.length > 0)
-			// Ҫ,
+			// 需要的容量比数组大,进行扩容
 			grow(minCapacity);
 	}
 
 	/**
-	 *  OutOfMemoryError: Requested array size exceeds VM limit
+	 * 集合最大容量 OutOfMemoryError: Requested array size exceeds VM limit
 	 */
 	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
 
 	/**
-	 * 
+	 * 扩容
 	 * 
 	 * @param minCapacity
 	 *            the desired minimum capacity
 	 */
 	private void grow(int minCapacity) {
 		// overflow-conscious code
-		// ɵ
+		// 旧的容量
 		int oldCapacity = elementData.length;
-		// µΪΪɵ1.5
+		// 新的容量为为旧的1.5倍
 		int newCapacity = oldCapacity + (oldCapacity >> 1);
 		if (newCapacity - minCapacity < 0)
-			// µҪС,µֵΪҪ
+			// 新的容量比需要的小,新的容量赋值为需要的容量
 			newCapacity = minCapacity;
 		if (newCapacity - MAX_ARRAY_SIZE > 0)
-			// µֵ
-			// ҪݴС
+			// 新的容量超过最大值
+			// 根据需要的容量计算扩容大小
 			newCapacity = hugeCapacity(minCapacity);
 		// minCapacity is usually close to size, so this is a win:
-		// ɵݸ
+		// 拷贝旧的数据给数组
 		elementData = Arrays.copyOf(elementData, newCapacity);
 	}
 
@@ -211,7 +211,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ؼԪ
+	 * 返回集合元素数量
 	 *
 	 */
 	public int size() {
@@ -220,25 +220,25 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 
 	/**
 	 *
-	 * @return true=û,false=
+	 * @return true=集合没有数据,false=有数据
 	 */
 	public boolean isEmpty() {
 		return size == 0;
 	}
 
 	/**
-	 * жϼǷԪ
+	 * 判断集合是否包含元素
 	 * 
 	 * @param o
-	 *            ǷԪ
-	 * @return true=,false=
+	 *            是否包含的元素
+	 * @return true=包含,false=不包含
 	 */
 	public boolean contains(Object o) {
 		return indexOf(o) >= 0;
 	}
 
 	/**
-	 * ѯԪoڼеĵһλ,-1=вڸԪ
+	 * 查询元素o所在集合中的第一个位置,-1=集合中不存在该元素
 	 */
 	public int indexOf(Object o) {
 		if (o == null) {
@@ -254,11 +254,11 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ؼһԪص,-1=вԪ
+	 * 返回集合中最后一个包含该元素的索引,-1=集合中不包含该元素
 	 */
 	public int lastIndexOf(Object o) {
 		if (o == null) {
-			// βǰ
+			// 从尾部向前遍历
 			for (int i = size - 1; i >= 0; i--)
 				if (elementData[i] == null)
 					return i;
@@ -271,7 +271,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * (ǳ)
+	 * 拷贝数据(浅拷贝)
 	 * 
 	 * @return a clone of this <tt>ArrayList</tt> instance
 	 */
@@ -288,18 +288,18 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ת(һԪصõĿ)
+	 * 将集合转化成数组(返回一个集合元素的引用的拷贝)
 	 */
 	public Object[] toArray() {
 		return Arrays.copyOf(elementData, size);
 	}
 
 	/**
-	 * һָ͵
+	 * 返回一个指定类型的数组
 	 * 
 	 * @param a
-	 *            ָ
-	 * @return ָ͵
+	 *            指定的类型
+	 * @return 指定类型的数组
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> T[] toArray(T[] a) {
@@ -320,7 +320,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * λòѯԪ
+	 * 根据位置查询元素
 	 * 
 	 * @param index
 	 *            index of the element to return
@@ -335,13 +335,13 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * 滻ָλõԪ
+	 * 替换指定位置的元素
 	 * 
 	 * @param index
-	 *            Ҫ滻λ
+	 *            需要被替换的位置
 	 * @param element
-	 *            滻Ԫ
-	 * @return Ԫ
+	 *            替换的新元素
+	 * @return 老元素
 	 * @throws IndexOutOfBoundsException
 	 *             {@inheritDoc}
 	 */
@@ -354,11 +354,11 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * һԪصβ
+	 * 添加一个元素到尾部
 	 *
 	 * @param e
-	 *            ҪӵԪ
-	 * @return true=ӳɹ,false=ʧ
+	 *            需要添加的元素
+	 * @return true=添加成功,false=添加失败
 	 */
 	public boolean add(E e) {
 		ensureCapacityInternal(size + 1); // Increments modCount!!
@@ -367,72 +367,72 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ָλһԪ
+	 * 在指定位置添加一个元素
 	 * 
 	 * @param index
-	 *            Ԫصλ
+	 *            添加元素的位置
 	 * @param element
 	 *            element to be inserted
 	 * @throws IndexOutOfBoundsException
 	 *             {@inheritDoc}
 	 */
 	public void add(int index, E element) {
-		// ָλǷ֮
+		// 检查指定的索引位置是否在数组之间
 		rangeCheckForAdd(index);
 
 		ensureCapacityInternal(size + 1); // Increments modCount!!
-		// indexԼindex֮Ԫƶһ
+		// 将index以及index之后的元素向后移动一格
 		System.arraycopy(elementData, index, elementData, index + 1, size - index);
-		// indexλ¸ֵΪµԪ
+		// index位置重新赋值为新的元素
 		elementData[index] = element;
-		// Сһ
+		// 数组大小加一
 		size++;
 	}
 
 	/**
-	 * ɾָλõԪ
+	 * 删除指定位置的元素
 	 * 
 	 * @param index
-	 *            ɾλ
-	 * @return ɾԪ
+	 *            被删除的位置
+	 * @return 被删除的元素
 	 * @throws IndexOutOfBoundsException
 	 *             {@inheritDoc}
 	 */
 	public E remove(int index) {
 		rangeCheck(index);
-		// һ
+		// 计数器加一
 		modCount++;
-		// ¼indexλõԪ
+		// 记录index位置的元素
 		E oldValue = elementData(index);
 
 		int numMoved = size - index - 1;
 		if (numMoved > 0)
-			// indexԪǰƶһ
+			// 将index后面的元素向前移动一格
 			System.arraycopy(elementData, index + 1, elementData, index, numMoved);
-		// һԪΪnull,Ϊ˸õgc
+		// 最后一个元素置为null,为了更好的gc
 		elementData[--size] = null; // clear to let GC do its work
 
 		return oldValue;
 	}
 
 	/**
-	 * ɾкoȵԪ
+	 * 删除所有和o相等的元素
 	 * 
 	 * @param o
-	 *            ҪɾԪ
-	 * @return true=ɾɹ,false=ɾʧ
+	 *            需要删除的元素
+	 * @return true=删除成功,false=删除失败
 	 */
 	public boolean remove(Object o) {
-		// nullͷnullǷֹnullıȽ(Ȼ1.8Objects.equalsԽ,Ҫ1.8֮ǰİ汾)
+		// 区分null和非null是防止null对象的比较(虽然1.8Objects.equals可以解决,但是需要兼容1.8之前的版本)
 		if (o == null) {
-			// ҪɾĶnull
+			// 需要删除的对象是null
 			for (int index = 0; index < size; index++)
 				if (elementData[index] == null) {
 					fastRemove(index);
 					return true;
 				}
 		} else {
-			// ҪɾĶnull
+			// 需要删除的对象不是是null
 			for (int index = 0; index < size; index++)
 				if (o.equals(elementData[index])) {
 					fastRemove(index);
@@ -443,20 +443,20 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/*
-	 * ɾindexλõԪ
+	 * 删除index位置的元素
 	 */
 	private void fastRemove(int index) {
-		// һ
+		// 计数器加一
 		modCount++;
 		int numMoved = size - index - 1;
 		if (numMoved > 0)
-			// indexλ֮Ԫǰƶһ
+			// 将index位置之后的元素往前移动一格
 			System.arraycopy(elementData, index + 1, elementData, index, numMoved);
 		elementData[--size] = null; // clear to let GC do its work
 	}
 
 	/**
-	 * ռϵԪ(ֻǽΪnull,ɾ,֮ǰС䣬ռڴ)
+	 * 清空集合的元素(只是将数组的所有数据置为null,并不是删除数组,所以之前的数组大小不变，还在占用内存)
 	 */
 	public void clear() {
 		modCount++;
@@ -469,34 +469,34 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ׷ӼԪصβ
+	 * 追加集合元素到尾部
 	 * 
 	 * @param c
-	 *            Ҫ׷ӵļ
-	 * @return true=ӳɹ,false=Ԫ>0
+	 *            需要追加的集合
+	 * @return true=添加成功,false=添加元素>0
 	 * @throws NullPointerException
-	 *             null,׳ָ쳣
+	 *             集合是null,抛出空指针异常
 	 */
 	public boolean addAll(Collection<? extends E> c) {
-		// ת
+		// 将参数转化成数组
 		Object[] a = c.toArray();
 		int numNew = a.length;
 		ensureCapacityInternal(size + numNew); // Increments modCount
-		// µ鵽elementDataβ
+		// 拷贝新的数组到elementData尾部
 		System.arraycopy(a, 0, elementData, size, numNew);
-		// ϴСı
+		// 集合大小改变
 		size += numNew;
 		return numNew != 0;
 	}
 
 	/**
-	 * indexλ()뼯
+	 * 在index位置(包含)插入集合
 	 *
 	 * @param index
-	 *            ݵʼλ
+	 *            插入数据的起始位置
 	 * @param c
-	 *            ҪԪؼ
-	 * @return true=ӳɹ,false=Ԫ<=0
+	 *            需要插入的元素集合
+	 * @return true=添加成功,false=添加元素<=0
 	 * @throws IndexOutOfBoundsException
 	 *             {@inheritDoc}
 	 * @throws NullPointerException
@@ -511,17 +511,17 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 
 		int numMoved = size - index;
 		if (numMoved > 0)
-			// indexԼƶaĳ
+			// 将index以及后面的向后移动数组a的长度
 			System.arraycopy(elementData, index, elementData, index + numNew, numMoved);
-		// indexλÿa
+		// 从index位置拷贝数组a
 		System.arraycopy(a, 0, elementData, index, numNew);
-		// ı伯ϴС
+		// 改变集合大小
 		size += numNew;
 		return numNew != 0;
 	}
 
 	/**
-	 * ɾfromIndextoIndex֮Ԫ
+	 * 删除fromIndex和toIndex之间的元素
 	 */
 	protected void removeRange(int fromIndex, int toIndex) {
 		modCount++;
@@ -537,7 +537,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ָλǷ񳬹()listС
+	 * 检查指定位置是否超过(包含)list大小
 	 */
 	private void rangeCheck(int index) {
 		if (index >= size)
@@ -562,10 +562,10 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ɾָļеԪ
+	 * 删除指定的集合中的元素
 	 * 
 	 * @param c
-	 *            ָļ
+	 *            指定的集合
 	 * @return {@code true} if this list changed as a result of the call
 	 */
 	public boolean removeAll(Collection<?> c) {
@@ -574,10 +574,10 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ָеԪ
+	 * 保留指定集合中的元素
 	 *
 	 * @param c
-	 *            ָļ
+	 *            指定的集合
 	 * @return {@code true} if this list changed as a result of the call
 	 * @see Collection#contains(Object)
 	 */
@@ -587,12 +587,12 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ɾԪ
+	 * 批量删除元素
 	 * 
 	 * @param c
-	 *            ҪɾԪؼ
+	 *            需要删除的元素集合
 	 * @param complement
-	 *            false=ҪcԪ,true=෴
+	 *            false=留下需要集合c不包含的元素,true=相反
 	 * @return
 	 */
 	private boolean batchRemove(Collection<?> c, boolean complement) {
@@ -600,28 +600,28 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		int r = 0, w = 0;
 		boolean modified = false;
 		try {
-			// 
+			// 遍历集合
 			for (; r < size; r++)
-				// ǷcomplementȽ
+				// 参数集合是否包含和complement比较
 				if (c.contains(elementData[r]) == complement)
-					// ҪµԪԭʼ0ʼ
+					// 将需要留下的元素在原始数组从0开始复制
 					elementData[w++] = elementData[r];
 		} finally {
 			// Preserve behavioral compatibility with AbstractCollection,
 			// even if c.contains() throws.
 			if (r != size) {
-				// ʾ쳣
+				// 表示上面出现异常
 				System.arraycopy(elementData, r, elementData, w, size - r);
 				w += size - r;
 			}
 			if (w != size) {
-				// ʾɾԪ
+				// 表示有删除的元素
 				// clear to let GC do its work
 				for (int i = w; i < size; i++)
 					elementData[i] = null;
-				// ɾԪظ
+				// 计算器加上删除的元素个数
 				modCount += size - w;
-				// ϴСΪɾԪشС
+				// 集合大小变为删除后的元素大小
 				size = w;
 				modified = true;
 			}
@@ -630,7 +630,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * л
+	 * 序列化方法
 	 *
 	 * @serialData The length of the array backing the <tt>ArrayList</tt>
 	 *             instance is emitted (int), followed by all of its elements
@@ -639,12 +639,12 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	private void writeObject(java.io.ObjectOutputStream s) throws java.io.IOException {
 		// Write out element count, and any hidden stuff
 		int expectedModCount = modCount;
-		// ʹĬϵллǾ̬δtraisentεı
+		// 使用默认的序列化方法序列化非静态和未被traisent修饰的变量
 		s.defaultWriteObject();
-		// д뼯ϴС
+		// 写入集合大小
 		s.writeInt(size);
 
-		// лʾϵ
+		// 序列化表示集合的数组
 		for (int i = 0; i < size; i++) {
 			s.writeObject(elementData[i]);
 		}
@@ -655,21 +655,21 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * л
+	 * 反序列化
 	 */
 	private void readObject(java.io.ObjectInputStream s) throws java.io.IOException, ClassNotFoundException {
 		elementData = EMPTY_ELEMENTDATA;
-		// ȡдֶ
+		// 读取写入的字段
 		s.defaultReadObject();
-		// ȡϴС
+		// 读取集合大小
 		s.readInt(); // ignored
 
 		if (size > 0) {
-			// лͬȴС
+			// 创建序列化数组同等大小的数组
 			ensureCapacityInternal(size);
 
 			Object[] a = elementData;
-			// ȡл
+			// 读取序列化的数组
 			for (int i = 0; i < size; i++) {
 				a[i] = s.readObject();
 			}
@@ -722,18 +722,18 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ϵĵʵ(ֻ)
+	 * 集合的迭代器实现(只能向后迭代)
 	 */
 	private class Itr implements Iterator<E> {
-		// ¼һԪ
+		// 记录迭代的下一个元素
 		int cursor; // index of next element to return
-		// ¼һαԪ
+		// 记录上一次被迭代的元素
 		int lastRet = -1; // index of last element returned; -1 if no such
-		// ,мϲܱ޸
+		// 操作计数器,迭代过程中集合不能被修改
 		int expectedModCount = modCount;
 
 		/**
-		 * ǷһԪ
+		 * 是否包含下一个元素
 		 * 
 		 * @return
 		 */
@@ -742,7 +742,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * ѯǰԪ
+		 * 查询当前迭代的元素
 		 * 
 		 * @return
 		 */
@@ -755,28 +755,28 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 			Object[] elementData = ArrayList.this.elementData;
 			if (i >= elementData.length)
 				throw new ConcurrentModificationException();
-			// һҪλ
+			// 下一个需要迭代的位置
 			cursor = i + 1;
-			// صǰԪ
+			// 返回当前元素
 			return (E) elementData[lastRet = i];
 		}
 
 		/**
-		 * ɾǰԪ
+		 * 删除当前迭代的元素
 		 */
 		public void remove() {
-			// ʾδʼǵɾΪnext,lastRet=-1
+			// 表示还未开始迭代或者是调用删除后为调用next,导致lastRet=-1
 			if (lastRet < 0)
 				throw new IllegalStateException();
 			checkForComodification();
 
 			try {
-				// ɾ֮ǰԪ(ҲnextǸԪ)
+				// 删除之前迭代的元素(也就是最后调用next的那个元素)
 				ArrayList.this.remove(lastRet);
-				// һελΪǰλ(ΪɾǰԪغһԪǰƶһҲռɾԪصλ)
+				// 将下一次迭代的位置置为当前迭代的位置(因为删除当前迭代的元素后，下一个元素是向前移动一格，也就是占用了删除的元素的位置)
 				cursor = lastRet;
 				lastRet = -1;
-				// ¼
+				// 更新计数器
 				expectedModCount = modCount;
 			} catch (IndexOutOfBoundsException ex) {
 				throw new ConcurrentModificationException();
@@ -784,7 +784,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * ʣµԪ,ÿԪؽconsumer
+		 * 遍历迭代剩下的元素,对每个元素进行consumer处理
 		 * 
 		 * @param consumer
 		 */
@@ -802,7 +802,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 				throw new ConcurrentModificationException();
 			}
 			while (i != size && modCount == expectedModCount) {
-				// 
+				// 消费数据
 				consumer.accept((E) elementData[i++]);
 			}
 			// update once at end of iteration to reduce heap write traffic
@@ -812,7 +812,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * true=ϱ޸,false=
+		 * true=集合被修改,false=否
 		 */
 		final void checkForComodification() {
 			if (modCount != expectedModCount)
@@ -821,7 +821,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ǰ,ԼһЩӣɾµĲ
+	 * 迭代器，可以向前迭代,以及迭代过程中做一些添加，删除，更新的操作
 	 */
 	private class ListItr extends Itr implements ListIterator<E> {
 		ListItr(int index) {
@@ -842,7 +842,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * ǰһԪ
+		 * 返回前一个元素
 		 * 
 		 * @return
 		 */
@@ -860,7 +860,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * ޸ĵǰԪ
+		 * 修改当前迭代的元素
 		 * 
 		 * @param e
 		 */
@@ -877,7 +877,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * ǰλһԪ
+		 * 当前迭代位置添加一个元素
 		 * 
 		 * @param e
 		 */
@@ -947,14 +947,14 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 
 	/**
 	 * 
-	 * ϵͼжSubListĲǶԭʼϵĲ
+	 * 集合的视图，所有对SubList的操作都是对原始集合的操作
 	 *
 	 */
 	private class SubList extends AbstractList<E> implements RandomAccess {
-		private final AbstractList<E> parent;// ʾʵļ
-		private final int parentOffset;// ʾͼǴԭʼǸλÿʼ
-		private final int offset;// ͼĸλÿʼ(û;)
-		int size;// offsetʼȡݵ
+		private final AbstractList<E> parent;// 表示真实的集合
+		private final int parentOffset;// 表示视图是从原始集合那个位置开始
+		private final int offset;// 视图从哪个位置开始处理(没看出用途)
+		int size;// 从offset开始取数据的数量
 
 		SubList(AbstractList<E> parent, int offset, int fromIndex, int toIndex) {
 			this.parent = parent;
@@ -965,24 +965,24 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * ޸ƶλõԪ
+		 * 修改制定位置的元素
 		 * 
 		 * @param index
-		 *            ʾͼλ
+		 *            表示视图的位置
 		 * @param e
 		 * @return
 		 */
 		public E set(int index, E e) {
 			rangeCheck(index);
 			checkForComodification();
-			// offset + indexʾ޸ĵͼԪضӦԭʼϵλ
+			// offset + index表示修改的视图元素对应的原始集合的位置
 			E oldValue = ArrayList.this.elementData(offset + index);
 			ArrayList.this.elementData[offset + index] = e;
 			return oldValue;
 		}
 
 		/**
-		 * ѯͼָλõԪ
+		 * 查询视图指定位置的元素
 		 * 
 		 * @param index
 		 * @return
@@ -994,7 +994,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * ͼĴС
+		 * 返回视图的大小
 		 * 
 		 * @return
 		 */
@@ -1004,7 +1004,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * ͼָλԪ
+		 * 在视图的指定位置添加元素
 		 * 
 		 * @param index
 		 * @param e
@@ -1018,7 +1018,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		}
 
 		/**
-		 * ͼָλɾԪ
+		 * 在视图的指定位置删除元素
 		 * 
 		 * @param index
 		 * @return
@@ -1359,7 +1359,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ɾ(ҳҪɾ->ɾݴ0ʼ)
+	 * 根据条件删除数据(找出需要删除的数据->将不删除的数据从索引0开始放置)
 	 * 
 	 * @param filter
 	 * @return
@@ -1374,12 +1374,12 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		final BitSet removeSet = new BitSet(size);
 		final int expectedModCount = modCount;
 		final int size = this.size;
-		// ҳҪɾ±
+		// 找出需要删除的数据下标
 		for (int i = 0; modCount == expectedModCount && i < size; i++) {
 			@SuppressWarnings("unchecked")
 			final E element = (E) elementData[i];
 			if (filter.test(element)) {
-				// ±bitʶ
+				// 将下标用bit标识
 				removeSet.set(i);
 				removeCount++;
 			}
@@ -1393,12 +1393,12 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		final boolean anyToRemove = removeCount > 0;
 		if (anyToRemove) {
 			final int newSize = size - removeCount;
-			// µݴ0ʼ
+			// 将留下的数据从0开始复制
 			for (int i = 0, j = 0; (i < size) && (j < newSize); i++, j++) {
 				i = removeSet.nextClearBit(i);
 				elementData[j] = elementData[i];
 			}
-			// hΪnull,ʹܱgc
+			// 刪除的数据置为null,使得能被gc
 			for (int k = newSize; k < size; k++) {
 				elementData[k] = null; // Let gc do its work
 			}
@@ -1413,7 +1413,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * ԪoperatorҲʹoperatorĽ滻ԭݣ
+	 * 对所有元素做operator操作（也就是使用operator操作的结果替换原来的数据）
 	 * 
 	 * @param operator
 	 */
@@ -1424,7 +1424,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 		final int expectedModCount = modCount;
 		final int size = this.size;
 		for (int i = 0; modCount == expectedModCount && i < size; i++) {
-			// 滻
+			// 替换数据
 			elementData[i] = operator.apply((E) elementData[i]);
 		}
 		if (modCount != expectedModCount) {
@@ -1434,7 +1434,7 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
 	}
 
 	/**
-	 * 
+	 * 排序
 	 * 
 	 * @param c
 	 */
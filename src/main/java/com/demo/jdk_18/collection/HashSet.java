@@ -28,7 +28,7 @@ package com.demo.jdk_18.collection;
 import java.io.InvalidObjectException;
 
 /**
- * ʵǶhashmapkeyĲ
+ * 其实就是对hashmap的key的操作
  *
  */
 public class HashSet<E> extends AbstractSet<E> implements Set<E>, Cloneable, java.io.Serializable {
@@ -40,28 +40,28 @@ public class HashSet<E> extends AbstractSet<E> implements Set<E>, Cloneable, jav
 	private static final Object PRESENT = new Object();
 
 	/**
-	 * Ĭϵhashmap췽ʼmap
+	 * 调用默认的hashmap构造方法初始化属性map
 	 */
 	public HashSet() {
 		map = new HashMap<>();
 	}
 
 	/**
-	 * ݴļϹset
+	 * 根据传入的集合构造set
 	 *
 	 * @param c
-	 *            ļ
+	 *            传入的集合
 	 * @throws NullPointerException
 	 *             if the specified collection is null
 	 */
 	public HashSet(Collection<? extends E> c) {
-		// cmapĳʼС
+		// 根据c计算map的初始化大小
 		map = new HashMap<>(Math.max((int) (c.size() / .75f) + 1, 16));
 		addAll(c);
 	}
 
 	/**
-	 * setָ
+	 * 创建set集合指定容量和扩容因子
 	 *
 	 * @param initialCapacity
 	 *            the initial capacity of the hash map
@@ -72,12 +72,12 @@ public class HashSet<E> extends AbstractSet<E> implements Set<E>, Cloneable, jav
 	 *             factor is nonpositive
 	 */
 	public HashSet(int initialCapacity, float loadFactor) {
-		// ֱӵhashmapĹ췽
+		// 直接调用hashmap的构造方法
 		map = new HashMap<>(initialCapacity, loadFactor);
 	}
 
 	/**
-	 * setʹ
+	 * 创建set使用容量
 	 *
 	 * @param initialCapacity
 	 *            the initial capacity of the hash table
@@ -89,7 +89,7 @@ public class HashSet<E> extends AbstractSet<E> implements Set<E>, Cloneable, jav
 	}
 
 	/**
-	 * һset(ɼ?)
+	 * 创建一个有序的set(包可见?)
 	 *
 	 */
 	HashSet(int initialCapacity, float loadFactor, boolean dummy) {
@@ -97,7 +97,7 @@ public class HashSet<E> extends AbstractSet<E> implements Set<E>, Cloneable, jav
 	}
 
 	/**
-	 * mapkey
+	 * 返回map的key迭代器
 	 */
 	public Iterator<E> iterator() {
 		return map.keySet().iterator();
@@ -135,7 +135,7 @@ public class HashSet<E> extends AbstractSet<E> implements Set<E>, Cloneable, jav
 	}
 
 	/**
-	 * (ʵmapvalue,ֻvalueֵ)
+	 * 添加数据数据(其实会更新map的value,只是value值不变)
 	 *
 	 * @param e
 	 *            element to be added to this set
@@ -143,12 +143,12 @@ public class HashSet<E> extends AbstractSet<E> implements Set<E>, Cloneable, jav
 	 *         element
 	 */
 	public boolean add(E e) {
-		// hashmapput,nullʾ
+		// 调用hashmap的put方法,null表示添加数据
 		return map.put(e, PRESENT) == null;
 	}
 
 	/**
-	 * ɾԪ
+	 * 删除元素
 	 * 
 	 * @param o
 	 *            object to be removed from this set, if present
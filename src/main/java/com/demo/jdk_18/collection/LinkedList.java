@@ -32,12 +32,12 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	transient int size = 0;
 
 	/**
-	 * ͷ
+	 * 头结点
 	 */
 	transient Node<E> first;
 
 	/**
-	 * βڵ
+	 * 尾节点
 	 */
 	transient Node<E> last;
 
@@ -48,7 +48,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ݴ뼯Ϲһб
+	 * 根据传入集合构造一个列表
 	 * 
 	 * @throws NullPointerException
 	 *             if the specified collection is null
@@ -59,7 +59,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * Ԫӵͷ
+	 * 将元素添加到头结点
 	 */
 	private void linkFirst(E e) {
 		final Node<E> f = first;
@@ -74,24 +74,24 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * Ԫӵβ
+	 * 将元素添加到尾部
 	 */
 	void linkLast(E e) {
 		final Node<E> l = last;
 		final Node<E> newNode = new Node<>(l, e, null);
 		last = newNode;
 		if (l == null)
-			// 
+			// 链表不存在数据
 			first = newNode;
 		else
-			// ڵ
+			// 将新增节点连起来
 			l.next = newNode;
 		size++;
 		modCount++;
 	}
 
 	/**
-	 * nullڵǰ
+	 * 非null节点前添加数据
 	 */
 	void linkBefore(E e, Node<E> succ) {
 		// assert succ != null;
@@ -99,7 +99,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 		final Node<E> newNode = new Node<>(pred, e, succ);
 		succ.prev = newNode;
 		if (pred == null)
-			// ͷӽڵ
+			// 头部添加节点
 			first = newNode;
 		else
 			pred.next = newNode;
@@ -146,7 +146,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ɾڵx
+	 * 删除节点x
 	 */
 	E unlink(Node<E> x) {
 		// assert x != null;
@@ -155,27 +155,27 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 		final Node<E> prev = x.prev;
 
 		if (prev == null) {
-			// hͷ,ͷΪһڵ
+			// 刪除的是头结点,头结点变为下一个节点
 			first = next;
 		} else {
-			// ǰһڵnextָx.next
+			// 变更前一个节点的next指向x.next
 			prev.next = next;
-			// һӦûɶӰ(ֹxõprev޸ģ)
+			// 这一步应该没啥影响(防止根据x得到prev对齐进行修改？？)
 			x.prev = null;
 		}
 
 		if (next == null) {
-			// ɾβڵ
-			// βڵΪǰһڵ
+			// 删除的是尾节点
+			// 更新尾节点为前一个节点
 			last = prev;
 		} else {
-			// ɾĲβڵ
-			// һڵprevָx.prev
+			// 删除的不是尾节点
+			// 更新下一个节点的prev指向x.prev
 			next.prev = prev;
-			// ͬx.prev = null;
+			// 同上x.prev = null;
 			x.next = null;
 		}
-		// ûɶӰɣ
+		// 没啥影响吧？
 		x.item = null;
 		size--;
 		modCount++;
@@ -333,10 +333,10 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ׷ӼԪ
+	 * 追加集合元素
 	 *
 	 * @param c
-	 *            Ҫӵļ
+	 *            需要添加的集合
 	 * @return {@code true} if this list changed as a result of the call
 	 * @throws NullPointerException
 	 *             if the specified collection is null
@@ -346,12 +346,12 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ָλӼԪ
+	 * 在指定位置添加集合元素
 	 *
 	 * @param index
-	 *            ݵλ
+	 *            插入数据的位置
 	 * @param c
-	 *            ҪӵԪؼ
+	 *            需要添加的元素集合
 	 * @return {@code true} if this list changed as a result of the call
 	 * @throws IndexOutOfBoundsException
 	 *             {@inheritDoc}
@@ -364,10 +364,10 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 		Object[] a = c.toArray();
 		int numNew = a.length;
 		if (numNew == 0)
-			// 뼯ǿռ
+			// 传入集合是空集合
 			return false;
 
-		Node<E> pred, succ;// indexǰһڵindexڵĽڵ
+		Node<E> pred, succ;// index的前一个节点和index所在的节点
 		if (index == size) {
 			succ = null;
 			pred = last;
@@ -375,46 +375,46 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 			succ = node(index);
 			pred = succ.prev;
 		}
-		// 
+		// 遍历参数集合
 		for (Object o : a) {
 			@SuppressWarnings("unchecked")
 			E e = (E) o;
-			// ½һڵ
+			// 新建一个节点
 			Node<E> newNode = new Node<>(pred, e, null);
 			if (pred == null)
-				// ǰӵͷ
+				// 如果当前添加的是头结点
 				first = newNode;
 			else
-				// һڵ
+				// 将下一个节点连起来
 				pred.next = newNode;
 			pred = newNode;
 		}
 
 		if (succ == null) {
-			// ʵβ,βڵ㣬pred֮һڵ
+			// 如果实在尾部添加数据,更新链表的尾节点，pred是添加完数据之后的最后一个节点
 			last = pred;
 		} else {
-			// Ϊβڵ,ݺҪindexԼ֮
+			// 不是在为尾节点添加数据,添加完数据后需要将index以及之后的链表连起来
 			pred.next = succ;
 			succ.prev = pred;
 		}
-		// С仯
+		// 链表大小变化
 		size += numNew;
-		// һ
+		// 操作计数器加一
 		modCount++;
 		return true;
 	}
 
 	/**
-	 * ɾԪ
+	 * 删除链表的所有元素
 	 */
 	public void clear() {
 		// Clearing all of the links between nodes is "unnecessary", but:
 		// - helps a generational GC if the discarded nodes inhabit
 		// more than one generation
 		// - is sure to free memory even if there is a reachable Iterator
-		// һǱģΪֻҪfirst,lastΪnull,ͻᱻGC
-		// Ӣע:ҲǺҪ
+		// 这一步不是必须的，因为只要first,last被置为null,就会被GC。
+		// 英文注释:我不是很明白那种条件需要这样做。
 		for (Node<E> x = first; x != null;) {
 			Node<E> next = x.next;
 			x.item = null;
@@ -422,7 +422,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 			x.prev = null;
 			x = next;
 		}
-		// һܱ֤GC
+		// 这一步就能能保证GC回收了
 		first = last = null;
 		size = 0;
 		modCount++;
@@ -431,10 +431,10 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	// Positional Access Operations
 
 	/**
-	 * ѯָλõԪأòҪʹַʽ,ΪǴͷߴβʼindexڵԪصģ
+	 * 查询指定位置的元素（最好不要使用这种方式,因为是从头或者从尾部开始找index所在的元素的）
 	 * 
 	 * @param index
-	 *            ָλõ
+	 *            指定位置的索引
 	 * @return the element at the specified position in this list
 	 * @throws IndexOutOfBoundsException
 	 *             {@inheritDoc}
@@ -445,33 +445,33 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ޸ָλõֵ
+	 * 修改指定位置的值
 	 *
 	 * @param index
-	 *            ָλõ±
+	 *            指定位置的下标
 	 * @param element
-	 *            indexֵ
+	 *            index的新值
 	 * @return the element previously at the specified position
 	 * @throws IndexOutOfBoundsException
 	 *             {@inheritDoc}
 	 */
 	public E set(int index, E element) {
 		checkElementIndex(index);
-		// ҵindexڵĽڵ
+		// 找到index所在的节点
 		Node<E> x = node(index);
 		E oldVal = x.item;
-		// Ϊֵ
+		// 更新为新值
 		x.item = element;
 		return oldVal;
 	}
 
 	/**
-	 * ָλԪ
+	 * 在指定位置添加元素
 	 *
 	 * @param index
-	 *            ±
+	 *            下标
 	 * @param element
-	 *            ӵԪ
+	 *            添加的元素
 	 * @throws IndexOutOfBoundsException
 	 *             {@inheritDoc}
 	 */
@@ -479,18 +479,18 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 		checkPositionIndex(index);
 
 		if (index == size)
-			// β
+			// 在尾部添加
 			linkLast(element);
 		else
-			// β
+			// 不是在尾部添加数据
 			linkBefore(element, node(index));
 	}
 
 	/**
-	 * ɾָλõԪ
+	 * 删除指定位置的元素
 	 * 
 	 * @param index
-	 *            Ԫ±
+	 *            元素下标
 	 * @return the element previously at the specified position
 	 * @throws IndexOutOfBoundsException
 	 *             {@inheritDoc}
@@ -530,7 +530,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * λǷԽ
+	 * 检查给定位置是否越界
 	 * 
 	 * @param index
 	 */
@@ -540,19 +540,19 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ҵindexڵĽڵ
+	 * 找到index所在的节点
 	 */
 	Node<E> node(int index) {
 		// assert isElementIndex(index);
 
 		if (index < (size >> 1)) {
-			// indexǰһ
+			// index在链表的前一半内
 			Node<E> x = first;
 			for (int i = 0; i < index; i++)
 				x = x.next;
 			return x;
 		} else {
-			// indexĺһ
+			// index在链表的后一半内
 			Node<E> x = last;
 			for (int i = size - 1; i > index; i--)
 				x = x.prev;
@@ -563,11 +563,11 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	// Search Operations
 
 	/**
-	 * ݸԪزѯ֮ȵĵһԪڵλ
+	 * 根据给定元素查询与之相等的第一个元素所在的位置
 	 *
 	 * @param o
-	 *            Ԫ
-	 * @return Ԫصλ,-1=ڸԪ
+	 *            给定的元素
+	 * @return 相等元素的位置,-1=不存在该元素
 	 */
 	public int indexOf(Object o) {
 		int index = 0;
@@ -588,11 +588,11 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ȵһԪλ
+	 * 返回链表中与给定数据相等的最后一个元素位置
 	 * 
 	 * @param o
-	 *            oĶ
-	 * @return Ԫصλ,-1=ڸԪ
+	 *            給定的对象
+	 * @return 相等元素的位置,-1=不存在该元素
 	 */
 	public int lastIndexOf(Object o) {
 		int index = size;
@@ -615,7 +615,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	// Queue operations.
 
 	/**
-	 * õͷԪ,֧null
+	 * 得到头结点元素,支持null
 	 */
 	public E peek() {
 		final Node<E> f = first;
@@ -623,14 +623,14 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * õͷ,֧null
+	 * 得到头结点,不支持null
 	 */
 	public E element() {
 		return getFirst();
 	}
 
 	/**
-	 * ѯͷ㲢ɾ֧null
+	 * 查询头结点并删除，支持null
 	 */
 	public E poll() {
 		final Node<E> f = first;
@@ -639,14 +639,14 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 
 	/**
 	 *
-	 * ɾͷ,֧null
+	 * 删除头结点,不支持null
 	 */
 	public E remove() {
 		return removeFirst();
 	}
 
 	/**
-	 * βԪ
+	 * 在尾部添加元素
 	 * 
 	 * @since 1.5
 	 */
@@ -656,7 +656,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 
 	// Deque operations
 	/**
-	 * ͷԪ
+	 * 头部添加元素
 	 * 
 	 */
 	public boolean offerFirst(E e) {
@@ -665,7 +665,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * βԪ
+	 * 尾部添加元素
 	 */
 	public boolean offerLast(E e) {
 		addLast(e);
@@ -673,7 +673,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ѯͷԪأ֧null
+	 * 查询头结点元素，支持null
 	 */
 	public E peekFirst() {
 		final Node<E> f = first;
@@ -681,7 +681,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * βڵԪ,֧null
+	 * 返回尾节点元素,支持null
 	 */
 	public E peekLast() {
 		final Node<E> l = last;
@@ -689,7 +689,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ɾͷԪأڷnull
+	 * 删除头结点元素，不存在返回null
 	 */
 	public E pollFirst() {
 		final Node<E> f = first;
@@ -697,7 +697,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ɾβڵ,ڷnull
+	 * 删除尾节点,不存在返回null
 	 */
 	public E pollLast() {
 		final Node<E> l = last;
@@ -705,21 +705,21 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * Ԫصͷ
+	 * 添加元素到头结点
 	 */
 	public void push(E e) {
 		addFirst(e);
 	}
 
 	/**
-	 * ɾͷ,쳣
+	 * 删除头结点,不存在抛异常
 	 */
 	public E pop() {
 		return removeFirst();
 	}
 
 	/**
-	 * ɾһֵԪ
+	 * 删除第一个出现的元素
 	 */
 	public boolean removeFirstOccurrence(Object o) {
 		return remove(o);
@@ -727,7 +727,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 
 	/**
 	 *
-	 * ɾһֵԪ
+	 * 删除最后一个出现的元素
 	 */
 	public boolean removeLastOccurrence(Object o) {
 		if (o == null) {
@@ -749,7 +749,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * 
+	 * 返回链表迭代器
 	 */
 	public ListIterator<E> listIterator(int index) {
 		checkPositionIndex(index);
@@ -757,7 +757,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ֵ֧ǰԪԼɾ(ArrayList)
+	 * 链表迭代器，支持迭代前后元素以及增删改(和ArrayList类似)
 	 *
 	 */
 	private class ListItr implements ListIterator<E> {
@@ -860,7 +860,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ݵĽڵ
+	 * 存放数据的节点
 	 *
 	 */
 	private static class Node<E> {
@@ -883,7 +883,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ǰĵʹõľListItrĵʽ
+	 * 向前迭代的迭代器（使用的就是ListItr的迭代方式）
 	 */
 	private class DescendingIterator implements Iterator<E> {
 		private final ListItr itr = new ListItr(size());
@@ -911,11 +911,11 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * ǳ
+	 * 浅拷贝
 	 *
 	 */
 	public Object clone() {
-		// (Ӧúnew LinkedListû)
+		// 拷贝链表变量(应该和new LinkedList没区别)
 		LinkedList<E> clone = superClone();
 
 		// Put clone into "virgin" state
@@ -923,7 +923,7 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 		clone.size = 0;
 		clone.modCount = 0;
 
-		// ʹµﲢеĶӦitemָͬĶ
+		// 将链表的数据使用新的链表连起来（这里并不是深拷贝，所以两个链表中的对应的item都是指向相同的对象）
 		for (Node<E> x = first; x != null; x = x.next)
 			clone.add(x.item);
 
@@ -931,78 +931,78 @@ public class LinkedList<E> extends AbstractSequentialList<E>
 	}
 
 	/**
-	 * תΪobject
+	 * 将链表转化为object数组
 	 *
 	 */
 	public Object[] toArray() {
-		// һС
+		// 创建一个链表大小的数组
 		Object[] result = new Object[size];
 		int i = 0;
-		// 
+		// 遍历链表
 		for (Node<E> x = first; x != null; x = x.next)
 			result[i++] = x.item;
 		return result;
 	}
 
 	/**
-	 * һָ͵
+	 * 返回一个指定类型的数组
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> T[] toArray(T[] a) {
 		if (a.length < size)
-			// һT͵ĴСΪsize
+			// 创建一个T类型的大小为size的数组
 			a = (T[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(), size);
 		int i = 0;
-		// һӦǷֹʹa[i++] = x.item״,ʹresult[i++] = x.item
+		// 这一步应该是防止使用a[i++] = x.item抛错,所以使用result[i++] = x.item
 		Object[] result = a;
 		for (Node<E> x = first; x != null; x = x.next)
 			result[i++] = x.item;
 		if (a.length > size)
-			// С(Ǻ,һ㴫aС0,)
+			// 传入的数组大小比链表大(不是很理解,一般传入的a大小都是0,不会走这里)
 			a[size] = null;
 
 		return a;
 	}
 
 	/**
-	 * л汾
+	 * 序列化版本号
 	 */
 	private static final long serialVersionUID = 876323262645176354L;
 
 	/**
-	 * л
+	 * 序列化
 	 * 
 	 */
 	private void writeObject(java.io.ObjectOutputStream s) throws java.io.IOException {
 		// Write out any hidden serialization magic
-		// лǾ̬ͷtraisentֶ
+		// 序列化非静态和非traisent字段
 		s.defaultWriteObject();
 
 		// Write out size
-		// лС
+		// 序列化大小
 		s.writeInt(size);
 
 		// Write out all elements in the proper order.
-		// леÿһԪ
+		// 序列化链表中的每一个元素
 		for (Node<E> x = first; x != null; x = x.next)
 			s.writeObject(x.item);
 	}
 
 	/**
-	 * л
+	 * 反序列化
 	 */
 	@SuppressWarnings("unchecked")
 	private void readObject(java.io.ObjectInputStream s) throws java.io.IOException, ClassNotFoundException {
 		// Read in any hidden serialization magic
-		// лdefaultWriteObjectд
+		// 反序列化defaultWriteObject写入的数据
 		s.defaultReadObject();
 
 		// Read in size
-		// лС
+		// 反序列化大小
 		int size = s.readInt();
 
 		// Read in all elements in the proper order.
-		// лÿԪ
+		// 反序列化每个元素
 		for (int i = 0; i < size; i++)
 			linkLast((E) s.readObject());
 	}
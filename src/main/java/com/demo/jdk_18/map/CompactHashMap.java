@@ -0,0 +1,668 @@
+package com.demo.jdk_18.map;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * 不使用Node对象的HashMap,数据保存在几个平行数组中.
+ *
+ * <p>
+ * Entry <i>i</i> is made of {@code hashes[i]}, {@code keys[i]},
+ * {@code vals[i]} and {@code next[i]}, the index (plus one) of the next
+ * entry in the same bin. The bins themselves hold the index (plus one) of
+ * their first entry, so an empty {@code int[]} needs no initialization.
+ * Entries are kept dense in {@code [0, size)}: a removal moves the last
+ * entry into the gap. Compared to {@link HashMap} this saves the object
+ * header and the reference fields of a node per mapping, about half of the
+ * per-entry overhead, and lookups touch arrays rather than scattered nodes.
+ *
+ * <p>
+ * Hashes are the same as in {@link HashMap}, but bins are never treeified,
+ * so keys with many equal hash codes degrade to linear scans. Iteration
+ * follows insertion order until the first removal.
+ * {@link Map.Entry} objects are only created by the entry set view; they
+ * look their key up again if it has moved. Setting the value of an entry
+ * whose key is no longer in the map throws {@link IllegalStateException}.
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+public class CompactHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Cloneable, Serializable {
+
+	private static final long serialVersionUID = -3175928816342160743L;
+
+	/**
+	 * 数组的最大长度
+	 */
+	static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	/**
+	 * 桶数组,保存桶中第一个数据的下标+1,0表示空桶.第一次添加数据时才创建
+	 */
+	transient int[] table;
+
+	transient int[] hashes;
+
+	transient Object[] keys;
+
+	transient Object[] vals;
+
+	/**
+	 * 同一个桶中下一个数据的下标+1,0表示链表结束
+	 */
+	transient int[] next;
+
+	transient int size;
+
+	transient int modCount;
+
+	/**
+	 * 扩容阈值,数组创建之前保存初始容量
+	 */
+	transient int threshold;
+
+	/**
+	 * 加载因子
+	 *
+	 * @serial
+	 */
+	final float loadFactor;
+
+	transient Set<K> keySetView;
+
+	transient Collection<V> valuesView;
+
+	transient Set<Map.Entry<K, V>> entrySetView;
+
+	/**
+	 * Constructs an empty map that holds {@code initialCapacity} mappings
+	 * without resizing under the given load factor.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the initial capacity is negative or the load factor is
+	 *             nonpositive
+	 */
+	public CompactHashMap(int initialCapacity, float loadFactor) {
+		if (initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		if (loadFactor <= 0 || Float.isNaN(loadFactor))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+		this.loadFactor = loadFactor;
+		this.threshold = Math.min(initialCapacity, MAX_ARRAY_SIZE);
+	}
+
+	public CompactHashMap(int initialCapacity) {
+		this(initialCapacity, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	public CompactHashMap() {
+		this(HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	public CompactHashMap(Map<? extends K, ? extends V> m) {
+		this(m.size(), HashMap.DEFAULT_LOAD_FACTOR);
+		putAll(m);
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int i;
+		return (i = indexOf(key)) < 0 ? null : (V) vals[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(Object key, V defaultValue) {
+		int i;
+		return (i = indexOf(key)) < 0 ? defaultValue : (V) vals[i];
+	}
+
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	public boolean containsValue(Object value) {
+		Object[] vs = vals;
+		for (int i = 0; i < size; ++i) {
+			if (Objects.equals(vs[i], value))
+				return true;
+		}
+		return false;
+	}
+
+	public V put(K key, V value) {
+		return putVal(HashMap.hash(key), key, value, false);
+	}
+
+	public V putIfAbsent(K key, V value) {
+		return putVal(HashMap.hash(key), key, value, true);
+	}
+
+	public void putAll(Map<? extends K, ? extends V> m) {
+		int s = m.size();
+		if (s > 0) {
+			// 先扩容到最终大小,避免添加过程中多次扩容
+			ensureCapacity(size + s);
+			for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+				K key = e.getKey();
+				putVal(HashMap.hash(key), key, e.getValue(), false);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		int hash = HashMap.hash(key);
+		int[] tab;
+		if ((tab = table) == null)
+			return null;
+		int b = hash & (tab.length - 1);
+		for (int prev = -1, i = tab[b] - 1; i >= 0; prev = i, i = next[i] - 1) {
+			Object k;
+			if (hashes[i] == hash && ((k = keys[i]) == key || (key != null && key.equals(k)))) {
+				V oldValue = (V) vals[i];
+				removeAt(i, prev, b);
+				return oldValue;
+			}
+		}
+		return null;
+	}
+
+	public void clear() {
+		modCount++;
+		if (size > 0) {
+			Arrays.fill(table, 0);
+			Arrays.fill(keys, 0, size, null);
+			Arrays.fill(vals, 0, size, null);
+			size = 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		if (action == null)
+			throw new NullPointerException();
+		int mc = modCount;
+		Object[] ks = keys, vs = vals;
+		for (int i = 0; i < size && modCount == mc; ++i)
+			action.accept((K) ks[i], (V) vs[i]);
+		if (modCount != mc)
+			throw new ConcurrentModificationException();
+	}
+
+	@SuppressWarnings("unchecked")
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		if (function == null)
+			throw new NullPointerException();
+		int mc = modCount;
+		Object[] ks = keys, vs = vals;
+		for (int i = 0; i < size && modCount == mc; ++i)
+			vs[i] = function.apply((K) ks[i], (V) vs[i]);
+		if (modCount != mc)
+			throw new ConcurrentModificationException();
+	}
+
+	/**
+	 * Grows the internal arrays, if necessary, to hold {@code expectedSize}
+	 * mappings without further resizing.
+	 */
+	public void ensureCapacity(int expectedSize) {
+		if (table == null) {
+			if (expectedSize > threshold)
+				threshold = Math.min(expectedSize, MAX_ARRAY_SIZE);
+			return;
+		}
+		if (expectedSize > keys.length)
+			growEntries(expectedSize);
+		if (expectedSize > threshold)
+			resize(binsFor(expectedSize));
+	}
+
+	public Set<K> keySet() {
+		Set<K> ks;
+		return (ks = keySetView) == null ? (keySetView = new KeySet()) : ks;
+	}
+
+	public Collection<V> values() {
+		Collection<V> vs;
+		return (vs = valuesView) == null ? (valuesView = new Values()) : vs;
+	}
+
+	public Set<Map.Entry<K, V>> entrySet() {
+		Set<Map.Entry<K, V>> es;
+		return (es = entrySetView) == null ? (entrySetView = new EntrySet()) : es;
+	}
+
+	/* ---------------- Internal operations -------------- */
+
+	/**
+	 * 查找key所在的下标,不存在返回-1
+	 */
+	final int indexOf(Object key) {
+		int[] tab;
+		if ((tab = table) == null)
+			return -1;
+		int hash = HashMap.hash(key);
+		int[] hs = hashes, nx = next;
+		Object[] ks = keys;
+		Object k;
+		for (int i = tab[hash & (tab.length - 1)] - 1; i >= 0; i = nx[i] - 1) {
+			if (hs[i] == hash && ((k = ks[i]) == key || (key != null && key.equals(k))))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * 添加或者更新,新数据追加到数组末尾并放到桶的链表头部
+	 */
+	@SuppressWarnings("unchecked")
+	final V putVal(int hash, K key, V value, boolean onlyIfAbsent) {
+		int[] tab;
+		if ((tab = table) == null)
+			tab = allocate();
+		int b = hash & (tab.length - 1);
+		Object k;
+		for (int i = tab[b] - 1; i >= 0; i = next[i] - 1) {
+			if (hashes[i] == hash && ((k = keys[i]) == key || (key != null && key.equals(k)))) {
+				V oldValue = (V) vals[i];
+				if (!onlyIfAbsent || oldValue == null)
+					vals[i] = value;
+				return oldValue;
+			}
+		}
+		int i = size;
+		if (i == keys.length)
+			growEntries(i + 1);
+		hashes[i] = hash;
+		keys[i] = key;
+		vals[i] = value;
+		next[i] = tab[b];
+		tab[b] = i + 1;
+		++modCount;
+		if (++size > threshold)
+			resize(tab.length << 1);
+		return null;
+	}
+
+	/**
+	 * 删除下标i的数据,prev是链表中的前一个数据(-1表示i是桶的第一个数据),b是所在的桶.
+	 * 删除后把最后一个数据移动到i,保持数据连续
+	 */
+	final void removeAt(int i, int prev, int b) {
+		int[] tab = table;
+		if (prev < 0)
+			tab[b] = next[i];
+		else
+			next[prev] = next[i];
+		int last = --size;
+		if (i != last) {
+			// 修改指向最后一个数据的链接
+			int lb = hashes[last] & (tab.length - 1);
+			if (tab[lb] == last + 1)
+				tab[lb] = i + 1;
+			else {
+				int p = tab[lb] - 1;
+				while (next[p] != last + 1)
+					p = next[p] - 1;
+				next[p] = i + 1;
+			}
+			hashes[i] = hashes[last];
+			keys[i] = keys[last];
+			vals[i] = vals[last];
+			next[i] = next[last];
+		}
+		keys[last] = null;
+		vals[last] = null;
+		++modCount;
+	}
+
+	/**
+	 * 删除下标i的数据,用于视图和迭代器
+	 */
+	final boolean removeIndex(int i) {
+		int[] tab = table;
+		int b = hashes[i] & (tab.length - 1);
+		for (int prev = -1, j = tab[b] - 1; j >= 0; prev = j, j = next[j] - 1) {
+			if (j == i) {
+				removeAt(i, prev, b);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 第一次添加数据时创建数组
+	 */
+	private int[] allocate() {
+		int cap = threshold;
+		int n = binsFor(cap);
+		hashes = new int[cap];
+		keys = new Object[cap];
+		vals = new Object[cap];
+		next = new int[cap];
+		setThreshold(n);
+		return table = new int[n];
+	}
+
+	/**
+	 * 保存expectedSize个数据不扩容需要的桶数量
+	 */
+	final int binsFor(int expectedSize) {
+		float ft = (float) expectedSize / loadFactor + 1.0f;
+		return HashMap.tableSizeFor(ft < (float) HashMap.MAXIMUM_CAPACITY ? (int) ft : HashMap.MAXIMUM_CAPACITY);
+	}
+
+	private void setThreshold(int n) {
+		float ft = (float) n * loadFactor;
+		threshold = (n < HashMap.MAXIMUM_CAPACITY && ft < (float) MAX_ARRAY_SIZE) ? (int) ft : MAX_ARRAY_SIZE;
+	}
+
+	/**
+	 * 数据数组按1.5倍扩容,至少能放下minCapacity个数据
+	 */
+	final void growEntries(int minCapacity) {
+		int oldCap = keys.length;
+		if (minCapacity > MAX_ARRAY_SIZE)
+			throw new OutOfMemoryError("Map too large: " + minCapacity);
+		int newCap = oldCap + (oldCap >> 1) + 1;
+		if (newCap - minCapacity < 0 || newCap - MAX_ARRAY_SIZE > 0)
+			newCap = Math.max(minCapacity, Math.min(newCap, MAX_ARRAY_SIZE));
+		hashes = Arrays.copyOf(hashes, newCap);
+		keys = Arrays.copyOf(keys, newCap);
+		vals = Arrays.copyOf(vals, newCap);
+		next = Arrays.copyOf(next, newCap);
+	}
+
+	/**
+	 * 桶数组扩容: 按照hashes数组顺序重新建立每个桶的链表,不需要访问key
+	 */
+	final void resize(int newCap) {
+		int oldCap = table.length;
+		if (oldCap >= HashMap.MAXIMUM_CAPACITY) {
+			threshold = MAX_ARRAY_SIZE;
+			return;
+		}
+		if (newCap <= oldCap)
+			return;
+		int[] tab = new int[newCap], hs = hashes, nx = next;
+		int m = newCap - 1;
+		for (int i = 0; i < size; ++i) {
+			int b = hs[i] & m;
+			nx[i] = tab[b];
+			tab[b] = i + 1;
+		}
+		table = tab;
+		setThreshold(newCap);
+	}
+
+	/* ---------------- Object methods -------------- */
+
+	/**
+	 * Returns a shallow copy of this map: the keys and values themselves are
+	 * not cloned.
+	 */
+	@SuppressWarnings("unchecked")
+	public Object clone() {
+		CompactHashMap<K, V> result;
+		try {
+			result = (CompactHashMap<K, V>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			// this shouldn't happen, since we are Cloneable
+			throw new InternalError(e);
+		}
+		if (table != null) {
+			result.table = table.clone();
+			result.hashes = hashes.clone();
+			result.keys = keys.clone();
+			result.vals = vals.clone();
+			result.next = next.clone();
+		}
+		result.keySetView = null;
+		result.valuesView = null;
+		result.entrySetView = null;
+		result.modCount = 0;
+		return result;
+	}
+
+	/**
+	 * Save the state of the map to a stream.
+	 *
+	 * @serialData The <i>size</i> (int) followed by the key (Object) and
+	 *             value (Object) of each mapping, in iteration order.
+	 */
+	private void writeObject(java.io.ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		for (int i = 0; i < size; ++i) {
+			s.writeObject(keys[i]);
+			s.writeObject(vals[i]);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		if (loadFactor <= 0 || Float.isNaN(loadFactor))
+			throw new InvalidObjectException("Illegal load factor: " + loadFactor);
+		int mappings = s.readInt();
+		if (mappings < 0)
+			throw new InvalidObjectException("Illegal mappings count: " + mappings);
+		threshold = Math.max(mappings, HashMap.DEFAULT_INITIAL_CAPACITY);
+		for (int i = 0; i < mappings; i++) {
+			K key = (K) s.readObject();
+			V value = (V) s.readObject();
+			putVal(HashMap.hash(key), key, value, false);
+		}
+	}
+
+	/* ------------------------------------------------------------ */
+	// views and iterators
+
+	abstract class CompactIterator {
+		int cursor; // next index to return
+		int last = -1; // index returned last, -1 if none
+		int expectedModCount = modCount;
+
+		public final boolean hasNext() {
+			return cursor < size;
+		}
+
+		final int nextIndex() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (cursor >= size)
+				throw new NoSuchElementException();
+			return last = cursor++;
+		}
+
+		public final void remove() {
+			if (last < 0)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			removeIndex(last);
+			// 最后一个数据移动到了last,下一次从last继续
+			cursor = last;
+			last = -1;
+			expectedModCount = modCount;
+		}
+	}
+
+	final class KeyIterator extends CompactIterator implements Iterator<K> {
+		@SuppressWarnings("unchecked")
+		public K next() {
+			return (K) keys[nextIndex()];
+		}
+	}
+
+	final class ValueIterator extends CompactIterator implements Iterator<V> {
+		@SuppressWarnings("unchecked")
+		public V next() {
+			return (V) vals[nextIndex()];
+		}
+	}
+
+	final class EntryIterator extends CompactIterator implements Iterator<Map.Entry<K, V>> {
+		public Map.Entry<K, V> next() {
+			return new MapEntry(nextIndex());
+		}
+	}
+
+	/**
+	 * 按需创建的Entry,记录key和最后一次所在的下标,key被移动后重新查找
+	 */
+	final class MapEntry implements Map.Entry<K, V> {
+		final K key;
+		int index;
+
+		@SuppressWarnings("unchecked")
+		MapEntry(int index) {
+			this.key = (K) keys[index];
+			this.index = index;
+		}
+
+		private int index() {
+			int i = index;
+			if (i < 0 || i >= size || keys[i] != key)
+				index = i = indexOf(key);
+			return i;
+		}
+
+		public K getKey() {
+			return key;
+		}
+
+		@SuppressWarnings("unchecked")
+		public V getValue() {
+			int i;
+			return (i = index()) < 0 ? null : (V) vals[i];
+		}
+
+		/**
+		 * key已经被删除时不再写入map
+		 */
+		@SuppressWarnings("unchecked")
+		public V setValue(V value) {
+			int i;
+			if ((i = index()) < 0)
+				throw new IllegalStateException("Entry was removed: " + key);
+			V oldValue = (V) vals[i];
+			vals[i] = value;
+			return oldValue;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return Objects.equals(key, e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+
+		public int hashCode() {
+			return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+		}
+
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+
+	final class KeySet extends AbstractSet<K> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			CompactHashMap.this.clear();
+		}
+
+		public Iterator<K> iterator() {
+			return new KeyIterator();
+		}
+
+		public boolean contains(Object o) {
+			return indexOf(o) >= 0;
+		}
+
+		public boolean remove(Object key) {
+			int i;
+			return (i = indexOf(key)) >= 0 && removeIndex(i);
+		}
+	}
+
+	final class Values extends AbstractCollection<V> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			CompactHashMap.this.clear();
+		}
+
+		public Iterator<V> iterator() {
+			return new ValueIterator();
+		}
+
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+	}
+
+	final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			CompactHashMap.this.clear();
+		}
+
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			int i;
+			return (i = indexOf(e.getKey())) >= 0 && Objects.equals(vals[i], e.getValue());
+		}
+
+		public boolean remove(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			Object key = e.getKey();
+			int i;
+			return (i = indexOf(key)) >= 0 && Objects.equals(vals[i], e.getValue()) && removeIndex(i);
+		}
+	}
+}
@@ -0,0 +1,799 @@
+package com.demo.jdk_18.map;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * 按插入顺序遍历的CompactHashMap,不需要LinkedHashMap的before/after引用.
+ *
+ * <p>
+ * Like {@link CompactHashMap}, entry <i>i</i> is made of {@code hashes[i]},
+ * {@code keys[i]}, {@code vals[i]} and {@code next[i]}, and the bins hold
+ * int indices into these arrays, but entries are appended in insertion
+ * order and stay in place: a removal unlinks the entry from its bin and
+ * leaves a tombstone in {@code keys}. The order is therefore the array
+ * order itself, and iteration is a linear scan of {@code [head, end)}
+ * skipping tombstones. Tombstones never lengthen a bin; the arrays are
+ * compacted, keeping the order, when they are full and at least a quarter
+ * of them are free, or when the bins are resized. A mapping costs
+ * 16 bytes in the arrays plus its share of the bins, against a 40 byte
+ * {@link LinkedHashMap.Entry} plus a bin reference with compressed oops.
+ *
+ * <p>
+ * The iteration contract is that of an insertion-ordered
+ * {@link LinkedHashMap}: re-inserting a key does not change its position,
+ * and {@link #removeEldestEntry} is offered the eldest entry after each
+ * insertion. Access order is not supported. Bins are never treeified, and
+ * {@link Map.Entry} objects are only created by the entry set view and,
+ * in subclasses that override it, for {@code removeEldestEntry}. Setting
+ * the value of an entry whose mapping has been removed throws
+ * {@link IllegalStateException}.
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+public class CompactLinkedHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Cloneable, Serializable {
+
+	private static final long serialVersionUID = 6217493018642531937L;
+
+	/**
+	 * 被删除的数据在keys中的标记
+	 */
+	static final Object REMOVED = new Object();
+
+	/**
+	 * 桶数组,保存桶中第一个数据的下标+1,0表示空桶.第一次添加数据时才创建
+	 */
+	transient int[] table;
+
+	transient int[] hashes;
+
+	transient Object[] keys;
+
+	transient Object[] vals;
+
+	/**
+	 * 同一个桶中下一个数据的下标+1,0表示链表结束
+	 */
+	transient int[] next;
+
+	transient int size;
+
+	/**
+	 * 第一个没有删除的数据的下标
+	 */
+	transient int head;
+
+	/**
+	 * 已经使用的数组长度,包括删除的数据
+	 */
+	transient int end;
+
+	/**
+	 * [head, end)中删除的数据个数
+	 */
+	transient int removed;
+
+	transient int modCount;
+
+	/**
+	 * 扩容阈值,数组创建之前保存初始容量
+	 */
+	transient int threshold;
+
+	/**
+	 * 加载因子
+	 *
+	 * @serial
+	 */
+	final float loadFactor;
+
+	transient Set<K> keySetView;
+
+	transient Collection<V> valuesView;
+
+	transient Set<Map.Entry<K, V>> entrySetView;
+
+	/**
+	 * Constructs an empty map that holds {@code initialCapacity} mappings
+	 * without resizing under the given load factor.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the initial capacity is negative or the load factor is
+	 *             nonpositive
+	 */
+	public CompactLinkedHashMap(int initialCapacity, float loadFactor) {
+		if (initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		if (loadFactor <= 0 || Float.isNaN(loadFactor))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+		this.loadFactor = loadFactor;
+		this.threshold = Math.min(initialCapacity, CompactHashMap.MAX_ARRAY_SIZE);
+	}
+
+	public CompactLinkedHashMap(int initialCapacity) {
+		this(initialCapacity, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	public CompactLinkedHashMap() {
+		this(HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	public CompactLinkedHashMap(Map<? extends K, ? extends V> m) {
+		this(m.size(), HashMap.DEFAULT_LOAD_FACTOR);
+		putMapEntries(m, false);
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int i;
+		return (i = indexOf(key)) < 0 ? null : (V) vals[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(Object key, V defaultValue) {
+		int i;
+		return (i = indexOf(key)) < 0 ? defaultValue : (V) vals[i];
+	}
+
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	public boolean containsValue(Object value) {
+		Object[] ks = keys, vs = vals;
+		for (int i = head; i < end; ++i) {
+			if (ks[i] != REMOVED && Objects.equals(vs[i], value))
+				return true;
+		}
+		return false;
+	}
+
+	public V put(K key, V value) {
+		return putVal(HashMap.hash(key), key, value, false, true);
+	}
+
+	public V putIfAbsent(K key, V value) {
+		return putVal(HashMap.hash(key), key, value, true, true);
+	}
+
+	public void putAll(Map<? extends K, ? extends V> m) {
+		putMapEntries(m, true);
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		int hash = HashMap.hash(key);
+		int[] tab;
+		if ((tab = table) == null)
+			return null;
+		int b = hash & (tab.length - 1);
+		for (int prev = -1, i = tab[b] - 1; i >= 0; prev = i, i = next[i] - 1) {
+			Object k;
+			if (hashes[i] == hash && ((k = keys[i]) == key || (key != null && key.equals(k)))) {
+				V oldValue = (V) vals[i];
+				removeAt(i, prev, b);
+				return oldValue;
+			}
+		}
+		return null;
+	}
+
+	public void clear() {
+		modCount++;
+		if (end > 0) {
+			Arrays.fill(table, 0);
+			Arrays.fill(keys, 0, end, null);
+			Arrays.fill(vals, 0, end, null);
+			size = head = end = removed = 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		if (action == null)
+			throw new NullPointerException();
+		int mc = modCount;
+		Object[] ks = keys, vs = vals;
+		Object k;
+		for (int i = head; i < end && modCount == mc; ++i) {
+			if ((k = ks[i]) != REMOVED)
+				action.accept((K) k, (V) vs[i]);
+		}
+		if (modCount != mc)
+			throw new ConcurrentModificationException();
+	}
+
+	@SuppressWarnings("unchecked")
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		if (function == null)
+			throw new NullPointerException();
+		int mc = modCount;
+		Object[] ks = keys, vs = vals;
+		Object k;
+		for (int i = head; i < end && modCount == mc; ++i) {
+			if ((k = ks[i]) != REMOVED)
+				vs[i] = function.apply((K) k, (V) vs[i]);
+		}
+		if (modCount != mc)
+			throw new ConcurrentModificationException();
+	}
+
+	/**
+	 * Grows the internal arrays, if necessary, to hold {@code expectedSize}
+	 * mappings without further resizing.
+	 */
+	public void ensureCapacity(int expectedSize) {
+		if (table == null) {
+			if (expectedSize > threshold)
+				threshold = Math.min(expectedSize, CompactHashMap.MAX_ARRAY_SIZE);
+			return;
+		}
+		if (expectedSize > threshold)
+			rebuild(binsFor(expectedSize));
+		if (expectedSize - size > keys.length - end)
+			growEntries(end + expectedSize - size);
+	}
+
+	/**
+	 * Returns <tt>true</tt> if this map should remove its eldest entry, as
+	 * {@link LinkedHashMap#removeEldestEntry} does. It is invoked by
+	 * <tt>put</tt>, <tt>putIfAbsent</tt> and <tt>putAll</tt> after inserting
+	 * a new mapping, with the least recently inserted mapping, which is the
+	 * new one if the map was empty. The default returns <tt>false</tt>.
+	 *
+	 * <pre>
+	 * protected boolean removeEldestEntry(Map.Entry&lt;K, V&gt; eldest) {
+	 * 	return size() &gt; MAX_ENTRIES;
+	 * }
+	 * </pre>
+	 *
+	 * An implementation that modifies the map itself must return
+	 * <tt>false</tt>.
+	 */
+	protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+		return false;
+	}
+
+	/**
+	 * 每个类是否覆盖了removeEldestEntry,只在第一次用到时通过反射查找
+	 */
+	private static final ClassValue<Boolean> EVICTS_ELDEST = new ClassValue<Boolean>() {
+		protected Boolean computeValue(Class<?> c) {
+			for (; c != CompactLinkedHashMap.class; c = c.getSuperclass()) {
+				try {
+					c.getDeclaredMethod("removeEldestEntry", Map.Entry.class);
+					return Boolean.TRUE;
+				} catch (NoSuchMethodException e) {
+				} catch (SecurityException e) {
+					// 无法判断时按覆盖处理
+					return Boolean.TRUE;
+				}
+			}
+			return Boolean.FALSE;
+		}
+	};
+
+	/**
+	 * 没有覆盖removeEldestEntry时插入不需要创建MapEntry
+	 */
+	static boolean evictsEldest(Class<?> c) {
+		return c != CompactLinkedHashMap.class && EVICTS_ELDEST.get(c);
+	}
+
+	public Set<K> keySet() {
+		Set<K> ks;
+		return (ks = keySetView) == null ? (keySetView = new KeySet()) : ks;
+	}
+
+	public Collection<V> values() {
+		Collection<V> vs;
+		return (vs = valuesView) == null ? (valuesView = new Values()) : vs;
+	}
+
+	public Set<Map.Entry<K, V>> entrySet() {
+		Set<Map.Entry<K, V>> es;
+		return (es = entrySetView) == null ? (entrySetView = new EntrySet()) : es;
+	}
+
+	/* ---------------- Internal operations -------------- */
+
+	/**
+	 * 查找key所在的下标,不存在返回-1
+	 */
+	final int indexOf(Object key) {
+		int[] tab;
+		if ((tab = table) == null)
+			return -1;
+		int hash = HashMap.hash(key);
+		int[] hs = hashes, nx = next;
+		Object[] ks = keys;
+		Object k;
+		for (int i = tab[hash & (tab.length - 1)] - 1; i >= 0; i = nx[i] - 1) {
+			if (hs[i] == hash && ((k = ks[i]) == key || (key != null && key.equals(k))))
+				return i;
+		}
+		return -1;
+	}
+
+	final void putMapEntries(Map<? extends K, ? extends V> m, boolean evict) {
+		int s = m.size();
+		if (s > 0) {
+			// 先扩容到最终大小,避免添加过程中多次扩容
+			ensureCapacity(size + s);
+			for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+				K key = e.getKey();
+				putVal(HashMap.hash(key), key, e.getValue(), false, evict);
+			}
+		}
+	}
+
+	/**
+	 * 添加或者更新,新数据追加到end并放到桶的链表头部.evict为false时不调用removeEldestEntry
+	 */
+	@SuppressWarnings("unchecked")
+	final V putVal(int hash, K key, V value, boolean onlyIfAbsent, boolean evict) {
+		int[] tab;
+		if ((tab = table) == null)
+			tab = allocate();
+		int b = hash & (tab.length - 1);
+		Object k;
+		for (int i = tab[b] - 1; i >= 0; i = next[i] - 1) {
+			if (hashes[i] == hash && ((k = keys[i]) == key || (key != null && key.equals(k)))) {
+				V oldValue = (V) vals[i];
+				if (!onlyIfAbsent || oldValue == null)
+					vals[i] = value;
+				return oldValue;
+			}
+		}
+		if (end == keys.length) {
+			// 开头空出的位置和删除的数据足够多时原地压缩,否则扩容
+			int free = head + removed;
+			if (free > 0 && free >= (end >>> 2))
+				rebuild(tab.length);
+			else
+				growEntries(end + 1);
+			tab = table;
+			b = hash & (tab.length - 1);
+		}
+		int i = end++;
+		hashes[i] = hash;
+		keys[i] = key;
+		vals[i] = value;
+		next[i] = tab[b];
+		tab[b] = i + 1;
+		++modCount;
+		if (++size > threshold)
+			rebuild(tab.length << 1);
+		if (evict && evictsEldest(getClass())) {
+			MapEntry eldest = new MapEntry(head);
+			if (removeEldestEntry(eldest) && (i = eldest.index()) >= 0)
+				removeIndex(i);
+		}
+		return null;
+	}
+
+	/**
+	 * 删除下标i的数据,prev是链表中的前一个数据(-1表示i是桶的第一个数据),b是所在的桶.
+	 * 数据不移动,在keys中留下删除标记
+	 */
+	final void removeAt(int i, int prev, int b) {
+		if (prev < 0)
+			table[b] = next[i];
+		else
+			next[prev] = next[i];
+		keys[i] = REMOVED;
+		vals[i] = null;
+		++modCount;
+		if (--size == 0) {
+			// 没有数据了,从头开始使用数组
+			Arrays.fill(keys, head, end, null);
+			head = end = removed = 0;
+		} else if (i == head) {
+			// 删除最早的数据时跳过开头的删除标记,removeEldestEntry不需要扫描
+			Object[] ks = keys;
+			int h = i + 1;
+			while (ks[h] == REMOVED)
+				++h;
+			Arrays.fill(ks, i, h, null);
+			removed -= h - i - 1;
+			head = h;
+		} else
+			++removed;
+	}
+
+	/**
+	 * 删除下标i的数据,用于视图和迭代器
+	 */
+	final boolean removeIndex(int i) {
+		int[] tab = table;
+		int b = hashes[i] & (tab.length - 1);
+		for (int prev = -1, j = tab[b] - 1; j >= 0; prev = j, j = next[j] - 1) {
+			if (j == i) {
+				removeAt(i, prev, b);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 第一次添加数据时创建数组
+	 */
+	private int[] allocate() {
+		int cap = threshold;
+		int n = binsFor(cap);
+		hashes = new int[cap];
+		keys = new Object[cap];
+		vals = new Object[cap];
+		next = new int[cap];
+		setThreshold(n);
+		return table = new int[n];
+	}
+
+	/**
+	 * 保存expectedSize个数据不扩容需要的桶数量
+	 */
+	final int binsFor(int expectedSize) {
+		float ft = (float) expectedSize / loadFactor + 1.0f;
+		return HashMap.tableSizeFor(ft < (float) HashMap.MAXIMUM_CAPACITY ? (int) ft : HashMap.MAXIMUM_CAPACITY);
+	}
+
+	private void setThreshold(int n) {
+		float ft = (float) n * loadFactor;
+		threshold = (n < HashMap.MAXIMUM_CAPACITY && ft < (float) CompactHashMap.MAX_ARRAY_SIZE) ? (int) ft
+				: CompactHashMap.MAX_ARRAY_SIZE;
+	}
+
+	/**
+	 * 数据数组按1.5倍扩容,至少能放下minCapacity个数据
+	 */
+	final void growEntries(int minCapacity) {
+		int oldCap = keys.length;
+		if (minCapacity > CompactHashMap.MAX_ARRAY_SIZE)
+			throw new OutOfMemoryError("Map too large: " + minCapacity);
+		int newCap = oldCap + (oldCap >> 1) + 1;
+		if (newCap - minCapacity < 0 || newCap - CompactHashMap.MAX_ARRAY_SIZE > 0)
+			newCap = Math.max(minCapacity, Math.min(newCap, CompactHashMap.MAX_ARRAY_SIZE));
+		hashes = Arrays.copyOf(hashes, newCap);
+		keys = Arrays.copyOf(keys, newCap);
+		vals = Arrays.copyOf(vals, newCap);
+		next = Arrays.copyOf(next, newCap);
+	}
+
+	/**
+	 * 去掉删除标记,把数据按顺序移动到数组开头,同时按照hashes数组重新建立newCap个桶的链表,不需要访问key
+	 */
+	final void rebuild(int newCap) {
+		int oldCap = table.length;
+		if (oldCap >= HashMap.MAXIMUM_CAPACITY) {
+			threshold = CompactHashMap.MAX_ARRAY_SIZE;
+			newCap = oldCap;
+		} else if (newCap < oldCap)
+			newCap = oldCap;
+		int[] tab = new int[newCap], hs = hashes, nx = next;
+		Object[] ks = keys, vs = vals;
+		int m = newCap - 1, j = 0;
+		for (int i = head, e = end; i < e; ++i) {
+			if (ks[i] == REMOVED)
+				continue;
+			if (i != j) {
+				hs[j] = hs[i];
+				ks[j] = ks[i];
+				vs[j] = vs[i];
+			}
+			int b = hs[j] & m;
+			nx[j] = tab[b];
+			tab[b] = ++j;
+		}
+		Arrays.fill(ks, j, end, null);
+		Arrays.fill(vs, j, end, null);
+		head = removed = 0;
+		end = j;
+		table = tab;
+		if (newCap != oldCap)
+			setThreshold(newCap);
+	}
+
+	/* ---------------- Object methods -------------- */
+
+	/**
+	 * Returns a shallow copy of this map: the keys and values themselves are
+	 * not cloned.
+	 */
+	@SuppressWarnings("unchecked")
+	public Object clone() {
+		CompactLinkedHashMap<K, V> result;
+		try {
+			result = (CompactLinkedHashMap<K, V>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			// this shouldn't happen, since we are Cloneable
+			throw new InternalError(e);
+		}
+		if (table != null) {
+			result.table = table.clone();
+			result.hashes = hashes.clone();
+			result.keys = keys.clone();
+			result.vals = vals.clone();
+			result.next = next.clone();
+		}
+		result.keySetView = null;
+		result.valuesView = null;
+		result.entrySetView = null;
+		result.modCount = 0;
+		return result;
+	}
+
+	/**
+	 * Save the state of the map to a stream.
+	 *
+	 * @serialData The <i>size</i> (int) followed by the key (Object) and
+	 *             value (Object) of each mapping, in iteration order.
+	 */
+	private void writeObject(java.io.ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		for (int i = head; i < end; ++i) {
+			if (keys[i] != REMOVED) {
+				s.writeObject(keys[i]);
+				s.writeObject(vals[i]);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		if (loadFactor <= 0 || Float.isNaN(loadFactor))
+			throw new InvalidObjectException("Illegal load factor: " + loadFactor);
+		int mappings = s.readInt();
+		if (mappings < 0)
+			throw new InvalidObjectException("Illegal mappings count: " + mappings);
+		threshold = Math.max(mappings, HashMap.DEFAULT_INITIAL_CAPACITY);
+		for (int i = 0; i < mappings; i++) {
+			K key = (K) s.readObject();
+			V value = (V) s.readObject();
+			putVal(HashMap.hash(key), key, value, false, false);
+		}
+	}
+
+	/* ------------------------------------------------------------ */
+	// views and iterators
+
+	abstract class CompactIterator {
+		int cursor; // next index to return
+		int last = -1; // index returned last, -1 if none
+		int expectedModCount = modCount;
+
+		CompactIterator() {
+			cursor = skipRemoved(head);
+		}
+
+		// 跳过删除标记
+		private int skipRemoved(int i) {
+			Object[] ks = keys;
+			int e = end;
+			while (i < e && ks[i] == REMOVED)
+				++i;
+			return i;
+		}
+
+		public final boolean hasNext() {
+			return cursor < end;
+		}
+
+		final int nextIndex() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			int i = cursor;
+			if (i >= end)
+				throw new NoSuchElementException();
+			cursor = skipRemoved(i + 1);
+			return last = i;
+		}
+
+		public final void remove() {
+			if (last < 0)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			removeIndex(last);
+			last = -1;
+			expectedModCount = modCount;
+			// 删除最后一个数据后数组从头开始使用
+			if (size == 0)
+				cursor = 0;
+		}
+	}
+
+	final class KeyIterator extends CompactIterator implements Iterator<K> {
+		@SuppressWarnings("unchecked")
+		public K next() {
+			return (K) keys[nextIndex()];
+		}
+	}
+
+	final class ValueIterator extends CompactIterator implements Iterator<V> {
+		@SuppressWarnings("unchecked")
+		public V next() {
+			return (V) vals[nextIndex()];
+		}
+	}
+
+	final class EntryIterator extends CompactIterator implements Iterator<Map.Entry<K, V>> {
+		public Map.Entry<K, V> next() {
+			return new MapEntry(nextIndex());
+		}
+	}
+
+	/**
+	 * 按需创建的Entry,记录key和最后一次所在的下标,压缩后重新查找
+	 */
+	final class MapEntry implements Map.Entry<K, V> {
+		final K key;
+		int index;
+
+		@SuppressWarnings("unchecked")
+		MapEntry(int index) {
+			this.key = (K) keys[index];
+			this.index = index;
+		}
+
+		int index() {
+			int i = index;
+			if (i < head || i >= end || keys[i] != key)
+				index = i = indexOf(key);
+			return i;
+		}
+
+		public K getKey() {
+			return key;
+		}
+
+		@SuppressWarnings("unchecked")
+		public V getValue() {
+			int i;
+			return (i = index()) < 0 ? null : (V) vals[i];
+		}
+
+		/**
+		 * key已经被删除时不再写入map
+		 */
+		@SuppressWarnings("unchecked")
+		public V setValue(V value) {
+			int i;
+			if ((i = index()) < 0)
+				throw new IllegalStateException("Entry was removed: " + key);
+			V oldValue = (V) vals[i];
+			vals[i] = value;
+			return oldValue;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return Objects.equals(key, e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+
+		public int hashCode() {
+			return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+		}
+
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+
+	final class KeySet extends AbstractSet<K> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			CompactLinkedHashMap.this.clear();
+		}
+
+		public Iterator<K> iterator() {
+			return new KeyIterator();
+		}
+
+		public boolean contains(Object o) {
+			return indexOf(o) >= 0;
+		}
+
+		public boolean remove(Object key) {
+			int i;
+			return (i = indexOf(key)) >= 0 && removeIndex(i);
+		}
+
+		public Spliterator<K> spliterator() {
+			return Spliterators.spliterator(this, Spliterator.SIZED | Spliterator.ORDERED | Spliterator.DISTINCT);
+		}
+	}
+
+	final class Values extends AbstractCollection<V> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			CompactLinkedHashMap.this.clear();
+		}
+
+		public Iterator<V> iterator() {
+			return new ValueIterator();
+		}
+
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		public Spliterator<V> spliterator() {
+			return Spliterators.spliterator(this, Spliterator.SIZED | Spliterator.ORDERED);
+		}
+	}
+
+	final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			CompactLinkedHashMap.this.clear();
+		}
+
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			int i;
+			return (i = indexOf(e.getKey())) >= 0 && Objects.equals(vals[i], e.getValue());
+		}
+
+		public boolean remove(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			Object key = e.getKey();
+			int i;
+			return (i = indexOf(key)) >= 0 && Objects.equals(vals[i], e.getValue()) && removeIndex(i);
+		}
+
+		public Spliterator<Map.Entry<K, V>> spliterator() {
+			return Spliterators.spliterator(this, Spliterator.SIZED | Spliterator.ORDERED | Spliterator.DISTINCT);
+		}
+	}
+}
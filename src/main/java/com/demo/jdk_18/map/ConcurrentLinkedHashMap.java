@@ -0,0 +1,543 @@
+package com.demo.jdk_18.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 访问顺序的并发LinkedHashMap,读不加锁,访问记录先写入分段的环形缓冲区,批量调整before/after链表.
+ *
+ * <p>
+ * Lookups go through a {@link ConcurrentHashMap} without locking. Instead
+ * of relinking the entry like {@code LinkedHashMap.afterNodeAccess}, a read
+ * appends the entry to one of several small ring buffers, selected by the
+ * thread's probe hash. Whenever a buffer is half full, the reading thread
+ * tries to take the lock and, if it gets it, moves all buffered entries to
+ * the tail of the access-ordered {@code before/after} list in one batch.
+ * A full or contended buffer drops the read: the order is an approximate
+ * LRU, and in exchange reads never wait for each other or for writers.
+ *
+ * <p>
+ * Writes take the lock, drain the buffers and update the list directly.
+ * As in {@link LinkedHashMap} with access order, {@code put} on an
+ * existing key counts as an access, and {@link #removeEldestEntry} is
+ * consulted after every insertion; the constructors taking a
+ * {@code maximumSize} make it evict the least recently used entry beyond
+ * that size. Iteration follows the hash table, not the access order.
+ *
+ * <p>
+ * Keys and values must not be {@code null}. Memory consistency follows
+ * {@link ConcurrentHashMap}.
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+	/**
+	 * 链表节点,hash和桶由ConcurrentHashMap维护,这里只有key,value和访问顺序链表.
+	 * value由写线程在持有锁时更新,读线程不加锁读取.作为removeEldestEntry的参数时setValue写入map
+	 */
+	static final class Node<K, V> implements Map.Entry<K, V> {
+		final K key;
+		volatile V value;
+		Node<K, V> before, after; // 访问顺序链表,持有锁时访问
+		boolean linked; // 还在链表中,持有锁时访问
+
+		Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		public K getKey() {
+			return key;
+		}
+
+		public V getValue() {
+			return value;
+		}
+
+		public V setValue(V v) {
+			if (v == null)
+				throw new NullPointerException();
+			V oldValue = value;
+			value = v;
+			return oldValue;
+		}
+
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
+		public boolean equals(Object o) {
+			Object k, v, u;
+			Map.Entry<?, ?> e;
+			return ((o instanceof Map.Entry) && (k = (e = (Map.Entry<?, ?>) o).getKey()) != null
+					&& (v = e.getValue()) != null && (k == key || k.equals(key)) && (v == (u = value) || v.equals(u)));
+		}
+
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+
+	/**
+	 * 有损的环形缓冲区,多个读线程写入,持有锁的线程读出.满了或者CAS失败时丢弃
+	 */
+	static final class ReadBuffer<K, V> {
+		final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+
+		final AtomicLong writeCount = new AtomicLong();
+
+		volatile long readCount; // 只在持有锁时写入
+
+		/**
+		 * 返回写入后待处理的个数,丢弃时返回FAILED或者FULL
+		 */
+		int offer(Node<K, V> e) {
+			long r = readCount, w = writeCount.get();
+			int pending = (int) (w - r);
+			if (pending >= BUFFER_SIZE)
+				return FULL;
+			if (!writeCount.compareAndSet(w, w + 1))
+				return FAILED;
+			buffer.lazySet((int) w & BUFFER_MASK, e);
+			return pending + 1;
+		}
+
+		void drainTo(ConcurrentLinkedHashMap<K, V> m) {
+			long r = readCount, w = writeCount.get();
+			for (; r != w; r++) {
+				int i = (int) r & BUFFER_MASK;
+				Node<K, V> e = buffer.get(i);
+				if (e == null)
+					break; // 写线程已经占了位置还没写入,下次再处理
+				buffer.lazySet(i, null);
+				m.afterNodeAccess(e);
+			}
+			readCount = r;
+		}
+	}
+
+	static final int BUFFER_SIZE = 16;
+
+	static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+	/**
+	 * 缓冲区中待处理的访问达到这个数量时尝试获取锁批量处理
+	 */
+	static final int DRAIN_THRESHOLD = BUFFER_SIZE >>> 1;
+
+	static final int FULL = -1;
+
+	static final int FAILED = -2;
+
+	/**
+	 * 缓冲区的数量,CPU数量向上取整到2的幂
+	 */
+	static final int NCPU_BUFFERS = HashMap.tableSizeFor(Runtime.getRuntime().availableProcessors());
+
+	final ConcurrentHashMap<K, Node<K, V>> data;
+
+	final ReadBuffer<K, V>[] readBuffers;
+
+	final ReentrantLock lock = new ReentrantLock();
+
+	final int maximumSize;
+
+	/**
+	 * 访问顺序链表的头(最久没有访问)和尾,持有锁时访问
+	 */
+	Node<K, V> head, tail;
+
+	transient Set<Map.Entry<K, V>> entrySet;
+
+	public ConcurrentLinkedHashMap() {
+		this(16, Integer.MAX_VALUE);
+	}
+
+	public ConcurrentLinkedHashMap(int initialCapacity) {
+		this(initialCapacity, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a map that evicts its least recently used entry whenever an
+	 * insertion takes it over {@code maximumSize} entries.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the initial capacity is negative or the maximum size is
+	 *             not positive
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public ConcurrentLinkedHashMap(int initialCapacity, int maximumSize) {
+		if (maximumSize <= 0)
+			throw new IllegalArgumentException("Illegal maximum size: " + maximumSize);
+		this.data = new ConcurrentHashMap<>(initialCapacity);
+		this.maximumSize = maximumSize;
+		ReadBuffer<K, V>[] bs = (ReadBuffer<K, V>[]) new ReadBuffer[NCPU_BUFFERS];
+		for (int i = 0; i < bs.length; i++)
+			bs[i] = new ReadBuffer<>();
+		this.readBuffers = bs;
+	}
+
+	/**
+	 * Returns <tt>true</tt> if the map should remove its eldest (least
+	 * recently used) entry. Invoked by {@code put} and {@code putIfAbsent}
+	 * after inserting a new entry, while holding the map's lock, so it must
+	 * not call back into this map. The default implementation returns
+	 * <tt>true</tt> when the map holds more than its maximum size.
+	 */
+	protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+		return data.size() > maximumSize;
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public int size() {
+		return data.size();
+	}
+
+	public boolean isEmpty() {
+		return data.isEmpty();
+	}
+
+	public boolean containsKey(Object key) {
+		return data.containsKey(key);
+	}
+
+	/**
+	 * Returns the value for {@code key} and records the access. The access
+	 * order is updated later, in a batch, and may miss this access under
+	 * contention.
+	 */
+	public V get(Object key) {
+		Node<K, V> e;
+		if ((e = data.get(key)) == null)
+			return null;
+		afterRead(e);
+		return e.value;
+	}
+
+	public V getOrDefault(Object key, V defaultValue) {
+		V v;
+		return (v = get(key)) == null ? defaultValue : v;
+	}
+
+	public V put(K key, V value) {
+		return putVal(key, value, false);
+	}
+
+	public V putIfAbsent(K key, V value) {
+		return putVal(key, value, true);
+	}
+
+	public V remove(Object key) {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			drainReadBuffers();
+			Node<K, V> e;
+			if ((e = data.remove(key)) == null)
+				return null;
+			unlink(e);
+			return e.value;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public boolean remove(Object key, Object value) {
+		if (key == null)
+			throw new NullPointerException();
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			drainReadBuffers();
+			Node<K, V> e;
+			if (value == null || (e = data.get(key)) == null || !value.equals(e.value))
+				return false;
+			data.remove(key);
+			unlink(e);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public boolean replace(K key, V oldValue, V newValue) {
+		if (key == null || oldValue == null || newValue == null)
+			throw new NullPointerException();
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			drainReadBuffers();
+			Node<K, V> e;
+			if ((e = data.get(key)) == null || !oldValue.equals(e.value))
+				return false;
+			e.value = newValue;
+			afterNodeAccess(e);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public V replace(K key, V value) {
+		if (key == null || value == null)
+			throw new NullPointerException();
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			drainReadBuffers();
+			Node<K, V> e;
+			if ((e = data.get(key)) == null)
+				return null;
+			V oldValue = e.value;
+			e.value = value;
+			afterNodeAccess(e);
+			return oldValue;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void clear() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			drainReadBuffers();
+			for (Node<K, V> e = head, a; e != null; e = a) {
+				a = e.after;
+				e.before = e.after = null;
+				e.linked = false;
+			}
+			head = tail = null;
+			data.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Applies the buffered accesses to the access order now.
+	 */
+	public void cleanUp() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			drainReadBuffers();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the keys from least to most recently used, after applying the
+	 * buffered accesses. The list is a snapshot.
+	 */
+	public List<K> keysInAccessOrder() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			drainReadBuffers();
+			List<K> keys = new ArrayList<>(data.size());
+			for (Node<K, V> e = head; e != null; e = e.after)
+				keys.add(e.key);
+			return keys;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a view of the mappings in hash table order. Reading the view
+	 * does not record accesses; {@code setValue} on its entries writes
+	 * through to the map.
+	 */
+	public Set<Map.Entry<K, V>> entrySet() {
+		Set<Map.Entry<K, V>> es;
+		return (es = entrySet) != null ? es : (entrySet = new EntrySet());
+	}
+
+	/* ---------------- Internal operations -------------- */
+
+	final V putVal(K key, V value, boolean onlyIfAbsent) {
+		if (key == null || value == null)
+			throw new NullPointerException();
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			drainReadBuffers();
+			Node<K, V> e;
+			if ((e = data.get(key)) != null) {
+				V oldValue = e.value;
+				if (!onlyIfAbsent)
+					e.value = value;
+				afterNodeAccess(e);
+				return oldValue;
+			}
+			data.put(key, e = new Node<>(key, value));
+			linkLast(e);
+			Node<K, V> first;
+			if ((first = head) != null && first != e && removeEldestEntry(first)) {
+				data.remove(first.key);
+				unlink(first);
+			}
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 记录一次读取,缓冲区超过一半时尝试批量处理;CAS失败时换一个缓冲区
+	 */
+	final void afterRead(Node<K, V> e) {
+		int h;
+		if ((h = ConcurrentHashMap.getProbe()) == 0) {
+			ThreadLocalRandom.current(); // force initialization
+			h = ConcurrentHashMap.getProbe();
+		}
+		int pending = readBuffers[h & (readBuffers.length - 1)].offer(e);
+		if (pending == FAILED)
+			ConcurrentHashMap.advanceProbe(h);
+		else if (pending == FULL || pending >= DRAIN_THRESHOLD)
+			tryDrainReadBuffers();
+	}
+
+	final void tryDrainReadBuffers() {
+		final ReentrantLock lock = this.lock;
+		if (lock.tryLock()) {
+			try {
+				drainReadBuffers();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * 持有锁时调用
+	 */
+	final void drainReadBuffers() {
+		for (ReadBuffer<K, V> b : readBuffers)
+			b.drainTo(this);
+	}
+
+	/**
+	 * 把节点移到链表尾部,已经删除的节点跳过.持有锁时调用
+	 */
+	final void afterNodeAccess(Node<K, V> e) {
+		if (e.linked && tail != e) {
+			unlink(e);
+			linkLast(e);
+		}
+	}
+
+	final void linkLast(Node<K, V> p) {
+		Node<K, V> last = tail;
+		tail = p;
+		if (last == null)
+			head = p;
+		else {
+			p.before = last;
+			last.after = p;
+		}
+		p.linked = true;
+	}
+
+	final void unlink(Node<K, V> p) {
+		Node<K, V> b = p.before, a = p.after;
+		p.before = p.after = null;
+		if (b == null)
+			head = a;
+		else
+			b.after = a;
+		if (a == null)
+			tail = b;
+		else
+			a.before = b;
+		p.linked = false;
+	}
+
+	final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		public int size() {
+			return data.size();
+		}
+
+		public void clear() {
+			ConcurrentLinkedHashMap.this.clear();
+		}
+
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			Node<K, V> p;
+			Object v = e.getValue();
+			return (p = data.get(e.getKey())) != null && v != null && v.equals(p.value);
+		}
+
+		public boolean remove(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return e.getKey() != null && ConcurrentLinkedHashMap.this.remove(e.getKey(), e.getValue());
+		}
+
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+		final Iterator<Node<K, V>> it = data.values().iterator();
+		K lastKey;
+
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		public Map.Entry<K, V> next() {
+			Node<K, V> p = it.next();
+			return new WriteThroughEntry(lastKey = p.key, p.value);
+		}
+
+		public void remove() {
+			if (lastKey == null)
+				throw new IllegalStateException();
+			ConcurrentLinkedHashMap.this.remove(lastKey);
+			lastKey = null;
+		}
+	}
+
+	/**
+	 * 迭代器返回的entry,setValue时写入map
+	 */
+	final class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+		private static final long serialVersionUID = -7900634345345313646L;
+
+		WriteThroughEntry(K key, V value) {
+			super(key, value);
+		}
+
+		public V setValue(V value) {
+			if (value == null)
+				throw new NullPointerException();
+			V v = super.setValue(value);
+			put(getKey(), value);
+			return v;
+		}
+	}
+}
@@ -0,0 +1,529 @@
+package com.demo.jdk_18.map;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 不可修改的map,使用最小完美hash(hash and displace)把每个key放到固定的槽位,查询只需要一次探测.
+ *
+ * <p>
+ * The distinct hashes of the keys are divided into buckets of about
+ * {@value #BUCKET_SIZE}. Each bucket stores a displacement: either a seed
+ * that, mixed into the hash, sends every hash of the bucket to its own slot,
+ * or, for a bucket with a single hash, the slot itself. Slots are numbered
+ * {@code 0 .. distinctHashes - 1}, so the table has no empty slots. A lookup
+ * is one read of the displacement and one read of the slot, whose stored
+ * hash rejects absent keys before any {@code equals} call. Slot indices are
+ * computed with a multiply-shift ({@code (x * n) >>> 32}) instead of a
+ * modulo.
+ *
+ * <p>
+ * Keys with identical hash codes cannot be told apart by any hash function;
+ * all but the first of them go to an overflow area chained from the slot.
+ * Keys are hashed with {@code HashMap.hash(key)}, so the map inherits the
+ * quality of their {@code hashCode()}.
+ *
+ * <p>
+ * The map is immutable: mutators throw {@link UnsupportedOperationException}
+ * and there is no {@code modCount}. Iteration follows slot order. Built by
+ * {@link HashMap#freeze()} or {@link #copyOf(Map)}.
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+public final class FrozenHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Serializable {
+
+	private static final long serialVersionUID = 4096381926453327411L;
+
+	/**
+	 * 每个桶平均的hash数量,越大位移数组越小,构建越慢
+	 */
+	static final int BUCKET_SIZE = 4;
+
+	/**
+	 * 一个桶尝试的最大种子数,超过时把桶数量加倍重新构建
+	 */
+	static final int MAX_SEED = 1 << 20;
+
+	/**
+	 * 每个桶的位移: 大于等于0时是种子,小于0时是-(槽位 + 1)
+	 */
+	transient int[] seeds;
+
+	transient int[] hashes;
+
+	transient Object[] keys;
+
+	transient Object[] vals;
+
+	/**
+	 * hash相同的key的链接(下一个数据的下标+1),没有hash相同的key时为null
+	 */
+	transient int[] next;
+
+	/**
+	 * 不同hash的数量,也就是槽位数量
+	 */
+	transient int slots;
+
+	transient Set<K> keySetView;
+
+	transient Collection<V> valuesView;
+
+	transient Set<Map.Entry<K, V>> entrySetView;
+
+	/**
+	 * 使用n个数据构建,hs[i]必须是HashMap.hash(ks[i])
+	 */
+	FrozenHashMap(int[] hs, Object[] ks, Object[] vs, int n) {
+		build(hs, ks, vs, n);
+	}
+
+	/**
+	 * Returns an immutable, perfectly hashed copy of the given map.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> FrozenHashMap<K, V> copyOf(Map<? extends K, ? extends V> m) {
+		if (m instanceof FrozenHashMap)
+			return (FrozenHashMap<K, V>) m;
+		if (m instanceof HashMap)
+			return (FrozenHashMap<K, V>) ((HashMap<?, ?>) m).freeze();
+		int n = m.size();
+		Object[] ks = new Object[n], vs = new Object[n];
+		int[] hs = new int[n];
+		int i = 0;
+		for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+			if (i == n)
+				throw new ConcurrentModificationException();
+			ks[i] = e.getKey();
+			vs[i] = e.getValue();
+			hs[i] = HashMap.hash(ks[i]);
+			i++;
+		}
+		return new FrozenHashMap<>(hs, ks, vs, i);
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public int size() {
+		return keys.length;
+	}
+
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int i;
+		return (i = indexOf(key)) < 0 ? null : (V) vals[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(Object key, V defaultValue) {
+		int i;
+		return (i = indexOf(key)) < 0 ? defaultValue : (V) vals[i];
+	}
+
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	public boolean containsValue(Object value) {
+		for (Object v : vals) {
+			if (Objects.equals(v, value))
+				return true;
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		if (action == null)
+			throw new NullPointerException();
+		Object[] ks = keys, vs = vals;
+		for (int i = 0; i < ks.length; ++i)
+			action.accept((K) ks[i], (V) vs[i]);
+	}
+
+	public Set<K> keySet() {
+		Set<K> ks;
+		return (ks = keySetView) == null ? (keySetView = new KeySet()) : ks;
+	}
+
+	public Collection<V> values() {
+		Collection<V> vs;
+		return (vs = valuesView) == null ? (valuesView = new Values()) : vs;
+	}
+
+	public Set<Map.Entry<K, V>> entrySet() {
+		Set<Map.Entry<K, V>> es;
+		return (es = entrySetView) == null ? (entrySetView = new EntrySet()) : es;
+	}
+
+	/* ---------------- Unsupported mutators -------------- */
+
+	static UnsupportedOperationException uoe() {
+		return new UnsupportedOperationException("FrozenHashMap is immutable");
+	}
+
+	public V put(K key, V value) {
+		throw uoe();
+	}
+
+	public V remove(Object key) {
+		throw uoe();
+	}
+
+	public void putAll(Map<? extends K, ? extends V> m) {
+		throw uoe();
+	}
+
+	public void clear() {
+		throw uoe();
+	}
+
+	public V putIfAbsent(K key, V value) {
+		throw uoe();
+	}
+
+	public boolean remove(Object key, Object value) {
+		throw uoe();
+	}
+
+	public boolean replace(K key, V oldValue, V newValue) {
+		throw uoe();
+	}
+
+	public V replace(K key, V value) {
+		throw uoe();
+	}
+
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		throw uoe();
+	}
+
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		throw uoe();
+	}
+
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		throw uoe();
+	}
+
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		throw uoe();
+	}
+
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		throw uoe();
+	}
+
+	/* ---------------- Perfect hashing -------------- */
+
+	/**
+	 * 把x均匀映射到[0, n),用乘法和移位代替取模
+	 */
+	static int fastRange(int x, int n) {
+		return (int) (((x & 0xffffffffL) * n) >>> 32);
+	}
+
+	/**
+	 * hash所在的桶
+	 */
+	static int bucket(int h, int buckets) {
+		return fastRange(h * 0x9e3779b9, buckets);
+	}
+
+	/**
+	 * 使用种子seed时hash所在的槽位,murmur3的fmix32
+	 */
+	static int slot(int h, int seed, int slots) {
+		h += seed * 0x9e3779b9;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		return fastRange(h ^ (h >>> 16), slots);
+	}
+
+	/**
+	 * 查找key所在的下标,不存在返回-1
+	 */
+	final int indexOf(Object key) {
+		int[] sd;
+		if ((sd = seeds) == null)
+			return -1;
+		int h = HashMap.hash(key);
+		int d = sd[bucket(h, sd.length)];
+		int i = (d < 0) ? -d - 1 : slot(h, d, slots);
+		if (hashes[i] != h)
+			return -1;
+		Object k;
+		if ((k = keys[i]) == key || (key != null && key.equals(k)))
+			return i;
+		if (next != null) {
+			while ((i = next[i] - 1) >= 0) {
+				if ((k = keys[i]) == key || (key != null && key.equals(k)))
+					return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 构建完美hash: 相同的hash合并,按桶大小从大到小为每个桶找一个种子,只有一个hash的桶直接分配剩下的槽位
+	 */
+	private void build(int[] hs, Object[] ks, Object[] vs, int n) {
+		// 相同hash的数据用dup链接起来,first保存每个不同hash的第一个数据
+		IntIntHashMap firstOf = new IntIntHashMap(n);
+		int[] dup = null;
+		int[] first = new int[n];
+		int u = 0;
+		for (int i = 0; i < n; i++) {
+			int f;
+			if ((f = firstOf.putIfAbsent(hs[i], i + 1)) == 0)
+				first[u++] = i;
+			else {
+				if (dup == null)
+					dup = new int[n];
+				// 插入到第一个数据之后
+				dup[i] = dup[f - 1];
+				dup[f - 1] = i + 1;
+			}
+		}
+		slots = u;
+		int[] slotOf = new int[u];
+		if (u > 0) {
+			for (int buckets = Math.max(1, (u + BUCKET_SIZE - 1) / BUCKET_SIZE);; buckets <<= 1) {
+				if (place(hs, first, u, buckets, slotOf))
+					break;
+				if (buckets >= u)
+					throw new IllegalStateException("Cannot build perfect hash for " + u + " hashes");
+			}
+		}
+		// 按照槽位排列数据,相同hash的其它数据放在槽位之后
+		hashes = new int[n];
+		keys = new Object[n];
+		vals = new Object[n];
+		next = (dup == null) ? null : new int[n];
+		int overflow = u;
+		for (int j = 0; j < u; j++) {
+			int i = first[j], s = slotOf[j];
+			hashes[s] = hs[i];
+			keys[s] = ks[i];
+			vals[s] = vs[i];
+			if (dup != null) {
+				for (int p = s, d = dup[i]; d != 0; d = dup[d - 1]) {
+					hashes[overflow] = hs[d - 1];
+					keys[overflow] = ks[d - 1];
+					vals[overflow] = vs[d - 1];
+					next[p] = overflow + 1;
+					p = overflow++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 使用buckets个桶计算每个不同hash的槽位,保存在slotOf中,某个桶找不到种子时返回false
+	 */
+	private boolean place(int[] hs, int[] first, int u, int buckets, int[] slotOf) {
+		// 按桶计数排序,members中同一个桶的hash连续存放
+		int[] start = new int[buckets + 1];
+		int[] bucketOf = new int[u];
+		for (int j = 0; j < u; j++)
+			++start[(bucketOf[j] = bucket(hs[first[j]], buckets)) + 1];
+		int maxSize = 0;
+		for (int b = 0; b < buckets; b++) {
+			maxSize = Math.max(maxSize, start[b + 1]);
+			start[b + 1] += start[b];
+		}
+		int[] members = new int[u], fill = start.clone();
+		for (int j = 0; j < u; j++)
+			members[fill[bucketOf[j]]++] = j;
+		// 桶按大小从大到小排序
+		int[] bySize = new int[maxSize + 2];
+		for (int b = 0; b < buckets; b++)
+			++bySize[maxSize - (start[b + 1] - start[b]) + 1];
+		for (int s = 0; s <= maxSize; s++)
+			bySize[s + 1] += bySize[s];
+		int[] order = new int[buckets];
+		for (int b = 0; b < buckets; b++)
+			order[bySize[maxSize - (start[b + 1] - start[b])]++] = b;
+
+		int[] sd = new int[buckets];
+		boolean[] taken = new boolean[u];
+		int[] tried = new int[maxSize];
+		int ob = 0;
+		for (; ob < buckets; ob++) {
+			int b = order[ob], from = start[b], size = start[b + 1] - from;
+			if (size <= 1)
+				break;
+			int seed = 0;
+			search: for (;;) {
+				if (++seed > MAX_SEED)
+					return false;
+				for (int m = 0; m < size; m++) {
+					int s = slot(hs[first[members[from + m]]], seed, u);
+					if (taken[s]) {
+						while (--m >= 0)
+							taken[tried[m]] = false;
+						continue search;
+					}
+					taken[tried[m] = s] = true;
+				}
+				break;
+			}
+			sd[b] = seed;
+			for (int m = 0; m < size; m++)
+				slotOf[members[from + m]] = tried[m];
+		}
+		// 只有一个hash的桶直接使用空闲的槽位
+		int free = 0;
+		for (; ob < buckets; ob++) {
+			int b = order[ob];
+			if (start[b + 1] == start[b])
+				break;
+			while (taken[free])
+				++free;
+			taken[free] = true;
+			sd[b] = -free - 1;
+			slotOf[members[start[b]]] = free;
+		}
+		seeds = sd;
+		return true;
+	}
+
+	/* ---------------- Serialization -------------- */
+
+	/**
+	 * Save the state of the map to a stream.
+	 *
+	 * @serialData The <i>size</i> (int) followed by the key (Object) and
+	 *             value (Object) of each mapping.
+	 */
+	private void writeObject(java.io.ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(keys.length);
+		for (int i = 0; i < keys.length; ++i) {
+			s.writeObject(keys[i]);
+			s.writeObject(vals[i]);
+		}
+	}
+
+	private void readObject(java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		int n = s.readInt();
+		if (n < 0)
+			throw new InvalidObjectException("Illegal mappings count: " + n);
+		Object[] ks = new Object[n], vs = new Object[n];
+		int[] hs = new int[n];
+		for (int i = 0; i < n; i++) {
+			hs[i] = HashMap.hash(ks[i] = s.readObject());
+			vs[i] = s.readObject();
+		}
+		build(hs, ks, vs, n);
+	}
+
+	/* ------------------------------------------------------------ */
+	// views and iterators
+
+	abstract class FrozenIterator {
+		int cursor;
+
+		public final boolean hasNext() {
+			return cursor < keys.length;
+		}
+
+		final int nextIndex() {
+			if (cursor >= keys.length)
+				throw new NoSuchElementException();
+			return cursor++;
+		}
+	}
+
+	final class KeyIterator extends FrozenIterator implements Iterator<K> {
+		@SuppressWarnings("unchecked")
+		public K next() {
+			return (K) keys[nextIndex()];
+		}
+	}
+
+	final class ValueIterator extends FrozenIterator implements Iterator<V> {
+		@SuppressWarnings("unchecked")
+		public V next() {
+			return (V) vals[nextIndex()];
+		}
+	}
+
+	final class EntryIterator extends FrozenIterator implements Iterator<Map.Entry<K, V>> {
+		@SuppressWarnings("unchecked")
+		public Map.Entry<K, V> next() {
+			int i = nextIndex();
+			return new SimpleImmutableEntry<>((K) keys[i], (V) vals[i]);
+		}
+	}
+
+	final class KeySet extends AbstractSet<K> {
+		public int size() {
+			return keys.length;
+		}
+
+		public Iterator<K> iterator() {
+			return new KeyIterator();
+		}
+
+		public boolean contains(Object o) {
+			return indexOf(o) >= 0;
+		}
+	}
+
+	final class Values extends AbstractCollection<V> {
+		public int size() {
+			return keys.length;
+		}
+
+		public Iterator<V> iterator() {
+			return new ValueIterator();
+		}
+
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+	}
+
+	final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		public int size() {
+			return keys.length;
+		}
+
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			int i;
+			return (i = indexOf(e.getKey())) >= 0 && Objects.equals(vals[i], e.getValue());
+		}
+	}
+}
@@ -30,6 +30,8 @@ import java.io.InvalidObjectException;
 import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -40,7 +42,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	private static final long serialVersionUID = 362498820763181265L;
 
 	/**
-	 * Ĭϵĳʼ
+	 * 默认的初始化容量
 	 */
 	static final int DEFAULT_INITIAL_CAPACITY = 1 << 4; // aka 16
 
@@ -52,12 +54,12 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	static final int MAXIMUM_CAPACITY = 1 << 30;
 
 	/**
-	 * ,ҲǼֵϵ,ֵ
+	 * 加载因子,也就是计算阈值的系数,超过阈值会扩容
 	 */
 	static final float DEFAULT_LOAD_FACTOR = 0.75f;
 
 	/**
-	 * ֵ
+	 * 链表到红黑树的阈值
 	 */
 	static final int TREEIFY_THRESHOLD = 8;
 
@@ -77,12 +79,72 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	static final int MIN_TREEIFY_CAPACITY = 64;
 
 	/**
-	 * mapдݵĽڵ
+	 * 渐进式扩容时,每次put/get/remove顺带迁移的旧桶数量
+	 */
+	static final int INCREMENTAL_RESIZE_STEP = 8;
+
+	/**
+	 * The smallest old table capacity for which an incremental resize is used
+	 * when that mode is enabled. Smaller tables are cheap enough to rehash in
+	 * one go.
+	 */
+	static final int MIN_INCREMENTAL_RESIZE_CAPACITY = 1 << 10;
+
+	/**
+	 * The maximum number of table segments whose entry counts guide the
+	 * splits of balanced spliterators.
+	 */
+	static final int SPLIT_SEGMENTS = 1 << 10;
+
+	/**
+	 * The default old table capacity from which resize() splits bins on the
+	 * common fork/join pool, 0 (parallel resizing disabled) unless set with
+	 * the system property
+	 * <tt>com.demo.jdk_18.map.parallelResizeThreshold</tt>. A value that is
+	 * not a positive integer leaves parallel resizing disabled and prints a
+	 * warning.
+	 */
+	static final int DEFAULT_PARALLEL_RESIZE_THRESHOLD = parallelResizeThresholdProperty();
+
+	/**
+	 * 系统属性必须是正数.在静态初始化中抛出异常会让HashMap类无法使用,所以不合法时只打印警告,不开启并行扩容
+	 */
+	static int parallelResizeThresholdProperty() {
+		String s = System.getProperty("com.demo.jdk_18.map.parallelResizeThreshold");
+		if (s == null)
+			return 0;
+		try {
+			int t = Integer.parseInt(s.trim());
+			if (t > 0)
+				return t;
+		} catch (NumberFormatException e) {
+		}
+		System.err.println("Ignoring illegal com.demo.jdk_18.map.parallelResizeThreshold: " + s);
+		return 0;
+	}
+
+	/**
+	 * 并行扩容时,每个任务最少迁移的旧桶数量
+	 */
+	static final int PARALLEL_RESIZE_GRANULARITY = 1 << 16;
+
+	/**
+	 * 单核机器上并行扩容没有意义
+	 */
+	static final boolean PARALLEL_RESIZE_ENABLED = Runtime.getRuntime().availableProcessors() > 1;
+
+	/**
+	 * 是否允许开启统计(-Dcom.demo.jdk_18.map.metrics=true),关闭时JIT会把统计相关的分支全部去掉
+	 */
+	static final boolean METRICS_ENABLED = Boolean.getBoolean("com.demo.jdk_18.map.metrics");
+
+	/**
+	 * map中存放数据的节点类型
 	 */
 	static class Node<K, V> implements Map.Entry<K, V> {
-		final int hash;// keyhash,еλ
-		final K key; // ݵkey
-		V value; // ݵvalue
+		final int hash;// 根据key计算的hash,用来计算在数组中的位置
+		final K key; // 数据的key
+		V value; // 数据的value
 		Node<K, V> next;
 
 		Node(int hash, K key, V value, Node<K, V> next) {
@@ -115,7 +177,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		/**
-		 * ȽϽڵǷ
+		 * 比较节点是否相等
 		 */
 		public final boolean equals(Object o) {
 			if (o == this)
@@ -132,11 +194,25 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	/* ---------------- Static utilities -------------- */
 
 	/**
-	 * keyhashcode,null0
+	 * 计算key的hashcode,null返回0
 	 */
 	static final int hash(Object key) {
-		int h;
-		return (key == null) ? 0 : (h = key.hashCode()) ^ (h >>> 16);
+		return (key == null) ? 0 : spread(key.hashCode());
+	}
+
+	/**
+	 * 高16位和低16位异或,让高位也参与数组下标的计算,基本类型的map也使用这个方法
+	 */
+	static final int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * 计算当前map中key的hash,开启防碰撞模式时使用带密钥的hash函数
+	 */
+	final int hashOf(Object key) {
+		HashSeed s;
+		return (s = hashSeed) == null ? hash(key) : s.hash(key);
 	}
 
 	/**
@@ -176,51 +252,51 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * ҵcap2nηǸ
+	 * 找到距离cap最近的2的n次方那个数
 	 */
 	static final int tableSizeFor(int cap) {
-		// λΪ1ȫΪ1,Ȼ+1ܵõ2nη
-		// ֹcap=2nη(ʱӦ÷capԭֵ) cap=5:n=0000 0000 0000 0000 0000 0000 0000
+		// 将最高位为1后面的全部置为1,然后+1就能得到2的n次方
+		// 防止cap=2的n次方(此时应该返回cap原值) cap=5:n=0000 0000 0000 0000 0000 0000 0000
 		// 0100
 		int n = cap - 1;
-		// λΪ1ĺ1ڣλΪ1, 0000 0000 0000 0000 0000 0000 0000 0110
+		// 将最高位为1的后1（如果存在）位变为1, 0000 0000 0000 0000 0000 0000 0000 0110
 		n |= n >>> 1;
-		// λΪ1ĺ3ڣλΪ1,0000 0000 0000 0000 0000 0000 0000 0111
+		// 将最高位为1的后3（如果存在）位变为1,0000 0000 0000 0000 0000 0000 0000 0111
 		n |= n >>> 2;
-		// λΪ1ĺ7ڣλΪ1,0000 0000 0000 0000 0000 0000 0000 0111
+		// 将最高位为1的后7（如果存在）位变为1,0000 0000 0000 0000 0000 0000 0000 0111
 		n |= n >>> 4;
-		// λΪ1ĺ15ڣλΪ1,0000 0000 0000 0000 0000 0000 0000 0111
+		// 将最高位为1的后15（如果存在）位变为1,0000 0000 0000 0000 0000 0000 0000 0111
 		n |= n >>> 8;
-		// λΪ1ĺ31ڣλΪ1,0000 0000 0000 0000 0000 0000 0000 0111
+		// 将最高位为1的后31（如果存在）位变为1,0000 0000 0000 0000 0000 0000 0000 0111
 		n |= n >>> 16;
-		// ߼n+1,оͻõ8:0000 0000 0000 0000 0000 0000 0000 1000
+		// 正常逻辑返回n+1,例子中就会得到8:0000 0000 0000 0000 0000 0000 0000 1000
 		return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
 	}
 
 	/* ---------------- Fields -------------- */
 
 	/**
-	 * ݵ
+	 * 存放数据的数组
 	 */
 	transient Node<K, V>[] table;
 
 	/**
-	 * ڱmap
+	 * 用于遍历map
 	 */
 	transient Set<Map.Entry<K, V>> entrySet;
 
 	/**
-	 * mapݵ
+	 * map存放数据的数量
 	 */
 	transient int size;
 
 	/**
-	 * 
+	 * 操作计数器
 	 */
 	transient int modCount;
 
 	/**
-	 * The next size value at which to resize (capacity * load factor). ֵ
+	 * The next size value at which to resize (capacity * load factor). 扩容阈值
 	 * 
 	 * @serial
 	 */
@@ -231,21 +307,80 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	int threshold;
 
 	/**
-	 * 
+	 * 扩容因子
 	 *
 	 * @serial
 	 */
 	final float loadFactor;
 
+	/**
+	 * 渐进式扩容过程中的旧数组,所有桶迁移完成后置为null
+	 */
+	transient Node<K, V>[] oldTable;
+
+	/**
+	 * 旧数组中下一个需要顺序迁移的桶下标
+	 */
+	transient int transferIndex;
+
+	/**
+	 * 是否开启渐进式扩容
+	 */
+	transient boolean incrementalResize;
+
+	/**
+	 * 是否根据桶中key的类型和hash分布决定是否树化
+	 */
+	transient boolean adaptiveTreeify;
+
+	/**
+	 * 自适应树化时最近一次发现的不能比较的key类型,同一个类型连续出现时不用每次都通过反射判断.只缓存一个类型
+	 */
+	transient Class<?> unorderedKeyClass;
+
+	/**
+	 * 缩容比例,删除后节点数小于threshold * shrinkRatio时数组减半,0表示不缩容
+	 */
+	transient float shrinkRatio;
+
+	/**
+	 * 旧数组容量达到这个值时并行扩容,0表示不并行扩容
+	 */
+	transient int parallelResizeThreshold = DEFAULT_PARALLEL_RESIZE_THRESHOLD;
+
+	/**
+	 * 统计数据,没有开启时为null
+	 */
+	transient HashMapMetrics metrics;
+
+	/**
+	 * 防碰撞模式的hash密钥,没有开启时为null
+	 */
+	transient HashSeed hashSeed;
+
+	/**
+	 * 是否按实际节点数量分割spliterator
+	 */
+	transient boolean balancedSpliterators;
+
+	/**
+	 * 分割spliterator用的分段节点数前缀和,对应的数组和modCount没有变化时可以重复使用
+	 */
+	transient int[] splitCounts;
+
+	transient Node<K, V>[] splitCountTable;
+
+	transient int splitCountModCount;
+
 	/* ---------------- Public operations -------------- */
 
 	/**
-	 * һָʼ(ת2nη)ͼӵmap
+	 * 构造一个指定初始容量(会转化成2的n次方)和加载因子的map
 	 *
 	 * @param initialCapacity
-	 *            ʼ
+	 *            初始容量
 	 * @param loadFactor
-	 *            
+	 *            加载因子
 	 * @throws IllegalArgumentException
 	 *             if the initial capacity is negative or the load factor is
 	 *             nonpositive
@@ -262,7 +397,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * ָʼmap
+	 * 构造指定初始容量的map
 	 *
 	 * @param initialCapacity
 	 *            the initial capacity.
@@ -278,12 +413,12 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	 * (16) and the default load factor (0.75).
 	 */
 	public HashMap() {
-		// ʼĬϵļ(ҲǵݴСFﵽ*ʱ,)
+		// 初始化默认的加载因子(也就是当数据大小F达到加载因子*容量时,会扩容)
 		this.loadFactor = DEFAULT_LOAD_FACTOR; // all other fields defaulted
 	}
 
 	/**
-	 * ݴmapµmap
+	 * 根据传入map构造新的map
 	 * 
 	 * @param m
 	 *            the map whose mappings are to be placed in this map
@@ -291,14 +426,14 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	 *             if the specified map is null
 	 */
 	public HashMap(Map<? extends K, ? extends V> m) {
-		// ʼĬϵļ
+		// 初始化默认的加载因子
 		this.loadFactor = DEFAULT_LOAD_FACTOR;
-		// map
+		// 构造map数据
 		putMapEntries(m, false);
 	}
 
 	/**
-	 * Ӵmap
+	 * 添加传入的map数据
 	 *
 	 * @param m
 	 *            the map
@@ -309,29 +444,76 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	final void putMapEntries(Map<? extends K, ? extends V> m, boolean evict) {
 		int s = m.size();
 		if (s > 0) {
-			// map
+			if (m instanceof HashMap && m != this && ((HashMap<?, ?>) m).hashSeed == hashSeed) {
+				// 传入的也是HashMap,并且hash函数相同,走批量添加
+				putHashMapEntries((HashMap<? extends K, ? extends V>) m, s, evict);
+				return;
+			}
+			// 传入map有数据
 			if (table == null) { // pre-size
-				// map(֤mapС * )
-				// һ,ܻᵼһݻ
+				// 计算map的容量(保证map大小不超过容量 * 负载因子)
+				// 如果不加一,可能会导致下一次添加数据还会扩容
 				float ft = ((float) s / loadFactor) + 1.0F;
 				int t = ((ft < (float) MAXIMUM_CAPACITY) ? (int) ft : MAXIMUM_CAPACITY);
 				if (t > threshold)
-					// mapת2nη
+					// 将map容量转化成2的n次方
 					threshold = tableSizeFor(t);
 			} else if (s > threshold)
-				// һ,һ(Ǻ,ӦÿԼӦΪݲٴ)
+				// 下一次添加数据,一定会扩容(不是很明白,这里应该可以计算出应该扩容为多大添加所有数据不会再次扩容)
 				resize();
-			// һ
+			// 一个个添加数据
 			for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
 				K key = e.getKey();
 				V value = e.getValue();
-				putVal(hash(key), key, value, false, evict);
+				putVal(hashOf(key), key, value, false, evict);
 			}
 		}
 	}
 
 	/**
-	 * mapݴС
+	 * 批量添加另一个HashMap的数据: 先一次性扩容到最终的容量,再直接使用节点中保存的hash添加,
+	 * 不再调用key的hashCode(),也不会在添加过程中多次扩容
+	 *
+	 * @param m
+	 *            the source map, not this map
+	 * @param s
+	 *            the size of the source map
+	 * @param evict
+	 *            false when initially constructing this map, else true (relayed
+	 *            to method afterNodeInsertion).
+	 */
+	final void putHashMapEntries(HashMap<? extends K, ? extends V> m, int s, boolean evict) {
+		// 当前map为空时,源map中的key一定互不相同,添加时不需要比较key
+		boolean distinct = (size == 0);
+		presize((long) size + s);
+		m.internalPutEntries(this, distinct, evict);
+	}
+
+	/**
+	 * 返回不超过加载因子时能容纳size个节点的最小容量
+	 */
+	static int capacityFor(int size, float loadFactor) {
+		int cap = tableSizeFor((int) Math.ceil(size / (double) loadFactor));
+		if ((int) (cap * loadFactor) < size && cap < MAXIMUM_CAPACITY)
+			cap <<= 1;
+		return cap;
+	}
+
+	/**
+	 * 一次性扩容到能放下n个数据的容量,之后添加到n个数据都不会再扩容
+	 */
+	final void presize(long n) {
+		float ft = ((float) n / loadFactor) + 1.0F;
+		int t = ((ft < (float) MAXIMUM_CAPACITY) ? (int) ft : MAXIMUM_CAPACITY);
+		if (table == null) {
+			if (t > threshold)
+				threshold = tableSizeFor(t);
+		} else if (n > threshold)
+			rehash(tableSizeFor(t));
+	}
+
+	/**
+	 * 返回map存放数据大小
 	 *
 	 * @return the number of key-value mappings in this map
 	 */
@@ -340,7 +522,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * true=mapû,false=map
+	 * true=map没数据,false=map有数据
 	 * 
 	 * @return <tt>true</tt> if this map contains no key-value mappings
 	 */
@@ -349,16 +531,20 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * keyѯ
+	 * 根据key查询数据
 	 *
 	 **/
 	public V get(Object key) {
 		Node<K, V> e;
-		return (e = getNode(hash(key), key)) == null ? null : e.value;
+		int hash = hashOf(key);
+		if (oldTable != null)
+			// 渐进式扩容中,顺带迁移一部分桶
+			advanceTransfer(hash);
+		return (e = getNode(hash, key)) == null ? null : e.value;
 	}
 
 	/**
-	 * keyѯڵĽڵ
+	 * 根据key查询所在的节点,渐进式扩容过程中,key所在的旧桶还没有迁移时在旧数组中查找
 	 *
 	 * @param hash
 	 *            hash for key
@@ -367,11 +553,66 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	 * @return the node, or null if none
 	 */
 	final Node<K, V> getNode(int hash, Object key) {
+		Node<K, V> e = findNode(hash, key);
+		if (METRICS_ENABLED && metrics != null)
+			metrics.recordLookup(this, hash, e);
+		return e;
+	}
+
+	/**
+	 * getNode的查找逻辑,不记录统计数据
+	 */
+	final Node<K, V> findNode(int hash, Object key) {
+		return findInBin(firstNode(hash), hash, key);
+	}
+
+	/**
+	 * 返回hash所在桶的第一个节点,渐进式扩容中旧桶还没有迁移时返回旧桶的
+	 */
+	final Node<K, V> firstNode(int hash) {
 		Node<K, V>[] tab;
-		Node<K, V> first, e;
 		int n;
+		if ((tab = oldTable) == null || tab[(tab.length - 1) & hash] == null)
+			tab = table;
+		return (tab != null && (n = tab.length) > 0) ? tab[(n - 1) & hash] : null;
+	}
+
+	/**
+	 * 遍历用: 返回新数组tab下标i的桶的第一个节点.渐进式扩容中旧桶还没有迁移时,桶i的节点是旧桶i & (oldCap - 1)中
+	 * 新下标为i的那些节点,遍历时不需要先完成迁移
+	 */
+	final Node<K, V> binFirst(Node<K, V>[] tab, int i) {
+		Node<K, V>[] oldTab;
+		Node<K, V> e;
+		if ((oldTab = oldTable) == null || (e = oldTab[i & (oldTab.length - 1)]) == null)
+			return tab[i];
+		int m = tab.length - 1;
+		while (e != null && (e.hash & m) != i)
+			e = e.next;
+		return e;
+	}
+
+	/**
+	 * 遍历用: 返回新数组tab下标i的桶中e的下一个节点.迁移桶时拆分出的两个链表保持原来的顺序,
+	 * 所以遍历旧桶的过程中桶被迁移也不会重复或者遗漏节点
+	 */
+	final Node<K, V> binNext(Node<K, V>[] tab, int i, Node<K, V> e) {
+		Node<K, V> next = e.next;
+		if (oldTable != null) {
+			int m = tab.length - 1;
+			while (next != null && (next.hash & m) != i)
+				next = next.next;
+		}
+		return next;
+	}
+
+	/**
+	 * 在first开始的桶中查找key
+	 */
+	final Node<K, V> findInBin(Node<K, V> first, int hash, Object key) {
+		Node<K, V> e;
 		K k;
-		if ((tab = table) != null && (n = tab.length) > 0 && (first = tab[(n - 1) & hash]) != null) {
+		if (first != null) {
 			if (first.hash == hash && // always check first node
 					((k = first.key) == key || (key != null && key.equals(k))))
 				return first;
@@ -388,15 +629,18 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * true=key,false=key
+	 * true=包含key,false=不包含key
 	 *
 	 */
 	public boolean containsKey(Object key) {
-		return getNode(hash(key), key) != null;
+		int hash = hashOf(key);
+		if (oldTable != null)
+			advanceTransfer(hash);
+		return getNode(hash, key) != null;
 	}
 
 	/**
-	 * ӻ߸key=value
+	 * 添加或者更新key=value
 	 *
 	 * @param key
 	 *            key with which the specified value is to be associated
@@ -408,11 +652,11 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	 *         <tt>null</tt> with <tt>key</tt>.)
 	 */
 	public V put(K key, V value) {
-		return putVal(hash(key), key, value, false, true);
+		return putVal(hashOf(key), key, value, false, true);
 	}
 
 	/**
-	 * ӻ߸
+	 * 添加或者更新
 	 *
 	 * @param hash
 	 *            hash for key
@@ -431,34 +675,37 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		Node<K, V> p;
 		int n, i;
 		if ((tab = table) == null || (n = tab.length) == 0)
-			// ʼ
+			// 初始化数组
 			n = (tab = resize()).length;
-		// ڵλûʹ,(n - 1) & hashܾС鳤ȶhashӰ
+		if (oldTable != null)
+			// 渐进式扩容中,先把key所在的旧桶迁移到新数组
+			advanceTransfer(hash);
+		// 数组所在的位置没被使用,(n - 1) & hash能尽量减小数组长度对hash的影响
 		if ((p = tab[i = (n - 1) & hash]) == null)
 			tab[i] = newNode(hash, key, value, null);
 		else {
-			// λʹˣҪ߸
+			// 数组所在位置使用了，需要挂载链表里面或者更新数组
 			Node<K, V> e;
 			K k;
-			// hashһ,keyһ,
+			// hash一样,key一样,更新数据
 			if (p.hash == hash && ((k = p.key) == key || (key != null && key.equals(k))))
 				e = p;
 			else if (p instanceof TreeNode)
-				// TreeMapput
+				// TreeMap的put方法
 				e = ((TreeNode<K, V>) p).putTreeVal(this, tab, hash, key, value);
 			else {
-				// 
+				// 遍历链表
 				for (int binCount = 0;; ++binCount) {
 					if ((e = p.next) == null) {
-						// ҵҪŵλ
+						// 找到需要放的位置
 						p.next = newNode(hash, key, value, null);
-						// ڵ8
+						// 如果链表数量大于等于8
 						if (binCount >= TREEIFY_THRESHOLD - 1) // -1 for 1st
-							// ʹúݻǸº
+							// 使用红黑树存放链表数据或者是更新红黑树
 							treeifyBin(tab, hash);
 						break;
 					}
-					// ͬkey
+					// 存在相同key
 					if (e.hash == hash && ((k = e.key) == key || (key != null && key.equals(k))))
 						break;
 					p = e;
@@ -466,47 +713,90 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			}
 			if (e != null) { // existing mapping for key
 				V oldValue = e.value;
-				// oldValue=nullʾkey,valuenull,һ
-				// onlyIfAbsentʾڴkey,value£Ƿvalue
-				if (!onlyIfAbsent || oldValue == null)
-					// 
+				// oldValue=null表示存在key,但是value是null,一定会更新
+				// onlyIfAbsent表示在存在key,value的情况下，是否更新value
+				if (!onlyIfAbsent || oldValue == null) {
+					// 更新数据
 					e.value = value;
-				afterNodeAccess(e);
+					afterNodeAccess(e);
+				} else
+					afterNodeRead(e);
 				return oldValue;
 			}
 		}
 		++modCount;
 		if (++size > threshold)
-			// ֵ
+			// 数量大于阈值，扩容
 			resize();
 		afterNodeInsertion(evict);
 		return null;
 	}
 
 	/**
-	 * 
+	 * putVal的简化版本,调用方保证key在map中不存在,所以不需要比较key,直接挂到桶的末尾
+	 *
+	 * @param hash
+	 *            hash for key
+	 * @param key
+	 *            the key, known to be absent from this map
+	 * @param value
+	 *            the value to put
+	 * @param evict
+	 *            if false, the table is in creation mode.
+	 */
+	final void putDistinctVal(int hash, K key, V value, boolean evict) {
+		Node<K, V>[] tab;
+		Node<K, V> p;
+		int n, i;
+		if ((tab = table) == null || (n = tab.length) == 0)
+			n = (tab = resize()).length;
+		if (oldTable != null)
+			advanceTransfer(hash);
+		if ((p = tab[i = (n - 1) & hash]) == null)
+			tab[i] = newNode(hash, key, value, null);
+		else if (p instanceof TreeNode)
+			((TreeNode<K, V>) p).putTreeVal(this, tab, hash, key, value);
+		else {
+			int binCount = 0;
+			for (Node<K, V> e; (e = p.next) != null; p = e)
+				++binCount;
+			p.next = newNode(hash, key, value, null);
+			if (binCount >= TREEIFY_THRESHOLD - 1)
+				treeifyBin(tab, hash);
+		}
+		++modCount;
+		if (++size > threshold)
+			resize();
+		afterNodeInsertion(evict);
+	}
+
+	/**
+	 * 扩容
 	 */
 	final Node<K, V>[] resize() {
+		long start = (METRICS_ENABLED && metrics != null) ? System.nanoTime() : 0L;
+		// 上一次渐进式扩容还没完成,先全部迁移
+		finishTransfer();
 		Node<K, V>[] oldTab = table;
-		// map
+		// map容量
 		int oldCap = (oldTab == null) ? 0 : oldTab.length;
-		// mapֵthresholdmapʼʱʾ,Ϊֵ
+		// map阈值，threshold在map初始化时表示的是容量,后面会更新为阈值
 		int oldThr = threshold;
 		int newCap, newThr = 0;
-		// ɵ0
+		// 旧的容量大于0
 		if (oldCap > 0) {
 			if (oldCap >= MAXIMUM_CAPACITY) {
 				threshold = Integer.MAX_VALUE;
 				return oldTab;
-				// Ϊԭ2
+				// 可以扩容为原来的2倍
 			} else if ((newCap = oldCap << 1) < MAXIMUM_CAPACITY && oldCap >= DEFAULT_INITIAL_CAPACITY)
-				// ֵΪԭ2(߸ݼӼ)
+				// 阈值增大为原来的2倍(或者根据加载因子计算)
 				newThr = oldThr << 1; // double threshold
-			// tableһγʼ(ʼָ)
+			// table第一次初始化(初始化指定了容量)
 		} else if (oldThr > 0) // initial capacity was placed in threshold
 			newCap = oldThr;
 		else { // zero initial threshold signifies using defaults
-				// ʹõ޲ι캯
+				// 使用的无参构造函数
 			newCap = DEFAULT_INITIAL_CAPACITY;
 			newThr = (int) (DEFAULT_LOAD_FACTOR * DEFAULT_INITIAL_CAPACITY);
 		}
@@ -515,53 +805,324 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			newThr = (newCap < MAXIMUM_CAPACITY && ft < (float) MAXIMUM_CAPACITY ? (int) ft : Integer.MAX_VALUE);
 		}
 		threshold = newThr;
-		// µ
+		// 创建新的数组
 		@SuppressWarnings({ "rawtypes", "unchecked" })
 		Node<K, V>[] newTab = (Node<K, V>[]) new Node[newCap];
 		table = newTab;
-		// ԭʼmapݽµhashµ
+		// 对原始的map数据进行新的hash放入新的数组
 		if (oldTab != null) {
-			for (int j = 0; j < oldCap; ++j) {
-				Node<K, V> e;
-				if ((e = oldTab[j]) != null) {
-					oldTab[j] = null;
-					if (e.next == null)
-						newTab[e.hash & (newCap - 1)] = e;
-					else if (e instanceof TreeNode)
-						((TreeNode<K, V>) e).split(this, newTab, j, oldCap);
-					else { // preserve order
-						Node<K, V> loHead = null, loTail = null;
-						Node<K, V> hiHead = null, hiTail = null;
-						Node<K, V> next;
-						do {
-							next = e.next;
-							if ((e.hash & oldCap) == 0) {
-								if (loTail == null)
-									loHead = e;
-								else
-									loTail.next = e;
-								loTail = e;
-							} else {
-								if (hiTail == null)
-									hiHead = e;
-								else
-									hiTail.next = e;
-								hiTail = e;
-							}
-						} while ((e = next) != null);
-						if (loTail != null) {
-							loTail.next = null;
-							newTab[j] = loHead;
-						}
-						if (hiTail != null) {
-							hiTail.next = null;
-							newTab[j + oldCap] = hiHead;
+			if (incrementalResize && oldCap >= MIN_INCREMENTAL_RESIZE_CAPACITY) {
+				// 渐进式扩容: 保留旧数组,由后续的put/get/remove逐步迁移
+				oldTable = oldTab;
+				transferIndex = 0;
+			} else if (PARALLEL_RESIZE_ENABLED && parallelResizeThreshold > 0 && oldCap >= parallelResizeThreshold) {
+				// 并行扩容: 旧桶j只会迁移到新数组的j和j + oldCap,不同的区间可以由不同线程处理
+				ResizeTask<K, V> task = new ResizeTask<>(this, oldTab, newTab, 0, oldCap);
+				ForkJoinPool.commonPool().invoke(task);
+				// 红黑树拆分可能会调用LinkedHashMap.transferLinks修改相邻节点,跳过的红黑树在这里单线程处理
+				if (task.skippedTreeBins) {
+					for (int j = 0; j < oldCap; ++j)
+						transferBin(oldTab, newTab, j, false);
+				}
+			} else {
+				for (int j = 0; j < oldCap; ++j)
+					transferBin(oldTab, newTab, j, false);
+			}
+		}
+		if (METRICS_ENABLED && metrics != null)
+			metrics.recordResize(System.nanoTime() - start);
+		return newTab;
+	}
+
+	/**
+	 * 并行扩容的任务,负责迁移旧数组[lo, hi)区间的桶,红黑树的桶留给调用方处理
+	 */
+	@SuppressWarnings("serial")
+	static final class ResizeTask<K, V> extends RecursiveAction {
+		final HashMap<K, V> map;
+		final Node<K, V>[] oldTab, newTab;
+		final int lo, hi;
+		boolean skippedTreeBins;
+
+		ResizeTask(HashMap<K, V> map, Node<K, V>[] oldTab, Node<K, V>[] newTab, int lo, int hi) {
+			this.map = map;
+			this.oldTab = oldTab;
+			this.newTab = newTab;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > PARALLEL_RESIZE_GRANULARITY) {
+				int mid = (lo + hi) >>> 1;
+				ResizeTask<K, V> left = new ResizeTask<>(map, oldTab, newTab, lo, mid);
+				ResizeTask<K, V> right = new ResizeTask<>(map, oldTab, newTab, mid, hi);
+				invokeAll(left, right);
+				skippedTreeBins = left.skippedTreeBins || right.skippedTreeBins;
+			} else {
+				Node<K, V>[] oldTab = this.oldTab;
+				int oldCap = oldTab.length;
+				boolean skipped = false;
+				for (int j = lo; j < hi; ++j) {
+					Node<K, V> e;
+					if ((e = oldTab[j]) != null) {
+						if (e instanceof TreeNode)
+							skipped = true;
+						else {
+							oldTab[j] = null;
+							map.splitBin(newTab, e, j, oldCap, false);
 						}
 					}
 				}
+				skippedTreeBins = skipped;
 			}
 		}
-		return newTab;
+	}
+
+	/**
+	 * 将旧数组j位置的桶迁移到新数组(容量是旧数组的2倍).渐进式扩容的迁移(keepNodes为true)可能发生在get或者更新已有key时,
+	 * 这些操作不修改modCount,所以红黑树拆分后不转为链表,也不把根节点移到桶的头部:
+	 * 迭代器和MapCursor持有的节点仍然在map中,节点在链表中的顺序也不变
+	 */
+	final void transferBin(Node<K, V>[] oldTab, Node<K, V>[] newTab, int j, boolean keepNodes) {
+		Node<K, V> e;
+		if ((e = oldTab[j]) != null) {
+			oldTab[j] = null;
+			splitBin(newTab, e, j, oldTab.length, keepNodes);
+		}
+	}
+
+	/**
+	 * 将旧数组j位置的桶拆分成低位链表(放在新数组j位置)和高位链表(放在新数组j + oldCap位置)
+	 *
+	 * @param newTab
+	 *            the table, twice the old capacity, receiving the bin
+	 * @param e
+	 *            the first node of the old bin, already detached
+	 * @param j
+	 *            the index of the old bin
+	 * @param oldCap
+	 *            the capacity of the old table
+	 * @param keepNodes
+	 *            if true, tree bins keep their nodes even when a half is small
+	 */
+	final void splitBin(Node<K, V>[] newTab, Node<K, V> e, int j, int oldCap, boolean keepNodes) {
+		if (e.next == null)
+			newTab[e.hash & ((oldCap << 1) - 1)] = e;
+		else if (e instanceof TreeNode)
+			((TreeNode<K, V>) e).split(this, newTab, j, oldCap, keepNodes);
+		else { // preserve order
+			Node<K, V> loHead = null, loTail = null;
+			Node<K, V> hiHead = null, hiTail = null;
+			Node<K, V> next;
+			do {
+				next = e.next;
+				if ((e.hash & oldCap) == 0) {
+					if (loTail == null)
+						loHead = e;
+					else
+						loTail.next = e;
+					loTail = e;
+				} else {
+					if (hiTail == null)
+						hiHead = e;
+					else
+						hiTail.next = e;
+					hiTail = e;
+				}
+			} while ((e = next) != null);
+			if (loTail != null) {
+				loTail.next = null;
+				newTab[j] = loHead;
+			}
+			if (hiTail != null) {
+				hiTail.next = null;
+				newTab[j + oldCap] = hiHead;
+			}
+		}
+	}
+
+	/**
+	 * 渐进式扩容: 先迁移hash所在的旧桶,再按顺序迁移最多INCREMENTAL_RESIZE_STEP个桶,
+	 * 全部迁移完成后丢弃旧数组
+	 */
+	final void advanceTransfer(int hash) {
+		Node<K, V>[] oldTab;
+		if ((oldTab = oldTable) != null) {
+			Node<K, V>[] newTab = table;
+			int oldCap = oldTab.length;
+			transferBin(oldTab, newTab, hash & (oldCap - 1), true);
+			int i = transferIndex, bound = Math.min(i + INCREMENTAL_RESIZE_STEP, oldCap);
+			for (; i < bound; ++i)
+				transferBin(oldTab, newTab, i, true);
+			if ((transferIndex = i) >= oldCap)
+				oldTable = null;
+		}
+	}
+
+	/**
+	 * Completes an in-progress incremental resize. Used before operations
+	 * that restructure the whole table, which are linear anyway; iterators
+	 * and read-only bulk operations walk both tables instead.
+	 */
+	final void finishTransfer() {
+		Node<K, V>[] oldTab;
+		if ((oldTab = oldTable) != null) {
+			Node<K, V>[] newTab = table;
+			for (int i = transferIndex; i < oldTab.length; ++i)
+				transferBin(oldTab, newTab, i, true);
+			oldTable = null;
+		}
+	}
+
+	/**
+	 * 一次性扩容到指定的容量(可以是当前容量的任意2的n次方倍),每个节点只移动一次
+	 *
+	 * @param newCap
+	 *            the new capacity, a power of two
+	 */
+	final void rehash(int newCap) {
+		long start = (METRICS_ENABLED && metrics != null) ? System.nanoTime() : 0L;
+		finishTransfer();
+		Node<K, V>[] oldTab = table;
+		int oldCap = (oldTab == null) ? 0 : oldTab.length;
+		if (newCap <= oldCap)
+			return;
+		float ft = (float) newCap * loadFactor;
+		threshold = (newCap < MAXIMUM_CAPACITY && ft < (float) MAXIMUM_CAPACITY ? (int) ft : Integer.MAX_VALUE);
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		Node<K, V>[] newTab = (Node<K, V>[]) new Node[newCap];
+		table = newTab;
+		for (int j = 0; j < oldCap; ++j) {
+			Node<K, V> e, next;
+			if ((e = oldTab[j]) != null) {
+				oldTab[j] = null;
+				if (e instanceof TreeNode)
+					rehashTreeBin(newTab, (TreeNode<K, V>) e, j, oldCap);
+				else {
+					// 链表中的节点插入到新桶的头部
+					do {
+						next = e.next;
+						int i = e.hash & (newCap - 1);
+						e.next = newTab[i];
+						newTab[i] = e;
+					} while ((e = next) != null);
+				}
+			}
+		}
+		if (METRICS_ENABLED && metrics != null)
+			metrics.recordResize(System.nanoTime() - start);
+	}
+
+	/**
+	 * 红黑树的桶拆分到新数组的j, j + oldCap, j + 2 * oldCap...位置,
+	 * 拆分后节点数量小于等于UNTREEIFY_THRESHOLD的转为链表,其余的重新构建红黑树
+	 */
+	final void rehashTreeBin(Node<K, V>[] newTab, TreeNode<K, V> b, int j, int oldCap) {
+		int mask = newTab.length - 1;
+		for (TreeNode<K, V> e = b, next; e != null; e = next) {
+			next = (TreeNode<K, V>) e.next;
+			int i = e.hash & mask;
+			TreeNode<K, V> hd = (TreeNode<K, V>) newTab[i];
+			e.prev = null;
+			if ((e.next = hd) != null)
+				hd.prev = e;
+			newTab[i] = e;
+		}
+		for (int i = j; i <= mask; i += oldCap) {
+			TreeNode<K, V> hd;
+			if ((hd = (TreeNode<K, V>) newTab[i]) != null) {
+				int lc = 0;
+				for (Node<K, V> q = hd; q != null; q = q.next)
+					++lc;
+				if (lc <= UNTREEIFY_THRESHOLD)
+					newTab[i] = hd.untreeify(this);
+				else
+					hd.treeify(newTab);
+			}
+		}
+	}
+
+	/**
+	 * 缩容到newCap(小于当前容量的2的n次方),和扩容时的拆分相反: 旧桶j, j + newCap, j + 2 * newCap...
+	 * 的链表按顺序首尾相连放到新桶j.合并后含有红黑树节点的桶,节点数小于等于UNTREEIFY_THRESHOLD或者新容量小于
+	 * MIN_TREEIFY_CAPACITY的转为链表,其余的重新构建红黑树
+	 *
+	 * @param newCap
+	 *            the new capacity, a power of two
+	 */
+	final void shrink(int newCap) {
+		long start = (METRICS_ENABLED && metrics != null) ? System.nanoTime() : 0L;
+		finishTransfer();
+		Node<K, V>[] oldTab = table;
+		int oldCap = (oldTab == null) ? 0 : oldTab.length;
+		if (newCap >= oldCap)
+			return;
+		threshold = (int) ((float) newCap * loadFactor);
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		Node<K, V>[] newTab = (Node<K, V>[]) new Node[newCap];
+		table = newTab;
+		for (int j = 0; j < newCap; ++j) {
+			Node<K, V> hd = null, tl = null, e;
+			int count = 0;
+			boolean tree = false;
+			for (int i = j; i < oldCap; i += newCap) {
+				if ((e = oldTab[i]) != null) {
+					oldTab[i] = null;
+					tree |= e instanceof TreeNode;
+					if (tl == null)
+						hd = e;
+					else
+						tl.next = e;
+					for (++count; e.next != null; e = e.next)
+						++count;
+					tl = e;
+				}
+			}
+			if (tree)
+				mergeTreeBin(newTab, j, hd, count, newCap);
+			else
+				newTab[j] = hd;
+		}
+		if (METRICS_ENABLED && metrics != null)
+			metrics.recordResize(System.nanoTime() - start);
+	}
+
+	/**
+	 * 缩容时合并出来的桶含有红黑树节点,按节点数转为链表或者红黑树.新容量小于MIN_TREEIFY_CAPACITY时和treeifyBin一样不树化,
+	 * 全部转为链表
+	 */
+	final void mergeTreeBin(Node<K, V>[] tab, int j, Node<K, V> hd, int count, int newCap) {
+		if (count <= UNTREEIFY_THRESHOLD || newCap < MIN_TREEIFY_CAPACITY) {
+			if (METRICS_ENABLED && metrics != null)
+				metrics.untreeifyCount++;
+			Node<K, V> h = null, t = null;
+			for (Node<K, V> q = hd, next; q != null; q = next) {
+				next = q.next;
+				Node<K, V> p = (q instanceof TreeNode) ? replacementNode(q, null) : q;
+				p.next = null;
+				if (t == null)
+					h = p;
+				else
+					t.next = p;
+				t = p;
+			}
+			tab[j] = h;
+		} else {
+			TreeNode<K, V> h = null, t = null;
+			for (Node<K, V> q = hd, next; q != null; q = next) {
+				next = q.next;
+				TreeNode<K, V> p = (q instanceof TreeNode) ? (TreeNode<K, V>) q : replacementTreeNode(q, null);
+				p.next = null;
+				if ((p.prev = t) == null)
+					h = p;
+				else
+					t.next = p;
+				t = p;
+			}
+			tab[j] = h;
+			h.treeify(tab);
+		}
 	}
 
 	/**
@@ -573,7 +1134,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		Node<K, V> e;
 		if (tab == null || (n = tab.length) < MIN_TREEIFY_CAPACITY)
 			resize();
-		else if ((e = tab[index = (n - 1) & hash]) != null) {
+		else if ((e = tab[index = (n - 1) & hash]) != null && (!adaptiveTreeify || shouldTreeify(e, n))) {
 			TreeNode<K, V> hd = null, tl = null;
 			do {
 				TreeNode<K, V> p = replacementTreeNode(e, null);
@@ -585,13 +1146,56 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				}
 				tl = p;
 			} while ((e = e.next) != null);
-			if ((tab[index] = hd) != null)
+			if ((tab[index] = hd) != null) {
 				hd.treeify(tab);
+				if (METRICS_ENABLED && metrics != null)
+					metrics.treeifyCount++;
+			}
+		}
+	}
+
+	/**
+	 * 自适应树化的判断: 桶中的key都是同一个Comparable类型时树化.否则红黑树只能按hash排序,
+	 * 扩容能拆开这个桶时提前扩容;hash不完全相同时仍然树化;hash全部相同时红黑树没有可以排序的依据,
+	 * 查找还要搜索两棵子树,保持链表
+	 *
+	 * @param first
+	 *            the first node of a bin that reached TREEIFY_THRESHOLD
+	 * @param n
+	 *            the table length
+	 * @return true if the bin should be treeified now
+	 */
+	final boolean shouldTreeify(Node<K, V> first, int n) {
+		K k0 = first.key;
+		Class<?> kc = null;
+		if (k0 != null && k0.getClass() != unorderedKeyClass && (kc = comparableClassFor(k0)) == null)
+			unorderedKeyClass = k0.getClass();
+		int h = first.hash, diff = 0;
+		for (Node<K, V> e = first.next; e != null; e = e.next) {
+			K k;
+			diff |= e.hash ^ h;
+			if (kc != null && ((k = e.key) == null || k.getClass() != kc))
+				kc = null;
+		}
+		if (kc != null)
+			return true;
+		HashMapMetrics mt = METRICS_ENABLED ? metrics : null;
+		if ((diff & n) != 0 && n < MAXIMUM_CAPACITY && size >= (n >>> 2)) {
+			// 扩容后这个桶会拆到j和j + n两个位置
+			if (mt != null)
+				mt.earlyResizeCount++;
+			resize();
+			return false;
 		}
+		if (diff != 0)
+			return true;
+		if (mt != null)
+			mt.treeifySkipCount++;
+		return false;
 	}
 
 	/**
-	 * ⲿõķ,map
+	 * 外部调用的方法,添加map数据
 	 *
 	 * @param m
 	 *            mappings to be stored in this map
@@ -603,7 +1207,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * keyɾڵ
+	 * 根据key删除节点
 	 *
 	 * @param key
 	 *            key whose mapping is to be removed from the map
@@ -614,11 +1218,11 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	 */
 	public V remove(Object key) {
 		Node<K, V> e;
-		return (e = removeNode(hash(key), key, null, false, true)) == null ? null : e.value;
+		return (e = removeNode(hashOf(key), key, null, false, true)) == null ? null : e.value;
 	}
 
 	/**
-	 * keykey,valueɾԪ
+	 * 根据key或者key,value删除元素
 	 *
 	 * @param hash
 	 *            hash for key
@@ -627,7 +1231,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	 * @param value
 	 *            the value to match if matchValue, else ignored
 	 * @param matchValue
-	 *            if true only remove if value is equal,ǷvalueȽ
+	 *            if true only remove if value is equal,是否根据value比较
 	 * @param movable
 	 *            if false do not move other nodes while removing
 	 * @return the node, or null if none
@@ -636,21 +1240,24 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		Node<K, V>[] tab;
 		Node<K, V> p;
 		int n, index;
-		// map,ҶӦλô
+		if (oldTable != null)
+			// 渐进式扩容中,先把key所在的旧桶迁移到新数组
+			advanceTransfer(hash);
+		// 如果map存在数据,并且对应的数组位置存在数据
 		if ((tab = table) != null && (n = tab.length) > 0 && (p = tab[index = (n - 1) & hash]) != null) {
 			Node<K, V> node = null, e;
 			K k;
 			V v;
-			// жڵԪǲҪɾԪ
+			// 判断数组所在的元素是不是需要删除的元素
 			if (p.hash == hash && ((k = p.key) == key || (key != null && key.equals(k))))
 				node = p;
 			else if ((e = p.next) != null) {
-				// λµҵҪɾĽڵ
+				// 从数组位置下的链表或者树中找到需要删除的节点
 				if (p instanceof TreeNode)
-					// ṹ洢
+					// 树结构存储
 					node = ((TreeNode<K, V>) p).getTreeNode(hash, key);
 				else {
-					// ṹ洢
+					// 链表结构存储
 					do {
 						if (e.hash == hash && ((k = e.key) == key || (key != null && key.equals(k)))) {
 							node = e;
@@ -660,23 +1267,27 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 					} while ((e = e.next) != null);
 				}
 			}
-			// ҵҪɾĽڵ
-			// ǷҪݱȽvalueɾڵ,Ҫ,ȽvalueǷȡɾڵ,ȽvalueҲɾʱԸkeyɾ,ҲԸkey,valueɾmapеݣ
+			// 找到了需要删除的节点
+			// 是否要根据比较value删除节点,如果需要,比较value是否相等。否则，删除节点,不比较value（也就是删除时可以根据key删除,也可以根据key,value删除map中的数据）
 			if (node != null && (!matchValue || (v = node.value) == value || (value != null && value.equals(v)))) {
 				if (node instanceof TreeNode)
-					// ɾеĽڵ
+					// 删除树中的节点
 					((TreeNode<K, V>) node).removeTreeNode(this, tab, movable);
 				else if (node == p)
-					// ʾҪɾڵԪ,ֱӽһڵ滻λ
+					// 表示需要删除的是数组所在的元素,直接将下一个节点替换数组位置
 					tab[index] = node.next;
 				else
-					// ҪɾĽڵǰһڵͺһڵ,1->2(ɾ)->3:1->3
+					// 将需要删除的节点的前一个节点和后一个节点连起来,1->2(删除)->3:1->3
 					p.next = node.next;
-				// һ
+				// 计数器加一
 				++modCount;
-				// mapСһ
+				// map大小减一
 				--size;
 				afterNodeRemoval(node);
+				// 迭代器删除时不能移动节点,不缩容
+				if (shrinkRatio != 0f && movable && size < (int) (threshold * shrinkRatio) && n > DEFAULT_INITIAL_CAPACITY
+						&& oldTable == null)
+					shrink(n >>> 1);
 				return node;
 			}
 		}
@@ -684,12 +1295,42 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * ֻǽڵΪnull,
+	 * 把map中已有的节点从所在的桶中删除,按引用查找,不重新计算hash也不比较key.不调用afterNodeRemoval,
+	 * 不移动其他节点,不缩容
+	 */
+	final void unlinkNode(Node<K, V> node) {
+		Node<K, V>[] tab;
+		Node<K, V> p;
+		int hash = node.hash, index;
+		if (oldTable != null)
+			// 渐进式扩容中,先把节点所在的旧桶迁移到新数组
+			advanceTransfer(hash);
+		p = (tab = table)[index = (tab.length - 1) & hash];
+		if (node instanceof TreeNode)
+			((TreeNode<K, V>) node).removeTreeNode(this, tab, false);
+		else if (p == node)
+			tab[index] = node.next;
+		else {
+			while (p.next != node)
+				p = p.next;
+			p.next = node.next;
+		}
+		++modCount;
+		--size;
+	}
+
+	/**
+	 * 只是将数组节点置为null,容量不变;开启了缩容时释放数组
 	 */
 	public void clear() {
 		Node<K, V>[] tab;
 		modCount++;
-		if ((tab = table) != null && size > 0) {
+		oldTable = null;
+		if (shrinkRatio != 0f && table != null) {
+			size = 0;
+			table = null;
+			threshold = 0;
+		} else if ((tab = table) != null && size > 0) {
 			size = 0;
 			for (int i = 0; i < tab.length; ++i)
 				tab[i] = null;
@@ -697,19 +1338,498 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * жǷֵ
+	 * Enables or disables incremental resizing. When enabled, growing a table
+	 * of at least {@link #MIN_INCREMENTAL_RESIZE_CAPACITY} bins allocates the
+	 * new table but leaves the entries in the old one; each subsequent
+	 * <tt>put</tt>, <tt>get</tt>, <tt>getOrDefault</tt>, <tt>containsKey</tt>
+	 * or <tt>remove</tt> then moves the bin of its key plus a bounded number
+	 * of further bins, so no single operation pays for rehashing the whole
+	 * map. Disabling the mode completes any migration in progress. The setting
+	 * is not serialized.
+	 *
+	 * <p><strong>While a migration is in progress, these lookups modify the
+	 * table.</strong> Several threads reading a map that no thread modifies is
+	 * safe for an ordinary <tt>HashMap</tt>, but not in this mode: such reads
+	 * must be synchronized externally like writes, or the mode must stay off
+	 * for maps that are shared once built. Iterators and views do not move
+	 * bins, and lookups never invalidate them.
+	 *
+	 * @param incremental
+	 *            <tt>true</tt> to spread resizes over later operations
+	 */
+	public void setIncrementalResize(boolean incremental) {
+		if (!(incrementalResize = incremental))
+			finishTransfer();
+	}
+
+	/**
+	 * Sets the old table capacity from which a (non-incremental) resize
+	 * splits the bins in parallel on {@link ForkJoinPool#commonPool()}. Each
+	 * old bin <i>j</i> only moves to new bins <i>j</i> and <i>j + oldCap</i>,
+	 * so disjoint ranges of the old table can be rehashed independently.
+	 * Parallel resizing is off unless enabled here or with the system property
+	 * <tt>com.demo.jdk_18.map.parallelResizeThreshold</tt>, which sets the
+	 * default for new maps. Resizes are always sequential on a
+	 * single-processor machine. The setting is not serialized.
+	 *
+	 * @param threshold
+	 *            the smallest old capacity rehashed in parallel; 0 disables
+	 *            parallel resizing
+	 * @throws IllegalArgumentException
+	 *             if the threshold is negative
+	 */
+	public void setParallelResizeThreshold(int threshold) {
+		if (threshold < 0)
+			throw new IllegalArgumentException("Illegal parallel resize threshold: " + threshold);
+		parallelResizeThreshold = threshold;
+	}
+
+	/**
+	 * Enables or disables adaptive treeification. By default a bin is turned
+	 * into a red-black tree once it holds {@value #TREEIFY_THRESHOLD} nodes
+	 * and the table has {@value #MIN_TREEIFY_CAPACITY} bins. A tree can only
+	 * order keys by hash and, for keys of one {@link Comparable} class, by
+	 * {@code compareTo}; keys that are neither are found by searching both
+	 * subtrees, which costs more than the list it replaced. In adaptive mode
+	 * such a bin is inspected first:
+	 * <ul>
+	 * <li>keys of a single <tt>Comparable</tt> class: the bin is treeified as
+	 * usual;</li>
+	 * <li>otherwise, if doubling the table would split the bin and the table
+	 * is at least a quarter full, the map resizes early instead;</li>
+	 * <li>otherwise the bin is treeified only if its hashes are not all
+	 * equal, and stays a list when they are.</li>
+	 * </ul>
+	 * The decision looks only at the bin being treeified; the map keeps no
+	 * collision statistics of its own. The most recent non-comparable key
+	 * class is cached so that a map with a single such key class runs the
+	 * reflective <tt>Comparable</tt> check once. Skipped treeifications and
+	 * early resizes are counted by {@link #enableMetrics()}. The setting is
+	 * not serialized.
+	 *
+	 * @param adaptive
+	 *            <tt>true</tt> to decide treeification per bin
+	 */
+	public void setAdaptiveTreeification(boolean adaptive) {
+		adaptiveTreeify = adaptive;
+	}
+
+	/**
+	 * Sets the low-water mark below which removals shrink the table. When a
+	 * <tt>remove</tt> (or a <tt>compute</tt> that removes) leaves fewer than
+	 * <tt>ratio</tt> times the resize threshold mappings, the table is halved,
+	 * down to {@value #DEFAULT_INITIAL_CAPACITY} bins: each new bin <i>j</i>
+	 * takes the chains of old bins <i>j</i> and <i>j + newCap</i>, undoing
+	 * the split done when the table grew, and a merged tree bin is turned
+	 * back into a list if it is small enough. A ratio below one half leaves
+	 * the halved table at most that ratio doubled full, so the map does not
+	 * flip between growing and shrinking around one size. Removals through
+	 * iterators never shrink the table; {@link #clear()} drops it entirely.
+	 * The setting is not serialized.
+	 *
+	 * @param ratio
+	 *            the low-water mark as a fraction of the threshold, for
+	 *            example <tt>0.25f</tt>; <tt>0</tt> disables shrinking
+	 * @throws IllegalArgumentException
+	 *             if the ratio is not in [0, 0.5)
+	 */
+	public void setShrinkRatio(float ratio) {
+		if (!(ratio >= 0f && ratio < 0.5f))
+			throw new IllegalArgumentException("Illegal shrink ratio: " + ratio);
+		shrinkRatio = ratio;
+	}
+
+	/**
+	 * Shrinks the table to the smallest capacity that holds the current
+	 * mappings without exceeding the load factor, like
+	 * {@code ArrayList.trimToSize()}, and drops it if the map is empty. Useful
+	 * after a burst of activity so that a long-lived map does not keep its
+	 * peak footprint.
+	 */
+	public void trimToSize() {
+		finishTransfer();
+		Node<K, V>[] tab;
+		if ((tab = table) == null)
+			return;
+		modCount++;
+		if (size == 0) {
+			table = null;
+			threshold = 0;
+			return;
+		}
+		int cap = capacityFor(size, loadFactor);
+		if (cap < tab.length)
+			shrink(cap);
+	}
+
+	/**
+	 * Switches this map to keyed hashing, meant for maps whose keys come from
+	 * untrusted input. <tt>String</tt> keys are then hashed from their
+	 * contents with SipHash-1-3 under a random per-map key instead of using
+	 * <tt>String.hashCode()</tt>, so crafted keys can no longer be made to
+	 * share a bin; tree bins do not help there as they only order
+	 * <tt>Comparable</tt> keys of the same class efficiently. Other keys have
+	 * their hash codes mixed with the random key, which spreads distinct hash
+	 * codes but cannot separate equal ones.
+	 *
+	 * <p>
+	 * Keyed hashing costs a pass over the characters on every lookup and
+	 * insertion, but maps that do not enable it are unaffected. Clones keep
+	 * the mode; it is not serialized.
+	 *
+	 * @throws IllegalStateException
+	 *             if the map is not empty
+	 */
+	public void enableKeyedHashing() {
+		if (size != 0)
+			throw new IllegalStateException("Keyed hashing must be enabled on an empty map");
+		if (hashSeed == null)
+			hashSeed = new HashSeed();
+	}
+
+	/**
+	 * Returns <tt>true</tt> if {@link #enableKeyedHashing()} was called on
+	 * this map.
+	 */
+	public boolean isKeyedHashing() {
+		return hashSeed != null;
+	}
+
+	/**
+	 * Makes the spliterators of {@link #keySet()}, {@link #values()} and
+	 * {@link #entrySet()} split by entry count instead of halving the bin
+	 * range. The first split counts the entries of up to
+	 * {@value #SPLIT_SEGMENTS} equal segments of the table; the counts are
+	 * reused until the map is structurally modified. Splits then fall on the
+	 * segment boundary closest to half of the remaining entries, or, inside a
+	 * single segment, on the closest bin. Every spliterator knows its exact
+	 * size and reports {@link Spliterator#SIZED} and
+	 * {@link Spliterator#SUBSIZED}, so skewed bins and sparse tables no longer
+	 * leave parallel streams unbalanced. The setting is not serialized.
+	 *
+	 * @param balanced
+	 *            <tt>true</tt> to split by entry count
+	 */
+	public void setBalancedSpliterators(boolean balanced) {
+		if (!(balancedSpliterators = balanced)) {
+			splitCounts = null;
+			splitCountTable = null;
+		}
+	}
+
+	/**
+	 * 返回tab按2^shift个桶分段的节点数前缀和,counts[s]是前s段的节点总数,缓存失效时重新统计
+	 */
+	final int[] splitCounts(Node<K, V>[] tab, int shift) {
+		int[] counts;
+		if ((counts = splitCounts) != null && splitCountTable == tab && splitCountModCount == modCount)
+			return counts;
+		int segs = tab.length >>> shift;
+		counts = new int[segs + 1];
+		for (int s = 0, i = 0, c = 0; s < segs; s++) {
+			for (int end = (s + 1) << shift; i < end; ++i) {
+				for (Node<K, V> e = binFirst(tab, i); e != null; e = binNext(tab, i, e))
+					++c;
+			}
+			counts[s + 1] = c;
+		}
+		splitCountTable = tab;
+		splitCountModCount = modCount;
+		return splitCounts = counts;
+	}
+
+	/**
+	 * Starts collecting metrics for this map, or returns the metrics already
+	 * being collected. Lookup hits, misses and probe lengths, treeify and
+	 * untreeify events and resize counts and durations are recorded from
+	 * then on; chain lengths are measured when a snapshot is taken.
+	 *
+	 * <p>
+	 * Collection must also be allowed for the whole JVM with the system
+	 * property <tt>com.demo.jdk_18.map.metrics=true</tt>. Without it the
+	 * instrumentation is compiled away and this method throws. Metrics are
+	 * not cloned or serialized.
+	 *
+	 * @return the metrics of this map
+	 * @throws IllegalStateException
+	 *             if metrics are not enabled for the JVM
+	 */
+	public HashMapMetrics enableMetrics() {
+		if (!METRICS_ENABLED)
+			throw new IllegalStateException("HashMap metrics are disabled, start the JVM with -Dcom.demo.jdk_18.map.metrics=true");
+		HashMapMetrics m;
+		return (m = metrics) != null ? m : (metrics = new HashMapMetrics(this));
+	}
+
+	/**
+	 * Stops collecting metrics for this map. A registered MBean keeps
+	 * reporting the values collected so far.
+	 */
+	public void disableMetrics() {
+		metrics = null;
+	}
+
+	/**
+	 * Returns the metrics collected for this map, or <tt>null</tt> if
+	 * {@link #enableMetrics()} has not been called.
+	 */
+	public HashMapMetrics metrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns an immutable copy of this map with a perfect hash layout, for
+	 * maps that are built once and then only read. See
+	 * {@link FrozenHashMap}. The hashes stored in the nodes are reused
+	 * unless keyed hashing is enabled.
+	 *
+	 * @return a frozen copy of this map
+	 */
+	public FrozenHashMap<K, V> freeze() {
+		int n = size;
+		Object[] ks = new Object[n], vs = new Object[n];
+		int[] hs = new int[n];
+		Node<K, V>[] tab;
+		if (n > 0 && (tab = table) != null) {
+			int i = 0;
+			for (int j = 0; j < tab.length; ++j) {
+				for (Node<K, V> e = binFirst(tab, j); e != null; e = binNext(tab, j, e)) {
+					ks[i] = e.key;
+					vs[i] = e.value;
+					hs[i++] = (hashSeed == null) ? e.hash : hash(e.key);
+				}
+			}
+		}
+		return new FrozenHashMap<>(hs, ks, vs, n);
+	}
+
+	/* ---------------- Precomputed hashes -------------- */
+
+	/**
+	 * 批量查询时每一轮处理的key数量,同时发出的桶读取最多这么多个
+	 */
+	static final int BATCH_SIZE = 32;
+
+	/**
+	 * 批量查询使用的临时数组,每个线程一份,批量查询本身不分配内存.hashCode/equals中再次调用批量操作时
+	 * 临时数组正在使用,嵌套的调用使用新分配的数组
+	 */
+	static final class BatchScratch {
+		final int[] hashes = new int[BATCH_SIZE];
+		final Node<?, ?>[] bins = new Node<?, ?>[BATCH_SIZE];
+		boolean busy;
+
+		/**
+		 * 释放临时数组,清空bins避免持有节点的引用
+		 */
+		void release() {
+			Node<?, ?>[] b = bins;
+			for (int i = 0; i < b.length; ++i)
+				b[i] = null;
+			busy = false;
+		}
+	}
+
+	static final ThreadLocal<BatchScratch> BATCH_SCRATCH = ThreadLocal.withInitial(BatchScratch::new);
+
+	/**
+	 * token在当前map中的hash,开启防碰撞模式时根据key重新计算
+	 */
+	final int tokenHash(HashedKey<?> key) {
+		return (hashSeed == null) ? key.hash : hashOf(key.key);
+	}
+
+	/**
+	 * Same as {@link #get(Object) get(key.key())}, without calling
+	 * <tt>hashCode()</tt>.
+	 */
+	public V getHashed(HashedKey<?> key) {
+		Node<K, V> e;
+		int hash = tokenHash(key);
+		if (oldTable != null)
+			advanceTransfer(hash);
+		return (e = getNode(hash, key.key)) == null ? null : e.value;
+	}
+
+	/**
+	 * Same as {@link #containsKey(Object) containsKey(key.key())}, without
+	 * calling <tt>hashCode()</tt>.
+	 */
+	public boolean containsKeyHashed(HashedKey<?> key) {
+		return getNode(tokenHash(key), key.key) != null;
+	}
+
+	/**
+	 * Same as {@link #put(Object, Object) put(key.key(), value)}, without
+	 * calling <tt>hashCode()</tt>.
+	 */
+	public V putHashed(HashedKey<? extends K> key, V value) {
+		return putVal(tokenHash(key), key.key, value, false, true);
+	}
+
+	/**
+	 * Same as {@link #remove(Object) remove(key.key())}, without calling
+	 * <tt>hashCode()</tt>.
+	 */
+	public V removeHashed(HashedKey<?> key) {
+		Node<K, V> e;
+		return (e = removeNode(tokenHash(key), key.key, null, false, true)) == null ? null : e.value;
+	}
+
+	/**
+	 * Same as {@link #compute(Object, BiFunction) compute(key.key(),
+	 * remappingFunction)}, without calling <tt>hashCode()</tt>.
+	 */
+	public V computeHashed(HashedKey<? extends K> key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if (remappingFunction == null)
+			throw new NullPointerException();
+		return computeVal(tokenHash(key), key.key, remappingFunction);
+	}
+
+	/**
+	 * Same as {@link #computeIfAbsent(Object, Function)
+	 * computeIfAbsent(key.key(), mappingFunction)}, without calling
+	 * <tt>hashCode()</tt>.
+	 */
+	public V computeIfAbsentHashed(HashedKey<? extends K> key, Function<? super K, ? extends V> mappingFunction) {
+		if (mappingFunction == null)
+			throw new NullPointerException();
+		return computeIfAbsentVal(tokenHash(key), key.key, mappingFunction);
+	}
+
+	/**
+	 * Same as {@link #getAll(Object[], Object[])} with precomputed hashes.
+	 *
+	 * @return the number of keys found
+	 * @throws IllegalArgumentException
+	 *             if <tt>values</tt> is shorter than <tt>keys</tt>
+	 */
+	public int getAllHashed(HashedKey<?>[] keys, V[] values) {
+		return getAll(keys, true, values);
+	}
+
+	/**
+	 * Looks up all keys, storing the value mapped to <tt>keys[i]</tt> (or
+	 * <tt>null</tt>) in <tt>values[i]</tt>. The keys are processed in groups
+	 * of {@value #BATCH_SIZE}: all hashes of a group are computed first, then
+	 * all its bins are read, and only then are the chains walked, so the
+	 * cache misses of a cold table overlap instead of being taken one after
+	 * the other. The batch allocates nothing.
+	 *
+	 * @return the number of keys found
+	 * @throws IllegalArgumentException
+	 *             if <tt>values</tt> is shorter than <tt>keys</tt>
+	 */
+	public int getAll(Object[] keys, V[] values) {
+		return getAll(keys, false, values);
+	}
+
+	/**
+	 * Maps each <tt>keys[i]</tt> to <tt>values[i]</tt>, like calling
+	 * {@link #put} for each index in order. The table is grown once for all
+	 * keys up front, and each group of {@value #BATCH_SIZE} keys is hashed
+	 * before any of them is inserted.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if <tt>values</tt> is shorter than <tt>keys</tt>
+	 */
+	public void putAll(K[] keys, V[] values) {
+		int n = keys.length;
+		if (values.length < n)
+			throw new IllegalArgumentException("values.length " + values.length + " < keys.length " + n);
+		if (n == 0)
+			return;
+		presize((long) size + n);
+		if (table == null)
+			resize();
+		BatchScratch scratch = BATCH_SCRATCH.get();
+		// 添加会改变桶,提前读取的桶没有用,只需要hash
+		boolean owner = !scratch.busy;
+		int[] hs = owner ? scratch.hashes : new int[BATCH_SIZE];
+		scratch.busy = true;
+		try {
+			for (int from = 0; from < n; from += BATCH_SIZE) {
+				int m = Math.min(BATCH_SIZE, n - from);
+				for (int j = 0; j < m; j++)
+					hs[j] = hashOf(keys[from + j]);
+				for (int j = 0; j < m; j++)
+					putVal(hs[j], keys[from + j], values[from + j], false, true);
+			}
+		} finally {
+			if (owner)
+				scratch.release();
+		}
+	}
+
+	/**
+	 * 批量查询,hashed=true时keys中是HashedKey
+	 */
+	private int getAll(Object[] keys, boolean hashed, V[] values) {
+		int n = keys.length;
+		if (values.length < n)
+			throw new IllegalArgumentException("values.length " + values.length + " < keys.length " + n);
+		BatchScratch scratch = BATCH_SCRATCH.get();
+		boolean owner = !scratch.busy;
+		int[] hs;
+		Node<K, V>[] bins;
+		if (owner) {
+			scratch.busy = true;
+			hs = scratch.hashes;
+			@SuppressWarnings("unchecked")
+			Node<K, V>[] b = (Node<K, V>[]) scratch.bins;
+			bins = b;
+		} else {
+			hs = new int[BATCH_SIZE];
+			@SuppressWarnings({ "rawtypes", "unchecked" })
+			Node<K, V>[] b = (Node<K, V>[]) new Node[BATCH_SIZE];
+			bins = b;
+		}
+		int found = 0;
+		try {
+			for (int from = 0; from < n; from += BATCH_SIZE) {
+				int m = Math.min(BATCH_SIZE, n - from);
+				// 第一遍: 计算这一组所有key的hash
+				for (int j = 0; j < m; j++) {
+					Object k = keys[from + j];
+					hs[j] = hashed ? tokenHash((HashedKey<?>) k) : hashOf(k);
+				}
+				// 第二遍: 读取所有的桶,读取之间没有依赖,可以同时进行
+				for (int j = 0; j < m; j++)
+					bins[j] = firstNode(hs[j]);
+				// 第三遍: 遍历链表
+				for (int j = 0; j < m; j++) {
+					Object k = keys[from + j];
+					Node<K, V> e = findInBin(bins[j], hs[j], hashed ? ((HashedKey<?>) k).key : k);
+					if (METRICS_ENABLED && metrics != null)
+						metrics.recordLookup(this, hs[j], e);
+					if (e != null) {
+						values[from + j] = e.value;
+						++found;
+					} else
+						values[from + j] = null;
+				}
+			}
+		} finally {
+			if (owner)
+				scratch.release();
+		}
+		return found;
+	}
+
+	/**
+	 * 判断是否包含给定值
 	 *
 	 * @param value
 	 *            value whose presence in this map is to be tested
-	 * @return true=,false=
+	 * @return true=包含,false=不包含
 	 */
 	public boolean containsValue(Object value) {
 		Node<K, V>[] tab;
 		V v;
 		if ((tab = table) != null && size > 0) {
-			// Ƚvalue
+			// 遍历数组和链表比较value
 			for (int i = 0; i < tab.length; ++i) {
-				for (Node<K, V> e = tab[i]; e != null; e = e.next) {
+				for (Node<K, V> e = binFirst(tab, i); e != null; e = binNext(tab, i, e)) {
 					if ((v = e.value) == value || (value != null && value.equals(v)))
 						return true;
 				}
@@ -720,7 +1840,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 
 	/**
 	 *
-	 * mapkeyϵͼ,EntrySet
+	 * map中key集合的视图,和EntrySet类似
 	 */
 	public Set<K> keySet() {
 		Set<K> ks = keySet;
@@ -732,7 +1852,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * mapkeyϵͼ
+	 * map中key集合的视图
 	 *
 	 */
 	final class KeySet extends AbstractSet<K> {
@@ -753,7 +1873,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public final boolean remove(Object key) {
-			return removeNode(hash(key), key, null, false, true) != null;
+			return removeNode(hashOf(key), key, null, false, true) != null;
 		}
 
 		public final Spliterator<K> spliterator() {
@@ -767,7 +1887,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			if (size > 0 && (tab = table) != null) {
 				int mc = modCount;
 				for (int i = 0; i < tab.length; ++i) {
-					for (Node<K, V> e = tab[i]; e != null; e = e.next)
+					for (Node<K, V> e = binFirst(tab, i); e != null; e = binNext(tab, i, e))
 						action.accept(e.key);
 				}
 				if (modCount != mc)
@@ -778,7 +1898,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 
 	/**
 	 *
-	 * mapvalueļͼ
+	 * 返回map的value的集合视图
 	 */
 	public Collection<V> values() {
 		Collection<V> vs = values;
@@ -790,7 +1910,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * mapvalueļͼ
+	 * map的value的集合视图
 	 *
 	 */
 	final class Values extends AbstractCollection<V> {
@@ -821,7 +1941,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			if (size > 0 && (tab = table) != null) {
 				int mc = modCount;
 				for (int i = 0; i < tab.length; ++i) {
-					for (Node<K, V> e = tab[i]; e != null; e = e.next)
+					for (Node<K, V> e = binFirst(tab, i); e != null; e = binNext(tab, i, e))
 						action.accept(e.value);
 				}
 				if (modCount != mc)
@@ -830,9 +1950,20 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 	}
 
+	/**
+	 * Returns a cursor positioned before the first mapping of this map. The
+	 * cursor can be re-armed with {@link MapCursor#reset()} and kept for
+	 * later passes, so repeated iteration allocates nothing.
+	 *
+	 * @return a new cursor over this map
+	 */
+	public MapCursor<K, V> cursor() {
+		return new MapCursor<>(this);
+	}
+
 	/**
 	 *
-	 * mapkey,valueļͼ
+	 * 返回map的key,value的集合视图
 	 */
 	public Set<Map.Entry<K, V>> entrySet() {
 		Set<Map.Entry<K, V>> es;
@@ -840,7 +1971,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * mapkey,valueļͼ
+	 * map的key,value的集合视图
 	 *
 	 */
 	final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
@@ -853,7 +1984,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		/**
-		 * ص,mapеNodeڵ
+		 * 返回迭代器,迭代map中的Node节点
 		 * 
 		 * @return
 		 */
@@ -866,7 +1997,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				return false;
 			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
 			Object key = e.getKey();
-			Node<K, V> candidate = getNode(hash(key), key);
+			Node<K, V> candidate = getNode(hashOf(key), key);
 			return candidate != null && candidate.equals(e);
 		}
 
@@ -875,7 +2006,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
 				Object key = e.getKey();
 				Object value = e.getValue();
-				return removeNode(hash(key), key, value, true, true) != null;
+				return removeNode(hashOf(key), key, value, true, true) != null;
 			}
 			return false;
 		}
@@ -891,7 +2022,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			if (size > 0 && (tab = table) != null) {
 				int mc = modCount;
 				for (int i = 0; i < tab.length; ++i) {
-					for (Node<K, V> e = tab[i]; e != null; e = e.next)
+					for (Node<K, V> e = binFirst(tab, i); e != null; e = binNext(tab, i, e))
 						action.accept(e);
 				}
 				if (modCount != mc)
@@ -902,7 +2033,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 
 	// Overrides of JDK8 Map extension methods
 	/**
-	 * ѯkeyӦvalue,򷵻defaultValue
+	 * 查询key对应的value,不存在则返回defaultValue
 	 * 
 	 * @param key
 	 * @param defaultValue
@@ -911,11 +2042,14 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	@Override
 	public V getOrDefault(Object key, V defaultValue) {
 		Node<K, V> e;
-		return (e = getNode(hash(key), key)) == null ? defaultValue : e.value;
+		int hash = hashOf(key);
+		if (oldTable != null)
+			advanceTransfer(hash);
+		return (e = getNode(hash, key)) == null ? defaultValue : e.value;
 	}
 
 	/**
-	 * key,keu,valuenull,Ÿ
+	 * key不存在,或者keu存在,value是null的情况下,才更新数据
 	 * 
 	 * @param key
 	 * @param value
@@ -923,11 +2057,11 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	 */
 	@Override
 	public V putIfAbsent(K key, V value) {
-		return putVal(hash(key), key, value, true, true);
+		return putVal(hashOf(key), key, value, true, true);
 	}
 
 	/**
-	 * key,valueɾԪ
+	 * 根据key,value删除元素
 	 * 
 	 * @param key
 	 * @param value
@@ -935,11 +2069,11 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	 */
 	@Override
 	public boolean remove(Object key, Object value) {
-		return removeNode(hash(key), key, value, true, true) != null;
+		return removeNode(hashOf(key), key, value, true, true) != null;
 	}
 
 	/**
-	 * key,valueҵڵ㣬滻ڵֵ
+	 * 根据key,value找到节点，并替换节点的值
 	 * 
 	 * @param key
 	 * @param oldValue
@@ -950,9 +2084,9 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	public boolean replace(K key, V oldValue, V newValue) {
 		Node<K, V> e;
 		V v;
-		// Ƚkeyvalue
-		// ڵ && (ڵַ(nullֵﴦ) || oldValueͽڵvalue(ڵnull))
-		if ((e = getNode(hash(key), key)) != null && ((v = e.value) == oldValue || (v != null && v.equals(oldValue)))) {
+		// 比较key和value
+		// 节点存在 && (节点地址相等(null值在这里处理) || 给定的oldValue和节点的value相等(不处理节点是null的情况))
+		if ((e = getNode(hashOf(key), key)) != null && ((v = e.value) == oldValue || (v != null && v.equals(oldValue)))) {
 			e.value = newValue;
 			afterNodeAccess(e);
 			return true;
@@ -961,7 +2095,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * keyҵڵ,滻
+	 * 根据key找到节点,并替换
 	 * 
 	 * @param key
 	 * @param value
@@ -970,7 +2104,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	@Override
 	public V replace(K key, V value) {
 		Node<K, V> e;
-		if ((e = getNode(hash(key), key)) != null) {
+		if ((e = getNode(hashOf(key), key)) != null) {
 			V oldValue = e.value;
 			e.value = value;
 			afterNodeAccess(e);
@@ -980,28 +2114,36 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * keyڣkey,value=null,ݿԼĵvalueΪkeyvalue
+	 * 如果key不存在，或者key存在,value=null,根据可以计算的到的value作为key的value
 	 * 
 	 * @param key
 	 * @param mappingFunction
-	 *            ӳ亯,key->value
+	 *            映射函数,key->value
 	 * @return
 	 */
 	@Override
 	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
 		if (mappingFunction == null)
 			throw new NullPointerException();
-		int hash = hash(key);
+		return computeIfAbsentVal(hashOf(key), key, mappingFunction);
+	}
+
+	/**
+	 * computeIfAbsent的实现,hash由调用方计算
+	 */
+	final V computeIfAbsentVal(int hash, K key, Function<? super K, ? extends V> mappingFunction) {
 		Node<K, V>[] tab;
 		Node<K, V> first;
 		int n, i;
 		int binCount = 0;
 		TreeNode<K, V> t = null;
 		Node<K, V> old = null;
-		// mapδʼ(size > thresholdʲô»)
+		// map未初始化(size > threshold不清楚什么情况下会出现)
 		if (size > threshold || (tab = table) == null || (n = tab.length) == 0)
 			n = (tab = resize()).length;
-		// ҵkeyӦnode,Ҳ(old=null)
+		if (oldTable != null)
+			advanceTransfer(hash);
+		// 找到key对应的node,可能找不到(old=null)
 		if ((first = tab[i = (n - 1) & hash]) != null) {
 			if (first instanceof TreeNode)
 				old = (t = (TreeNode<K, V>) first).getTreeNode(hash, key);
@@ -1017,43 +2159,43 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				} while ((e = e.next) != null);
 			}
 			V oldValue;
-			// ҵڵ㵫valuenull,
+			// 找到节点但是value不是null,不做处理
 			if (old != null && (oldValue = old.value) != null) {
-				afterNodeAccess(old);
+				afterNodeRead(old);
 				return oldValue;
 			}
 		}
-		// ˵Ҫ޸Ľڵ
-		// keyõvalue
+		// 说明需要修改节点
+		// 根据key计算得到value
 		V v = mappingFunction.apply(key);
 		if (v == null) {
-			// value=null,
+			// 计算的value=null,不做处理
 			return null;
 		} else if (old != null) {
-			// ҵڵ㲢value=null
+			// 找到节点并且value=null
 			old.value = v;
 			afterNodeAccess(old);
 			return v;
 		} else if (t != null)
-			// δҵڵ,ṹ洢
+			// 未找到节点,并且是树结构存储
 			t.putTreeVal(this, tab, hash, key, v);
 		else {
-			// δҵڵ,ṹ洢,ֱΪͷ
+			// 未找到节点,并且是链表结构存储,直接作为头结点
 			tab[i] = newNode(hash, key, v, first);
 			if (binCount >= TREEIFY_THRESHOLD - 1)
-				// ֮keyȴڵֵ8תΪ
+				// 添加数据之后改key的链表长度大于等于阈值8，将链表转化为红黑树
 				treeifyBin(tab, hash);
 		}
-		// һ
+		// 计数器加一
 		++modCount;
-		// mapСһ
+		// map大小加一
 		++size;
 		afterNodeInsertion(true);
 		return v;
 	}
 
 	/**
-	 * νڵ,滻valuenull,滻Ϊvalue,ɾڵ()
+	 * 如何节点存在,替换的value不是null,替换为value,否则，删除节点()
 	 * 
 	 * @param key
 	 * @param remappingFunction
@@ -1064,7 +2206,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			throw new NullPointerException();
 		Node<K, V> e;
 		V oldValue;
-		int hash = hash(key);
+		int hash = hashOf(key);
 		if ((e = getNode(hash, key)) != null && (oldValue = e.value) != null) {
 			V v = remappingFunction.apply(key, oldValue);
 			if (v != null) {
@@ -1072,7 +2214,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				afterNodeAccess(e);
 				return v;
 			} else
-				// ʾvaluenull(ܿǸ)
+				// 表示计算的value是null(很可能是个坑)
 				removeNode(hash, key, null, false, true);
 		}
 		return null;
@@ -1082,16 +2224,24 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
 		if (remappingFunction == null)
 			throw new NullPointerException();
-		int hash = hash(key);
+		return computeVal(hashOf(key), key, remappingFunction);
+	}
+
+	/**
+	 * compute的实现,hash由调用方计算
+	 */
+	final V computeVal(int hash, K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
 		Node<K, V>[] tab;
 		Node<K, V> first;
 		int n, i;
 		int binCount = 0;
 		TreeNode<K, V> t = null;
 		Node<K, V> old = null;
-		// ҵkeyڵĽڵ
+		// 找到key所在的节点
 		if (size > threshold || (tab = table) == null || (n = tab.length) == 0)
 			n = (tab = resize()).length;
+		if (oldTable != null)
+			advanceTransfer(hash);
 		if ((first = tab[i = (n - 1) & hash]) != null) {
 			if (first instanceof TreeNode)
 				old = (t = (TreeNode<K, V>) first).getTreeNode(hash, key);
@@ -1108,28 +2258,28 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			}
 		}
 		V oldValue = (old == null) ? null : old.value;
-		// ݼõvalue
+		// 根据计算得到value
 		V v = remappingFunction.apply(key, oldValue);
-		// ҵڵ
+		// 找到节点了
 		if (old != null) {
-			// valuenull
+			// 计算的value不是null
 			if (v != null) {
-				// ¾ֵ
+				// 更新旧值
 				old.value = v;
 				afterNodeAccess(old);
 			} else
-				// valuenull,ɾڵ(һӣ)
+				// 计算的value是null,删除节点(又是一个坑？)
 				removeNode(hash, key, null, false, true);
-			// ûҵڵ && valuenull
+			// 没找到节点 && 计算的value不是null
 		} else if (v != null) {
 			if (t != null)
-				// ڵ
+				// 新增树节点
 				t.putTreeVal(this, tab, hash, key, v);
 			else {
-				// ڵ
+				// 新增链表节点
 				tab[i] = newNode(hash, key, v, first);
 				if (binCount >= TREEIFY_THRESHOLD - 1)
-					// 
+					// 树化
 					treeifyBin(tab, hash);
 			}
 			++modCount;
@@ -1145,7 +2295,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			throw new NullPointerException();
 		if (remappingFunction == null)
 			throw new NullPointerException();
-		int hash = hash(key);
+		int hash = hashOf(key);
 		Node<K, V>[] tab;
 		Node<K, V> first;
 		int n, i;
@@ -1154,6 +2304,8 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		Node<K, V> old = null;
 		if (size > threshold || (tab = table) == null || (n = tab.length) == 0)
 			n = (tab = resize()).length;
+		if (oldTable != null)
+			advanceTransfer(hash);
 		if ((first = tab[i = (n - 1) & hash]) != null) {
 			if (first instanceof TreeNode)
 				old = (t = (TreeNode<K, V>) first).getTreeNode(hash, key);
@@ -1172,7 +2324,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		if (old != null) {
 			V v;
 			if (old.value != null)
-				// computeȽ,value仯
+				// 和compute比较,就这里计算value变化了
 				v = remappingFunction.apply(old.value, value);
 			else
 				v = value;
@@ -1206,7 +2358,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		if (size > 0 && (tab = table) != null) {
 			int mc = modCount;
 			for (int i = 0; i < tab.length; ++i) {
-				for (Node<K, V> e = tab[i]; e != null; e = e.next)
+				for (Node<K, V> e = binFirst(tab, i); e != null; e = binNext(tab, i, e))
 					action.accept(e.key, e.value);
 			}
 			if (modCount != mc)
@@ -1222,7 +2374,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		if (size > 0 && (tab = table) != null) {
 			int mc = modCount;
 			for (int i = 0; i < tab.length; ++i) {
-				for (Node<K, V> e = tab[i]; e != null; e = e.next) {
+				for (Node<K, V> e = binFirst(tab, i); e != null; e = binNext(tab, i, e)) {
 					e.value = function.apply(e.key, e.value);
 				}
 			}
@@ -1316,7 +2468,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				K key = (K) s.readObject();
 				@SuppressWarnings("unchecked")
 				V value = (V) s.readObject();
-				putVal(hash(key), key, value, false, false);
+				putVal(hashOf(key), key, value, false, false);
 			}
 		}
 	}
@@ -1337,7 +2489,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			index = 0;
 			if (t != null && size > 0) { // advance to first entry
 				do {
-				} while (index < t.length && (next = t[index++]) == null);
+				} while (index < t.length && (next = binFirst(t, index++)) == null);
 			}
 		}
 
@@ -1346,7 +2498,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		/**
-		 * һڵ(ҵڵ,Ҹýڵµڵ,ȥ...)
+		 * 查找下一个节点(先找到数组节点,在找该节点下的链表（红黑树）节点,在去数组找...)
 		 * 
 		 * @return
 		 */
@@ -1357,12 +2509,12 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				throw new ConcurrentModificationException();
 			if (e == null)
 				throw new NoSuchElementException();
-			// ҵеĽڵ
-			if ((next = (current = e).next) == null && (t = table) != null) {
-				// ûҵ
+			// 找到链表中的节点,渐进式扩容中还没有迁移的旧桶只取属于新桶index - 1的节点
+			if ((next = binNext(t = table, index - 1, current = e)) == null && t != null) {
+				// 链表中没找到
 				do {
-					// ҵеݽڵ
-				} while (index < t.length && (next = t[index++]) == null);
+					// 找到数组中的数据节点
+				} while (index < t.length && (next = binFirst(t, index++)) == null);
 			}
 			return e;
 		}
@@ -1375,7 +2527,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				throw new ConcurrentModificationException();
 			current = null;
 			K key = p.key;
-			removeNode(hash(key), key, null, false, false);
+			removeNode(hashOf(key), key, null, false, false);
 			expectedModCount = modCount;
 		}
 	}
@@ -1393,7 +2545,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	/**
-	 * mapеNodeڵ
+	 * 迭代map中的Node节点
 	 *
 	 */
 	final class EntryIterator extends HashIterator implements Iterator<Map.Entry<K, V>> {
@@ -1412,6 +2564,10 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		int fence; // one past last index
 		int est; // size estimate
 		int expectedModCount; // for comodification checks
+		boolean balanced; // split by entry count, est is exact
+		int[] counts; // segment entry counts shared by all splits, or null
+		int shift; // log2 of the bins per segment
+		int splitEst; // size of the part split off by the last split()
 
 		HashMapSpliterator(HashMap<K, V> m, int origin, int fence, int est, int expectedModCount) {
 			this.map = m;
@@ -1427,6 +2583,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				HashMap<K, V> m = map;
 				est = m.size;
 				expectedModCount = m.modCount;
+				balanced = m.balancedSpliterators;
 				Node<K, V>[] tab = m.table;
 				hi = fence = (tab == null) ? 0 : tab.length;
 			}
@@ -1437,6 +2594,112 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			getFence(); // force init
 			return (long) est;
 		}
+
+		/**
+		 * 计算分割点,[index, mid)交给新的spliterator,返回-1表示不分割.
+		 * 平衡模式下分出去的节点数保存在splitEst中
+		 */
+		final int split() {
+			int hi = getFence(), lo = index, mid;
+			if (current != null)
+				return -1;
+			if (!balanced) {
+				if (lo >= (mid = (lo + hi) >>> 1))
+					return -1;
+				splitEst = est >>>= 1;
+				return mid;
+			}
+			HashMap<K, V> m = map;
+			Node<K, V>[] tab = m.table;
+			int n = est, half = n >>> 1;
+			if (n < 2 || tab == null || m.modCount != expectedModCount)
+				return -1;
+			int[] c;
+			if ((c = counts) == null) {
+				if (tab.length != hi)
+					return -1;
+				shift = Math.max(0, Integer.numberOfTrailingZeros(hi) - Integer.numberOfTrailingZeros(SPLIT_SEGMENTS));
+				c = counts = m.splitCounts(tab, shift);
+			}
+			// [lo, hi)内部的段边界是first到last
+			int first = (lo >>> shift) + 1, last = (hi - 1) >>> shift;
+			if (first > last)
+				return walk(tab, lo, hi, 0, n);
+			int head = ((lo & ((1 << shift) - 1)) == 0) ? c[first] - c[first - 1] : countBins(tab, lo, first << shift);
+			// 找到第一个前面的节点数不少于一半的边界a,和它前一个边界比较哪个更接近一半
+			int t = half - head + c[first], a = first, b = last + 1;
+			while (a < b) {
+				int h = (a + b) >>> 1;
+				if (c[h] < t)
+					a = h + 1;
+				else
+					b = h;
+			}
+			int before = (a > first) ? head + c[a - 1] - c[first] : 0;
+			int after = (a <= last) ? head + c[a] - c[first] : n;
+			int low;
+			if (after < n && (before == 0 || after - half < half - before)) {
+				mid = a << shift;
+				low = after;
+			} else if (before > 0) {
+				mid = (a - 1) << shift;
+				low = before;
+			} else // 中间的节点都在一段里
+				return walk(tab, (a > first) ? (a - 1) << shift : lo, (a <= last) ? a << shift : hi, before, n);
+			splitEst = low;
+			est = n - low;
+			return mid;
+		}
+
+		/**
+		 * 在[from, to)中逐个桶统计节点数,找到前面的节点数最接近一半的桶边界,base是from之前的节点数
+		 */
+		private int walk(Node<K, V>[] tab, int from, int to, int base, int n) {
+			int half = n >>> 1, acc = base;
+			for (int i = from; i < to; ++i) {
+				int k = countBins(tab, i, i + 1);
+				if (acc + k > half) {
+					int mid = i + 1, low = acc + k;
+					if (acc > 0 && half - acc <= low - half) {
+						mid = i;
+						low = acc;
+					}
+					if (low >= n)
+						return -1;
+					splitEst = low;
+					est = n - low;
+					return mid;
+				}
+				acc += k;
+			}
+			return -1;
+		}
+
+		final int countBins(Node<K, V>[] tab, int from, int to) {
+			HashMap<K, V> m = map;
+			int k = 0;
+			for (int i = from; i < to; ++i) {
+				for (Node<K, V> e = m.binFirst(tab, i); e != null; e = m.binNext(tab, i, e))
+					++k;
+			}
+			return k;
+		}
+
+		/**
+		 * 新分出来的spliterator使用同一份分段统计
+		 */
+		final <S extends HashMapSpliterator<K, V>> S share(S s) {
+			s.balanced = balanced;
+			s.counts = counts;
+			s.shift = shift;
+			return s;
+		}
+
+		final int sizeCharacteristics() {
+			if (fence < 0)
+				return map.balancedSpliterators ? Spliterator.SIZED | Spliterator.SUBSIZED : Spliterator.SIZED;
+			return balanced ? Spliterator.SIZED | Spliterator.SUBSIZED : (est == map.size ? Spliterator.SIZED : 0);
+		}
 	}
 
 	static final class KeySpliterator<K, V> extends HashMapSpliterator<K, V> implements Spliterator<K> {
@@ -1445,9 +2708,8 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public KeySpliterator<K, V> trySplit() {
-			int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
-			return (lo >= mid || current != null) ? null
-					: new KeySpliterator<>(map, lo, index = mid, est >>>= 1, expectedModCount);
+			int lo = index, mid;
+			return ((mid = split()) < 0) ? null : share(new KeySpliterator<>(map, lo, index = mid, splitEst, expectedModCount));
 		}
 
 		public void forEachRemaining(Consumer<? super K> action) {
@@ -1466,10 +2728,10 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				current = null;
 				do {
 					if (p == null)
-						p = tab[i++];
+						p = m.binFirst(tab, i++);
 					else {
 						action.accept(p.key);
-						p = p.next;
+						p = m.binNext(tab, i - 1, p);
 					}
 				} while (p != null || i < hi);
 				if (m.modCount != mc)
@@ -1478,17 +2740,19 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public boolean tryAdvance(Consumer<? super K> action) {
-			int hi;
 			if (action == null)
 				throw new NullPointerException();
+			int hi = getFence();
 			Node<K, V>[] tab = map.table;
-			if (tab != null && tab.length >= (hi = getFence()) && index >= 0) {
+			if (tab != null && tab.length >= hi && index >= 0) {
 				while (current != null || index < hi) {
 					if (current == null)
-						current = tab[index++];
+						current = map.binFirst(tab, index++);
 					else {
 						K k = current.key;
-						current = current.next;
+						current = map.binNext(tab, index - 1, current);
+						if (balanced)
+							--est;
 						action.accept(k);
 						if (map.modCount != expectedModCount)
 							throw new ConcurrentModificationException();
@@ -1500,7 +2764,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public int characteristics() {
-			return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT;
+			return sizeCharacteristics() | Spliterator.DISTINCT;
 		}
 	}
 
@@ -1510,9 +2774,8 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public ValueSpliterator<K, V> trySplit() {
-			int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
-			return (lo >= mid || current != null) ? null
-					: new ValueSpliterator<>(map, lo, index = mid, est >>>= 1, expectedModCount);
+			int lo = index, mid;
+			return ((mid = split()) < 0) ? null : share(new ValueSpliterator<>(map, lo, index = mid, splitEst, expectedModCount));
 		}
 
 		public void forEachRemaining(Consumer<? super V> action) {
@@ -1531,10 +2794,10 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				current = null;
 				do {
 					if (p == null)
-						p = tab[i++];
+						p = m.binFirst(tab, i++);
 					else {
 						action.accept(p.value);
-						p = p.next;
+						p = m.binNext(tab, i - 1, p);
 					}
 				} while (p != null || i < hi);
 				if (m.modCount != mc)
@@ -1543,17 +2806,19 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public boolean tryAdvance(Consumer<? super V> action) {
-			int hi;
 			if (action == null)
 				throw new NullPointerException();
+			int hi = getFence();
 			Node<K, V>[] tab = map.table;
-			if (tab != null && tab.length >= (hi = getFence()) && index >= 0) {
+			if (tab != null && tab.length >= hi && index >= 0) {
 				while (current != null || index < hi) {
 					if (current == null)
-						current = tab[index++];
+						current = map.binFirst(tab, index++);
 					else {
 						V v = current.value;
-						current = current.next;
+						current = map.binNext(tab, index - 1, current);
+						if (balanced)
+							--est;
 						action.accept(v);
 						if (map.modCount != expectedModCount)
 							throw new ConcurrentModificationException();
@@ -1565,7 +2830,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public int characteristics() {
-			return (fence < 0 || est == map.size ? Spliterator.SIZED : 0);
+			return sizeCharacteristics();
 		}
 	}
 
@@ -1575,9 +2840,8 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public EntrySpliterator<K, V> trySplit() {
-			int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
-			return (lo >= mid || current != null) ? null
-					: new EntrySpliterator<>(map, lo, index = mid, est >>>= 1, expectedModCount);
+			int lo = index, mid;
+			return ((mid = split()) < 0) ? null : share(new EntrySpliterator<>(map, lo, index = mid, splitEst, expectedModCount));
 		}
 
 		public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
@@ -1596,10 +2860,10 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 				current = null;
 				do {
 					if (p == null)
-						p = tab[i++];
+						p = m.binFirst(tab, i++);
 					else {
 						action.accept(p);
-						p = p.next;
+						p = m.binNext(tab, i - 1, p);
 					}
 				} while (p != null || i < hi);
 				if (m.modCount != mc)
@@ -1608,17 +2872,19 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
-			int hi;
 			if (action == null)
 				throw new NullPointerException();
+			int hi = getFence();
 			Node<K, V>[] tab = map.table;
-			if (tab != null && tab.length >= (hi = getFence()) && index >= 0) {
+			if (tab != null && tab.length >= hi && index >= 0) {
 				while (current != null || index < hi) {
 					if (current == null)
-						current = tab[index++];
+						current = map.binFirst(tab, index++);
 					else {
 						Node<K, V> e = current;
-						current = current.next;
+						current = map.binNext(tab, index - 1, current);
+						if (balanced)
+							--est;
 						action.accept(e);
 						if (map.modCount != expectedModCount)
 							throw new ConcurrentModificationException();
@@ -1630,7 +2896,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 
 		public int characteristics() {
-			return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT;
+			return sizeCharacteristics() | Spliterator.DISTINCT;
 		}
 	}
 
@@ -1672,6 +2938,11 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		entrySet = null;
 		keySet = null;
 		values = null;
+		oldTable = null;
+		transferIndex = 0;
+		metrics = null;
+		splitCounts = null;
+		splitCountTable = null;
 		modCount = 0;
 		threshold = 0;
 		size = 0;
@@ -1681,18 +2952,26 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	void afterNodeAccess(Node<K, V> p) {
 	}
 
+	// 找到节点但是没有修改value(putIfAbsent,computeIfAbsent)
+	void afterNodeRead(Node<K, V> p) {
+	}
+
 	void afterNodeInsertion(boolean evict) {
 	}
 
 	void afterNodeRemoval(Node<K, V> p) {
 	}
 
+	// 遍历中直接替换了value(replaceAll,MapCursor.setValue),不能改变map的结构
+	void afterValueReplaced(Node<K, V> p) {
+	}
+
 	// Called only from writeObject, to ensure compatible ordering.
 	void internalWriteEntries(java.io.ObjectOutputStream s) throws IOException {
 		Node<K, V>[] tab;
 		if (size > 0 && (tab = table) != null) {
 			for (int i = 0; i < tab.length; ++i) {
-				for (Node<K, V> e = tab[i]; e != null; e = e.next) {
+				for (Node<K, V> e = binFirst(tab, i); e != null; e = binNext(tab, i, e)) {
 					s.writeObject(e.key);
 					s.writeObject(e.value);
 				}
@@ -1700,6 +2979,32 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		}
 	}
 
+	/**
+	 * 将当前map的数据添加到dst中,由putHashMapEntries调用,节点中的hash直接复用.
+	 * LinkedHashMap会重写这个方法,按照链表顺序添加
+	 *
+	 * @param dst
+	 *            the map receiving the mappings, never this map
+	 * @param distinct
+	 *            true if dst held no mappings beforehand, so that no key
+	 *            already exists there
+	 * @param evict
+	 *            relayed to dst's afterNodeInsertion
+	 */
+	void internalPutEntries(HashMap<? super K, ? super V> dst, boolean distinct, boolean evict) {
+		Node<K, V>[] tab;
+		if (size > 0 && (tab = table) != null) {
+			for (int i = 0; i < tab.length; ++i) {
+				for (Node<K, V> e = binFirst(tab, i); e != null; e = binNext(tab, i, e)) {
+					if (distinct)
+						dst.putDistinctVal(e.hash, e.key, e.value, evict);
+					else
+						dst.putVal(e.hash, e.key, e.value, false, evict);
+				}
+			}
+		}
+	}
+
 	/* ------------------------------------------------------------ */
 	// Tree bins
 
@@ -1812,6 +3117,15 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		 * @return root of tree
 		 */
 		final void treeify(Node<K, V>[] tab) {
+			moveRootToFront(tab, buildTree());
+		}
+
+		/**
+		 * 用this开始的链表构建红黑树,不改变链表的顺序
+		 *
+		 * @return root of tree
+		 */
+		final TreeNode<K, V> buildTree() {
 			TreeNode<K, V> root = null;
 			for (TreeNode<K, V> x = this, next; x != null; x = next) {
 				next = (TreeNode<K, V>) x.next;
@@ -1848,7 +3162,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 					}
 				}
 			}
-			moveRootToFront(tab, root);
+			return root;
 		}
 
 		/**
@@ -1856,6 +3170,8 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		 * node.
 		 */
 		final Node<K, V> untreeify(HashMap<K, V> map) {
+			if (METRICS_ENABLED && map.metrics != null)
+				map.metrics.untreeifyCount++;
 			Node<K, V> hd = null, tl = null;
 			for (Node<K, V> q = this; q != null; q = q.next) {
 				Node<K, V> p = map.replacementNode(q, null);
@@ -2030,8 +3346,11 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 		 *            the index of the table being split
 		 * @param bit
 		 *            the bit of hash to split on
+		 * @param keepNodes
+		 *            if true, keep every node and the order of both lists
+		 *            instead of untreeifying small halves
 		 */
-		final void split(HashMap<K, V> map, Node<K, V>[] tab, int index, int bit) {
+		final void split(HashMap<K, V> map, Node<K, V>[] tab, int index, int bit, boolean keepNodes) {
 			TreeNode<K, V> b = this;
 			// Relink into lo and hi lists, preserving order
 			TreeNode<K, V> loHead = null, loTail = null;
@@ -2058,21 +3377,29 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			}
 
 			if (loHead != null) {
-				if (lc <= UNTREEIFY_THRESHOLD)
+				if (!keepNodes && lc <= UNTREEIFY_THRESHOLD)
 					tab[index] = loHead.untreeify(map);
 				else {
 					tab[index] = loHead;
-					if (hiHead != null) // (else is already treeified)
-						loHead.treeify(tab);
+					if (hiHead != null) { // (else is already treeified)
+						if (keepNodes)
+							loHead.buildTree();
+						else
+							loHead.treeify(tab);
+					}
 				}
 			}
 			if (hiHead != null) {
-				if (hc <= UNTREEIFY_THRESHOLD)
+				if (!keepNodes && hc <= UNTREEIFY_THRESHOLD)
 					tab[index + bit] = hiHead.untreeify(map);
 				else {
 					tab[index + bit] = hiHead;
-					if (loHead != null)
-						hiHead.treeify(tab);
+					if (loHead != null) {
+						if (keepNodes)
+							hiHead.buildTree();
+						else
+							hiHead.treeify(tab);
+					}
 				}
 			}
 		}
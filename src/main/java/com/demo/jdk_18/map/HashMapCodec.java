@@ -0,0 +1,362 @@
+package com.demo.jdk_18.map;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+/**
+ * HashMap的二进制格式,保存节点的hash,读取时一次分配最终容量的数组,直接把节点放到桶中,不需要重新计算hash.
+ *
+ * <p>
+ * The format is a 32-byte header
+ * {@code [magic(8) | version(4) | flags(4) | capacity(4) | size(4) | loadFactor(4) | reserved(4)]}
+ * followed by one record per entry,
+ * {@code [hash(4) | keyLength(4) | valueLength(4) | key | value]}, in the
+ * bin order of the written table, or in iteration order for a
+ * {@link LinkedHashMap}. A length of -1 stands for a
+ * {@code null} key or value. All numbers are big-endian.
+ *
+ * <p>
+ * Loading allocates the table once, at the larger of the written capacity
+ * and the capacity the target map needs for the entry count, and links
+ * each node straight into its bin: keys are neither hashed nor compared.
+ * Bins longer than {@code TREEIFY_THRESHOLD} are treeified afterwards, as
+ * {@code putVal} would have done.
+ * Hashes written by a map in keyed hashing mode depend on that map's
+ * secret key, so such a stream is loaded into a keyed map and rehashed.
+ * Like {@code readObject}, loading into a {@link LinkedHashMap} keeps the
+ * written order and does not evict.
+ *
+ * <p>
+ * Because stored hashes are trusted, a key's {@code hashCode()} must be the
+ * same in the JVM that reads a stream as in the one that wrote it, and the
+ * key serializer must read back a key equal to the one it wrote. Strings,
+ * boxed primitives and keys whose hash is computed from their contents
+ * qualify. Enum constants and keys that inherit
+ * {@link Object#hashCode()} do not: their hashes differ between JVMs, so
+ * such keys would be loaded into bins where lookups cannot find them.
+ *
+ * <p>
+ * A codec is immutable and can be shared between threads; the maps it
+ * reads and writes must not be modified concurrently.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public final class HashMapCodec<K, V> {
+
+	static final long MAGIC = 0x484d6170436f6463L; // "HMapCodc"
+
+	static final int VERSION = 1;
+
+	/**
+	 * 写入的map开启了防碰撞模式,hash不能直接使用
+	 */
+	static final int F_KEYED = 1;
+
+	/**
+	 * 写入的是LinkedHashMap,记录按链表顺序而不是桶的顺序排列
+	 */
+	static final int F_LINKED = 2;
+
+	static final int HEADER_SIZE = 32;
+
+	static final int RECORD_HEADER_SIZE = 12;
+
+	static final int NULL_LENGTH = -1;
+
+	static final int BUFFER_SIZE = 1 << 16;
+
+	final Serializer<K> keySerializer;
+
+	final Serializer<V> valueSerializer;
+
+	public HashMapCodec(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		if (keySerializer == null || valueSerializer == null)
+			throw new NullPointerException();
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+	}
+
+	/* ---------------- Writing -------------- */
+
+	/**
+	 * Writes the mappings of {@code map} to {@code ch}.
+	 *
+	 * @throws ConcurrentModificationException
+	 *             if the map was structurally modified while being written
+	 */
+	public void writeTo(HashMap<? extends K, ? extends V> map, WritableByteChannel ch) throws IOException {
+		write(map, ch);
+	}
+
+	private <MK extends K, MV extends V> void write(HashMap<MK, MV> map, WritableByteChannel ch) throws IOException {
+		HashMap.Node<MK, MV>[] tab = map.table;
+		int mc = map.modCount;
+		boolean linked = map instanceof LinkedHashMap;
+		ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		buf.putLong(MAGIC).putInt(VERSION).putInt((map.hashSeed != null ? F_KEYED : 0) | (linked ? F_LINKED : 0));
+		buf.putInt(tab == null ? 0 : tab.length).putInt(map.size).putFloat(map.loadFactor).putInt(0);
+		if (map.size > 0 && tab != null) {
+			if (linked) {
+				for (LinkedHashMap.Entry<MK, MV> e = ((LinkedHashMap<MK, MV>) map).head; e != null; e = e.after)
+					buf = record(buf, ch, e);
+			} else {
+				for (int i = 0; i < tab.length; ++i) {
+					for (HashMap.Node<MK, MV> e = map.binFirst(tab, i); e != null; e = map.binNext(tab, i, e))
+						buf = record(buf, ch, e);
+				}
+			}
+		}
+		flush(buf, ch);
+		if (map.modCount != mc)
+			throw new ConcurrentModificationException();
+	}
+
+	/**
+	 * 写入一个节点,缓冲区不够时先刷出,单个记录超过缓冲区时换一个足够大的
+	 */
+	private ByteBuffer record(ByteBuffer buf, WritableByteChannel ch, HashMap.Node<? extends K, ? extends V> e)
+			throws IOException {
+		K k = e.key;
+		V v = e.value;
+		int kl = (k == null) ? NULL_LENGTH : keySerializer.sizeOf(k);
+		int vl = (v == null) ? NULL_LENGTH : valueSerializer.sizeOf(v);
+		int n = RECORD_HEADER_SIZE + Math.max(kl, 0) + Math.max(vl, 0);
+		if (buf.remaining() < n) {
+			flush(buf, ch);
+			if (buf.capacity() < n)
+				buf = ByteBuffer.allocate(n);
+		}
+		buf.putInt(e.hash).putInt(kl).putInt(vl);
+		if (k != null)
+			write(keySerializer, buf, k, kl);
+		if (v != null)
+			write(valueSerializer, buf, v, vl);
+		return buf;
+	}
+
+	static <T> void write(Serializer<T> s, ByteBuffer buf, T value, int length) {
+		int p = buf.position();
+		s.write(buf, value);
+		if (buf.position() - p != length)
+			throw new IllegalStateException("Serializer wrote " + (buf.position() - p) + " bytes, sizeOf was " + length);
+	}
+
+	static void flush(ByteBuffer buf, WritableByteChannel ch) throws IOException {
+		buf.flip();
+		while (buf.hasRemaining())
+			ch.write(buf);
+		buf.clear();
+	}
+
+	/* ---------------- Reading -------------- */
+
+	/**
+	 * Reads a map from {@code ch}, with the load factor it was written with.
+	 */
+	public HashMap<K, V> readFrom(ReadableByteChannel ch) throws IOException {
+		return read(new Input(ch), null);
+	}
+
+	/**
+	 * Reads a map from the buffer's position, for example of a
+	 * {@link java.nio.MappedByteBuffer}, advancing the position past it.
+	 */
+	public HashMap<K, V> readFrom(ByteBuffer buf) throws IOException {
+		return read(new Input(buf), null);
+	}
+
+	/**
+	 * Reads the mappings from {@code ch} into the empty {@code map}, which
+	 * keeps its own load factor, class and modes.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the map is not empty
+	 */
+	public <M extends HashMap<K, V>> M readFrom(ReadableByteChannel ch, M map) throws IOException {
+		read(new Input(ch), checkEmpty(map));
+		return map;
+	}
+
+	/**
+	 * Reads the mappings at the buffer's position into the empty {@code map},
+	 * advancing the position past them.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the map is not empty
+	 */
+	public <M extends HashMap<K, V>> M readFrom(ByteBuffer buf, M map) throws IOException {
+		read(new Input(buf), checkEmpty(map));
+		return map;
+	}
+
+	static <M extends HashMap<?, ?>> M checkEmpty(M map) {
+		if (map.size != 0)
+			throw new IllegalArgumentException("Map is not empty");
+		return map;
+	}
+
+	private HashMap<K, V> read(Input in, HashMap<K, V> m) throws IOException {
+		ByteBuffer b = in.require(HEADER_SIZE);
+		if (b.getLong() != MAGIC)
+			throw new StreamCorruptedException("Not a HashMapCodec stream");
+		int version = b.getInt();
+		if (version != VERSION)
+			throw new StreamCorruptedException("Unsupported HashMapCodec version " + version);
+		int flags = b.getInt(), cap = b.getInt(), size = b.getInt();
+		float lf = b.getFloat();
+		b.getInt(); // reserved
+		if (size < 0 || cap < 0 || (cap & (cap - 1)) != 0 || !(lf > 0))
+			throw new StreamCorruptedException("Illegal header: capacity " + cap + ", size " + size + ", load factor " + lf);
+		if (m == null)
+			m = new HashMap<>(HashMap.DEFAULT_INITIAL_CAPACITY, lf);
+		if ((flags & F_KEYED) != 0)
+			m.enableKeyedHashing();
+		if (size > 0)
+			place(in, m, cap, size, (flags & F_LINKED) == 0);
+		return m;
+	}
+
+	/**
+	 * 分配最终容量的数组,把节点插到桶的头部.按桶的顺序写入且容量和数组相同时同一个桶的节点是连续的,
+	 * 顺便统计需要树化的桶;否则最后遍历数组统计
+	 */
+	private void place(Input in, HashMap<K, V> m, int cap, int size, boolean binOrder) throws IOException {
+		m.finishTransfer();
+		HashMap.Node<K, V>[] tab = m.table;
+		int n = Math.max(HashMap.capacityFor(size, m.loadFactor), cap);
+		if (tab != null && tab.length > n)
+			n = tab.length;
+		if (tab == null || tab.length != n) {
+			@SuppressWarnings({ "rawtypes", "unchecked" })
+			HashMap.Node<K, V>[] t = (HashMap.Node<K, V>[]) new HashMap.Node[n];
+			m.table = tab = t;
+			float thr = (float) n * m.loadFactor;
+			m.threshold = (n < HashMap.MAXIMUM_CAPACITY && thr < (float) HashMap.MAXIMUM_CAPACITY) ? (int) thr
+					: Integer.MAX_VALUE;
+		}
+		boolean rehash = m.hashSeed != null, runs = binOrder && !rehash && n == cap;
+		int lastBin = -1, run = 0, longBins = 0;
+		int[] treeBins = null;
+		for (int c = 0; c < size; c++) {
+			ByteBuffer b = in.require(RECORD_HEADER_SIZE);
+			int h = b.getInt(), kl = b.getInt(), vl = b.getInt();
+			K k = (kl == NULL_LENGTH) ? null : read(keySerializer, in, kl);
+			V v = (vl == NULL_LENGTH) ? null : read(valueSerializer, in, vl);
+			if (rehash)
+				h = m.hashOf(k);
+			int i = h & (n - 1);
+			tab[i] = m.newNode(h, k, v, tab[i]);
+			if (runs) {
+				if (i != lastBin) {
+					lastBin = i;
+					run = 1;
+				} else if (++run == HashMap.TREEIFY_THRESHOLD + 1) {
+					if (treeBins == null)
+						treeBins = new int[8];
+					else if (longBins == treeBins.length)
+						treeBins = Arrays.copyOf(treeBins, longBins << 1);
+					treeBins[longBins++] = i;
+				}
+			}
+		}
+		m.size = size;
+		++m.modCount;
+		if (runs) {
+			for (int j = 0; j < longBins; j++) {
+				HashMap.Node<K, V> e;
+				if ((e = tab[treeBins[j]]) != null)
+					m.treeifyBin(tab, e.hash);
+				if (m.table != tab) { // 数组太小,treeifyBin扩容了
+					treeifyLongBins(m);
+					break;
+				}
+			}
+		} else
+			treeifyLongBins(m);
+	}
+
+	/**
+	 * 遍历数组树化超过TREEIFY_THRESHOLD的桶,treeifyBin扩容时从新数组重新开始
+	 */
+	static <K, V> void treeifyLongBins(HashMap<K, V> m) {
+		HashMap.Node<K, V>[] tab;
+		scan: while ((tab = m.table) != null) {
+			for (int i = 0; i < tab.length; i++) {
+				int count = 0;
+				HashMap.Node<K, V> first = tab[i];
+				if (first instanceof HashMap.TreeNode)
+					continue;
+				for (HashMap.Node<K, V> e = first; e != null && count <= HashMap.TREEIFY_THRESHOLD; e = e.next)
+					++count;
+				if (count > HashMap.TREEIFY_THRESHOLD) {
+					m.treeifyBin(tab, first.hash);
+					if (m.table != tab)
+						continue scan;
+				}
+			}
+			break;
+		}
+	}
+
+	static <T> T read(Serializer<T> s, Input in, int length) throws IOException {
+		if (length < 0)
+			throw new StreamCorruptedException("Illegal length " + length);
+		ByteBuffer b = in.require(length);
+		int p = b.position();
+		T value = s.read(b, length);
+		if (b.position() - p != length)
+			throw new StreamCorruptedException("Serializer read " + (b.position() - p) + " bytes of " + length);
+		return value;
+	}
+
+	/**
+	 * 从ByteBuffer或者通过缓冲区从channel读取
+	 */
+	static final class Input {
+		final ReadableByteChannel ch;
+		ByteBuffer buf;
+
+		Input(ReadableByteChannel ch) {
+			this.ch = ch;
+			this.buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buf.flip();
+		}
+
+		Input(ByteBuffer buf) {
+			this.ch = null;
+			this.buf = buf;
+		}
+
+		/**
+		 * 返回至少还有n个字节可读的缓冲区
+		 */
+		ByteBuffer require(int n) throws IOException {
+			ByteBuffer b = buf;
+			if (b.remaining() >= n)
+				return b;
+			if (ch == null)
+				throw new EOFException("Need " + n + " bytes, " + b.remaining() + " left");
+			if (b.capacity() < n) {
+				ByteBuffer nb = ByteBuffer.allocate(Math.max(n, b.capacity() << 1));
+				nb.put(b);
+				buf = b = nb;
+			} else
+				b.compact();
+			while (b.position() < n) {
+				if (ch.read(b) < 0)
+					throw new EOFException("Need " + n + " bytes, " + b.position() + " left");
+			}
+			b.flip();
+			return b;
+		}
+	}
+}
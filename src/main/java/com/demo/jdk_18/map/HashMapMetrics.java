@@ -0,0 +1,354 @@
+package com.demo.jdk_18.map;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * HashMap的运行统计,通过{@link HashMap#enableMetrics()}开启.
+ *
+ * <p>
+ * Lookup counters cover every {@code getNode} call ({@code get},
+ * {@code getOrDefault}, {@code containsKey} and the view
+ * {@code contains} methods). The probe length of a lookup is the number of
+ * nodes of a linked bin it had to look at; lookups in tree bins are
+ * counted separately. Chain lengths are not tracked on the hot path but
+ * measured by {@link #snapshot()}, which walks the table.
+ *
+ * <p>
+ * A map with a skewed histogram (many long chains, tree bins, or a high
+ * average probe length at a normal load) usually has a poor
+ * {@code hashCode()} on its keys.
+ */
+public final class HashMapMetrics implements HashMapMetricsMXBean {
+
+	/**
+	 * 链表长度统计的桶数量,最后一个桶统计长度大于等于HISTOGRAM_SIZE - 1的链表
+	 */
+	static final int HISTOGRAM_SIZE = 17;
+
+	final HashMap<?, ?> map;
+
+	long hits;
+
+	long misses;
+
+	long probes;
+
+	long treeLookups;
+
+	long treeifyCount;
+
+	long untreeifyCount;
+
+	long treeifySkipCount;
+
+	long earlyResizeCount;
+
+	long resizeCount;
+
+	long resizeNanos;
+
+	HashMapMetrics(HashMap<?, ?> map) {
+		this.map = map;
+	}
+
+	/* ---------------- Recording -------------- */
+
+	/**
+	 * 记录一次查找,重新遍历key所在的桶计算比较了多少个节点
+	 */
+	void recordLookup(HashMap<?, ?> m, int hash, HashMap.Node<?, ?> found) {
+		if (found != null)
+			++hits;
+		else
+			++misses;
+		HashMap.Node<?, ?>[] tab;
+		if ((tab = m.oldTable) == null || tab[(tab.length - 1) & hash] == null)
+			tab = m.table;
+		HashMap.Node<?, ?> e;
+		if (tab != null && (e = tab[(tab.length - 1) & hash]) != null) {
+			if (e instanceof HashMap.TreeNode)
+				++treeLookups;
+			else {
+				int n = 0;
+				do {
+					++n;
+				} while (e != found && (e = e.next) != null);
+				probes += n;
+			}
+		}
+	}
+
+	void recordResize(long nanos) {
+		++resizeCount;
+		resizeNanos += nanos;
+	}
+
+	/* ---------------- Snapshot -------------- */
+
+	/**
+	 * Returns a consistent copy of the counters together with the chain
+	 * length histogram of the current table. Call it from the thread that
+	 * uses the map, or with the map's lock held.
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(this);
+	}
+
+	/**
+	 * Resets the counters. Chain statistics always reflect the current table.
+	 */
+	public void reset() {
+		hits = misses = probes = treeLookups = 0L;
+		treeifyCount = untreeifyCount = treeifySkipCount = earlyResizeCount = resizeCount = resizeNanos = 0L;
+	}
+
+	/**
+	 * Registers these metrics with the platform MBean server under
+	 * {@code com.demo.jdk_18.map:type=HashMap,name=<name>}. The MBean server
+	 * keeps the map reachable until {@link #unregisterMBean} is called.
+	 *
+	 * @return the name the MBean was registered under
+	 * @throws IllegalStateException
+	 *             if the registration fails, e.g. because the name is taken
+	 */
+	public ObjectName registerMBean(String name) {
+		try {
+			ObjectName on = new ObjectName("com.demo.jdk_18.map:type=HashMap,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+			return on;
+		} catch (JMException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Unregisters an MBean registered by {@link #registerMBean}, if it is
+	 * still registered.
+	 */
+	public void unregisterMBean(ObjectName name) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+		} catch (JMException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/* ---------------- MXBean -------------- */
+
+	public int getSize() {
+		return map.size;
+	}
+
+	public int getCapacity() {
+		return map.capacity();
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public double getHitRatio() {
+		long h = hits, total = h + misses;
+		return total == 0L ? 0.0 : (double) h / total;
+	}
+
+	public double getAverageProbeLength() {
+		long lookups = hits + misses - treeLookups;
+		return lookups <= 0L ? 0.0 : (double) probes / lookups;
+	}
+
+	public long getTreeBinLookups() {
+		return treeLookups;
+	}
+
+	public long getTreeifyCount() {
+		return treeifyCount;
+	}
+
+	public long getUntreeifyCount() {
+		return untreeifyCount;
+	}
+
+	public long getTreeifySkipCount() {
+		return treeifySkipCount;
+	}
+
+	public long getEarlyResizeCount() {
+		return earlyResizeCount;
+	}
+
+	public long getResizeCount() {
+		return resizeCount;
+	}
+
+	public long getResizeTimeNanos() {
+		return resizeNanos;
+	}
+
+	public long[] getChainLengthHistogram() {
+		return new Chains(map).histogram;
+	}
+
+	public int getMaxChainLength() {
+		return new Chains(map).maxChainLength;
+	}
+
+	public int getTreeBins() {
+		return new Chains(map).treeBins;
+	}
+
+	/**
+	 * 遍历数组统计每个桶的节点数量,渐进式扩容中还没有迁移的旧桶也统计在内
+	 */
+	static final class Chains {
+		final long[] histogram = new long[HISTOGRAM_SIZE];
+		int maxChainLength;
+		int treeBins;
+
+		Chains(HashMap<?, ?> map) {
+			count(map.table);
+			count(map.oldTable);
+		}
+
+		private void count(HashMap.Node<?, ?>[] tab) {
+			if (tab == null)
+				return;
+			for (HashMap.Node<?, ?> first : tab) {
+				int n = 0;
+				for (HashMap.Node<?, ?> e = first; e != null; e = e.next)
+					++n;
+				if (first instanceof HashMap.TreeNode)
+					++treeBins;
+				if (n > maxChainLength)
+					maxChainLength = n;
+				++histogram[Math.min(n, HISTOGRAM_SIZE - 1)];
+			}
+		}
+	}
+
+	/**
+	 * An immutable copy of the metrics of one map.
+	 */
+	public static final class Snapshot {
+		private final int size, capacity, maxChainLength, treeBins;
+		private final long hits, misses, probes, treeLookups;
+		private final long treeifyCount, untreeifyCount, treeifySkipCount, earlyResizeCount, resizeCount, resizeNanos;
+		private final long[] chainLengthHistogram;
+
+		Snapshot(HashMapMetrics m) {
+			Chains c = new Chains(m.map);
+			size = m.map.size;
+			capacity = m.map.capacity();
+			maxChainLength = c.maxChainLength;
+			treeBins = c.treeBins;
+			chainLengthHistogram = c.histogram;
+			hits = m.hits;
+			misses = m.misses;
+			probes = m.probes;
+			treeLookups = m.treeLookups;
+			treeifyCount = m.treeifyCount;
+			untreeifyCount = m.untreeifyCount;
+			treeifySkipCount = m.treeifySkipCount;
+			earlyResizeCount = m.earlyResizeCount;
+			resizeCount = m.resizeCount;
+			resizeNanos = m.resizeNanos;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public int capacity() {
+			return capacity;
+		}
+
+		public long hits() {
+			return hits;
+		}
+
+		public long misses() {
+			return misses;
+		}
+
+		/**
+		 * Returns the mean number of nodes examined by lookups in linked
+		 * bins.
+		 */
+		public double averageProbeLength() {
+			long lookups = hits + misses - treeLookups;
+			return lookups <= 0L ? 0.0 : (double) probes / lookups;
+		}
+
+		public long treeBinLookups() {
+			return treeLookups;
+		}
+
+		public long treeifyCount() {
+			return treeifyCount;
+		}
+
+		public long untreeifyCount() {
+			return untreeifyCount;
+		}
+
+		/**
+		 * Returns how often adaptive treeification kept a full bin as a list.
+		 */
+		public long treeifySkipCount() {
+			return treeifySkipCount;
+		}
+
+		/**
+		 * Returns how often adaptive treeification resized the table instead
+		 * of treeifying a bin. These resizes are also counted by
+		 * {@link #resizeCount()}.
+		 */
+		public long earlyResizeCount() {
+			return earlyResizeCount;
+		}
+
+		public long resizeCount() {
+			return resizeCount;
+		}
+
+		public long resizeTimeNanos() {
+			return resizeNanos;
+		}
+
+		/**
+		 * Returns the number of bins holding 0, 1, 2, ... nodes; the last
+		 * element counts all bins with at least {@code length - 1} nodes.
+		 */
+		public long[] chainLengthHistogram() {
+			return chainLengthHistogram.clone();
+		}
+
+		public int maxChainLength() {
+			return maxChainLength;
+		}
+
+		public int treeBins() {
+			return treeBins;
+		}
+
+		public String toString() {
+			return "HashMapMetrics.Snapshot[size=" + size + ", capacity=" + capacity + ", hits=" + hits + ", misses="
+					+ misses + ", averageProbeLength=" + averageProbeLength() + ", treeBinLookups=" + treeLookups
+					+ ", treeify=" + treeifyCount + ", untreeify=" + untreeifyCount + ", treeifySkips=" + treeifySkipCount
+					+ ", earlyResizes=" + earlyResizeCount + ", resizes=" + resizeCount
+					+ ", resizeTimeNanos=" + resizeNanos + ", maxChainLength=" + maxChainLength + ", treeBins="
+					+ treeBins + ", chainLengthHistogram=" + Arrays.toString(chainLengthHistogram) + "]";
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.demo.jdk_18.map;
+
+/**
+ * JMX接口,通过{@link HashMapMetrics#registerMBean(String)}注册.
+ *
+ * <p>
+ * Counters are plain fields updated by the thread(s) using the map, so a
+ * remote reader may observe slightly stale values. The chain statistics
+ * are computed on every read by walking the table without locking.
+ */
+public interface HashMapMetricsMXBean {
+
+	int getSize();
+
+	int getCapacity();
+
+	long getHits();
+
+	long getMisses();
+
+	double getHitRatio();
+
+	double getAverageProbeLength();
+
+	long getTreeBinLookups();
+
+	long getTreeifyCount();
+
+	long getUntreeifyCount();
+
+	long getTreeifySkipCount();
+
+	long getEarlyResizeCount();
+
+	long getResizeCount();
+
+	long getResizeTimeNanos();
+
+	long[] getChainLengthHistogram();
+
+	int getMaxChainLength();
+
+	int getTreeBins();
+
+	void reset();
+}
@@ -0,0 +1,135 @@
+package com.demo.jdk_18.map;
+
+import java.security.SecureRandom;
+
+/**
+ * 带随机密钥的hash函数,用于HashMap的防碰撞模式.
+ *
+ * <p>
+ * String contents are hashed with SipHash-1-3 under a random 128-bit key,
+ * so an attacker who does not know the key cannot construct keys that land
+ * in the same bin. Other keys have their {@code hashCode()} mixed with the
+ * key; keys with <em>equal</em> hash codes still collide, as they must.
+ */
+final class HashSeed {
+
+	/**
+	 * 所有密钥都来自同一个SecureRandom,只在开启防碰撞模式时初始化
+	 */
+	private static final class Holder {
+		static final SecureRandom RANDOM = new SecureRandom();
+	}
+
+	final long k0;
+
+	final long k1;
+
+	HashSeed() {
+		SecureRandom r = Holder.RANDOM;
+		k0 = r.nextLong();
+		k1 = r.nextLong();
+	}
+
+	/**
+	 * 计算key的hash,null返回0,和HashMap.hash(Object)一样
+	 */
+	int hash(Object key) {
+		if (key == null)
+			return 0;
+		if (key instanceof String)
+			return hash((String) key);
+		// murmur3的fmix32,让hashCode的每一位都影响下标
+		int h = key.hashCode() ^ (int) k0;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		return h ^ (h >>> 16);
+	}
+
+	int hash(CharSequence s) {
+		return hash(s, 0, s.length());
+	}
+
+	/**
+	 * 对字符序列的[start, end)做SipHash-1-3,每4个char组成一个64位的消息块,不需要先转换成字节
+	 */
+	int hash(CharSequence s, int start, int end) {
+		return sipHash(s, null, start, end, end - start);
+	}
+
+	/**
+	 * 对合法UTF-8字节b[off, end)解码成的字符序列做hash,length是UTF-16长度,结果和hash(CharSequence)相同,
+	 * 一边解码一边计算,不创建中间对象
+	 */
+	int hashUtf8(byte[] b, int off, int end, int length) {
+		return sipHash(null, b, off, end, length);
+	}
+
+	/**
+	 * SipHash-1-3,字符从s[start, end)或者UTF-8字节b[start, end)中顺序读取,len是字符数.
+	 * 每个消息块压缩一轮,之后再做3轮结束轮,所有轮次共用同一段轮函数
+	 */
+	private int sipHash(CharSequence s, byte[] b, int start, int end, int len) {
+		long v0 = k0 ^ 0x736f6d6570736575L;
+		long v1 = k1 ^ 0x646f72616e646f6dL;
+		long v2 = k0 ^ 0x6c7967656e657261L;
+		long v3 = k1 ^ 0x7465646279746573L;
+		int blocks = (len >>> 2) + 1;
+		int i = start; // 下一个要读的char或者字节位置
+		char low = 0; // 上一个补充字符还没读的低代理
+		for (int t = 0; t < blocks + 3; t++) {
+			long m = 0L;
+			if (t < blocks) {
+				int chars = 4;
+				if (t == blocks - 1) {
+					// 最后一块: 剩余的char,最高字节是字节长度
+					chars = len & 3;
+					m = (long) len << 57;
+				}
+				for (int j = 0; j < chars; j++) {
+					char c;
+					if (b == null)
+						c = s.charAt(i++);
+					else if (low != 0) {
+						c = low;
+						low = 0;
+					} else {
+						long d = StringKeyHashMap.decode(b, i, end);
+						int cp = (int) d;
+						i = (int) (d >>> 32);
+						if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT)
+							c = (char) cp;
+						else {
+							c = Character.highSurrogate(cp);
+							low = Character.lowSurrogate(cp);
+						}
+					}
+					m |= (long) c << (j << 4);
+				}
+				v3 ^= m;
+			}
+			v0 += v1;
+			v1 = Long.rotateLeft(v1, 13);
+			v1 ^= v0;
+			v0 = Long.rotateLeft(v0, 32);
+			v2 += v3;
+			v3 = Long.rotateLeft(v3, 16);
+			v3 ^= v2;
+			v0 += v3;
+			v3 = Long.rotateLeft(v3, 21);
+			v3 ^= v0;
+			v2 += v1;
+			v1 = Long.rotateLeft(v1, 17);
+			v1 ^= v2;
+			v2 = Long.rotateLeft(v2, 32);
+			if (t < blocks) {
+				v0 ^= m;
+				if (t == blocks - 1)
+					v2 ^= 0xff;
+			}
+		}
+		long h = v0 ^ v1 ^ v2 ^ v3;
+		return (int) (h ^ (h >>> 32));
+	}
+}
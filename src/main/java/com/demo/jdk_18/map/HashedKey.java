@@ -0,0 +1,56 @@
+package com.demo.jdk_18.map;
+
+import java.util.Objects;
+
+/**
+ * 预先计算好hash的key,可以在多个HashMap中重复使用,避免每次查询都调用hashCode().
+ *
+ * <p>
+ * A token captures {@code HashMap.hash(key)} once. The {@code *Hashed}
+ * methods of {@link HashMap} then use it instead of calling
+ * {@code key.hashCode()}. Maps in keyed hashing mode compute their own hash
+ * from the key, so a token only saves work on ordinary maps. The key must
+ * not be modified in a way that changes its hash code while tokens for it
+ * are in use.
+ *
+ * @param <K>
+ *            the type of the key
+ */
+public final class HashedKey<K> {
+
+	final K key;
+
+	final int hash;
+
+	HashedKey(K key, int hash) {
+		this.key = key;
+		this.hash = hash;
+	}
+
+	/**
+	 * Hashes {@code key} into a token that can be used with any
+	 * {@link HashMap}.
+	 */
+	public static <K> HashedKey<K> of(K key) {
+		return new HashedKey<>(key, HashMap.hash(key));
+	}
+
+	public K key() {
+		return key;
+	}
+
+	/**
+	 * Two tokens are equal if their keys are.
+	 */
+	public boolean equals(Object o) {
+		return o instanceof HashedKey && Objects.equals(key, ((HashedKey<?>) o).key);
+	}
+
+	public int hashCode() {
+		return Objects.hashCode(key);
+	}
+
+	public String toString() {
+		return String.valueOf(key);
+	}
+}
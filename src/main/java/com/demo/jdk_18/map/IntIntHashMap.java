@@ -0,0 +1,754 @@
+package com.demo.jdk_18.map;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * int到int的map,使用开放寻址(线性探测)存放在两个平行的int数组中,不需要装箱,也不需要为每个元素创建Node.
+ *
+ * <p>
+ * Keys are spread with {@link HashMap#spread(int)} and the table length is
+ * always a power of two sized through {@link HashMap#tableSizeFor(int)}, so
+ * a slot is {@code spread(key) & (length - 1)} exactly like a
+ * {@link HashMap} bin. Collisions probe the next slot; removal shifts the
+ * following run backwards instead of leaving tombstones. The key {@code 0}
+ * marks a free slot and is therefore stored out of line.
+ *
+ * <p>
+ * Once the table has grown to its working size, {@link #get},
+ * {@link #put}, {@link #addTo} and {@link #remove} do not allocate.
+ * {@link #asMap()} offers a boxed {@link Map} view for interoperability.
+ *
+ * <p>
+ * Like {@link HashMap} this class is not synchronized, and the iterators of
+ * its view are fail-fast.
+ */
+public class IntIntHashMap implements Cloneable, Serializable {
+
+	private static final long serialVersionUID = -3180594426385513917L;
+
+	/**
+	 * 空槽位的标记,key为0时单独存放
+	 */
+	static final int FREE_KEY = 0;
+
+	/**
+	 * 存放key的数组,FREE_KEY表示空槽位
+	 */
+	transient int[] keys;
+
+	/**
+	 * 存放value的数组,和keys下标一一对应
+	 */
+	transient int[] values;
+
+	/**
+	 * 数组长度-1
+	 */
+	transient int mask;
+
+	/**
+	 * 是否包含key=0
+	 */
+	transient boolean containsFreeKey;
+
+	/**
+	 * key=0对应的value
+	 */
+	transient int freeValue;
+
+	/**
+	 * map存放数据的数量(包括key=0)
+	 */
+	transient int size;
+
+	/**
+	 * 操作计数器
+	 */
+	transient int modCount;
+
+	/**
+	 * 扩容阈值,总是小于数组长度,保证至少有一个空槽位让探测结束
+	 */
+	transient int threshold;
+
+	/**
+	 * 加载因子,必须小于1
+	 *
+	 * @serial
+	 */
+	final float loadFactor;
+
+	/**
+	 * 装箱的Map视图
+	 */
+	transient Map<Integer, Integer> mapView;
+
+	/**
+	 * Constructs an empty map that holds {@code expectedSize} mappings without
+	 * resizing under the given load factor.
+	 *
+	 * @param expectedSize
+	 *            the expected number of mappings
+	 * @param loadFactor
+	 *            the load factor, in (0, 1)
+	 * @throws IllegalArgumentException
+	 *             if the expected size is negative or the load factor is not
+	 *             in (0, 1)
+	 */
+	public IntIntHashMap(int expectedSize, float loadFactor) {
+		if (expectedSize < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + expectedSize);
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+		this.loadFactor = loadFactor;
+		allocate(arraySize(expectedSize, loadFactor));
+	}
+
+	/**
+	 * Constructs an empty map with the default load factor (0.75).
+	 *
+	 * @param expectedSize
+	 *            the expected number of mappings
+	 */
+	public IntIntHashMap(int expectedSize) {
+		this(expectedSize, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Constructs an empty map with room for 16 mappings and the default load
+	 * factor (0.75).
+	 */
+	public IntIntHashMap() {
+		this(HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	/* ---------------- Static utilities -------------- */
+
+	/**
+	 * 根据期望的数据量和加载因子计算数组长度(2的n次方)
+	 */
+	static int arraySize(int expectedSize, float loadFactor) {
+		long s = Math.max(2L, (long) Math.ceil(expectedSize / (double) loadFactor));
+		return (s >= HashMap.MAXIMUM_CAPACITY) ? HashMap.MAXIMUM_CAPACITY : HashMap.tableSizeFor((int) s);
+	}
+
+	/**
+	 * 计算key所在的槽位
+	 */
+	static int slot(int key, int mask) {
+		return HashMap.spread(key) & mask;
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * 查询key对应的value,不存在返回0
+	 */
+	public int get(int key) {
+		return getOrDefault(key, 0);
+	}
+
+	/**
+	 * 查询key对应的value,不存在返回defaultValue
+	 */
+	public int getOrDefault(int key, int defaultValue) {
+		if (key == FREE_KEY)
+			return containsFreeKey ? freeValue : defaultValue;
+		int[] ks = keys;
+		int m = mask, k;
+		for (int i = slot(key, m); (k = ks[i]) != FREE_KEY; i = (i + 1) & m) {
+			if (k == key)
+				return values[i];
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * true=包含key,false=不包含key
+	 */
+	public boolean containsKey(int key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * 判断是否包含给定值
+	 */
+	public boolean containsValue(int value) {
+		if (containsFreeKey && freeValue == value)
+			return true;
+		int[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			if (ks[i] != FREE_KEY && vs[i] == value)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 添加或者更新key=value
+	 *
+	 * @return the previous value associated with {@code key}, or 0 if there
+	 *         was none
+	 */
+	public int put(int key, int value) {
+		int i;
+		if ((i = insert(key, value)) < 0)
+			return 0;
+		int[] vs = values;
+		int oldValue;
+		if (i == keys.length) {
+			oldValue = freeValue;
+			freeValue = value;
+		} else {
+			oldValue = vs[i];
+			vs[i] = value;
+		}
+		return oldValue;
+	}
+
+	/**
+	 * key不存在时才添加
+	 *
+	 * @return the current value associated with {@code key}, or 0 if the
+	 *         mapping was added
+	 */
+	public int putIfAbsent(int key, int value) {
+		int i;
+		if ((i = insert(key, value)) < 0)
+			return 0;
+		return (i == keys.length) ? freeValue : values[i];
+	}
+
+	/**
+	 * 给key对应的value加上increment,key不存在时当作0处理(计数器的常见用法)
+	 *
+	 * @return the value associated with {@code key} before the increment
+	 */
+	public int addTo(int key, int increment) {
+		int i;
+		if ((i = insert(key, increment)) < 0)
+			return 0;
+		int oldValue;
+		if (i == keys.length) {
+			oldValue = freeValue;
+			freeValue += increment;
+		} else {
+			oldValue = values[i];
+			values[i] += increment;
+		}
+		return oldValue;
+	}
+
+	/**
+	 * 根据key删除数据
+	 *
+	 * @return the previous value associated with {@code key}, or 0 if there
+	 *         was none
+	 */
+	public int remove(int key) {
+		if (key == FREE_KEY) {
+			if (!containsFreeKey)
+				return 0;
+			int oldValue = freeValue;
+			containsFreeKey = false;
+			freeValue = 0;
+			++modCount;
+			--size;
+			return oldValue;
+		}
+		int i;
+		if ((i = find(key)) < 0)
+			return 0;
+		int oldValue = values[i];
+		shiftKeys(i);
+		++modCount;
+		--size;
+		return oldValue;
+	}
+
+	/**
+	 * 清空数据,数组长度不变
+	 */
+	public void clear() {
+		modCount++;
+		if (size > 0) {
+			size = 0;
+			containsFreeKey = false;
+			freeValue = 0;
+			Arrays.fill(keys, FREE_KEY);
+		}
+	}
+
+	/**
+	 * Performs the given action for each mapping until all have been
+	 * processed. No boxing takes place.
+	 *
+	 * @throws ConcurrentModificationException
+	 *             if the action structurally modifies the map
+	 */
+	public void forEach(IntIntConsumer action) {
+		if (action == null)
+			throw new NullPointerException();
+		int mc = modCount;
+		if (containsFreeKey)
+			action.accept(FREE_KEY, freeValue);
+		int[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			int k;
+			if ((k = ks[i]) != FREE_KEY)
+				action.accept(k, vs[i]);
+		}
+		if (modCount != mc)
+			throw new ConcurrentModificationException();
+	}
+
+	/**
+	 * 返回装箱的Map视图,视图的修改会反映到当前map
+	 */
+	public Map<Integer, Integer> asMap() {
+		Map<Integer, Integer> mv;
+		return (mv = mapView) == null ? (mapView = new MapView()) : mv;
+	}
+
+	/**
+	 * Consumer of a primitive int key and int value.
+	 */
+	@FunctionalInterface
+	public interface IntIntConsumer {
+		void accept(int key, int value);
+	}
+
+	/* ---------------- Internal operations -------------- */
+
+	/**
+	 * 查找key所在的槽位,key=0时返回数组长度,不存在返回-1
+	 */
+	final int find(int key) {
+		if (key == FREE_KEY)
+			return containsFreeKey ? keys.length : -1;
+		int[] ks = keys;
+		int m = mask, k;
+		for (int i = slot(key, m); (k = ks[i]) != FREE_KEY; i = (i + 1) & m) {
+			if (k == key)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * 如果key已经存在,返回所在的槽位(key=0时返回数组长度),否则插入key=value并返回-1
+	 */
+	final int insert(int key, int value) {
+		if (key == FREE_KEY) {
+			if (containsFreeKey)
+				return keys.length;
+			containsFreeKey = true;
+			freeValue = value;
+		} else {
+			int[] ks = keys;
+			int m = mask, k, i;
+			for (i = slot(key, m); (k = ks[i]) != FREE_KEY; i = (i + 1) & m) {
+				if (k == key)
+					return i;
+			}
+			ks[i] = key;
+			values[i] = value;
+		}
+		++modCount;
+		if (++size > threshold)
+			resize(keys.length << 1);
+		return -1;
+	}
+
+	/**
+	 * 删除pos位置的数据之后,把后面同一探测序列上的数据往前移动,保证查找时不会提前遇到空槽位
+	 */
+	final void shiftKeys(int pos) {
+		int[] ks = keys, vs = values;
+		int m = mask;
+		for (int last, slot, k;;) {
+			pos = ((last = pos) + 1) & m;
+			for (;;) {
+				if ((k = ks[pos]) == FREE_KEY) {
+					ks[last] = FREE_KEY;
+					return;
+				}
+				slot = slot(k, m);
+				// 理想槽位不在(last, pos]之间的数据才能移动到last
+				if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+					break;
+				pos = (pos + 1) & m;
+			}
+			ks[last] = k;
+			vs[last] = vs[pos];
+		}
+	}
+
+	/**
+	 * 分配长度为n的数组
+	 */
+	private void allocate(int n) {
+		keys = new int[n];
+		values = new int[n];
+		mask = n - 1;
+		threshold = Math.min((int) Math.ceil(n * loadFactor), n - 1);
+	}
+
+	/**
+	 * 扩容,重新计算所有key的槽位
+	 */
+	final void resize(int newCap) {
+		int[] oldKeys = keys, oldValues = values;
+		if (oldKeys.length >= HashMap.MAXIMUM_CAPACITY) {
+			if (size - (containsFreeKey ? 1 : 0) >= oldKeys.length - 1)
+				throw new IllegalStateException("Map is full: " + size);
+			threshold = oldKeys.length - 1;
+			return;
+		}
+		allocate(newCap);
+		int[] ks = keys, vs = values;
+		int m = mask;
+		for (int j = 0; j < oldKeys.length; ++j) {
+			int k;
+			if ((k = oldKeys[j]) != FREE_KEY) {
+				int i = slot(k, m);
+				while (ks[i] != FREE_KEY)
+					i = (i + 1) & m;
+				ks[i] = k;
+				vs[i] = oldValues[j];
+			}
+		}
+	}
+
+	/* ---------------- Object methods -------------- */
+
+	/**
+	 * Compares the mappings of two {@code IntIntHashMap}s.
+	 */
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+		if (!(o instanceof IntIntHashMap))
+			return false;
+		IntIntHashMap m = (IntIntHashMap) o;
+		if (m.size != size)
+			return false;
+		if (containsFreeKey && (!m.containsFreeKey || m.freeValue != freeValue))
+			return false;
+		int[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			int k, j;
+			if ((k = ks[i]) != FREE_KEY && ((j = m.find(k)) < 0 || m.values[j] != vs[i]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the same value as {@code asMap().hashCode()}.
+	 */
+	public int hashCode() {
+		int h = containsFreeKey ? (FREE_KEY ^ freeValue) : 0;
+		int[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			if (ks[i] != FREE_KEY)
+				h += ks[i] ^ vs[i];
+		}
+		return h;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder().append('{');
+		forEach((k, v) -> {
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append(k).append('=').append(v);
+		});
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * Returns a copy of this map; the arrays are cloned.
+	 */
+	public IntIntHashMap clone() {
+		IntIntHashMap result;
+		try {
+			result = (IntIntHashMap) super.clone();
+		} catch (CloneNotSupportedException e) {
+			// this shouldn't happen, since we are Cloneable
+			throw new InternalError(e);
+		}
+		result.keys = keys.clone();
+		result.values = values.clone();
+		result.mapView = null;
+		result.modCount = 0;
+		return result;
+	}
+
+	/**
+	 * Save the state of the map to a stream.
+	 *
+	 * @serialData The <i>size</i> (int) followed by the key (int) and value
+	 *             (int) of each mapping, in no particular order.
+	 */
+	private void writeObject(java.io.ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		if (containsFreeKey) {
+			s.writeInt(FREE_KEY);
+			s.writeInt(freeValue);
+		}
+		int[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			if (ks[i] != FREE_KEY) {
+				s.writeInt(ks[i]);
+				s.writeInt(vs[i]);
+			}
+		}
+	}
+
+	/**
+	 * Reconstitute the map from a stream.
+	 */
+	private void readObject(java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new java.io.InvalidObjectException("Illegal load factor: " + loadFactor);
+		int mappings = s.readInt();
+		if (mappings < 0)
+			throw new java.io.InvalidObjectException("Illegal mappings count: " + mappings);
+		allocate(arraySize(mappings, loadFactor));
+		for (int i = 0; i < mappings; i++) {
+			int key = s.readInt();
+			put(key, s.readInt());
+		}
+	}
+
+	/* ------------------------------------------------------------ */
+	// Map view
+
+	final class MapView extends AbstractMap<Integer, Integer> {
+		transient Set<Map.Entry<Integer, Integer>> entries;
+
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			IntIntHashMap.this.clear();
+		}
+
+		public boolean containsKey(Object key) {
+			return (key instanceof Integer) && find((Integer) key) >= 0;
+		}
+
+		public boolean containsValue(Object value) {
+			return (value instanceof Integer) && IntIntHashMap.this.containsValue((Integer) value);
+		}
+
+		public Integer get(Object key) {
+			int i;
+			if (!(key instanceof Integer) || (i = find((Integer) key)) < 0)
+				return null;
+			return (i == keys.length) ? freeValue : values[i];
+		}
+
+		public Integer put(Integer key, Integer value) {
+			int v = value, i;
+			if ((i = insert(key, v)) < 0)
+				return null;
+			int oldValue;
+			if (i == keys.length) {
+				oldValue = freeValue;
+				freeValue = v;
+			} else {
+				oldValue = values[i];
+				values[i] = v;
+			}
+			return oldValue;
+		}
+
+		public Integer remove(Object key) {
+			if (!(key instanceof Integer) || find((Integer) key) < 0)
+				return null;
+			return IntIntHashMap.this.remove((Integer) key);
+		}
+
+		public Set<Map.Entry<Integer, Integer>> entrySet() {
+			Set<Map.Entry<Integer, Integer>> es;
+			return (es = entries) == null ? (entries = new EntrySet()) : es;
+		}
+	}
+
+	final class EntrySet extends AbstractSet<Map.Entry<Integer, Integer>> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			IntIntHashMap.this.clear();
+		}
+
+		public Iterator<Map.Entry<Integer, Integer>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	/**
+	 * 视图中的元素,修改value会写回到数组
+	 */
+	final class MapEntry implements Map.Entry<Integer, Integer> {
+		final int key;
+		int index;
+
+		MapEntry(int key, int index) {
+			this.key = key;
+			this.index = index;
+		}
+
+		public Integer getKey() {
+			return key;
+		}
+
+		public Integer getValue() {
+			return (index == keys.length) ? freeValue : values[index];
+		}
+
+		public Integer setValue(Integer value) {
+			int oldValue;
+			if (index == keys.length) {
+				oldValue = freeValue;
+				freeValue = value;
+			} else {
+				oldValue = values[index];
+				values[index] = value;
+			}
+			return oldValue;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey()) && getValue().equals(e.getValue());
+		}
+
+		public int hashCode() {
+			return key ^ getValue();
+		}
+
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+
+	/**
+	 * 从数组末尾往前遍历.删除时往前移动的数据如果跨过了数组开头(已经遍历过的位置),记录在wrapped中最后遍历
+	 */
+	final class EntryIterator implements Iterator<Map.Entry<Integer, Integer>> {
+		int pos = keys.length; // next slot to examine is pos - 1
+		int last = -1; // slot of the last returned entry, -1 if none
+		int remaining = size;
+		boolean mustReturnFreeKey = containsFreeKey;
+		int[] wrapped; // keys moved past the start of the array by removal
+		int wrappedCount;
+		int expectedModCount = modCount;
+
+		public boolean hasNext() {
+			return remaining != 0;
+		}
+
+		public Map.Entry<Integer, Integer> next() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (remaining == 0)
+				throw new NoSuchElementException();
+			--remaining;
+			int[] ks = keys;
+			if (mustReturnFreeKey) {
+				mustReturnFreeKey = false;
+				return new MapEntry(FREE_KEY, last = ks.length);
+			}
+			for (;;) {
+				if (--pos < 0) {
+					// 只剩下删除时跨过数组开头的数据
+					last = Integer.MIN_VALUE;
+					int k = wrapped[-pos - 1];
+					return new MapEntry(k, find(k));
+				}
+				if (ks[pos] != FREE_KEY)
+					return new MapEntry(ks[pos], last = pos);
+			}
+		}
+
+		public void remove() {
+			if (last == -1)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (last == keys.length) {
+				containsFreeKey = false;
+				freeValue = 0;
+			} else if (pos >= 0)
+				shiftKeys(last);
+			else {
+				IntIntHashMap.this.remove(wrapped[-pos - 1]);
+				last = -1;
+				expectedModCount = modCount;
+				return;
+			}
+			--size;
+			++modCount;
+			last = -1;
+			expectedModCount = modCount;
+		}
+
+		/**
+		 * Same as the enclosing shiftKeys, but remembers keys that wrap around
+		 * to a slot this iterator has already passed.
+		 */
+		private void shiftKeys(int pos) {
+			int[] ks = keys, vs = values;
+			int m = mask;
+			for (int last, slot, k;;) {
+				pos = ((last = pos) + 1) & m;
+				for (;;) {
+					if ((k = ks[pos]) == FREE_KEY) {
+						ks[last] = FREE_KEY;
+						return;
+					}
+					slot = slot(k, m);
+					if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+						break;
+					pos = (pos + 1) & m;
+				}
+				if (pos < last) {
+					if (wrapped == null)
+						wrapped = new int[2];
+					else if (wrappedCount == wrapped.length)
+						wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+					wrapped[wrappedCount++] = k;
+				}
+				ks[last] = k;
+				vs[last] = vs[pos];
+			}
+		}
+	}
+}
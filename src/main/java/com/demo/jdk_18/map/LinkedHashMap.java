@@ -28,19 +28,24 @@ package com.demo.jdk_18.map;
 import java.util.function.Consumer;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+import java.util.concurrent.TimeUnit;
 import java.io.IOException;
 
 /**
- * ֤Ȼ˳((͸,ѯ))map,̳HashMap(ֻhashmapNodeϼһǰڵͺڵ)
+ * 保证自然顺序(插入或者(插入和更新,查询))的map,继承自HashMap(只是在hashmap的Node基础上加了一个前向节点和后向节点)
  *
  */
 public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 
 	/**
-	 * hashmapNodeϼһǰڵͺڵ,֤ڵ˳
+	 * 在hashmap的Node基础上加了一个前向节点和后向节点,用来保证节点的顺序
 	 */
 	static class Entry<K, V> extends HashMap.Node<K, V> {
 		Entry<K, V> before, after;
+		TimerWheel.Timer<K, V> timer; // 开启过期后才有,压缩指针时不增加对象大小
 
 		Entry(int hash, K key, V value, Node<K, V> next) {
 			super(hash, key, value, next);
@@ -50,25 +55,42 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 	private static final long serialVersionUID = 3801124242820219131L;
 
 	/**
-	 * ͷ
+	 * 头结点
 	 */
 	transient LinkedHashMap.Entry<K, V> head;
 
 	/**
-	 * βڵ
+	 * 尾节点
 	 */
 	transient LinkedHashMap.Entry<K, V> tail;
 
 	/**
-	 * »߲ѯʱ,Ƿı䵱ǰڵ˳(ıΪβڵ)
+	 * 更新或者查询数据时,是否改变当前节点的顺序(改变则变为尾节点)
 	 *
 	 * @serial
 	 */
 	final boolean accessOrder;
 
+	/**
+	 * 写入后和访问后过期的时间(纳秒),0表示不过期
+	 */
+	transient long expireAfterWriteNanos;
+
+	transient long expireAfterAccessNanos;
+
+	/**
+	 * 过期的时间源,null表示System.nanoTime()
+	 */
+	transient LongSupplier ticker;
+
+	/**
+	 * 开启过期后创建
+	 */
+	transient TimerWheel<K, V> timerWheel;
+
 	// internal utilities
 
-	// ڵӵβ
+	// 将节点连接到尾部
 	private void linkNodeLast(LinkedHashMap.Entry<K, V> p) {
 		LinkedHashMap.Entry<K, V> last = tail;
 		tail = p;
@@ -94,19 +116,33 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 			a.before = dst;
 	}
 
+	// 替换节点(树化,还原成链表)时转移过期时间
+	private void transferTimer(LinkedHashMap.Entry<K, V> src, LinkedHashMap.Entry<K, V> dst) {
+		TimerWheel.Timer<K, V> t;
+		if ((t = src.timer) != null) {
+			dst.timer = t;
+			t.entry = dst;
+		}
+	}
+
 	// overrides of HashMap hook methods
 
 	void reinitialize() {
 		super.reinitialize();
 		head = tail = null;
+		// clone保留过期设置,节点重新计时
+		if (timerWheel != null)
+			timerWheel = new TimerWheel<>(ticks());
 	}
 
 	/**
-	 * һ½ڵ,ȷǰڵͺ̽ڵ
+	 * 创建一个新节点,在这里确定前向节点和后继节点
 	 */
 	Node<K, V> newNode(int hash, K key, V value, Node<K, V> e) {
 		LinkedHashMap.Entry<K, V> p = new LinkedHashMap.Entry<K, V>(hash, key, value, e);
 		linkNodeLast(p);
+		if (timerWheel != null)
+			scheduleNode(p);
 		return p;
 	}
 
@@ -114,12 +150,15 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 		LinkedHashMap.Entry<K, V> q = (LinkedHashMap.Entry<K, V>) p;
 		LinkedHashMap.Entry<K, V> t = new LinkedHashMap.Entry<K, V>(q.hash, q.key, q.value, next);
 		transferLinks(q, t);
+		transferTimer(q, t);
 		return t;
 	}
 
 	TreeNode<K, V> newTreeNode(int hash, K key, V value, Node<K, V> next) {
 		TreeNode<K, V> p = new TreeNode<K, V>(hash, key, value, next);
 		linkNodeLast(p);
+		if (timerWheel != null)
+			scheduleNode(p);
 		return p;
 	}
 
@@ -127,6 +166,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 		LinkedHashMap.Entry<K, V> q = (LinkedHashMap.Entry<K, V>) p;
 		TreeNode<K, V> t = new TreeNode<K, V>(q.hash, q.key, q.value, next);
 		transferLinks(q, t);
+		transferTimer(q, t);
 		return t;
 	}
 
@@ -141,25 +181,63 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 			tail = b;
 		else
 			a.before = b;
+		TimerWheel.Timer<K, V> t;
+		if ((t = p.timer) != null) {
+			timerWheel.deschedule(t);
+			p.timer = null;
+		}
 	}
 
 	/**
-	 * û(removeEldestEntryfalse)ʹó
+	 * 现在没用(removeEldestEntry返回false)，不清楚使用场景
 	 */
 	void afterNodeInsertion(boolean evict) { // possibly remove eldest
 		LinkedHashMap.Entry<K, V> first;
+		TimerWheel<K, V> w;
+		if (evict && (w = timerWheel) != null)
+			w.advance(this, ticks());
 		if (evict && (first = head) != null && removeEldestEntry(first)) {
 			K key = first.key;
-			removeNode(hash(key), key, null, false, true);
+			removeNode(hashOf(key), key, null, false, true);
 		}
 	}
 
 	/**
-	 * ֮Ĳ,µĽڵƶĩβ
+	 * 更新数据之后的操作,将更新的节点移动到末尾,重新开始写入后过期的计时
 	 */
-	void afterNodeAccess(Node<K, V> e) { // move node to last
+	void afterNodeAccess(Node<K, V> e) {
+		if (accessOrder)
+			moveNodeLast(e);
+		if (timerWheel != null)
+			touchNode(e, true);
+	}
+
+	/**
+	 * 找到节点但是没有修改value,访问顺序时同样移动到末尾
+	 */
+	void afterNodeRead(Node<K, V> e) {
+		if (accessOrder)
+			moveNodeLast(e);
+		if (timerWheel != null)
+			touchNode(e, false);
+	}
+
+	/**
+	 * 遍历中替换了value,重新开始写入后过期的计时.不推进时间轮,所以不会删除节点
+	 */
+	void afterValueReplaced(Node<K, V> e) {
+		TimerWheel.Timer<K, V> t;
+		if (timerWheel != null && (t = ((LinkedHashMap.Entry<K, V>) e).timer) != null) {
+			long now = ticks();
+			t.writeTime = now;
+			t.deadline = deadline(t, now);
+			timerWheel.reschedule(t);
+		}
+	}
+
+	private void moveNodeLast(Node<K, V> e) { // move node to last
 		LinkedHashMap.Entry<K, V> last;
-		if (accessOrder && (last = tail) != e) {
+		if ((last = tail) != e) {
 			LinkedHashMap.Entry<K, V> p = (LinkedHashMap.Entry<K, V>) e, b = p.before, a = p.after;
 			p.after = null;
 			if (b == null)
@@ -181,6 +259,99 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 		}
 	}
 
+	// expiration utilities
+
+	final long ticks() {
+		LongSupplier t;
+		return ((t = ticker) == null) ? System.nanoTime() : t.getAsLong();
+	}
+
+	/**
+	 * 到期时间取写入后过期和访问后过期中较早的一个,用减法比较,允许时间溢出
+	 */
+	final long deadline(TimerWheel.Timer<K, V> t, long now) {
+		long eaw = expireAfterWriteNanos, eaa = expireAfterAccessNanos;
+		if (eaw == 0L)
+			return now + eaa;
+		long d = t.writeTime + eaw;
+		if (eaa != 0L && now + eaa - d < 0L)
+			d = now + eaa;
+		return d;
+	}
+
+	private void scheduleNode(LinkedHashMap.Entry<K, V> p) {
+		long now = ticks();
+		TimerWheel.Timer<K, V> t = p.timer = new TimerWheel.Timer<>(p, now);
+		t.deadline = deadline(t, now);
+		timerWheel.schedule(t);
+	}
+
+	/**
+	 * 写入时重新开始计时并推进时间轮;读取时只有访问后过期需要重新计时
+	 */
+	private void touchNode(Node<K, V> e, boolean write) {
+		TimerWheel.Timer<K, V> t = ((LinkedHashMap.Entry<K, V>) e).timer;
+		TimerWheel<K, V> w = timerWheel;
+		long now = ticks();
+		if (write)
+			t.writeTime = now;
+		if (write || expireAfterAccessNanos != 0L) {
+			t.deadline = deadline(t, now);
+			w.reschedule(t);
+		}
+		if (write)
+			w.advance(this, now);
+	}
+
+	/**
+	 * 查询到的节点已经到期(时间轮还没有推进到)时删除
+	 */
+	final boolean expireIfDue(Node<K, V> e) {
+		TimerWheel.Timer<K, V> t = ((LinkedHashMap.Entry<K, V>) e).timer;
+		if (t == null || t.deadline - ticks() > 0L)
+			return false;
+		removeNode(e.hash, e.key, null, false, true);
+		return true;
+	}
+
+	/**
+	 * 时间轮调用
+	 */
+	final void expireEntry(LinkedHashMap.Entry<K, V> e) {
+		removeNode(e.hash, e.key, null, false, true);
+	}
+
+	/**
+	 * 修改设置后所有节点从现在开始重新计时
+	 */
+	private void resetTimers() {
+		if (expireAfterWriteNanos == 0L && expireAfterAccessNanos == 0L) {
+			timerWheel = null;
+			for (LinkedHashMap.Entry<K, V> e = head; e != null; e = e.after)
+				e.timer = null;
+			return;
+		}
+		long now = ticks();
+		TimerWheel<K, V> w = timerWheel = new TimerWheel<>(now);
+		for (LinkedHashMap.Entry<K, V> e = head; e != null; e = e.after) {
+			TimerWheel.Timer<K, V> t = e.timer;
+			if (t == null)
+				t = e.timer = new TimerWheel.Timer<>(e, now);
+			else {
+				t.prev = t.next = null;
+				t.writeTime = now;
+			}
+			t.deadline = deadline(t, now);
+			w.schedule(t);
+		}
+	}
+
+	private static long toNanos(long duration, TimeUnit unit) {
+		if (duration < 0L)
+			throw new IllegalArgumentException("Illegal duration: " + duration);
+		return unit.toNanos(duration);
+	}
+
 	void internalWriteEntries(java.io.ObjectOutputStream s) throws IOException {
 		for (LinkedHashMap.Entry<K, V> e = head; e != null; e = e.after) {
 			s.writeObject(e.key);
@@ -188,6 +359,16 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 		}
 	}
 
+	// 按照链表顺序添加,保证批量添加到LinkedHashMap后的顺序和逐个添加一致
+	void internalPutEntries(HashMap<? super K, ? super V> dst, boolean distinct, boolean evict) {
+		for (LinkedHashMap.Entry<K, V> e = head; e != null; e = e.after) {
+			if (distinct)
+				dst.putDistinctVal(e.hash, e.key, e.value, evict);
+			else
+				dst.putVal(e.hash, e.key, e.value, false, evict);
+		}
+	}
+
 	/**
 	 * Constructs an empty insertion-ordered <tt>LinkedHashMap</tt> instance
 	 * with the specified initial capacity and load factor.
@@ -229,7 +410,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 	}
 
 	/**
-	 * ݴmaplinkedhashmap
+	 * 根据传入的map创建linkedhashmap
 	 * 
 	 * @param m
 	 *            the map whose mappings are to be placed in this map
@@ -243,7 +424,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 	}
 
 	/**
-	 * ָ,ǹݸ
+	 * 指定容量和扩容因子,是够根据更新数据排序
 	 *
 	 * @param initialCapacity
 	 *            the initial capacity
@@ -262,7 +443,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 	}
 
 	/**
-	 * жǷĳֵ
+	 * 判断是否包含某个值
 	 * 
 	 * @param value
 	 *            value whose presence in this map is to be tested
@@ -270,7 +451,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 	 *         value
 	 */
 	public boolean containsValue(Object value) {
-		// Ҿ
+		// 根据链表向下找就行了
 		for (LinkedHashMap.Entry<K, V> e = head; e != null; e = e.after) {
 			V v = e.value;
 			if (v == value || (value != null && value.equals(v)))
@@ -280,15 +461,18 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 	}
 
 	/**
-	 * keyѯ
+	 * 根据key查询数据
 	 */
 	public V get(Object key) {
 		Node<K, V> e;
-		if ((e = getNode(hash(key), key)) == null)
+		int hash = hashOf(key);
+		if (oldTable != null)
+			// 渐进式扩容中,顺带迁移一部分桶
+			advanceTransfer(hash);
+		if ((e = getNode(hash, key)) == null || (timerWheel != null && expireIfDue(e)))
 			return null;
-		if (accessOrder)
-			// Ƿǰڵ˳
-			afterNodeAccess(e);
+		// 是否变更当前节点的顺序
+		afterNodeRead(e);
 		return e.value;
 	}
 
@@ -297,19 +481,34 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 	 */
 	public V getOrDefault(Object key, V defaultValue) {
 		Node<K, V> e;
-		if ((e = getNode(hash(key), key)) == null)
+		int hash = hashOf(key);
+		if (oldTable != null)
+			advanceTransfer(hash);
+		if ((e = getNode(hash, key)) == null || (timerWheel != null && expireIfDue(e)))
 			return defaultValue;
-		if (accessOrder)
-			afterNodeAccess(e);
+		afterNodeRead(e);
 		return e.value;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean containsKey(Object key) {
+		Node<K, V> e;
+		int hash = hashOf(key);
+		if (oldTable != null)
+			advanceTransfer(hash);
+		return (e = getNode(hash, key)) != null && (timerWheel == null || !expireIfDue(e));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void clear() {
 		super.clear();
 		head = tail = null;
+		if (timerWheel != null)
+			timerWheel = new TimerWheel<>(ticks());
 	}
 
 	/**
@@ -363,7 +562,171 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 	}
 
 	/**
-	 * ͼ
+	 * Removes each entry once {@code duration} has passed since it was
+	 * created or its value last replaced, or never if {@code duration} is
+	 * zero. Entries already in the map, and entries of a clone, count from
+	 * the time of the call. Values replaced through {@code put},
+	 * {@code replace}, the {@code compute} and {@code merge} methods,
+	 * {@link #replaceAll} and {@link MapCursor#setValue} restart the timer; a
+	 * value replaced through {@code Map.Entry.setValue} on an entry of
+	 * {@link #entrySet()} does not.
+	 *
+	 * <p>
+	 * Deadlines are kept in a hierarchical timer wheel, so scheduling costs
+	 * O(1) per write however many entries there are. Due entries are
+	 * reclaimed in bulk as writes and {@link #cleanUp()} advance the wheel,
+	 * with a resolution of about one second; until then they still count in
+	 * {@link #size()} and appear in iteration, but {@link #get},
+	 * {@link #getOrDefault} and {@link #containsKey} check the deadline and
+	 * remove an entry that is due; other operations, such as {@code put}
+	 * returning the previous value, may still see it. Reclaiming an entry is
+	 * a structural modification. The setting is not serialized.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if {@code duration} is negative
+	 */
+	public void setExpireAfterWrite(long duration, TimeUnit unit) {
+		expireAfterWriteNanos = toNanos(duration, unit);
+		resetTimers();
+	}
+
+	/**
+	 * Removes each entry once {@code duration} has passed since it was last
+	 * read or written, or never if {@code duration} is zero. Reads through
+	 * {@link #get}, {@link #getOrDefault}, {@code putIfAbsent} and
+	 * {@code computeIfAbsent} restart the timer; iteration and
+	 * {@link #containsKey} do not. Reclaimed as described in
+	 * {@link #setExpireAfterWrite}; when both are set an entry expires at
+	 * the earlier deadline. The setting is not serialized.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if {@code duration} is negative
+	 */
+	public void setExpireAfterAccess(long duration, TimeUnit unit) {
+		expireAfterAccessNanos = toNanos(duration, unit);
+		resetTimers();
+	}
+
+	/**
+	 * Sets the time source for expiration, in nanoseconds, for example a fake
+	 * clock in tests; {@code null} means {@link System#nanoTime()}. Entries
+	 * already in the map count from the time of the call. The setting is not
+	 * serialized.
+	 */
+	public void setTicker(LongSupplier ticker) {
+		this.ticker = ticker;
+		if (timerWheel != null)
+			resetTimers();
+	}
+
+	/**
+	 * Removes the entries whose expiration is due, for maps that are read
+	 * much more than written. Does nothing if no expiration is set.
+	 */
+	public void cleanUp() {
+		TimerWheel<K, V> w;
+		if ((w = timerWheel) != null)
+			w.advance(this, ticks());
+	}
+
+	/**
+	 * Removes entries from the head of this map, eldest first, as long as
+	 * {@code condition} accepts the eldest entry, in a single pass that does
+	 * not consult {@link #removeEldestEntry}. The condition sees the map after
+	 * the previous removal, so {@code e -> size() > n} trims the map to
+	 * {@code n} entries.
+	 *
+	 * <p>
+	 * The removed entries are handed to {@code listener}, if not
+	 * {@code null}, in lists of up to {@code batchSize} entries in eviction
+	 * order, each after its entries are removed; a list belongs to the
+	 * listener, which may keep it, for example to write it back
+	 * asynchronously. If the condition or the listener throws, the entries
+	 * removed so far stay removed. Neither may modify this map.
+	 *
+	 * @return the number of entries removed
+	 * @throws IllegalArgumentException
+	 *             if {@code batchSize} is not positive
+	 * @throws ConcurrentModificationException
+	 *             if the condition or the listener modifies this map
+	 */
+	public int evictWhile(Predicate<? super Map.Entry<K, V>> condition, int batchSize,
+			Consumer<? super List<Map.Entry<K, V>>> listener) {
+		if (condition == null)
+			throw new NullPointerException();
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+		int evicted = 0, mc = modCount;
+		List<Map.Entry<K, V>> batch = null;
+		for (LinkedHashMap.Entry<K, V> e; (e = head) != null && condition.test(e);) {
+			if (modCount != mc)
+				throw new ConcurrentModificationException();
+			// 头结点按引用直接从桶中删除,不比较key,afterNodeRemoval只需要移动head
+			unlinkNode(e);
+			afterNodeRemoval(e);
+			mc = modCount;
+			++evicted;
+			if (listener != null) {
+				if (batch == null)
+					batch = new ArrayList<>(Math.min(batchSize, size + 1));
+				batch.add(e);
+				if (batch.size() == batchSize) {
+					listener.accept(batch);
+					batch = null;
+					if (modCount != mc)
+						throw new ConcurrentModificationException();
+				}
+			}
+		}
+		if (modCount != mc)
+			throw new ConcurrentModificationException();
+		if (batch != null)
+			listener.accept(batch);
+		return evicted;
+	}
+
+	/**
+	 * Removes the eldest entries until at most {@code maxSize} remain, as
+	 * {@link #evictWhile} does.
+	 *
+	 * @return the number of entries removed
+	 * @throws IllegalArgumentException
+	 *             if {@code maxSize} is negative or {@code batchSize} is not
+	 *             positive
+	 */
+	public int evictToSize(int maxSize, int batchSize, Consumer<? super List<Map.Entry<K, V>>> listener) {
+		if (maxSize < 0)
+			throw new IllegalArgumentException("Illegal size: " + maxSize);
+		return evictWhile(e -> size > maxSize, batchSize, listener);
+	}
+
+	/**
+	 * Removes the eldest entries until their total weight, computed by
+	 * {@code weigher}, reaches {@code weight}, as {@link #evictWhile} does.
+	 * Useful when the caller tracks the total weight of the map and needs to
+	 * bring it under a budget.
+	 *
+	 * @return the total weight of the removed entries, which is less than
+	 *         {@code weight} only if the map became empty
+	 * @throws IllegalArgumentException
+	 *             if {@code batchSize} is not positive
+	 */
+	public long evictWeight(long weight, ToLongBiFunction<? super K, ? super V> weigher, int batchSize,
+			Consumer<? super List<Map.Entry<K, V>>> listener) {
+		if (weigher == null)
+			throw new NullPointerException();
+		long[] evicted = new long[1];
+		evictWhile(e -> {
+			if (evicted[0] >= weight)
+				return false;
+			evicted[0] += weigher.applyAsLong(e.getKey(), e.getValue());
+			return true;
+		}, batchSize, listener);
+		return evicted[0];
+	}
+
+	/**
+	 * 视图
 	 */
 	public Set<K> keySet() {
 		Set<K> ks = keySet;
@@ -384,7 +747,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 		}
 
 		/**
-		 * õmap
+		 * 得到map迭代器
 		 * 
 		 */
 		public final Iterator<K> iterator() {
@@ -396,7 +759,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 		}
 
 		public final boolean remove(Object key) {
-			return removeNode(hash(key), key, null, false, true) != null;
+			return removeNode(hashOf(key), key, null, false, true) != null;
 		}
 
 		public final Spliterator<K> spliterator() {
@@ -510,7 +873,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 				return false;
 			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
 			Object key = e.getKey();
-			Node<K, V> candidate = getNode(hash(key), key);
+			Node<K, V> candidate = getNode(hashOf(key), key);
 			return candidate != null && candidate.equals(e);
 		}
 
@@ -519,7 +882,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 				Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
 				Object key = e.getKey();
 				Object value = e.getValue();
-				return removeNode(hash(key), key, value, true, true) != null;
+				return removeNode(hashOf(key), key, value, true, true) != null;
 			}
 			return false;
 		}
@@ -555,8 +918,11 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 		if (function == null)
 			throw new NullPointerException();
 		int mc = modCount;
-		for (LinkedHashMap.Entry<K, V> e = head; e != null; e = e.after)
+		for (LinkedHashMap.Entry<K, V> e = head; e != null; e = e.after) {
 			e.value = function.apply(e.key, e.value);
+			if (timerWheel != null)
+				afterValueReplaced(e);
+		}
 		if (modCount != mc)
 			throw new ConcurrentModificationException();
 	}
@@ -597,7 +963,7 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
 				throw new ConcurrentModificationException();
 			current = null;
 			K key = p.key;
-			removeNode(hash(key), key, null, false, false);
+			removeNode(hashOf(key), key, null, false, false);
 			expectedModCount = modCount;
 		}
 	}
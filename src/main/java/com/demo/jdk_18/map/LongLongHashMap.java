@@ -0,0 +1,679 @@
+package com.demo.jdk_18.map;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * long到long的map,使用开放寻址(线性探测)存放在两个平行的long数组中.
+ *
+ * <p>
+ * The layout and probing are the same as {@link IntIntHashMap}; a long key
+ * is folded to an int the way {@link Long#hashCode(long)} does before being
+ * spread with {@link HashMap#spread(int)}. The key {@code 0} marks a free
+ * slot and is stored out of line.
+ *
+ * <p>
+ * {@link #get}, {@link #put}, {@link #addTo} and {@link #remove} do not
+ * allocate once the table has grown to its working size. {@link #asMap()}
+ * offers a boxed {@link Map} view for interoperability.
+ */
+public class LongLongHashMap implements Cloneable, Serializable {
+
+	private static final long serialVersionUID = 7426393214577096143L;
+
+	/**
+	 * 空槽位的标记,key为0时单独存放
+	 */
+	static final long FREE_KEY = 0L;
+
+	transient long[] keys;
+
+	transient long[] values;
+
+	transient int mask;
+
+	transient boolean containsFreeKey;
+
+	transient long freeValue;
+
+	transient int size;
+
+	transient int modCount;
+
+	transient int threshold;
+
+	/**
+	 * 加载因子,必须小于1
+	 *
+	 * @serial
+	 */
+	final float loadFactor;
+
+	transient Map<Long, Long> mapView;
+
+	/**
+	 * Constructs an empty map that holds {@code expectedSize} mappings without
+	 * resizing under the given load factor.
+	 *
+	 * @param expectedSize
+	 *            the expected number of mappings
+	 * @param loadFactor
+	 *            the load factor, in (0, 1)
+	 * @throws IllegalArgumentException
+	 *             if the expected size is negative or the load factor is not
+	 *             in (0, 1)
+	 */
+	public LongLongHashMap(int expectedSize, float loadFactor) {
+		if (expectedSize < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + expectedSize);
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+		this.loadFactor = loadFactor;
+		allocate(IntIntHashMap.arraySize(expectedSize, loadFactor));
+	}
+
+	public LongLongHashMap(int expectedSize) {
+		this(expectedSize, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	public LongLongHashMap() {
+		this(HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	/* ---------------- Static utilities -------------- */
+
+	/**
+	 * 计算key所在的槽位,高32位和低32位先异或(和Long.hashCode一致)
+	 */
+	static int slot(long key, int mask) {
+		return HashMap.spread((int) (key ^ (key >>> 32))) & mask;
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * 查询key对应的value,不存在返回0
+	 */
+	public long get(long key) {
+		return getOrDefault(key, 0L);
+	}
+
+	/**
+	 * 查询key对应的value,不存在返回defaultValue
+	 */
+	public long getOrDefault(long key, long defaultValue) {
+		if (key == FREE_KEY)
+			return containsFreeKey ? freeValue : defaultValue;
+		long[] ks = keys;
+		long k;
+		int m = mask;
+		for (int i = slot(key, m); (k = ks[i]) != FREE_KEY; i = (i + 1) & m) {
+			if (k == key)
+				return values[i];
+		}
+		return defaultValue;
+	}
+
+	public boolean containsKey(long key) {
+		return find(key) >= 0;
+	}
+
+	public boolean containsValue(long value) {
+		if (containsFreeKey && freeValue == value)
+			return true;
+		long[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			if (ks[i] != FREE_KEY && vs[i] == value)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 添加或者更新key=value
+	 *
+	 * @return the previous value associated with {@code key}, or 0 if there
+	 *         was none
+	 */
+	public long put(long key, long value) {
+		int i;
+		if ((i = insert(key, value)) < 0)
+			return 0L;
+		long oldValue;
+		if (i == keys.length) {
+			oldValue = freeValue;
+			freeValue = value;
+		} else {
+			oldValue = values[i];
+			values[i] = value;
+		}
+		return oldValue;
+	}
+
+	/**
+	 * key不存在时才添加
+	 *
+	 * @return the current value associated with {@code key}, or 0 if the
+	 *         mapping was added
+	 */
+	public long putIfAbsent(long key, long value) {
+		int i;
+		if ((i = insert(key, value)) < 0)
+			return 0L;
+		return (i == keys.length) ? freeValue : values[i];
+	}
+
+	/**
+	 * 给key对应的value加上increment,key不存在时当作0处理
+	 *
+	 * @return the value associated with {@code key} before the increment
+	 */
+	public long addTo(long key, long increment) {
+		int i;
+		if ((i = insert(key, increment)) < 0)
+			return 0L;
+		long oldValue;
+		if (i == keys.length) {
+			oldValue = freeValue;
+			freeValue += increment;
+		} else {
+			oldValue = values[i];
+			values[i] += increment;
+		}
+		return oldValue;
+	}
+
+	/**
+	 * 根据key删除数据
+	 *
+	 * @return the previous value associated with {@code key}, or 0 if there
+	 *         was none
+	 */
+	public long remove(long key) {
+		if (key == FREE_KEY) {
+			if (!containsFreeKey)
+				return 0L;
+			long oldValue = freeValue;
+			containsFreeKey = false;
+			freeValue = 0L;
+			++modCount;
+			--size;
+			return oldValue;
+		}
+		int i;
+		if ((i = find(key)) < 0)
+			return 0L;
+		long oldValue = values[i];
+		shiftKeys(i);
+		++modCount;
+		--size;
+		return oldValue;
+	}
+
+	public void clear() {
+		modCount++;
+		if (size > 0) {
+			size = 0;
+			containsFreeKey = false;
+			freeValue = 0L;
+			Arrays.fill(keys, FREE_KEY);
+		}
+	}
+
+	/**
+	 * Performs the given action for each mapping until all have been
+	 * processed. No boxing takes place.
+	 *
+	 * @throws ConcurrentModificationException
+	 *             if the action structurally modifies the map
+	 */
+	public void forEach(LongLongConsumer action) {
+		if (action == null)
+			throw new NullPointerException();
+		int mc = modCount;
+		if (containsFreeKey)
+			action.accept(FREE_KEY, freeValue);
+		long[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			long k;
+			if ((k = ks[i]) != FREE_KEY)
+				action.accept(k, vs[i]);
+		}
+		if (modCount != mc)
+			throw new ConcurrentModificationException();
+	}
+
+	/**
+	 * 返回装箱的Map视图,视图的修改会反映到当前map
+	 */
+	public Map<Long, Long> asMap() {
+		Map<Long, Long> mv;
+		return (mv = mapView) == null ? (mapView = new MapView()) : mv;
+	}
+
+	/**
+	 * Consumer of a primitive long key and long value.
+	 */
+	@FunctionalInterface
+	public interface LongLongConsumer {
+		void accept(long key, long value);
+	}
+
+	/* ---------------- Internal operations -------------- */
+
+	/**
+	 * 查找key所在的槽位,key=0时返回数组长度,不存在返回-1
+	 */
+	final int find(long key) {
+		if (key == FREE_KEY)
+			return containsFreeKey ? keys.length : -1;
+		long[] ks = keys;
+		long k;
+		int m = mask;
+		for (int i = slot(key, m); (k = ks[i]) != FREE_KEY; i = (i + 1) & m) {
+			if (k == key)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * 如果key已经存在,返回所在的槽位(key=0时返回数组长度),否则插入key=value并返回-1
+	 */
+	final int insert(long key, long value) {
+		if (key == FREE_KEY) {
+			if (containsFreeKey)
+				return keys.length;
+			containsFreeKey = true;
+			freeValue = value;
+		} else {
+			long[] ks = keys;
+			long k;
+			int m = mask, i;
+			for (i = slot(key, m); (k = ks[i]) != FREE_KEY; i = (i + 1) & m) {
+				if (k == key)
+					return i;
+			}
+			ks[i] = key;
+			values[i] = value;
+		}
+		++modCount;
+		if (++size > threshold)
+			resize(keys.length << 1);
+		return -1;
+	}
+
+	/**
+	 * 删除pos位置的数据之后,把后面同一探测序列上的数据往前移动
+	 */
+	final void shiftKeys(int pos) {
+		long[] ks = keys, vs = values;
+		long k;
+		int m = mask;
+		for (int last, slot;;) {
+			pos = ((last = pos) + 1) & m;
+			for (;;) {
+				if ((k = ks[pos]) == FREE_KEY) {
+					ks[last] = FREE_KEY;
+					return;
+				}
+				slot = slot(k, m);
+				if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+					break;
+				pos = (pos + 1) & m;
+			}
+			ks[last] = k;
+			vs[last] = vs[pos];
+		}
+	}
+
+	private void allocate(int n) {
+		keys = new long[n];
+		values = new long[n];
+		mask = n - 1;
+		threshold = Math.min((int) Math.ceil(n * loadFactor), n - 1);
+	}
+
+	final void resize(int newCap) {
+		long[] oldKeys = keys, oldValues = values;
+		if (oldKeys.length >= HashMap.MAXIMUM_CAPACITY) {
+			if (size - (containsFreeKey ? 1 : 0) >= oldKeys.length - 1)
+				throw new IllegalStateException("Map is full: " + size);
+			threshold = oldKeys.length - 1;
+			return;
+		}
+		allocate(newCap);
+		long[] ks = keys, vs = values;
+		int m = mask;
+		for (int j = 0; j < oldKeys.length; ++j) {
+			long k;
+			if ((k = oldKeys[j]) != FREE_KEY) {
+				int i = slot(k, m);
+				while (ks[i] != FREE_KEY)
+					i = (i + 1) & m;
+				ks[i] = k;
+				vs[i] = oldValues[j];
+			}
+		}
+	}
+
+	/* ---------------- Object methods -------------- */
+
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+		if (!(o instanceof LongLongHashMap))
+			return false;
+		LongLongHashMap m = (LongLongHashMap) o;
+		if (m.size != size)
+			return false;
+		if (containsFreeKey && (!m.containsFreeKey || m.freeValue != freeValue))
+			return false;
+		long[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			long k;
+			int j;
+			if ((k = ks[i]) != FREE_KEY && ((j = m.find(k)) < 0 || m.values[j] != vs[i]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the same value as {@code asMap().hashCode()}.
+	 */
+	public int hashCode() {
+		int h = containsFreeKey ? (Long.hashCode(FREE_KEY) ^ Long.hashCode(freeValue)) : 0;
+		long[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			if (ks[i] != FREE_KEY)
+				h += Long.hashCode(ks[i]) ^ Long.hashCode(vs[i]);
+		}
+		return h;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder().append('{');
+		forEach((k, v) -> {
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append(k).append('=').append(v);
+		});
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * Returns a copy of this map; the arrays are cloned.
+	 */
+	public LongLongHashMap clone() {
+		LongLongHashMap result;
+		try {
+			result = (LongLongHashMap) super.clone();
+		} catch (CloneNotSupportedException e) {
+			// this shouldn't happen, since we are Cloneable
+			throw new InternalError(e);
+		}
+		result.keys = keys.clone();
+		result.values = values.clone();
+		result.mapView = null;
+		result.modCount = 0;
+		return result;
+	}
+
+	/**
+	 * Save the state of the map to a stream.
+	 *
+	 * @serialData The <i>size</i> (int) followed by the key (long) and value
+	 *             (long) of each mapping, in no particular order.
+	 */
+	private void writeObject(java.io.ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		if (containsFreeKey) {
+			s.writeLong(FREE_KEY);
+			s.writeLong(freeValue);
+		}
+		long[] ks = keys, vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			if (ks[i] != FREE_KEY) {
+				s.writeLong(ks[i]);
+				s.writeLong(vs[i]);
+			}
+		}
+	}
+
+	private void readObject(java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new java.io.InvalidObjectException("Illegal load factor: " + loadFactor);
+		int mappings = s.readInt();
+		if (mappings < 0)
+			throw new java.io.InvalidObjectException("Illegal mappings count: " + mappings);
+		allocate(IntIntHashMap.arraySize(mappings, loadFactor));
+		for (int i = 0; i < mappings; i++) {
+			long key = s.readLong();
+			put(key, s.readLong());
+		}
+	}
+
+	/* ------------------------------------------------------------ */
+	// Map view
+
+	final class MapView extends AbstractMap<Long, Long> {
+		transient Set<Map.Entry<Long, Long>> entries;
+
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			LongLongHashMap.this.clear();
+		}
+
+		public boolean containsKey(Object key) {
+			return (key instanceof Long) && find((Long) key) >= 0;
+		}
+
+		public boolean containsValue(Object value) {
+			return (value instanceof Long) && LongLongHashMap.this.containsValue((Long) value);
+		}
+
+		public Long get(Object key) {
+			int i;
+			if (!(key instanceof Long) || (i = find((Long) key)) < 0)
+				return null;
+			return (i == keys.length) ? freeValue : values[i];
+		}
+
+		public Long put(Long key, Long value) {
+			long v = value;
+			int i;
+			if ((i = insert(key, v)) < 0)
+				return null;
+			long oldValue;
+			if (i == keys.length) {
+				oldValue = freeValue;
+				freeValue = v;
+			} else {
+				oldValue = values[i];
+				values[i] = v;
+			}
+			return oldValue;
+		}
+
+		public Long remove(Object key) {
+			if (!(key instanceof Long) || find((Long) key) < 0)
+				return null;
+			return LongLongHashMap.this.remove((Long) key);
+		}
+
+		public Set<Map.Entry<Long, Long>> entrySet() {
+			Set<Map.Entry<Long, Long>> es;
+			return (es = entries) == null ? (entries = new EntrySet()) : es;
+		}
+	}
+
+	final class EntrySet extends AbstractSet<Map.Entry<Long, Long>> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			LongLongHashMap.this.clear();
+		}
+
+		public Iterator<Map.Entry<Long, Long>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	final class MapEntry implements Map.Entry<Long, Long> {
+		final long key;
+		int index;
+
+		MapEntry(long key, int index) {
+			this.key = key;
+			this.index = index;
+		}
+
+		public Long getKey() {
+			return key;
+		}
+
+		public Long getValue() {
+			return (index == keys.length) ? freeValue : values[index];
+		}
+
+		public Long setValue(Long value) {
+			long oldValue;
+			if (index == keys.length) {
+				oldValue = freeValue;
+				freeValue = value;
+			} else {
+				oldValue = values[index];
+				values[index] = value;
+			}
+			return oldValue;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey()) && getValue().equals(e.getValue());
+		}
+
+		public int hashCode() {
+			return Long.hashCode(key) ^ Long.hashCode(getValue());
+		}
+
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+
+	/**
+	 * 从数组末尾往前遍历,删除时跨过数组开头的数据记录在wrapped中最后遍历
+	 */
+	final class EntryIterator implements Iterator<Map.Entry<Long, Long>> {
+		int pos = keys.length;
+		int last = -1;
+		int remaining = size;
+		boolean mustReturnFreeKey = containsFreeKey;
+		long[] wrapped;
+		int wrappedCount;
+		int expectedModCount = modCount;
+
+		public boolean hasNext() {
+			return remaining != 0;
+		}
+
+		public Map.Entry<Long, Long> next() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (remaining == 0)
+				throw new NoSuchElementException();
+			--remaining;
+			long[] ks = keys;
+			if (mustReturnFreeKey) {
+				mustReturnFreeKey = false;
+				return new MapEntry(FREE_KEY, last = ks.length);
+			}
+			for (;;) {
+				if (--pos < 0) {
+					last = Integer.MIN_VALUE;
+					long k = wrapped[-pos - 1];
+					return new MapEntry(k, find(k));
+				}
+				if (ks[pos] != FREE_KEY)
+					return new MapEntry(ks[pos], last = pos);
+			}
+		}
+
+		public void remove() {
+			if (last == -1)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (last == keys.length) {
+				containsFreeKey = false;
+				freeValue = 0L;
+			} else if (pos >= 0)
+				shiftKeys(last);
+			else {
+				LongLongHashMap.this.remove(wrapped[-pos - 1]);
+				last = -1;
+				expectedModCount = modCount;
+				return;
+			}
+			--size;
+			++modCount;
+			last = -1;
+			expectedModCount = modCount;
+		}
+
+		private void shiftKeys(int pos) {
+			long[] ks = keys, vs = values;
+			long k;
+			int m = mask;
+			for (int last, slot;;) {
+				pos = ((last = pos) + 1) & m;
+				for (;;) {
+					if ((k = ks[pos]) == FREE_KEY) {
+						ks[last] = FREE_KEY;
+						return;
+					}
+					slot = slot(k, m);
+					if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+						break;
+					pos = (pos + 1) & m;
+				}
+				if (pos < last) {
+					if (wrapped == null)
+						wrapped = new long[2];
+					else if (wrappedCount == wrapped.length)
+						wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+					wrapped[wrappedCount++] = k;
+				}
+				ks[last] = k;
+				vs[last] = vs[pos];
+			}
+		}
+	}
+}
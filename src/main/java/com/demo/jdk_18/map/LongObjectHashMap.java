@@ -0,0 +1,680 @@
+package com.demo.jdk_18.map;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * long到对象的map,使用开放寻址(线性探测),key存放在long数组中不需要装箱.
+ *
+ * <p>
+ * The layout and probing are the same as {@link LongLongHashMap}. Values
+ * may be {@code null}; {@link #get} cannot tell a {@code null} value from an
+ * absent key, use {@link #containsKey} for that.
+ *
+ * <p>
+ * {@link #get}, {@link #put} and {@link #remove} do not allocate once the
+ * table has grown to its working size. {@link #asMap()} offers a boxed
+ * {@link Map} view for interoperability.
+ *
+ * @param <V>
+ *            the type of mapped values
+ */
+public class LongObjectHashMap<V> implements Cloneable, Serializable {
+
+	private static final long serialVersionUID = -2113872450921478093L;
+
+	/**
+	 * 空槽位的标记,key为0时单独存放
+	 */
+	static final long FREE_KEY = 0L;
+
+	transient long[] keys;
+
+	transient Object[] values;
+
+	transient int mask;
+
+	transient boolean containsFreeKey;
+
+	transient V freeValue;
+
+	transient int size;
+
+	transient int modCount;
+
+	transient int threshold;
+
+	/**
+	 * 加载因子,必须小于1
+	 *
+	 * @serial
+	 */
+	final float loadFactor;
+
+	transient Map<Long, V> mapView;
+
+	/**
+	 * Constructs an empty map that holds {@code expectedSize} mappings without
+	 * resizing under the given load factor.
+	 *
+	 * @param expectedSize
+	 *            the expected number of mappings
+	 * @param loadFactor
+	 *            the load factor, in (0, 1)
+	 * @throws IllegalArgumentException
+	 *             if the expected size is negative or the load factor is not
+	 *             in (0, 1)
+	 */
+	public LongObjectHashMap(int expectedSize, float loadFactor) {
+		if (expectedSize < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + expectedSize);
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+		this.loadFactor = loadFactor;
+		allocate(IntIntHashMap.arraySize(expectedSize, loadFactor));
+	}
+
+	public LongObjectHashMap(int expectedSize) {
+		this(expectedSize, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	public LongObjectHashMap() {
+		this(HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR);
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * 查询key对应的value,不存在返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		if (key == FREE_KEY)
+			return freeValue;
+		long[] ks = keys;
+		long k;
+		int m = mask;
+		for (int i = LongLongHashMap.slot(key, m); (k = ks[i]) != FREE_KEY; i = (i + 1) & m) {
+			if (k == key)
+				return (V) values[i];
+		}
+		return null;
+	}
+
+	/**
+	 * 查询key对应的value,不存在返回defaultValue
+	 */
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(long key, V defaultValue) {
+		int i;
+		if ((i = find(key)) < 0)
+			return defaultValue;
+		return (i == keys.length) ? freeValue : (V) values[i];
+	}
+
+	public boolean containsKey(long key) {
+		return find(key) >= 0;
+	}
+
+	public boolean containsValue(Object value) {
+		if (containsFreeKey && Objects.equals(freeValue, value))
+			return true;
+		long[] ks = keys;
+		Object[] vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			if (ks[i] != FREE_KEY && Objects.equals(vs[i], value))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 添加或者更新key=value
+	 *
+	 * @return the previous value associated with {@code key}, or
+	 *         {@code null} if there was none
+	 */
+	public V put(long key, V value) {
+		int i;
+		if ((i = insert(key, value)) < 0)
+			return null;
+		return replaceAt(i, value);
+	}
+
+	/**
+	 * key不存在时才添加
+	 *
+	 * @return the current value associated with {@code key}, or {@code null}
+	 *         if the mapping was added
+	 */
+	@SuppressWarnings("unchecked")
+	public V putIfAbsent(long key, V value) {
+		int i;
+		if ((i = insert(key, value)) < 0)
+			return null;
+		return (i == keys.length) ? freeValue : (V) values[i];
+	}
+
+	/**
+	 * key不存在时,根据mappingFunction计算value并添加(计算结果为null时不添加)
+	 *
+	 * @return the current (existing or computed) value associated with
+	 *         {@code key}
+	 */
+	@SuppressWarnings("unchecked")
+	public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+		if (mappingFunction == null)
+			throw new NullPointerException();
+		int i;
+		if ((i = find(key)) >= 0)
+			return (i == keys.length) ? freeValue : (V) values[i];
+		V v;
+		if ((v = mappingFunction.apply(key)) != null)
+			insert(key, v);
+		return v;
+	}
+
+	/**
+	 * 根据key删除数据
+	 *
+	 * @return the previous value associated with {@code key}, or
+	 *         {@code null} if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		if (key == FREE_KEY) {
+			if (!containsFreeKey)
+				return null;
+			V oldValue = freeValue;
+			containsFreeKey = false;
+			freeValue = null;
+			++modCount;
+			--size;
+			return oldValue;
+		}
+		int i;
+		if ((i = find(key)) < 0)
+			return null;
+		V oldValue = (V) values[i];
+		shiftKeys(i);
+		++modCount;
+		--size;
+		return oldValue;
+	}
+
+	public void clear() {
+		modCount++;
+		if (size > 0) {
+			size = 0;
+			containsFreeKey = false;
+			freeValue = null;
+			Arrays.fill(keys, FREE_KEY);
+			Arrays.fill(values, null);
+		}
+	}
+
+	/**
+	 * Performs the given action for each mapping until all have been
+	 * processed. Keys are not boxed.
+	 *
+	 * @throws ConcurrentModificationException
+	 *             if the action structurally modifies the map
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(LongObjectConsumer<? super V> action) {
+		if (action == null)
+			throw new NullPointerException();
+		int mc = modCount;
+		if (containsFreeKey)
+			action.accept(FREE_KEY, freeValue);
+		long[] ks = keys;
+		Object[] vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			long k;
+			if ((k = ks[i]) != FREE_KEY)
+				action.accept(k, (V) vs[i]);
+		}
+		if (modCount != mc)
+			throw new ConcurrentModificationException();
+	}
+
+	/**
+	 * 返回装箱的Map视图,视图的修改会反映到当前map
+	 */
+	public Map<Long, V> asMap() {
+		Map<Long, V> mv;
+		return (mv = mapView) == null ? (mapView = new MapView()) : mv;
+	}
+
+	/**
+	 * Consumer of a primitive long key and an object value.
+	 */
+	@FunctionalInterface
+	public interface LongObjectConsumer<V> {
+		void accept(long key, V value);
+	}
+
+	/* ---------------- Internal operations -------------- */
+
+	/**
+	 * 查找key所在的槽位,key=0时返回数组长度,不存在返回-1
+	 */
+	final int find(long key) {
+		if (key == FREE_KEY)
+			return containsFreeKey ? keys.length : -1;
+		long[] ks = keys;
+		long k;
+		int m = mask;
+		for (int i = LongLongHashMap.slot(key, m); (k = ks[i]) != FREE_KEY; i = (i + 1) & m) {
+			if (k == key)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * 如果key已经存在,返回所在的槽位(key=0时返回数组长度),否则插入key=value并返回-1
+	 */
+	final int insert(long key, V value) {
+		if (key == FREE_KEY) {
+			if (containsFreeKey)
+				return keys.length;
+			containsFreeKey = true;
+			freeValue = value;
+		} else {
+			long[] ks = keys;
+			long k;
+			int m = mask, i;
+			for (i = LongLongHashMap.slot(key, m); (k = ks[i]) != FREE_KEY; i = (i + 1) & m) {
+				if (k == key)
+					return i;
+			}
+			ks[i] = key;
+			values[i] = value;
+		}
+		++modCount;
+		if (++size > threshold)
+			resize(keys.length << 1);
+		return -1;
+	}
+
+	/**
+	 * 替换槽位i的value,返回旧值
+	 */
+	@SuppressWarnings("unchecked")
+	final V replaceAt(int i, V value) {
+		V oldValue;
+		if (i == keys.length) {
+			oldValue = freeValue;
+			freeValue = value;
+		} else {
+			oldValue = (V) values[i];
+			values[i] = value;
+		}
+		return oldValue;
+	}
+
+	/**
+	 * 删除pos位置的数据之后,把后面同一探测序列上的数据往前移动
+	 */
+	final void shiftKeys(int pos) {
+		long[] ks = keys;
+		Object[] vs = values;
+		long k;
+		int m = mask;
+		for (int last, slot;;) {
+			pos = ((last = pos) + 1) & m;
+			for (;;) {
+				if ((k = ks[pos]) == FREE_KEY) {
+					ks[last] = FREE_KEY;
+					vs[last] = null;
+					return;
+				}
+				slot = LongLongHashMap.slot(k, m);
+				if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+					break;
+				pos = (pos + 1) & m;
+			}
+			ks[last] = k;
+			vs[last] = vs[pos];
+		}
+	}
+
+	private void allocate(int n) {
+		keys = new long[n];
+		values = new Object[n];
+		mask = n - 1;
+		threshold = Math.min((int) Math.ceil(n * loadFactor), n - 1);
+	}
+
+	final void resize(int newCap) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		if (oldKeys.length >= HashMap.MAXIMUM_CAPACITY) {
+			if (size - (containsFreeKey ? 1 : 0) >= oldKeys.length - 1)
+				throw new IllegalStateException("Map is full: " + size);
+			threshold = oldKeys.length - 1;
+			return;
+		}
+		allocate(newCap);
+		long[] ks = keys;
+		Object[] vs = values;
+		int m = mask;
+		for (int j = 0; j < oldKeys.length; ++j) {
+			long k;
+			if ((k = oldKeys[j]) != FREE_KEY) {
+				int i = LongLongHashMap.slot(k, m);
+				while (ks[i] != FREE_KEY)
+					i = (i + 1) & m;
+				ks[i] = k;
+				vs[i] = oldValues[j];
+			}
+		}
+	}
+
+	/* ---------------- Object methods -------------- */
+
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+		if (!(o instanceof LongObjectHashMap))
+			return false;
+		LongObjectHashMap<?> m = (LongObjectHashMap<?>) o;
+		if (m.size != size)
+			return false;
+		if (containsFreeKey && (!m.containsFreeKey || !Objects.equals(m.freeValue, freeValue)))
+			return false;
+		long[] ks = keys;
+		Object[] vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			long k;
+			int j;
+			if ((k = ks[i]) != FREE_KEY && ((j = m.find(k)) < 0 || !Objects.equals(m.values[j], vs[i])))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the same value as {@code asMap().hashCode()}.
+	 */
+	public int hashCode() {
+		int h = containsFreeKey ? (Long.hashCode(FREE_KEY) ^ Objects.hashCode(freeValue)) : 0;
+		long[] ks = keys;
+		Object[] vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			if (ks[i] != FREE_KEY)
+				h += Long.hashCode(ks[i]) ^ Objects.hashCode(vs[i]);
+		}
+		return h;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder().append('{');
+		forEach((k, v) -> {
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append(k).append('=').append(v == this ? "(this Map)" : v);
+		});
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * Returns a shallow copy of this map: the values themselves are not
+	 * cloned.
+	 */
+	@SuppressWarnings("unchecked")
+	public LongObjectHashMap<V> clone() {
+		LongObjectHashMap<V> result;
+		try {
+			result = (LongObjectHashMap<V>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			// this shouldn't happen, since we are Cloneable
+			throw new InternalError(e);
+		}
+		result.keys = keys.clone();
+		result.values = values.clone();
+		result.mapView = null;
+		result.modCount = 0;
+		return result;
+	}
+
+	/**
+	 * Save the state of the map to a stream.
+	 *
+	 * @serialData The <i>size</i> (int) followed by the key (long) and value
+	 *             (Object) of each mapping, in no particular order.
+	 */
+	private void writeObject(java.io.ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		if (containsFreeKey) {
+			s.writeLong(FREE_KEY);
+			s.writeObject(freeValue);
+		}
+		long[] ks = keys;
+		Object[] vs = values;
+		for (int i = 0; i < ks.length; ++i) {
+			if (ks[i] != FREE_KEY) {
+				s.writeLong(ks[i]);
+				s.writeObject(vs[i]);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new java.io.InvalidObjectException("Illegal load factor: " + loadFactor);
+		int mappings = s.readInt();
+		if (mappings < 0)
+			throw new java.io.InvalidObjectException("Illegal mappings count: " + mappings);
+		allocate(IntIntHashMap.arraySize(mappings, loadFactor));
+		for (int i = 0; i < mappings; i++) {
+			long key = s.readLong();
+			put(key, (V) s.readObject());
+		}
+	}
+
+	/* ------------------------------------------------------------ */
+	// Map view
+
+	final class MapView extends AbstractMap<Long, V> {
+		transient Set<Map.Entry<Long, V>> entries;
+
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			LongObjectHashMap.this.clear();
+		}
+
+		public boolean containsKey(Object key) {
+			return (key instanceof Long) && find((Long) key) >= 0;
+		}
+
+		public boolean containsValue(Object value) {
+			return LongObjectHashMap.this.containsValue(value);
+		}
+
+		public V get(Object key) {
+			return (key instanceof Long) ? LongObjectHashMap.this.get((Long) key) : null;
+		}
+
+		public V put(Long key, V value) {
+			return LongObjectHashMap.this.put(key, value);
+		}
+
+		public V remove(Object key) {
+			return (key instanceof Long) ? LongObjectHashMap.this.remove((Long) key) : null;
+		}
+
+		public Set<Map.Entry<Long, V>> entrySet() {
+			Set<Map.Entry<Long, V>> es;
+			return (es = entries) == null ? (entries = new EntrySet()) : es;
+		}
+	}
+
+	final class EntrySet extends AbstractSet<Map.Entry<Long, V>> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			LongObjectHashMap.this.clear();
+		}
+
+		public Iterator<Map.Entry<Long, V>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	final class MapEntry implements Map.Entry<Long, V> {
+		final long key;
+		int index;
+
+		MapEntry(long key, int index) {
+			this.key = key;
+			this.index = index;
+		}
+
+		public Long getKey() {
+			return key;
+		}
+
+		@SuppressWarnings("unchecked")
+		public V getValue() {
+			return (index == keys.length) ? freeValue : (V) values[index];
+		}
+
+		public V setValue(V value) {
+			return replaceAt(index, value);
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+
+		public int hashCode() {
+			return Long.hashCode(key) ^ Objects.hashCode(getValue());
+		}
+
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+
+	/**
+	 * 从数组末尾往前遍历,删除时跨过数组开头的数据记录在wrapped中最后遍历
+	 */
+	final class EntryIterator implements Iterator<Map.Entry<Long, V>> {
+		int pos = keys.length;
+		int last = -1;
+		int remaining = size;
+		boolean mustReturnFreeKey = containsFreeKey;
+		long[] wrapped;
+		int wrappedCount;
+		int expectedModCount = modCount;
+
+		public boolean hasNext() {
+			return remaining != 0;
+		}
+
+		public Map.Entry<Long, V> next() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (remaining == 0)
+				throw new NoSuchElementException();
+			--remaining;
+			long[] ks = keys;
+			if (mustReturnFreeKey) {
+				mustReturnFreeKey = false;
+				return new MapEntry(FREE_KEY, last = ks.length);
+			}
+			for (;;) {
+				if (--pos < 0) {
+					last = Integer.MIN_VALUE;
+					long k = wrapped[-pos - 1];
+					return new MapEntry(k, find(k));
+				}
+				if (ks[pos] != FREE_KEY)
+					return new MapEntry(ks[pos], last = pos);
+			}
+		}
+
+		public void remove() {
+			if (last == -1)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (last == keys.length) {
+				containsFreeKey = false;
+				freeValue = null;
+			} else if (pos >= 0)
+				shiftKeys(last);
+			else {
+				LongObjectHashMap.this.remove(wrapped[-pos - 1]);
+				last = -1;
+				expectedModCount = modCount;
+				return;
+			}
+			--size;
+			++modCount;
+			last = -1;
+			expectedModCount = modCount;
+		}
+
+		private void shiftKeys(int pos) {
+			long[] ks = keys;
+			Object[] vs = values;
+			long k;
+			int m = mask;
+			for (int last, slot;;) {
+				pos = ((last = pos) + 1) & m;
+				for (;;) {
+					if ((k = ks[pos]) == FREE_KEY) {
+						ks[last] = FREE_KEY;
+						vs[last] = null;
+						return;
+					}
+					slot = LongLongHashMap.slot(k, m);
+					if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+						break;
+					pos = (pos + 1) & m;
+				}
+				if (pos < last) {
+					if (wrapped == null)
+						wrapped = new long[2];
+					else if (wrappedCount == wrapped.length)
+						wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+					wrapped[wrappedCount++] = k;
+				}
+				ks[last] = k;
+				vs[last] = vs[pos];
+			}
+		}
+	}
+}
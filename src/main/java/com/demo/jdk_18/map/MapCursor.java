@@ -0,0 +1,179 @@
+package com.demo.jdk_18.map;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 可以重复使用的HashMap遍历游标,遍历时不创建任何对象.
+ *
+ * <p>
+ * A cursor walks the table and bin chains of a {@link HashMap} directly, or
+ * the insertion/access order of a {@link LinkedHashMap}, without the
+ * iterator and entry allocations of {@code entrySet().iterator()}, and,
+ * unlike {@link HashMap#forEach}, the loop can stop at any point:
+ *
+ * <pre>
+ * MapCursor&lt;K, V&gt; c = map.cursor();
+ * while (c.advance()) {
+ * 	if (c.key() ...)
+ * 		break;
+ * }
+ * c.reset(); // re-armed for the next pass, no new allocation
+ * </pre>
+ *
+ * A cursor is fail-fast like the iterators of the map: if the map is
+ * structurally modified other than through {@link #remove()} after the
+ * cursor was armed, {@link #advance()} throws
+ * {@link ConcurrentModificationException}. A cursor is not thread-safe.
+ *
+ * @param <K>
+ *            the type of keys maintained by the map
+ * @param <V>
+ *            the type of mapped values
+ */
+public final class MapCursor<K, V> {
+
+	HashMap<K, V> map;
+
+	HashMap.Node<K, V> next; // next entry to return
+
+	HashMap.Node<K, V> current; // current entry
+
+	int expectedModCount; // for fast-fail
+
+	int index; // current slot
+
+	boolean linked; // follow the before/after list of a LinkedHashMap
+
+	MapCursor(HashMap<K, V> map) {
+		reset(map);
+	}
+
+	/**
+	 * Re-arms this cursor at the start of its map.
+	 *
+	 * @return this cursor
+	 */
+	public MapCursor<K, V> reset() {
+		return reset(map);
+	}
+
+	/**
+	 * Re-arms this cursor at the start of {@code map}.
+	 *
+	 * @return this cursor
+	 */
+	public MapCursor<K, V> reset(HashMap<K, V> map) {
+		if (map == null)
+			throw new NullPointerException();
+		this.map = map;
+		expectedModCount = map.modCount;
+		current = next = null;
+		index = 0;
+		if (linked = map instanceof LinkedHashMap)
+			next = ((LinkedHashMap<K, V>) map).head;
+		else {
+			HashMap.Node<K, V>[] t = map.table;
+			if (t != null && map.size > 0) { // advance to first entry
+				do {
+				} while (index < t.length && (next = map.binFirst(t, index++)) == null);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Moves to the next mapping.
+	 *
+	 * @return <tt>false</tt> if there are no more mappings
+	 * @throws ConcurrentModificationException
+	 *             if the map was structurally modified since the cursor was
+	 *             armed
+	 */
+	public boolean advance() {
+		HashMap<K, V> m = map;
+		HashMap.Node<K, V>[] t;
+		HashMap.Node<K, V> e = next;
+		if (m.modCount != expectedModCount)
+			throw new ConcurrentModificationException();
+		if ((current = e) == null)
+			return false;
+		if (linked)
+			next = ((LinkedHashMap.Entry<K, V>) e).after;
+		else if ((next = m.binNext(t = m.table, index - 1, e)) == null && t != null) {
+			do {
+			} while (index < t.length && (next = m.binFirst(t, index++)) == null);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the key of the current mapping.
+	 *
+	 * @throws NoSuchElementException
+	 *             if there is no current mapping
+	 */
+	public K key() {
+		return node().key;
+	}
+
+	/**
+	 * Returns the value of the current mapping.
+	 *
+	 * @throws NoSuchElementException
+	 *             if there is no current mapping
+	 */
+	public V value() {
+		return node().value;
+	}
+
+	/**
+	 * Replaces the value of the current mapping, which is not a structural
+	 * modification.
+	 *
+	 * @return the previous value
+	 * @throws NoSuchElementException
+	 *             if there is no current mapping
+	 */
+	public V setValue(V value) {
+		HashMap.Node<K, V> e = node();
+		V oldValue = e.value;
+		e.value = value;
+		map.afterValueReplaced(e);
+		return oldValue;
+	}
+
+	/**
+	 * Removes the current mapping from the map. The cursor stays valid and
+	 * {@link #advance()} moves on to the mapping after the removed one.
+	 *
+	 * @throws IllegalStateException
+	 *             if there is no current mapping
+	 * @throws ConcurrentModificationException
+	 *             if the map was structurally modified since the cursor was
+	 *             armed
+	 */
+	public void remove() {
+		HashMap.Node<K, V> p = current;
+		if (p == null)
+			throw new IllegalStateException();
+		HashMap<K, V> m = map;
+		if (m.modCount != expectedModCount)
+			throw new ConcurrentModificationException();
+		current = null;
+		K key = p.key;
+		m.removeNode(m.hashOf(key), key, null, false, false);
+		expectedModCount = m.modCount;
+		// 从红黑树中删除可能把树还原成链表,节点都被替换了
+		HashMap.Node<K, V> q;
+		if (p instanceof HashMap.TreeNode && (q = next) instanceof HashMap.TreeNode)
+			next = m.findNode(q.hash, q.key);
+	}
+
+	private HashMap.Node<K, V> node() {
+		HashMap.Node<K, V> e;
+		if ((e = current) == null)
+			throw new NoSuchElementException();
+		return e;
+	}
+}
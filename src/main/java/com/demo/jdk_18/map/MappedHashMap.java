@@ -0,0 +1,639 @@
+package com.demo.jdk_18.map;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 数据保存在内存映射文件中的HashMap,key和value通过Serializer转换成字节,不占用堆内存,重启后可以直接打开文件继续使用.
+ *
+ * <p>
+ * The file holds a header, a power-of-two table of record offsets and the
+ * records themselves, each laid out as
+ * {@code [next(8) | hash(4) | keyLength(4) | valueLength(4) | key | value]}
+ * and chained per bin like {@link HashMap} nodes. The bin of a key is
+ * {@code HashMap.spread(h) & (capacity - 1)}, where {@code h} is computed
+ * from the serialized key bytes, so that it is stable across restarts
+ * whatever the key's {@code hashCode()}. Keys are compared by their bytes,
+ * which requires a canonical key serializer.
+ *
+ * <p>
+ * The file is mapped in chunks of up to 1 GB; a record must fit in one
+ * chunk. Reopening a file restores the map without reading the entries.
+ * Space of removed or replaced records and of tables abandoned by a resize
+ * is not reused. Writes reach the file when the operating system flushes
+ * the mapping, or on {@link #flush()} and {@link #close()}; a crash during
+ * a resize can leave the file inconsistent.
+ *
+ * <p>
+ * Null keys and values are not supported. This class is not thread-safe.
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+public class MappedHashMap<K, V> extends AbstractMap<K, V> implements Closeable {
+
+	/* ---------------- File layout -------------- */
+
+	static final long MAGIC = 0x4d486173684d6170L; // "MHashMap"
+
+	static final int VERSION = 1;
+
+	// 文件头中各个字段的偏移
+	static final int H_MAGIC = 0;
+	static final int H_VERSION = 8;
+	static final int H_CAPACITY = 12;
+	static final int H_TABLE = 16;
+	static final int H_SIZE = 24;
+	static final int H_DATA_END = 32;
+	static final int H_LOAD_FACTOR = 40;
+	static final int HEADER_SIZE = 64;
+
+	// 记录中各个字段的偏移
+	static final int R_NEXT = 0;
+	static final int R_HASH = 8;
+	static final int R_KEY_LENGTH = 12;
+	static final int R_VALUE_LENGTH = 16;
+	static final int R_DATA = 20;
+
+	static final int CHUNK_SHIFT = 30;
+
+	static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+
+	static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/**
+	 * 最小的映射大小,文件按2倍增长直到CHUNK_SIZE
+	 */
+	static final long MIN_MAPPED_SIZE = 1L << 16;
+
+	/* ---------------- Fields -------------- */
+
+	final Serializer<K> keySerializer;
+
+	final Serializer<V> valueSerializer;
+
+	final float loadFactor;
+
+	RandomAccessFile file;
+
+	FileChannel channel;
+
+	/**
+	 * 映射的文件块,除了最后一块其余都是CHUNK_SIZE大小
+	 */
+	MappedByteBuffer[] chunks;
+
+	long mappedSize;
+
+	long tableOffset;
+
+	int capacity;
+
+	int threshold;
+
+	int size;
+
+	long dataEnd;
+
+	transient int modCount;
+
+	/**
+	 * 序列化key用的缓冲区
+	 */
+	ByteBuffer scratch = ByteBuffer.allocate(256);
+
+	transient Set<Map.Entry<K, V>> entrySet;
+
+	/* ---------------- Constructors -------------- */
+
+	/**
+	 * Opens the map stored in {@code file}, or creates an empty one with the
+	 * default capacity (16) and load factor (0.75) if the file is empty or
+	 * does not exist.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be mapped or is not a map file
+	 */
+	public MappedHashMap(File file, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		this(file, HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR, keySerializer, valueSerializer);
+	}
+
+	/**
+	 * Opens the map stored in {@code file}, or creates an empty one with the
+	 * given initial capacity and load factor if the file is empty or does not
+	 * exist. The capacity and load factor of an existing file are kept.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be mapped or is not a map file
+	 * @throws IllegalArgumentException
+	 *             if the initial capacity is negative or the load factor is
+	 *             nonpositive
+	 */
+	public MappedHashMap(File file, int initialCapacity, float loadFactor, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) throws IOException {
+		if (initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		if (loadFactor <= 0 || Float.isNaN(loadFactor))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+		if (keySerializer == null || valueSerializer == null)
+			throw new NullPointerException();
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.file = new RandomAccessFile(file, "rw");
+		this.channel = this.file.getChannel();
+		this.chunks = new MappedByteBuffer[0];
+		try {
+			long length = channel.size();
+			if (length == 0) {
+				this.loadFactor = loadFactor;
+				ensureMapped(HEADER_SIZE);
+				ByteBuffer h = chunks[0];
+				h.putLong(H_MAGIC, MAGIC);
+				h.putInt(H_VERSION, VERSION);
+				h.putFloat(H_LOAD_FACTOR, loadFactor);
+				dataEnd = HEADER_SIZE;
+				initTable(Math.max(HashMap.tableSizeFor(initialCapacity), 1));
+				h.putLong(H_SIZE, 0L);
+			} else {
+				if (length < HEADER_SIZE)
+					throw new IOException("Not a MappedHashMap file: " + file);
+				ensureMapped(HEADER_SIZE);
+				ByteBuffer h = chunks[0];
+				if (h.getLong(H_MAGIC) != MAGIC)
+					throw new IOException("Not a MappedHashMap file: " + file);
+				if (h.getInt(H_VERSION) != VERSION)
+					throw new IOException("Unsupported MappedHashMap version: " + h.getInt(H_VERSION));
+				this.loadFactor = h.getFloat(H_LOAD_FACTOR);
+				dataEnd = h.getLong(H_DATA_END);
+				ensureMapped(dataEnd);
+				h = chunks[0];
+				capacity = h.getInt(H_CAPACITY);
+				tableOffset = h.getLong(H_TABLE);
+				size = (int) h.getLong(H_SIZE);
+				threshold = threshold(capacity);
+			}
+		} catch (IOException | RuntimeException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public V get(Object key) {
+		long r;
+		return (r = findRecord(key)) == 0L ? null : readValue(r);
+	}
+
+	public boolean containsKey(Object key) {
+		return findRecord(key) != 0L;
+	}
+
+	/**
+	 * Associates the value with the key. If the serialized value has the
+	 * same length as the current one it is overwritten in place, otherwise
+	 * a new record replaces the old one in its bin.
+	 *
+	 * @return the previous value associated with the key, or {@code null}
+	 *         if there was none
+	 * @throws UncheckedIOException
+	 *             if the file cannot be grown
+	 */
+	public V put(K key, V value) {
+		if (key == null || value == null)
+			throw new NullPointerException();
+		ByteBuffer kb = serializeKey(key);
+		int hash = hashOf(kb);
+		int klen = kb.remaining();
+		int vlen = valueSerializer.sizeOf(value);
+		long bin = binOffset(hash);
+		for (long prev = 0L, r = getLong(bin); r != 0L; prev = r, r = getLong(r + R_NEXT)) {
+			if (getInt(r + R_HASH) == hash && keyEquals(r, kb)) {
+				V oldValue = readValue(r);
+				if (getInt(r + R_VALUE_LENGTH) == vlen)
+					writeValue(r + R_DATA + klen, value, vlen);
+				else {
+					long n = writeRecord(hash, kb, value, vlen, getLong(r + R_NEXT));
+					// 写入新记录时可能重新映射了文件,bin和prev的偏移不变
+					putLong(prev == 0L ? bin : prev + R_NEXT, n);
+				}
+				return oldValue;
+			}
+		}
+		long n = writeRecord(hash, kb, value, vlen, getLong(bin));
+		putLong(bin, n);
+		++modCount;
+		setSize(size + 1);
+		if (size > threshold)
+			resize();
+		return null;
+	}
+
+	public V remove(Object key) {
+		ByteBuffer kb;
+		if ((kb = serializeLookupKey(key)) == null)
+			return null;
+		int hash = hashOf(kb);
+		long bin = binOffset(hash);
+		for (long prev = 0L, r = getLong(bin); r != 0L; prev = r, r = getLong(r + R_NEXT)) {
+			if (getInt(r + R_HASH) == hash && keyEquals(r, kb)) {
+				V oldValue = readValue(r);
+				putLong(prev == 0L ? bin : prev + R_NEXT, getLong(r + R_NEXT));
+				++modCount;
+				setSize(size - 1);
+				return oldValue;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes all of the mappings. The space in the file is reused from the
+	 * start, but the file is not shrunk.
+	 */
+	public void clear() {
+		++modCount;
+		dataEnd = HEADER_SIZE;
+		initTable(capacity);
+		setSize(0);
+	}
+
+	/**
+	 * Forces any changes made to the mapped file to the storage device.
+	 */
+	public void flush() {
+		for (MappedByteBuffer c : chunks)
+			c.force();
+	}
+
+	/**
+	 * Flushes and closes the file. The map must not be used afterwards.
+	 */
+	public void close() throws IOException {
+		if (channel != null) {
+			flush();
+			chunks = null;
+			channel = null;
+			file.close();
+		}
+	}
+
+	public Set<Map.Entry<K, V>> entrySet() {
+		Set<Map.Entry<K, V>> es;
+		return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+	}
+
+	/* ---------------- Records -------------- */
+
+	/**
+	 * 根据key查找记录的偏移,不存在返回0
+	 */
+	final long findRecord(Object key) {
+		ByteBuffer kb;
+		if ((kb = serializeLookupKey(key)) == null)
+			return 0L;
+		int hash = hashOf(kb);
+		for (long r = getLong(binOffset(hash)); r != 0L; r = getLong(r + R_NEXT)) {
+			if (getInt(r + R_HASH) == hash && keyEquals(r, kb))
+				return r;
+		}
+		return 0L;
+	}
+
+	/**
+	 * 写入一条新记录,返回记录的偏移
+	 */
+	final long writeRecord(int hash, ByteBuffer kb, V value, int vlen, long next) {
+		int klen = kb.remaining();
+		long r = allocate((long) R_DATA + klen + vlen);
+		ByteBuffer c = chunk(r);
+		int p = pos(r);
+		c.putLong(p + R_NEXT, next);
+		c.putInt(p + R_HASH, hash);
+		c.putInt(p + R_KEY_LENGTH, klen);
+		c.putInt(p + R_VALUE_LENGTH, vlen);
+		c.position(p + R_DATA);
+		c.put(kb.duplicate());
+		writeValue(r + R_DATA + klen, value, vlen);
+		return r;
+	}
+
+	final void writeValue(long off, V value, int vlen) {
+		ByteBuffer c = chunk(off);
+		int p = pos(off);
+		c.position(p);
+		valueSerializer.write(c, value);
+		if (c.position() - p != vlen)
+			throw new IllegalStateException("Serializer wrote " + (c.position() - p) + " bytes, sizeOf was " + vlen);
+	}
+
+	final K readKey(long r) {
+		ByteBuffer c = chunk(r);
+		int p = pos(r);
+		c.position(p + R_DATA);
+		return keySerializer.read(c, c.getInt(p + R_KEY_LENGTH));
+	}
+
+	final V readValue(long r) {
+		ByteBuffer c = chunk(r);
+		int p = pos(r);
+		c.position(p + R_DATA + c.getInt(p + R_KEY_LENGTH));
+		return valueSerializer.read(c, c.getInt(p + R_VALUE_LENGTH));
+	}
+
+	/**
+	 * 按字节比较记录中的key和序列化后的key
+	 */
+	final boolean keyEquals(long r, ByteBuffer kb) {
+		ByteBuffer c = chunk(r);
+		int p = pos(r), n = kb.remaining();
+		if (c.getInt(p + R_KEY_LENGTH) != n)
+			return false;
+		int i = 0, base = p + R_DATA, kp = kb.position();
+		for (; i + 8 <= n; i += 8) {
+			if (c.getLong(base + i) != kb.getLong(kp + i))
+				return false;
+		}
+		for (; i < n; i++) {
+			if (c.get(base + i) != kb.get(kp + i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 序列化key到scratch缓冲区
+	 */
+	final ByteBuffer serializeKey(K key) {
+		int n = keySerializer.sizeOf(key);
+		ByteBuffer b = scratch;
+		if (b.capacity() < n)
+			scratch = b = ByteBuffer.allocate(Math.max(n, b.capacity() << 1));
+		b.clear();
+		keySerializer.write(b, key);
+		if (b.position() != n)
+			throw new IllegalStateException("Serializer wrote " + b.position() + " bytes, sizeOf was " + n);
+		b.flip();
+		return b;
+	}
+
+	/**
+	 * 查找时使用,key为null或者类型不对时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	final ByteBuffer serializeLookupKey(Object key) {
+		if (key == null)
+			return null;
+		try {
+			return serializeKey((K) key);
+		} catch (ClassCastException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 根据key的字节计算hash(和Arrays.hashCode一样),再用HashMap.spread让高位参与下标计算
+	 */
+	static int hashOf(ByteBuffer kb) {
+		int h = 1;
+		for (int i = kb.position(), end = kb.limit(); i < end; i++)
+			h = 31 * h + kb.get(i);
+		return HashMap.spread(h);
+	}
+
+	/* ---------------- Table -------------- */
+
+	final long binOffset(int hash) {
+		return tableOffset + ((long) (hash & (capacity - 1)) << 3);
+	}
+
+	final int threshold(int cap) {
+		float ft = (float) cap * loadFactor;
+		return (cap < HashMap.MAXIMUM_CAPACITY && ft < (float) HashMap.MAXIMUM_CAPACITY ? (int) ft
+				: Integer.MAX_VALUE);
+	}
+
+	/**
+	 * 在文件末尾分配一个新的空数组
+	 */
+	final long allocateTable(int cap) {
+		long off = (dataEnd + 7) & ~7L;
+		long end = off + ((long) cap << 3);
+		ensureMapped(end);
+		for (long p = off; p < end; p += 8)
+			putLong(p, 0L);
+		setDataEnd(end);
+		return off;
+	}
+
+	final void initTable(int cap) {
+		tableOffset = allocateTable(cap);
+		capacity = cap;
+		threshold = threshold(cap);
+		ByteBuffer h = chunks[0];
+		h.putLong(H_TABLE, tableOffset);
+		h.putInt(H_CAPACITY, cap);
+	}
+
+	/**
+	 * 扩容为原来的2倍,使用记录中保存的hash重新链接,记录本身不移动
+	 */
+	final void resize() {
+		int oldCap = capacity;
+		if (oldCap >= HashMap.MAXIMUM_CAPACITY) {
+			threshold = Integer.MAX_VALUE;
+			return;
+		}
+		long oldTable = tableOffset;
+		int newCap = oldCap << 1;
+		long newTable = allocateTable(newCap);
+		for (int j = 0; j < oldCap; ++j) {
+			long r = getLong(oldTable + ((long) j << 3)), next;
+			for (; r != 0L; r = next) {
+				next = getLong(r + R_NEXT);
+				long bin = newTable + ((long) (getInt(r + R_HASH) & (newCap - 1)) << 3);
+				putLong(r + R_NEXT, getLong(bin));
+				putLong(bin, r);
+			}
+		}
+		tableOffset = newTable;
+		capacity = newCap;
+		threshold = threshold(newCap);
+		ByteBuffer h = chunks[0];
+		h.putLong(H_TABLE, newTable);
+		h.putInt(H_CAPACITY, newCap);
+	}
+
+	/* ---------------- Mapping -------------- */
+
+	/**
+	 * 分配len字节,记录不能跨越文件块
+	 */
+	final long allocate(long len) {
+		if (len > CHUNK_SIZE)
+			throw new IllegalArgumentException("Record too large: " + len + " bytes");
+		long off = (dataEnd + 7) & ~7L;
+		if ((off & CHUNK_MASK) + len > CHUNK_SIZE)
+			off = (off + CHUNK_MASK) & ~CHUNK_MASK;
+		ensureMapped(off + len);
+		setDataEnd(off + len);
+		return off;
+	}
+
+	/**
+	 * 保证[0, end)已经映射,文件按2倍增长,超过CHUNK_SIZE后按块增长
+	 */
+	final void ensureMapped(long end) {
+		if (end <= mappedSize)
+			return;
+		long newSize = Math.max(MIN_MAPPED_SIZE, mappedSize);
+		while (newSize < end && newSize < CHUNK_SIZE)
+			newSize <<= 1;
+		if (newSize < end)
+			newSize = (end + CHUNK_MASK) & ~CHUNK_MASK;
+		int n = (int) ((newSize + CHUNK_MASK) >>> CHUNK_SHIFT);
+		MappedByteBuffer[] cs = java.util.Arrays.copyOf(chunks, n);
+		try {
+			for (int i = 0; i < n; i++) {
+				long start = (long) i << CHUNK_SHIFT;
+				long chunkSize = Math.min(CHUNK_SIZE, newSize - start);
+				if (cs[i] == null || cs[i].capacity() != chunkSize)
+					cs[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, chunkSize);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		chunks = cs;
+		mappedSize = newSize;
+	}
+
+	final ByteBuffer chunk(long off) {
+		return chunks[(int) (off >>> CHUNK_SHIFT)];
+	}
+
+	static int pos(long off) {
+		return (int) (off & CHUNK_MASK);
+	}
+
+	final long getLong(long off) {
+		return chunk(off).getLong(pos(off));
+	}
+
+	final void putLong(long off, long v) {
+		chunk(off).putLong(pos(off), v);
+	}
+
+	final int getInt(long off) {
+		return chunk(off).getInt(pos(off));
+	}
+
+	final void setSize(int s) {
+		size = s;
+		chunks[0].putLong(H_SIZE, s);
+	}
+
+	final void setDataEnd(long end) {
+		dataEnd = end;
+		chunks[0].putLong(H_DATA_END, end);
+	}
+
+	/* ---------------- Views -------------- */
+
+	final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		public int size() {
+			return size;
+		}
+
+		public void clear() {
+			MappedHashMap.this.clear();
+		}
+
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			long r;
+			return (r = findRecord(e.getKey())) != 0L && readValue(r).equals(e.getValue());
+		}
+
+		public boolean remove(Object o) {
+			if (contains(o)) {
+				MappedHashMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * 按桶的顺序遍历,每次返回新的只读Entry
+	 */
+	final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+		long next; // next record
+		int index; // next bin
+		K lastKey;
+		int expectedModCount = modCount;
+
+		EntryIterator() {
+			advance();
+		}
+
+		private void advance() {
+			while (next == 0L && index < capacity)
+				next = getLong(tableOffset + ((long) index++ << 3));
+		}
+
+		public boolean hasNext() {
+			return next != 0L;
+		}
+
+		public Map.Entry<K, V> next() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			long r;
+			if ((r = next) == 0L)
+				throw new NoSuchElementException();
+			next = getLong(r + R_NEXT);
+			advance();
+			K k = lastKey = readKey(r);
+			return new AbstractMap.SimpleImmutableEntry<>(k, readValue(r));
+		}
+
+		public void remove() {
+			if (lastKey == null)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			MappedHashMap.this.remove(lastKey);
+			lastKey = null;
+			expectedModCount = modCount;
+		}
+	}
+}
@@ -0,0 +1,767 @@
+package com.demo.jdk_18.map;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 不可变的hash map(hash array mapped trie),修改返回新的map,和原来的map共享没有修改的部分.
+ *
+ * <p>
+ * Keys are hashed with {@code HashMap.hash(key)} and compared with
+ * {@code equals}, exactly as in {@link HashMap}. The trie consumes five
+ * bits of the hash per level, so {@link #plus} and {@link #minus} copy at
+ * most seven small nodes and take O(log<sub>32</sub> n) time; keys with
+ * identical hashes share a collision node. Since maps are never modified, a
+ * snapshot is just a reference: hand out the current map and keep
+ * updating from it.
+ *
+ * <p>
+ * For bulk construction, {@link #toBuilder()} (or {@link #builder()})
+ * returns a transient {@link Builder} that updates the nodes it created in
+ * place instead of copying them, and turns into a persistent map again in
+ * O(1) with {@link Builder#build()}. The {@link Map} mutators throw
+ * {@link UnsupportedOperationException}.
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Serializable {
+
+	private static final long serialVersionUID = -1727893610429370591L;
+
+	/**
+	 * 每层使用的hash位数
+	 */
+	static final int BITS = 5;
+
+	static final int MASK = (1 << BITS) - 1;
+
+	/**
+	 * 查询不到时的返回值,和value是null区分开
+	 */
+	static final Object NOT_FOUND = new Object();
+
+	static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(0, null, false, null);
+
+	final int size;
+
+	/**
+	 * 根节点,空map为null
+	 */
+	final TrieNode root;
+
+	/**
+	 * null key单独保存在map上,节点中key为null表示子节点
+	 */
+	final boolean hasNull;
+
+	final V nullValue;
+
+	transient Set<Map.Entry<K, V>> entrySetView;
+
+	PersistentHashMap(int size, TrieNode root, boolean hasNull, V nullValue) {
+		this.size = size;
+		this.root = root;
+		this.hasNull = hasNull;
+		this.nullValue = nullValue;
+	}
+
+	/**
+	 * Returns the empty map.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> PersistentHashMap<K, V> empty() {
+		return (PersistentHashMap<K, V>) EMPTY;
+	}
+
+	/**
+	 * Returns a persistent map with the mappings of {@code m}. The hashes
+	 * stored in a {@link HashMap} are reused.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> m) {
+		if (m instanceof PersistentHashMap)
+			return (PersistentHashMap<K, V>) m;
+		Builder<K, V> b = builder();
+		if (m instanceof HashMap && ((HashMap<?, ?>) m).hashSeed == null) {
+			putBins(b, (HashMap<? extends K, ? extends V>) m);
+		} else {
+			for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+				b.put(e.getKey(), e.getValue());
+		}
+		return b.build();
+	}
+
+	/**
+	 * 按桶的顺序把hm的节点加入b,节点中的hash直接复用
+	 */
+	private static <K, V, MK extends K, MV extends V> void putBins(Builder<K, V> b, HashMap<MK, MV> hm) {
+		HashMap.Node<MK, MV>[] tab;
+		if ((tab = hm.table) != null) {
+			for (int i = 0; i < tab.length; ++i) {
+				for (HashMap.Node<MK, MV> e = hm.binFirst(tab, i); e != null; e = hm.binNext(tab, i, e))
+					b.put(e.hash, e.key, e.value);
+			}
+		}
+	}
+
+	/**
+	 * Returns an empty transient builder.
+	 */
+	public static <K, V> Builder<K, V> builder() {
+		return new Builder<>(PersistentHashMap.<K, V> empty());
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		Object v;
+		return (v = find(key)) == NOT_FOUND ? null : (V) v;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(Object key, V defaultValue) {
+		Object v;
+		return (v = find(key)) == NOT_FOUND ? defaultValue : (V) v;
+	}
+
+	public boolean containsKey(Object key) {
+		return find(key) != NOT_FOUND;
+	}
+
+	/**
+	 * Returns a map that also maps {@code key} to {@code value}, or this map
+	 * if it already does.
+	 */
+	public PersistentHashMap<K, V> plus(K key, V value) {
+		if (key == null) {
+			if (hasNull && value == nullValue)
+				return this;
+			return new PersistentHashMap<>(hasNull ? size : size + 1, root, true, value);
+		}
+		Change c = new Change();
+		TrieNode r = (root == null ? BitmapNode.EMPTY : root).put(null, 0, HashMap.hash(key), key, value, c);
+		if (r == root)
+			return this;
+		return new PersistentHashMap<>(c.added ? size + 1 : size, r, hasNull, nullValue);
+	}
+
+	/**
+	 * Returns a map that also contains all mappings of {@code m}, replacing
+	 * existing values for the same keys.
+	 */
+	public PersistentHashMap<K, V> plusAll(Map<? extends K, ? extends V> m) {
+		if (m.isEmpty())
+			return this;
+		if (isEmpty())
+			return copyOf(m);
+		Builder<K, V> b = toBuilder();
+		for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+			b.put(e.getKey(), e.getValue());
+		return b.build();
+	}
+
+	/**
+	 * Returns a map without the mapping for {@code key}, or this map if there
+	 * is none.
+	 */
+	public PersistentHashMap<K, V> minus(Object key) {
+		if (key == null)
+			return hasNull ? new PersistentHashMap<>(size - 1, root, false, null) : this;
+		if (root == null)
+			return this;
+		Change c = new Change();
+		TrieNode r = root.remove(null, 0, HashMap.hash(key), key, c);
+		if (!c.removed)
+			return this;
+		return new PersistentHashMap<>(size - 1, r, hasNull, nullValue);
+	}
+
+	/**
+	 * Returns a transient builder starting from this map, in O(1). The map
+	 * itself is not affected by the builder.
+	 */
+	public Builder<K, V> toBuilder() {
+		return new Builder<>(this);
+	}
+
+	public Set<Map.Entry<K, V>> entrySet() {
+		Set<Map.Entry<K, V>> es;
+		return (es = entrySetView) == null ? (entrySetView = new EntrySet()) : es;
+	}
+
+	final Object find(Object key) {
+		if (key == null)
+			return hasNull ? nullValue : NOT_FOUND;
+		return (root == null) ? NOT_FOUND : root.find(0, HashMap.hash(key), key);
+	}
+
+	/* ---------------- Unsupported mutators -------------- */
+
+	static UnsupportedOperationException uoe() {
+		return new UnsupportedOperationException("PersistentHashMap is immutable, use plus/minus");
+	}
+
+	public V put(K key, V value) {
+		throw uoe();
+	}
+
+	public V remove(Object key) {
+		throw uoe();
+	}
+
+	public void putAll(Map<? extends K, ? extends V> m) {
+		throw uoe();
+	}
+
+	public void clear() {
+		throw uoe();
+	}
+
+	public V putIfAbsent(K key, V value) {
+		throw uoe();
+	}
+
+	public boolean remove(Object key, Object value) {
+		throw uoe();
+	}
+
+	public boolean replace(K key, V oldValue, V newValue) {
+		throw uoe();
+	}
+
+	public V replace(K key, V value) {
+		throw uoe();
+	}
+
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		throw uoe();
+	}
+
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		throw uoe();
+	}
+
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		throw uoe();
+	}
+
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		throw uoe();
+	}
+
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		throw uoe();
+	}
+
+	/* ---------------- Builder -------------- */
+
+	/**
+	 * A mutable view of a persistent map under construction. Nodes created by
+	 * the builder carry its edit token and are updated in place; nodes shared
+	 * with persistent maps are copied on first write, as in
+	 * {@link PersistentHashMap#plus}. A builder is not thread-safe and cannot
+	 * be used after {@link #build()}.
+	 */
+	public static final class Builder<K, V> {
+		/**
+		 * 修改标记,节点的edit和它相同时可以直接修改,build之后置为null
+		 */
+		Object edit = new Object();
+
+		TrieNode root;
+
+		int size;
+
+		boolean hasNull;
+
+		V nullValue;
+
+		final Change change = new Change();
+
+		Builder(PersistentHashMap<K, V> m) {
+			root = m.root;
+			size = m.size;
+			hasNull = m.hasNull;
+			nullValue = m.nullValue;
+		}
+
+		public int size() {
+			ensureEditable();
+			return size;
+		}
+
+		@SuppressWarnings("unchecked")
+		public V get(Object key) {
+			ensureEditable();
+			if (key == null)
+				return hasNull ? nullValue : null;
+			Object v;
+			return (root == null || (v = root.find(0, HashMap.hash(key), key)) == NOT_FOUND) ? null : (V) v;
+		}
+
+		public Builder<K, V> put(K key, V value) {
+			if (key == null) {
+				ensureEditable();
+				if (!hasNull)
+					++size;
+				hasNull = true;
+				nullValue = value;
+				return this;
+			}
+			return put(HashMap.hash(key), key, value);
+		}
+
+		/**
+		 * 使用已经计算好的hash添加
+		 */
+		Builder<K, V> put(int hash, K key, V value) {
+			if (key == null)
+				return put(key, value);
+			ensureEditable();
+			Change c = change;
+			c.added = false;
+			root = (root == null ? BitmapNode.EMPTY : root).put(edit, 0, hash, key, value, c);
+			if (c.added)
+				++size;
+			return this;
+		}
+
+		public Builder<K, V> putAll(Map<? extends K, ? extends V> m) {
+			for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+				put(e.getKey(), e.getValue());
+			return this;
+		}
+
+		public Builder<K, V> remove(Object key) {
+			ensureEditable();
+			if (key == null) {
+				if (hasNull)
+					--size;
+				hasNull = false;
+				nullValue = null;
+			} else if (root != null) {
+				Change c = change;
+				c.removed = false;
+				root = root.remove(edit, 0, HashMap.hash(key), key, c);
+				if (c.removed)
+					--size;
+			}
+			return this;
+		}
+
+		/**
+		 * Returns the persistent map built so far. The builder cannot be used
+		 * afterwards.
+		 */
+		public PersistentHashMap<K, V> build() {
+			ensureEditable();
+			edit = null;
+			return size == 0 ? PersistentHashMap.<K, V> empty() : new PersistentHashMap<>(size, root, hasNull, nullValue);
+		}
+
+		private void ensureEditable() {
+			if (edit == null)
+				throw new IllegalStateException("Builder used after build()");
+		}
+	}
+
+	/* ---------------- Trie nodes -------------- */
+
+	/**
+	 * 一次修改的结果: 是否新增了key,是否删除了key
+	 */
+	static final class Change {
+		boolean added;
+		boolean removed;
+	}
+
+	static boolean eq(Object a, Object b) {
+		return a == b || a.equals(b);
+	}
+
+	abstract static class TrieNode {
+		/**
+		 * 创建这个节点的builder的修改标记,持久的节点为null
+		 */
+		final Object edit;
+
+		TrieNode(Object edit) {
+			this.edit = edit;
+		}
+
+		final boolean editable(Object e) {
+			return e != null && e == edit;
+		}
+
+		/**
+		 * 查询key,不存在返回NOT_FOUND
+		 */
+		abstract Object find(int shift, int hash, Object key);
+
+		/**
+		 * 添加或者更新,返回修改后的节点,没有修改时返回this
+		 */
+		abstract TrieNode put(Object edit, int shift, int hash, Object key, Object value, Change c);
+
+		/**
+		 * 删除key,返回修改后的节点(节点为空时返回null),没有修改时返回this
+		 */
+		abstract TrieNode remove(Object edit, int shift, int hash, Object key, Change c);
+
+		/**
+		 * 数据和子节点的数组,key为null时value位置是子节点
+		 */
+		abstract Object[] array();
+
+		abstract int arrayLength();
+	}
+
+	/**
+	 * 用位图表示32个槽位中哪些被使用,数组中按顺序存放每个被使用的槽位的(key, value)或者(null, 子节点)
+	 */
+	static final class BitmapNode extends TrieNode {
+		static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+		int bitmap;
+		Object[] array;
+
+		BitmapNode(Object edit, int bitmap, Object[] array) {
+			super(edit);
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+
+		Object[] array() {
+			return array;
+		}
+
+		int arrayLength() {
+			return array.length;
+		}
+
+		final int index(int bit) {
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		Object find(int shift, int hash, Object key) {
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0)
+				return NOT_FOUND;
+			int i = index(bit) << 1;
+			Object k = array[i], v = array[i + 1];
+			if (k == null)
+				return ((TrieNode) v).find(shift + BITS, hash, key);
+			return eq(key, k) ? v : NOT_FOUND;
+		}
+
+		TrieNode put(Object edit, int shift, int hash, Object key, Object value, Change c) {
+			int bit = 1 << ((hash >>> shift) & MASK);
+			int i = index(bit) << 1;
+			if ((bitmap & bit) != 0) {
+				Object k = array[i], v = array[i + 1];
+				if (k == null) {
+					TrieNode n = ((TrieNode) v).put(edit, shift + BITS, hash, key, value, c);
+					return (n == v) ? this : set(edit, i + 1, n);
+				}
+				if (eq(key, k))
+					return (v == value) ? this : set(edit, i + 1, value);
+				// 槽位上已经有别的key,两个key下沉到新的子节点
+				c.added = true;
+				TrieNode n = pair(edit, shift + BITS, HashMap.hash(k), k, v, hash, key, value);
+				BitmapNode b = editable(edit) ? this : new BitmapNode(edit, bitmap, array.clone());
+				b.array[i] = null;
+				b.array[i + 1] = n;
+				return b;
+			}
+			c.added = true;
+			Object[] a = new Object[array.length + 2];
+			System.arraycopy(array, 0, a, 0, i);
+			a[i] = key;
+			a[i + 1] = value;
+			System.arraycopy(array, i, a, i + 2, array.length - i);
+			if (editable(edit)) {
+				array = a;
+				bitmap |= bit;
+				return this;
+			}
+			return new BitmapNode(edit, bitmap | bit, a);
+		}
+
+		TrieNode remove(Object edit, int shift, int hash, Object key, Change c) {
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0)
+				return this;
+			int i = index(bit) << 1;
+			Object k = array[i], v = array[i + 1];
+			if (k == null) {
+				TrieNode n = ((TrieNode) v).remove(edit, shift + BITS, hash, key, c);
+				if (n == v)
+					return this;
+				if (n != null)
+					return set(edit, i + 1, n);
+			} else if (eq(key, k))
+				c.removed = true;
+			else
+				return this;
+			// 删除槽位
+			if (bitmap == bit)
+				return null;
+			Object[] a = new Object[array.length - 2];
+			System.arraycopy(array, 0, a, 0, i);
+			System.arraycopy(array, i + 2, a, i, array.length - i - 2);
+			if (editable(edit)) {
+				array = a;
+				bitmap ^= bit;
+				return this;
+			}
+			return new BitmapNode(edit, bitmap ^ bit, a);
+		}
+
+		private BitmapNode set(Object edit, int i, Object o) {
+			if (editable(edit)) {
+				array[i] = o;
+				return this;
+			}
+			Object[] a = array.clone();
+			a[i] = o;
+			return new BitmapNode(edit, bitmap, a);
+		}
+
+		/**
+		 * 创建包含两个key的节点,hash完全相同时使用CollisionNode
+		 */
+		static TrieNode pair(Object edit, int shift, int h1, Object k1, Object v1, int h2, Object k2, Object v2) {
+			if (h1 == h2)
+				return new CollisionNode(edit, h1, new Object[] { k1, v1, k2, v2 });
+			Change ignored = new Change();
+			return EMPTY.put(edit, shift, h1, k1, v1, ignored).put(edit, shift, h2, k2, v2, ignored);
+		}
+	}
+
+	/**
+	 * hash完全相同的key,线性查找
+	 */
+	static final class CollisionNode extends TrieNode {
+		final int hash;
+		Object[] array;
+
+		CollisionNode(Object edit, int hash, Object[] array) {
+			super(edit);
+			this.hash = hash;
+			this.array = array;
+		}
+
+		Object[] array() {
+			return array;
+		}
+
+		int arrayLength() {
+			return array.length;
+		}
+
+		int indexOf(Object key) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (eq(key, array[i]))
+					return i;
+			}
+			return -1;
+		}
+
+		Object find(int shift, int hash, Object key) {
+			int i;
+			return (hash != this.hash || (i = indexOf(key)) < 0) ? NOT_FOUND : array[i + 1];
+		}
+
+		TrieNode put(Object edit, int shift, int hash, Object key, Object value, Change c) {
+			if (hash != this.hash) {
+				// 不同的hash,放到同一层的BitmapNode中
+				BitmapNode b = new BitmapNode(edit, 1 << ((this.hash >>> shift) & MASK), new Object[] { null, this });
+				return b.put(edit, shift, hash, key, value, c);
+			}
+			int i;
+			if ((i = indexOf(key)) >= 0) {
+				if (array[i + 1] == value)
+					return this;
+				if (editable(edit)) {
+					array[i + 1] = value;
+					return this;
+				}
+				Object[] a = array.clone();
+				a[i + 1] = value;
+				return new CollisionNode(edit, hash, a);
+			}
+			c.added = true;
+			Object[] a = new Object[array.length + 2];
+			System.arraycopy(array, 0, a, 0, array.length);
+			a[array.length] = key;
+			a[array.length + 1] = value;
+			if (editable(edit)) {
+				array = a;
+				return this;
+			}
+			return new CollisionNode(edit, hash, a);
+		}
+
+		TrieNode remove(Object edit, int shift, int hash, Object key, Change c) {
+			int i;
+			if (hash != this.hash || (i = indexOf(key)) < 0)
+				return this;
+			c.removed = true;
+			if (array.length == 2)
+				return null;
+			Object[] a = new Object[array.length - 2];
+			System.arraycopy(array, 0, a, 0, i);
+			System.arraycopy(array, i + 2, a, i, array.length - i - 2);
+			if (editable(edit)) {
+				array = a;
+				return this;
+			}
+			return new CollisionNode(edit, hash, a);
+		}
+	}
+
+	/* ---------------- Serialization -------------- */
+
+	/**
+	 * 序列化代理,字段都是final的,反序列化时通过Builder重新构建
+	 */
+	private static final class SerializationProxy implements Serializable {
+		private static final long serialVersionUID = 2879464170584620815L;
+
+		private final Object[] keys;
+
+		private final Object[] values;
+
+		SerializationProxy(PersistentHashMap<?, ?> m) {
+			keys = new Object[m.size];
+			values = new Object[m.size];
+			int i = 0;
+			for (Map.Entry<?, ?> e : m.entrySet()) {
+				keys[i] = e.getKey();
+				values[i++] = e.getValue();
+			}
+		}
+
+		private Object readResolve() {
+			Builder<Object, Object> b = builder();
+			for (int i = 0; i < keys.length; i++)
+				b.put(keys[i], values[i]);
+			return b.build();
+		}
+	}
+
+	private Object writeReplace() {
+		return new SerializationProxy(this);
+	}
+
+	private void readObject(ObjectInputStream s) throws InvalidObjectException {
+		throw new InvalidObjectException("Proxy required");
+	}
+
+	/* ------------------------------------------------------------ */
+	// iterators
+
+	final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		public int size() {
+			return size;
+		}
+
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			Object v;
+			return (v = find(e.getKey())) != NOT_FOUND && Objects.equals(v, e.getValue());
+		}
+	}
+
+	/**
+	 * 深度优先遍历,用栈记录每一层的节点和数组下标,最多7层加上冲突节点
+	 */
+	final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+		final TrieNode[] nodes = new TrieNode[8];
+		final int[] positions = new int[8];
+		int depth = -1;
+		boolean pendingNull = hasNull;
+		Object nextKey, nextValue;
+		boolean hasNext;
+
+		EntryIterator() {
+			if (root != null) {
+				nodes[0] = root;
+				depth = 0;
+			}
+			advance();
+		}
+
+		private void advance() {
+			if (pendingNull) {
+				pendingNull = false;
+				nextKey = null;
+				nextValue = nullValue;
+				hasNext = true;
+				return;
+			}
+			while (depth >= 0) {
+				TrieNode n = nodes[depth];
+				int p = positions[depth];
+				if (p >= n.arrayLength()) {
+					nodes[depth] = null;
+					positions[depth--] = 0;
+					continue;
+				}
+				Object[] a = n.array();
+				positions[depth] = p + 2;
+				if (a[p] == null) {
+					nodes[++depth] = (TrieNode) a[p + 1];
+					positions[depth] = 0;
+				} else {
+					nextKey = a[p];
+					nextValue = a[p + 1];
+					hasNext = true;
+					return;
+				}
+			}
+			hasNext = false;
+		}
+
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Map.Entry<K, V> next() {
+			if (!hasNext)
+				throw new NoSuchElementException();
+			Map.Entry<K, V> e = new SimpleImmutableEntry<>((K) nextKey, (V) nextValue);
+			advance();
+			return e;
+		}
+	}
+}
@@ -0,0 +1,274 @@
+package com.demo.jdk_18.map;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 把key或者value转换成字节,用于MappedHashMap等不在堆上保存对象的map和HashMapCodec.
+ *
+ * <p>
+ * A serializer writes a value at the buffer's current position and reads it
+ * back from a given number of bytes. Maps that compare keys by their bytes
+ * require the encoding to be canonical: equal keys must produce identical
+ * bytes.
+ *
+ * @param <T>
+ *            the type of the serialized values
+ */
+public interface Serializer<T> {
+
+	/**
+	 * Returns the number of bytes {@link #write} will produce for the value.
+	 */
+	int sizeOf(T value);
+
+	/**
+	 * Writes exactly {@link #sizeOf(Object) sizeOf(value)} bytes at the
+	 * buffer's position, advancing it.
+	 */
+	void write(ByteBuffer buf, T value);
+
+	/**
+	 * Reads a value of {@code length} bytes at the buffer's position,
+	 * advancing it.
+	 */
+	T read(ByteBuffer buf, int length);
+
+	/**
+	 * Strings encoded as UTF-8 (surrogate pairs as one four-byte sequence),
+	 * without allocating on write. An unpaired surrogate, which UTF-8 cannot
+	 * represent, is written as the three-byte sequence of its own code unit,
+	 * so that every string reads back equal to the one written, with the
+	 * same hash code.
+	 */
+	Serializer<String> STRING = new Serializer<String>() {
+		public int sizeOf(String s) {
+			int n = s.length(), len = n;
+			for (int i = 0; i < n; i++) {
+				char c = s.charAt(i);
+				if (c >= 0x80) {
+					if (c < 0x800)
+						len += 1;
+					else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+						len += 2;
+						i++;
+					} else // 单独的代理字符和其他字符一样写成3个字节
+						len += 2;
+				}
+			}
+			return len;
+		}
+
+		public void write(ByteBuffer buf, String s) {
+			for (int i = 0, n = s.length(); i < n; i++) {
+				char c = s.charAt(i);
+				if (c < 0x80)
+					buf.put((byte) c);
+				else if (c < 0x800) {
+					buf.put((byte) (0xc0 | (c >> 6)));
+					buf.put((byte) (0x80 | (c & 0x3f)));
+				} else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+					int cp = Character.toCodePoint(c, s.charAt(++i));
+					buf.put((byte) (0xf0 | (cp >> 18)));
+					buf.put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+					buf.put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+					buf.put((byte) (0x80 | (cp & 0x3f)));
+				} else {
+					buf.put((byte) (0xe0 | (c >> 12)));
+					buf.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+					buf.put((byte) (0x80 | (c & 0x3f)));
+				}
+			}
+		}
+
+		/**
+		 * 按write的编码解码,单独的代理字符也能还原.不是write写出的字节按String的规则解码
+		 */
+		public String read(ByteBuffer buf, int length) {
+			byte[] b = new byte[length];
+			buf.get(b);
+			char[] cs = new char[length];
+			int n = 0;
+			for (int i = 0; i < length;) {
+				int c = b[i++];
+				if (c >= 0) {
+					cs[n++] = (char) c;
+					continue;
+				}
+				int extra = (c & 0xe0) == 0xc0 ? 1 : (c & 0xf0) == 0xe0 ? 2 : (c & 0xf8) == 0xf0 ? 3 : -1;
+				if (extra < 0 || i + extra > length)
+					return new String(b, StandardCharsets.UTF_8);
+				int cp = c & (0x3f >> extra);
+				for (int end = i + extra; i < end; i++) {
+					if ((b[i] & 0xc0) != 0x80)
+						return new String(b, StandardCharsets.UTF_8);
+					cp = (cp << 6) | (b[i] & 0x3f);
+				}
+				if (cp < 0x10000)
+					cs[n++] = (char) cp;
+				else if (cp <= Character.MAX_CODE_POINT) {
+					cs[n++] = Character.highSurrogate(cp);
+					cs[n++] = Character.lowSurrogate(cp);
+				} else
+					return new String(b, StandardCharsets.UTF_8);
+			}
+			return new String(cs, 0, n);
+		}
+	};
+
+	/**
+	 * Integers as four big-endian bytes.
+	 */
+	Serializer<Integer> INT = new Serializer<Integer>() {
+		public int sizeOf(Integer value) {
+			return 4;
+		}
+
+		public void write(ByteBuffer buf, Integer value) {
+			buf.putInt(value);
+		}
+
+		public Integer read(ByteBuffer buf, int length) {
+			return buf.getInt();
+		}
+	};
+
+	/**
+	 * Longs as eight big-endian bytes.
+	 */
+	Serializer<Long> LONG = new Serializer<Long>() {
+		public int sizeOf(Long value) {
+			return 8;
+		}
+
+		public void write(ByteBuffer buf, Long value) {
+			buf.putLong(value);
+		}
+
+		public Long read(ByteBuffer buf, int length) {
+			return buf.getLong();
+		}
+	};
+
+	/**
+	 * Doubles as eight big-endian bytes of {@link Double#doubleToLongBits}, so that equal values have equal bytes.
+	 */
+	Serializer<Double> DOUBLE = new Serializer<Double>() {
+		public int sizeOf(Double value) {
+			return 8;
+		}
+
+		public void write(ByteBuffer buf, Double value) {
+			buf.putDouble(value);
+		}
+
+		public Double read(ByteBuffer buf, int length) {
+			return buf.getDouble();
+		}
+	};
+
+	/**
+	 * Floats as four big-endian bytes of {@link Float#floatToIntBits}.
+	 */
+	Serializer<Float> FLOAT = new Serializer<Float>() {
+		public int sizeOf(Float value) {
+			return 4;
+		}
+
+		public void write(ByteBuffer buf, Float value) {
+			buf.putFloat(value);
+		}
+
+		public Float read(ByteBuffer buf, int length) {
+			return buf.getFloat();
+		}
+	};
+
+	/**
+	 * Shorts as two big-endian bytes.
+	 */
+	Serializer<Short> SHORT = new Serializer<Short>() {
+		public int sizeOf(Short value) {
+			return 2;
+		}
+
+		public void write(ByteBuffer buf, Short value) {
+			buf.putShort(value);
+		}
+
+		public Short read(ByteBuffer buf, int length) {
+			return buf.getShort();
+		}
+	};
+
+	/**
+	 * Characters as two big-endian bytes.
+	 */
+	Serializer<Character> CHAR = new Serializer<Character>() {
+		public int sizeOf(Character value) {
+			return 2;
+		}
+
+		public void write(ByteBuffer buf, Character value) {
+			buf.putChar(value);
+		}
+
+		public Character read(ByteBuffer buf, int length) {
+			return buf.getChar();
+		}
+	};
+
+	/**
+	 * Bytes as one byte.
+	 */
+	Serializer<Byte> BYTE = new Serializer<Byte>() {
+		public int sizeOf(Byte value) {
+			return 1;
+		}
+
+		public void write(ByteBuffer buf, Byte value) {
+			buf.put(value);
+		}
+
+		public Byte read(ByteBuffer buf, int length) {
+			return buf.get();
+		}
+	};
+
+	/**
+	 * Booleans as one byte, 1 or 0.
+	 */
+	Serializer<Boolean> BOOLEAN = new Serializer<Boolean>() {
+		public int sizeOf(Boolean value) {
+			return 1;
+		}
+
+		public void write(ByteBuffer buf, Boolean value) {
+			buf.put(value ? (byte) 1 : (byte) 0);
+		}
+
+		public Boolean read(ByteBuffer buf, int length) {
+			return buf.get() != 0;
+		}
+	};
+
+	/**
+	 * Byte arrays, copied as is. Note that byte arrays compare by identity
+	 * in ordinary maps.
+	 */
+	Serializer<byte[]> BYTES = new Serializer<byte[]>() {
+		public int sizeOf(byte[] value) {
+			return value.length;
+		}
+
+		public void write(ByteBuffer buf, byte[] value) {
+			buf.put(value);
+		}
+
+		public byte[] read(ByteBuffer buf, int length) {
+			byte[] b = new byte[length];
+			buf.get(b);
+			return b;
+		}
+	};
+}
@@ -0,0 +1,294 @@
+package com.demo.jdk_18.map;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * key为String的HashMap,可以直接用字符序列或者UTF-8字节查询,不需要先创建String.
+ *
+ * <p>
+ * {@link #getByChars(CharSequence, int, int)} and
+ * {@link #getByUtf8(byte[], int, int)} compute the same hash as
+ * {@code String.hashCode()} (or the keyed hash, see
+ * {@link #enableKeyedHashing()}) directly from their input and compare it
+ * with the hash stored in each node of the bin. Each node also stores the
+ * length of its key next to the hash, and candidates are checked against it
+ * before their characters are compared, so most mismatches are rejected
+ * without reading the key at all, and cost neither an {@code equals} call
+ * nor a throwaway key. {@link #get(Object)}, {@link #containsKey(Object)}
+ * and {@link #getOrDefault(Object, Object)} check the stored length before
+ * calling {@code equals} as well. A {@code char[]} buffer can be passed as
+ * {@code java.nio.CharBuffer.wrap(buf)}.
+ *
+ * <p>
+ * UTF-8 input must be well-formed; malformed input is decoded into a
+ * temporary String with the usual replacement characters and looked up as
+ * such. Well-formed input is looked up without allocating, also in keyed
+ * hashing mode.
+ *
+ * @param <V>
+ *            the type of mapped values
+ */
+public class StringKeyHashMap<V> extends HashMap<String, V> {
+
+	private static final long serialVersionUID = -6207473018745183912L;
+
+	public StringKeyHashMap(int initialCapacity, float loadFactor) {
+		super(initialCapacity, loadFactor);
+	}
+
+	public StringKeyHashMap(int initialCapacity) {
+		super(initialCapacity);
+	}
+
+	public StringKeyHashMap() {
+		super();
+	}
+
+	public StringKeyHashMap(Map<? extends String, ? extends V> m) {
+		super(m);
+	}
+
+	/* ---------------- Public operations -------------- */
+
+	public V get(Object key) {
+		Node<String, V> e;
+		return (e = findKey(key)) == null ? null : e.value;
+	}
+
+	public boolean containsKey(Object key) {
+		return findKey(key) != null;
+	}
+
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		Node<String, V> e;
+		return (e = findKey(key)) == null ? defaultValue : e.value;
+	}
+
+	/**
+	 * Returns the value mapped to the key equal to {@code s.toString()}, or
+	 * {@code null} if there is none.
+	 */
+	public V getByChars(CharSequence s) {
+		return getByChars(s, 0, s.length());
+	}
+
+	/**
+	 * Returns the value mapped to the key equal to
+	 * {@code s.subSequence(start, end).toString()}, or {@code null} if there
+	 * is none.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             if the range is not within {@code s}
+	 */
+	public V getByChars(CharSequence s, int start, int end) {
+		Node<String, V> e;
+		return (e = findChars(s, start, end)) == null ? null : e.value;
+	}
+
+	public boolean containsKeyByChars(CharSequence s, int start, int end) {
+		return findChars(s, start, end) != null;
+	}
+
+	/**
+	 * Returns the value mapped to the key whose UTF-8 encoding is {@code b},
+	 * or {@code null} if there is none.
+	 */
+	public V getByUtf8(byte[] b) {
+		return getByUtf8(b, 0, b.length);
+	}
+
+	/**
+	 * Returns the value mapped to the key whose UTF-8 encoding is
+	 * {@code b[off, off + len)}, or {@code null} if there is none.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             if the range is not within {@code b}
+	 */
+	public V getByUtf8(byte[] b, int off, int len) {
+		Node<String, V> e;
+		return (e = findUtf8(b, off, len)) == null ? null : e.value;
+	}
+
+	public boolean containsKeyByUtf8(byte[] b, int off, int len) {
+		return findUtf8(b, off, len) != null;
+	}
+
+	/* ---------------- Internal operations -------------- */
+
+	/**
+	 * 普通节点多存一个key的长度,比较长度时不需要读取key.压缩指针下Node的对象头和4个字段共28字节,
+	 * 按8字节对齐后本来就有4字节空闲,多一个int字段不增加节点大小
+	 */
+	static final class StringNode<V> extends Node<String, V> {
+		final int length; // key的长度,key为null时是-1
+
+		StringNode(int hash, String key, V value, Node<String, V> next) {
+			super(hash, key, value, next);
+			this.length = (key == null) ? -1 : key.length();
+		}
+	}
+
+	Node<String, V> newNode(int hash, String key, V value, Node<String, V> next) {
+		return new StringNode<>(hash, key, value, next);
+	}
+
+	Node<String, V> replacementNode(Node<String, V> p, Node<String, V> next) {
+		return new StringNode<>(p.hash, p.key, p.value, next);
+	}
+
+	/**
+	 * 节点中key的长度,树节点没有存长度,从key读取
+	 */
+	static int keyLength(Node<String, ?> e) {
+		String k;
+		if (e instanceof StringNode)
+			return ((StringNode<?>) e).length;
+		return (k = e.key) == null ? -1 : k.length();
+	}
+
+	/**
+	 * get,containsKey和getOrDefault的查找: hash和长度都相同时才调用equals,树化的桶按树查找
+	 */
+	final Node<String, V> findKey(Object key) {
+		int hash = hashOf(key);
+		if (oldTable != null)
+			// 渐进式扩容中,顺带迁移一部分桶
+			advanceTransfer(hash);
+		Node<String, V> e;
+		if (!(key instanceof String) || (e = firstNode(hash)) instanceof TreeNode)
+			return getNode(hash, key);
+		int n = ((String) key).length();
+		for (; e != null; e = e.next) {
+			Object k;
+			if (e.hash == hash && keyLength(e) == n && ((k = e.key) == key || key.equals(k)))
+				break;
+		}
+		if (METRICS_ENABLED && metrics != null)
+			metrics.recordLookup(this, hash, e);
+		return e;
+	}
+
+	/**
+	 * 根据字符序列查询节点,hash和长度都相同时才比较字符
+	 */
+	final Node<String, V> findChars(CharSequence s, int start, int end) {
+		if (start < 0 || start > end || end > s.length())
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + s.length());
+		HashSeed seed;
+		int hash;
+		if ((seed = hashSeed) != null)
+			hash = seed.hash(s, start, end);
+		else {
+			int h = 0;
+			for (int i = start; i < end; i++)
+				h = 31 * h + s.charAt(i);
+			hash = spread(h);
+		}
+		int n = end - start;
+		Node<String, V> e = firstNode(hash); // 树化的桶也通过next遍历
+		for (; e != null; e = e.next) {
+			if (e.hash == hash && keyLength(e) == n && regionEquals(e.key, s, start))
+				break;
+		}
+		if (METRICS_ENABLED && metrics != null)
+			metrics.recordLookup(this, hash, e);
+		return e;
+	}
+
+	/**
+	 * 根据UTF-8字节查询节点: 第一遍校验字节并计算UTF-16长度和hash,第二遍逐个解码和key比较
+	 */
+	final Node<String, V> findUtf8(byte[] b, int off, int len) {
+		if (off < 0 || len < 0 || off > b.length - len)
+			throw new IndexOutOfBoundsException("offset " + off + ", length " + len + ", array length " + b.length);
+		int end = off + len, n = 0, h = 0;
+		for (int p = off; p < end;) {
+			long d;
+			if ((d = decode(b, p, end)) < 0) {
+				// 不合法的UTF-8,按String的规则解码后查询
+				String key = new String(b, off, len, StandardCharsets.UTF_8);
+				return getNode(hashOf(key), key);
+			}
+			int cp = (int) d;
+			p = (int) (d >>> 32);
+			if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				h = 31 * h + cp;
+				n += 1;
+			} else {
+				h = 31 * (31 * h + Character.highSurrogate(cp)) + Character.lowSurrogate(cp);
+				n += 2;
+			}
+		}
+		HashSeed seed;
+		int hash = ((seed = hashSeed) != null) ? seed.hashUtf8(b, off, end, n) : spread(h);
+		Node<String, V> e = firstNode(hash); // 树化的桶也通过next遍历
+		for (; e != null; e = e.next) {
+			if (e.hash == hash && keyLength(e) == n && utf8Equals(e.key, b, off, end))
+				break;
+		}
+		if (METRICS_ENABLED && metrics != null)
+			metrics.recordLookup(this, hash, e);
+		return e;
+	}
+
+	static boolean regionEquals(String k, CharSequence s, int start) {
+		for (int i = 0, n = k.length(); i < n; i++) {
+			if (k.charAt(i) != s.charAt(start + i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 比较key和合法的UTF-8字节,调用方已经保证UTF-16长度相同
+	 */
+	static boolean utf8Equals(String k, byte[] b, int off, int end) {
+		for (int i = 0, p = off; p < end;) {
+			long d = decode(b, p, end);
+			int cp = (int) d;
+			p = (int) (d >>> 32);
+			if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				if (k.charAt(i++) != cp)
+					return false;
+			} else if (k.charAt(i++) != Character.highSurrogate(cp) || k.charAt(i++) != Character.lowSurrogate(cp))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 解码p位置的一个UTF-8字符,返回(下一个位置 << 32) | 码点,不合法(包括过长编码和代理字符)时返回-1
+	 */
+	static long decode(byte[] b, int p, int end) {
+		int b0 = b[p];
+		if (b0 >= 0)
+			return (long) (p + 1) << 32 | b0;
+		int cp, n;
+		if ((b0 & 0xe0) == 0xc0) {
+			cp = b0 & 0x1f;
+			n = 1;
+		} else if ((b0 & 0xf0) == 0xe0) {
+			cp = b0 & 0x0f;
+			n = 2;
+		} else if ((b0 & 0xf8) == 0xf0) {
+			cp = b0 & 0x07;
+			n = 3;
+		} else
+			return -1L;
+		if (p + n >= end)
+			return -1L;
+		for (int i = 1; i <= n; i++) {
+			int c = b[p + i];
+			if ((c & 0xc0) != 0x80)
+				return -1L;
+			cp = cp << 6 | (c & 0x3f);
+		}
+		// 过长编码,代理字符,超出范围
+		if ((n == 1 && cp < 0x80) || (n == 2 && (cp < 0x800 || Character.isSurrogate((char) cp)))
+				|| (n == 3 && (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT || cp > Character.MAX_CODE_POINT)))
+			return -1L;
+		return (long) (p + n + 1) << 32 | cp;
+	}
+}
@@ -0,0 +1,150 @@
+package com.demo.jdk_18.map;
+
+/**
+ * LinkedHashMap过期用的分层时间轮.
+ *
+ * <p>
+ * Each level is an array of buckets, each bucket a circular list of timers
+ * whose deadlines fall into one tick of that level: about a second, a
+ * minute, an hour and a day, with a single overflow bucket for anything
+ * further away. A timer is placed on the finest level whose range covers
+ * its deadline. Advancing the wheel empties the buckets whose tick has
+ * passed: due timers expire their entries, the others cascade to a finer
+ * level. Every timer is therefore touched at most once per level, and
+ * scheduling, rescheduling and cancelling are O(1).
+ *
+ * <p>
+ * Deadlines are compared by subtraction and buckets are chosen by the time
+ * elapsed since the wheel was created, so the time source may wrap like
+ * {@link System#nanoTime()}. Expiration is accurate to the finest tick, and
+ * callers check the deadline of an entry before returning it.
+ */
+final class TimerWheel<K, V> {
+
+	/**
+	 * 每层的桶数量
+	 */
+	static final int[] BUCKETS = { 64, 64, 32, 4, 1 };
+
+	/**
+	 * 每层一个桶的时间跨度(纳秒),向上取整到2的幂: 1.07秒,1.14分钟,1.22小时,1.63天,6.5天
+	 */
+	static final long[] SPANS = { 1L << 30, 1L << 36, 1L << 42, 1L << 47, 1L << 49, 1L << 49 };
+
+	static final long[] SHIFT = { 30, 36, 42, 47, 49 };
+
+	/**
+	 * 过期时间,挂在LinkedHashMap.Entry上,替换节点时转移到新节点
+	 */
+	static final class Timer<K, V> {
+		LinkedHashMap.Entry<K, V> entry; // 桶的哨兵为null
+		long writeTime;
+		long deadline;
+		Timer<K, V> prev, next; // 所在的桶,不在时间轮中时为null
+
+		Timer(LinkedHashMap.Entry<K, V> entry, long writeTime) {
+			this.entry = entry;
+			this.writeTime = writeTime;
+		}
+	}
+
+	final Timer<K, V>[][] wheel;
+
+	final long origin; // 创建时的时间,桶按相对origin的时间计算,时间源从负数变为正数时仍然连续
+
+	long nanos; // 上次推进到的时间
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	TimerWheel(long now) {
+		origin = nanos = now;
+		wheel = (Timer<K, V>[][]) new Timer[BUCKETS.length][];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = (Timer<K, V>[]) new Timer[BUCKETS[i]];
+			for (int j = 0; j < wheel[i].length; j++) {
+				Timer<K, V> sentinel = new Timer<>(null, 0L);
+				sentinel.prev = sentinel.next = sentinel;
+				wheel[i][j] = sentinel;
+			}
+		}
+	}
+
+	void schedule(Timer<K, V> t) {
+		Timer<K, V> sentinel = findBucket(t.deadline), last = sentinel.prev;
+		t.prev = last;
+		t.next = sentinel;
+		last.next = t;
+		sentinel.prev = t;
+	}
+
+	void reschedule(Timer<K, V> t) {
+		if (t.next != null)
+			unlink(t);
+		schedule(t);
+	}
+
+	void deschedule(Timer<K, V> t) {
+		if (t.next != null)
+			unlink(t);
+	}
+
+	static <K, V> void unlink(Timer<K, V> t) {
+		Timer<K, V> p = t.prev, n = t.next;
+		p.next = n;
+		n.prev = p;
+		t.prev = t.next = null;
+	}
+
+	/**
+	 * 选择能覆盖到期时间的最细的一层
+	 */
+	Timer<K, V> findBucket(long time) {
+		long duration = time - nanos;
+		if (duration < 0L) // 已经过期,放到当前的桶,下一次推进时删除
+			time = nanos;
+		int last = wheel.length - 1;
+		for (int i = 0; i < last; i++) {
+			if (duration < SPANS[i + 1]) {
+				long ticks = (time - origin) >>> SHIFT[i];
+				return wheel[i][(int) ticks & (wheel[i].length - 1)];
+			}
+		}
+		return wheel[last][0];
+	}
+
+	/**
+	 * 推进到now,删除到期的节点,没有到期的放到更细的一层
+	 */
+	void advance(LinkedHashMap<K, V> map, long now) {
+		long previous = nanos - origin, elapsed = now - origin;
+		nanos = now;
+		for (int i = 0; i < SHIFT.length; i++) {
+			long previousTicks = previous >>> SHIFT[i];
+			long delta = (elapsed >>> SHIFT[i]) - previousTicks;
+			if (delta <= 0L)
+				break;
+			expire(map, i, previousTicks, delta);
+		}
+	}
+
+	void expire(LinkedHashMap<K, V> map, int level, long previousTicks, long delta) {
+		Timer<K, V>[] buckets = wheel[level];
+		int mask = buckets.length - 1;
+		int start = (int) previousTicks & mask;
+		// 第0层只处理已经结束的桶,里面的节点都已到期;更高的层在进入当前的桶时就下放到更细的层
+		long steps = (level == 0) ? delta : delta + 1L;
+		int end = start + (int) Math.min(steps, buckets.length);
+		for (int i = start; i < end; i++) {
+			Timer<K, V> sentinel = buckets[i & mask], t = sentinel.next;
+			sentinel.prev = sentinel.next = sentinel;
+			while (t != sentinel) {
+				Timer<K, V> next = t.next;
+				t.prev = t.next = null;
+				if (t.deadline - nanos <= 0L)
+					map.expireEntry(t.entry);
+				else
+					schedule(t);
+				t = next;
+			}
+		}
+	}
+}
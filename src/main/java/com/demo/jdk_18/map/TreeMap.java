@@ -31,44 +31,44 @@ import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
 /**
- * ֤key˳map
+ * 保证key顺序的map
  */
 public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V>, Cloneable, java.io.Serializable {
 	/**
-	 * keyȽ(֤map˳)
+	 * key比较器(保证map的顺序)
 	 */
 	private final Comparator<? super K> comparator;
 	/**
-	 * ڵ
+	 * 根节点
 	 */
 	private transient Entry<K, V> root;
 
 	/**
-	 * mapĴС
+	 * map的大小
 	 */
 	private transient int size = 0;
 
 	/**
-	 * (жǷ̲߳treemap)
+	 * 操作计数器(用于判断是否多线程操作treemap)
 	 */
 	private transient int modCount = 0;
 
 	/**
-	 * һȽmap
+	 * 创建一个不带比较器的map
 	 */
 	public TreeMap() {
 		comparator = null;
 	}
 
 	/**
-	 * һȽmap
+	 * 创建一个带比较器的map
 	 */
 	public TreeMap(Comparator<? super K> comparator) {
 		this.comparator = comparator;
 	}
 
 	/**
-	 * ֪mapһȽmap
+	 * 根据已知的map创建一个不带比较器的map
 	 */
 	public TreeMap(Map<? extends K, ? extends V> m) {
 		comparator = null;
@@ -76,7 +76,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * ֪SortedMapTreeMap
+	 * 根据已知的SortedMap构造TreeMap
 	 *
 	 * @param m
 	 *            the sorted map whose mappings are to be placed in this map,
@@ -105,7 +105,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * true=key,false=key
+	 * true=包含key,false=不包含key
 	 * 
 	 * @param key
 	 *            key whose presence in this map is to be tested
@@ -122,7 +122,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * жǷֵvalue
+	 * 判断是否包含值value
 	 * 
 	 * @param value
 	 *            value whose presence in this map is to be tested
@@ -131,7 +131,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	 * @since 1.2
 	 */
 	public boolean containsValue(Object value) {
-		// 
+		// 先序遍历
 		for (Entry<K, V> e = getFirstEntry(); e != null; e = successor(e))
 			if (valEquals(value, e.value))
 				return true;
@@ -139,7 +139,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * ѯkeyӦvalue
+	 * 查询key对应的value
 	 */
 	public V get(Object key) {
 		Entry<K, V> p = getEntry(key);
@@ -147,28 +147,28 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * ѯõıȽ
+	 * 查询设置的比较器
 	 */
 	public Comparator<? super K> comparator() {
 		return comparator;
 	}
 
 	/**
-	 * ѯŵһkey
+	 * 查询排第一的key
 	 */
 	public K firstKey() {
 		return key(getFirstEntry());
 	}
 
 	/**
-	 * ѯkey
+	 * 查询排最后的key
 	 */
 	public K lastKey() {
 		return key(getLastEntry());
 	}
 
 	/**
-	 * ֪map
+	 * 添加已知map的数据
 	 *
 	 * @param map
 	 *            mappings to be stored in this map
@@ -181,7 +181,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	 */
 	public void putAll(Map<? extends K, ? extends V> map) {
 		int mapSize = map.size();
-		// ʾһmap
+		// 表示传入的是一个有序的map
 		if (size == 0 && mapSize != 0 && map instanceof SortedMap) {
 			Comparator<?> c = ((SortedMap<?, ?>) map).comparator();
 			if (c == comparator || (c != null && c.equals(comparator))) {
@@ -194,12 +194,12 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 				return;
 			}
 		}
-		// map
+		// 不是有序的map
 		super.putAll(map);
 	}
 
 	/**
-	 * ҵkeyڵĽڵ(Ӹڵȥ)
+	 * 找到key所在的节点(从根节点往下去找)
 	 * 
 	 * @return this map's entry for the given key, or {@code null} if the map
 	 *         does not contain an entry for the key
@@ -219,7 +219,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 		@SuppressWarnings("unchecked")
 		Comparable<? super K> k = (Comparable<? super K>) key;
 		Entry<K, V> p = root;
-		// ҵkeyڵĽڵ
+		// 找到key所在的节点
 		while (p != null) {
 			int cmp = k.compareTo(p.key);
 			if (cmp < 0)
@@ -233,7 +233,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * õıȽҵkeyڵĽڵ
+	 * 根据设置的比较器找到key所在的节点
 	 */
 	final Entry<K, V> getEntryUsingComparator(Object key) {
 		@SuppressWarnings("unchecked")
@@ -255,7 +255,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * ҵڵkeyǸڵ(ҵkey)
+	 * 先序遍历找到大于等于key的那个节点(这样就能找到比key大的数据了)
 	 */
 	final Entry<K, V> getCeilingEntry(K key) {
 		Entry<K, V> p = root;
@@ -316,7 +316,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * شkeyСڵ
+	 * 返回大于key的最小节点
 	 */
 	final Entry<K, V> getHigherEntry(K key) {
 		Entry<K, V> p = root;
@@ -376,7 +376,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * ӻ߸(comparator֧null,֧key=null),ؾֵ
+	 * 添加或者更新数据(除非comparator支持null,否则不支持key=null的情况),返回旧值
 	 *
 	 * @param key
 	 *            key with which the specified value is to be associated
@@ -396,10 +396,10 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	 */
 	public V put(K key, V value) {
 		Entry<K, V> t = root;
-		// һ
+		// 第一次添加数据
 		if (t == null) {
 			compare(key, key); // type (and possibly null) check
-			// ڵ
+			// 创建根节点
 			root = new Entry<>(key, value, null);
 			size = 1;
 			modCount++;
@@ -409,29 +409,29 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 		Entry<K, V> parent;
 		// split comparator and comparable paths
 		Comparator<? super K> cpr = comparator;
-		// mapıȽ
+		// 设置了map的比较器
 		if (cpr != null) {
-			// ҵkeyڵĽڵ,ҵkeyӦڵĽڵĸڵ(Ҳ)
+			// 找到key所在的节点,或者找到key应该在的节点的父节点(也就是添加数据)
 			do {
 				parent = t;
 				cmp = cpr.compare(key, t.key);
 				if (cmp < 0)
-					// 
+					// 左子树
 					t = t.left;
 				else if (cmp > 0)
-					// 
+					// 右子树
 					t = t.right;
 				else
-					// ҵڵ,value
+					// 找到节点了,更新value
 					return t.setValue(value);
 			} while (t != null);
 		} else {
 			if (key == null)
-				// ʾñȽ,֧null key
+				// 表示不设置比较器,不支持null key
 				throw new NullPointerException();
 			@SuppressWarnings("unchecked")
 			Comparable<? super K> k = (Comparable<? super K>) key;
-			// һ,ֻǱȽһ
+			// 和上面一样,只是比较器不一样
 			do {
 				parent = t;
 				cmp = k.compareTo(t.key);
@@ -443,25 +443,25 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 					return t.setValue(value);
 			} while (t != null);
 		}
-		// ûҵkeyڵĽڵ,ʾֵ
+		// 没找到key所在的节点,表示添加新值
 		Entry<K, V> e = new Entry<>(key, value, parent);
 		if (cmp < 0)
-			// Ϊ
+			// 添加为左孩子
 			parent.left = e;
 		else
-			// Һ
+			// 右孩子
 			parent.right = e;
-		// 
+		// 红黑树调整
 		fixAfterInsertion(e);
-		// mapСһ
+		// map大小加一
 		size++;
-		// һ
+		// 操作数加一
 		modCount++;
 		return null;
 	}
 
 	/**
-	 * ɾ
+	 * 删除数据
 	 *
 	 * @param key
 	 *            key for which mapping should be removed
@@ -2110,7 +2110,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 	}
 
 	/**
-	 * ң
+	 * 先序遍历（左中右）
 	 */
 	static <K, V> TreeMap.Entry<K, V> successor(Entry<K, V> t) {
 		if (t == null)
@@ -0,0 +1,222 @@
+package com.demo.jdk_18.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link Cache} against reference models of each eviction policy,
+ * with expiration on a fake ticker.
+ */
+public class CacheTest {
+
+	long now;
+
+	@Test
+	public void lruMatchesBoundedAccessOrderedMap() {
+		Random r = new Random(21);
+		for (int round = 0; round < 200; round++) {
+			int max = 1 + r.nextInt(50);
+			Cache<Integer, Integer> c = Cache.<Integer, Integer> builder().maximumSize(max).build();
+			java.util.LinkedHashMap<Integer, Integer> ref = new java.util.LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+					return size() > max;
+				}
+			};
+			for (int i = 0; i < 2000; i++) {
+				int k = r.nextInt(max * 3), op = r.nextInt(10);
+				if (op < 5)
+					assertEquals(ref.get(k), c.getIfPresent(k));
+				else if (op < 9)
+					assertEquals(ref.put(k, i), c.put(k, i));
+				else
+					assertEquals(ref.remove(k), c.invalidate(k));
+				assertEquals(ref.size(), c.size());
+			}
+			assertStructure(c);
+			assertTrue(c.data.keySet().containsAll(ref.keySet()));
+		}
+	}
+
+	/**
+	 * LFU淘汰访问次数最少的数据,次数相同时淘汰最久没有访问的
+	 */
+	@Test
+	public void lfuEvictsTheLeastFrequentlyUsedEntry() {
+		Random r = new Random(22);
+		for (int round = 0; round < 200; round++) {
+			int max = 1 + r.nextInt(30);
+			Cache<Integer, Integer> c = Cache.<Integer, Integer> builder().maximumSize(max).policy(EvictionPolicy.LFU)
+					.build();
+			// 值为{value, 访问次数, 最后访问的序号}
+			Map<Integer, long[]> ref = new java.util.HashMap<>();
+			long t = 0;
+			for (int i = 0; i < 2000; i++) {
+				int k = (int) Math.abs(r.nextGaussian() * max), op = r.nextInt(10);
+				long[] e = ref.get(k);
+				if (op < 5) {
+					Integer v = c.getIfPresent(k);
+					if (e == null)
+						assertNull(v);
+					else {
+						assertEquals(Integer.valueOf((int) e[0]), v);
+						e[1]++;
+						e[2] = t++;
+					}
+				} else if (op < 9) {
+					c.put(k, i);
+					if (e != null) {
+						e[0] = i;
+						e[1]++;
+						e[2] = t++;
+					} else {
+						ref.put(k, new long[] { i, 1, t++ });
+						if (ref.size() > max) {
+							Integer victim = null;
+							long[] v = null;
+							for (Map.Entry<Integer, long[]> x : ref.entrySet()) {
+								long[] y = x.getValue();
+								if (v == null || y[1] < v[1] || (y[1] == v[1] && y[2] < v[2])) {
+									v = y;
+									victim = x.getKey();
+								}
+							}
+							ref.remove(victim);
+						}
+					}
+				} else {
+					c.invalidate(k);
+					ref.remove(k);
+				}
+				assertEquals(ref.size(), c.size());
+			}
+			assertStructure(c);
+			assertTrue(c.data.keySet().containsAll(ref.keySet()));
+		}
+	}
+
+	@Test
+	public void everyPolicyHonoursWeightAndExpiration() {
+		Random r = new Random(23);
+		for (EvictionPolicy policy : EvictionPolicy.values()) {
+			for (int round = 0; round < 60; round++) {
+				boolean afterWrite = r.nextBoolean(), afterAccess = r.nextBoolean();
+				long ttl = 1 + r.nextInt(100);
+				Cache.Builder<Integer, String> b = Cache.<Integer, String> builder().policy(policy).ticker(() -> now);
+				if (r.nextBoolean())
+					b.maximumWeight(r.nextInt(200)).weigher((k, v) -> v.length());
+				else
+					b.maximumSize(r.nextInt(100));
+				if (afterWrite)
+					b.expireAfterWrite(ttl, TimeUnit.NANOSECONDS);
+				if (afterAccess)
+					b.expireAfterAccess(ttl, TimeUnit.NANOSECONDS);
+				Cache<Integer, String> c = b.build();
+				// 值为{写入时间, 访问时间, 写入的序号}
+				Map<Integer, long[]> times = new java.util.HashMap<>();
+				for (int i = 0; i < 1500; i++) {
+					now += r.nextInt(5);
+					int k = r.nextInt(150), op = r.nextInt(10);
+					if (op < 5) {
+						String v = c.getIfPresent(k);
+						long[] t = times.get(k);
+						if (v != null) {
+							assertNotNull("phantom " + k, t);
+							assertTrue("expired", !(afterWrite && now - t[0] >= ttl) && !(afterAccess && now - t[1] >= ttl));
+							assertEquals("v" + k + "_" + t[2], v);
+							t[1] = now;
+						}
+					} else if (op < 9) {
+						c.put(k, "v" + k + "_" + i);
+						times.put(k, new long[] { now, now, i });
+					} else {
+						c.invalidate(k);
+						times.remove(k);
+					}
+					if (r.nextInt(50) == 0) {
+						c.cleanUp();
+						if (afterWrite != afterAccess)
+							for (Cache.Node<Integer, String> n : c.data.values())
+								if (c.expired(n, now))
+									fail("not cleaned up: " + n.key);
+					}
+					if (r.nextInt(300) == 0) {
+						c.invalidateAll();
+						times.clear();
+					}
+					assertStructure(c);
+				}
+				CacheStats s = c.stats();
+				assertTrue(s.hits() + s.misses() > 0);
+			}
+		}
+	}
+
+	/**
+	 * data中的每个节点正好在策略的一个队列中,权重合计正确且不超过上限
+	 */
+	static <K, V> void assertStructure(Cache<K, V> c) {
+		long weight = 0;
+		for (Cache.Node<K, V> n : c.data.values()) {
+			weight += n.weight;
+			assertNotNull(n.deque);
+		}
+		assertEquals(weight, c.weightedSize);
+		assertTrue(c.weightedSize <= c.maximumWeight);
+		Set<Object> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		nodes.addAll(c.data.values());
+		List<NodeDeque<K, V>> deques = new ArrayList<>();
+		if (c.policy instanceof LruPolicy)
+			deques.add(((LruPolicy<K, V>) c.policy).deque);
+		if (c.policy instanceof TinyLfuPolicy) {
+			TinyLfuPolicy<K, V> p = (TinyLfuPolicy<K, V>) c.policy;
+			deques.add(p.window);
+			deques.add(p.probation);
+			deques.add(p.protect);
+			assertEquals(c.data.size(), p.count);
+		}
+		if (c.policy instanceof LfuPolicy) {
+			long frequency = 0;
+			for (LfuPolicy.Bucket<K, V> b = ((LfuPolicy<K, V>) c.policy).first; b != null; b = b.next) {
+				assertTrue(b.frequency > frequency && !b.isEmpty());
+				frequency = b.frequency;
+				deques.add(b);
+			}
+		}
+		int linked = 0;
+		long linkedWeight = 0;
+		for (NodeDeque<K, V> d : deques) {
+			long w = 0;
+			Cache.Node<K, V> prev = null;
+			for (Cache.Node<K, V> x = d.head; x != null; x = x.next) {
+				linked++;
+				w += x.weight;
+				assertSame(prev, x.prev);
+				assertSame(d, x.deque);
+				assertTrue("stale node", nodes.contains(x));
+				prev = x;
+			}
+			assertSame(prev, d.tail);
+			assertEquals(d.weight, w);
+			linkedWeight += w;
+		}
+		assertEquals(c.data.size(), linked);
+		assertEquals(weight, linkedWeight);
+	}
+}
@@ -0,0 +1,136 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Randomized differential tests of {@link CompactHashMap} against
+ * {@code java.util.HashMap}.
+ */
+public class CompactHashMapTest {
+
+	@Test
+	public void randomOperationsMatchJavaUtil() throws Exception {
+		Random r = new Random(5);
+		for (int round = 0; round < 300; round++) {
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 8 : 100000);
+			CompactHashMap<Object, Integer> m = new CompactHashMap<>(r.nextInt(40), 0.5f + r.nextFloat());
+			java.util.HashMap<Object, Integer> ref = new java.util.HashMap<>();
+			for (int i = r.nextInt(4000); i > 0; i--) {
+				Object k = HashMapTest.key(r, 3000, hashes);
+				final int v = i;
+				switch (r.nextInt(8)) {
+				case 0:
+				case 1:
+				case 2:
+					assertEquals(ref.put(k, v), m.put(k, v));
+					break;
+				case 3:
+					assertEquals(ref.remove(k), m.remove(k));
+					break;
+				case 4:
+					assertEquals(ref.putIfAbsent(k, v), m.putIfAbsent(k, v));
+					break;
+				case 5:
+					assertEquals(ref.get(k), m.get(k));
+					assertEquals(ref.containsKey(k), m.containsKey(k));
+					break;
+				case 6:
+					if (r.nextInt(50) == 0) {
+						for (Iterator<Map.Entry<Object, Integer>> it = m.entrySet().iterator(); it.hasNext();) {
+							Map.Entry<Object, Integer> e = it.next();
+							if (r.nextInt(3) == 0) {
+								it.remove();
+								ref.remove(e.getKey());
+							} else if (r.nextBoolean()) {
+								e.setValue(-v);
+								ref.put(e.getKey(), -v);
+							}
+						}
+					}
+					break;
+				default:
+					if (r.nextInt(200) == 0) {
+						m.clear();
+						ref.clear();
+					} else
+						assertEquals(ref.computeIfAbsent(k, x -> 7), m.computeIfAbsent(k, x -> 7));
+				}
+			}
+			assertStructure(m);
+			MapAssert.assertEqualMaps(m, ref);
+			MapAssert.assertEqualMaps(new CompactHashMap<>(ref), ref);
+
+			@SuppressWarnings("unchecked")
+			CompactHashMap<Object, Integer> c = (CompactHashMap<Object, Integer>) m.clone();
+			c.put("only in clone", 1);
+			assertFalse(m.containsKey("only in clone"));
+			c.remove("only in clone");
+			MapAssert.assertEqualMaps(c, ref);
+
+			ByteArrayOutputStream bo = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bo)) {
+				out.writeObject(m);
+			}
+			@SuppressWarnings("unchecked")
+			CompactHashMap<Object, Integer> back = (CompactHashMap<Object, Integer>) new ObjectInputStream(
+					new ByteArrayInputStream(bo.toByteArray())).readObject();
+			assertStructure(back);
+			MapAssert.assertEqualMaps(back, ref);
+		}
+	}
+
+	/**
+	 * 删除后的Map.Entry按key查找当前的值,key不在map中时不能写入
+	 */
+	@Test
+	public void entriesFollowTheirKey() {
+		CompactHashMap<Object, Integer> m = new CompactHashMap<>();
+		m.put(1, 1);
+		m.put(2, 2);
+		Map.Entry<Object, Integer> e = m.entrySet().iterator().next();
+		assertEquals(1, e.getKey());
+		m.remove(1);
+		assertNull(e.getValue());
+		assertThrows(IllegalStateException.class, () -> e.setValue(3));
+		assertFalse(m.containsKey(1));
+		m.put(1, 5);
+		assertEquals(Integer.valueOf(5), e.getValue());
+		assertEquals(Integer.valueOf(5), e.setValue(6));
+		assertEquals(Integer.valueOf(6), m.get(1));
+	}
+
+	/**
+	 * 数据在[0, size)中连续保存,每个数据在正确的桶中
+	 */
+	static void assertStructure(CompactHashMap<?, ?> m) {
+		if (m.table == null) {
+			assertEquals(0, m.size);
+			return;
+		}
+		int n = 0;
+		for (int b = 0; b < m.table.length; b++) {
+			for (int i = m.table[b] - 1; i >= 0; i = m.next[i] - 1) {
+				n++;
+				assertTrue(i < m.size);
+				assertEquals(b, m.hashes[i] & (m.table.length - 1));
+			}
+		}
+		assertEquals(m.size, n);
+		for (int i = m.size; i < m.keys.length; i++)
+			assertTrue(m.keys[i] == null && m.vals[i] == null);
+	}
+}
@@ -0,0 +1,239 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Randomized differential tests of {@link CompactLinkedHashMap} against
+ * {@code java.util.LinkedHashMap}.
+ */
+public class CompactLinkedHashMapTest {
+
+	@Test
+	public void randomOperationsKeepTheOrderOfJavaUtil() throws Exception {
+		Random r = new Random(24);
+		for (int round = 0; round < 300; round++) {
+			int keys = 1 + r.nextInt(r.nextBoolean() ? 20 : 2000), hashes = 1 + r.nextInt(keys);
+			int max = r.nextInt(3) == 0 ? 1 + r.nextInt(50) : Integer.MAX_VALUE;
+			CompactLinkedHashMap<TestKey, Integer> m = new CompactLinkedHashMap<TestKey, Integer>(r.nextInt(40)) {
+				private static final long serialVersionUID = 1L;
+
+				protected boolean removeEldestEntry(Map.Entry<TestKey, Integer> eldest) {
+					return size() > max;
+				}
+			};
+			java.util.LinkedHashMap<TestKey, Integer> ref = new java.util.LinkedHashMap<TestKey, Integer>() {
+				private static final long serialVersionUID = 1L;
+
+				protected boolean removeEldestEntry(Map.Entry<TestKey, Integer> eldest) {
+					return size() > max;
+				}
+			};
+			for (int i = r.nextInt(4000); i > 0; i--) {
+				int v = r.nextInt(keys);
+				TestKey k = v == 0 ? null : new TestKey(v, v % hashes);
+				switch (r.nextInt(16)) {
+				case 0:
+				case 1:
+				case 2:
+				case 3:
+					assertEquals(ref.put(k, i), m.put(k, i));
+					break;
+				case 4:
+					assertEquals(ref.get(k), m.get(k));
+					assertEquals(ref.containsKey(k), m.containsKey(k));
+					break;
+				case 5:
+				case 6:
+				case 7:
+					assertEquals(ref.remove(k), m.remove(k));
+					break;
+				case 8:
+					assertEquals(ref.putIfAbsent(k, i), m.putIfAbsent(k, i));
+					break;
+				case 9: {
+					Iterator<Map.Entry<TestKey, Integer>> it = m.entrySet().iterator(), rt = ref.entrySet().iterator();
+					int mod = 1 + r.nextInt(4);
+					while (it.hasNext()) {
+						Map.Entry<TestKey, Integer> e = it.next(), f = rt.next();
+						assertEquals(f, e);
+						if (e.getValue() % mod == 0) {
+							it.remove();
+							rt.remove();
+						} else if (r.nextInt(5) == 0) {
+							e.setValue(-i);
+							f.setValue(-i);
+						}
+					}
+					assertFalse(rt.hasNext());
+					break;
+				}
+				case 10:
+					if (r.nextInt(40) == 0) {
+						m.clear();
+						ref.clear();
+					} else if (r.nextInt(10) == 0)
+						assertEquals(ref.keySet().remove(k), m.keySet().remove(k));
+					else
+						assertEquals(ref.entrySet().remove(new AbstractMap.SimpleEntry<>(k, i + 1)),
+								m.entrySet().remove(new AbstractMap.SimpleEntry<>(k, i + 1)));
+					break;
+				case 11: {
+					Map<TestKey, Integer> add = new java.util.LinkedHashMap<>();
+					for (int j = r.nextInt(30); j > 0; j--) {
+						int w = 1 + r.nextInt(keys);
+						add.put(new TestKey(w, w % hashes), j);
+					}
+					m.putAll(add);
+					ref.putAll(add);
+					break;
+				}
+				case 12:
+					if (r.nextInt(20) == 0) {
+						@SuppressWarnings("unchecked")
+						CompactLinkedHashMap<TestKey, Integer> c = (CompactLinkedHashMap<TestKey, Integer>) m.clone();
+						assertContents(c, ref);
+						c.put(new TestKey(-5, 0), 1);
+						assertFalse(m.containsKey(new TestKey(-5, 0)));
+					}
+					break;
+				case 13:
+					if (r.nextInt(50) == 0) {
+						ByteArrayOutputStream bo = new ByteArrayOutputStream();
+						try (ObjectOutputStream out = new ObjectOutputStream(bo)) {
+							out.writeObject(new CompactLinkedHashMap<>(m));
+						}
+						@SuppressWarnings("unchecked")
+						Map<TestKey, Integer> back = (Map<TestKey, Integer>) new ObjectInputStream(
+								new ByteArrayInputStream(bo.toByteArray())).readObject();
+						MapAssert.assertOrder(back, ref);
+					}
+					break;
+				case 14:
+					m.replaceAll((x, w) -> w + 1);
+					ref.replaceAll((x, w) -> w + 1);
+					break;
+				default:
+					if (r.nextInt(10) == 0)
+						m.ensureCapacity(m.size() + r.nextInt(100));
+					assertEquals(ref.containsValue(i + 1), m.containsValue(i + 1));
+				}
+				if (i % 97 == 0)
+					assertContents(m, ref);
+			}
+			assertContents(m, ref);
+			List<TestKey> ks = new ArrayList<>();
+			m.keySet().spliterator().forEachRemaining(ks::add);
+			assertEquals(new ArrayList<>(ref.keySet()), ks);
+		}
+	}
+
+	/**
+	 * 先进先出的淘汰不能让数组无限增长
+	 */
+	@Test
+	public void fifoEvictionReusesTheArrays() {
+		CompactLinkedHashMap<Integer, Integer> m = new CompactLinkedHashMap<Integer, Integer>() {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+				return size() > 1000;
+			}
+		};
+		for (int i = 0; i < 500000; i++)
+			m.put(i, i);
+		assertEquals(1000, m.size());
+		assertTrue(m.keys.length <= 4000);
+		assertEquals(Integer.valueOf(499000), m.keySet().iterator().next());
+		assertNull(m.get(498999));
+	}
+
+	/**
+	 * 只有覆盖了removeEldestEntry的类在插入时创建MapEntry;删除后的MapEntry不能再写入
+	 */
+	@Test
+	public void removedEntriesAreNotWrittenBack() {
+		assertFalse(CompactLinkedHashMap.evictsEldest(CompactLinkedHashMap.class));
+		assertFalse(CompactLinkedHashMap.evictsEldest(new CompactLinkedHashMap<Integer, Integer>() {
+			private static final long serialVersionUID = 1L;
+		}.getClass()));
+		CompactLinkedHashMap<Integer, Integer> m = new CompactLinkedHashMap<Integer, Integer>() {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+				return size() > 2;
+			}
+		};
+		assertTrue(CompactLinkedHashMap.evictsEldest(m.getClass()));
+		m.put(1, 1);
+		m.put(2, 2);
+		Map.Entry<Integer, Integer> e = m.entrySet().iterator().next();
+		m.put(3, 3);
+		assertFalse(m.containsKey(1));
+		assertNull(e.getValue());
+		assertThrows(IllegalStateException.class, () -> e.setValue(10));
+		assertFalse(m.containsKey(1));
+		assertEquals(2, m.size());
+	}
+
+	/**
+	 * 内容和顺序与ref相同,[head, end)之外没有残留数据,删除标记和桶中的链表一致
+	 */
+	static void assertContents(CompactLinkedHashMap<TestKey, Integer> m, Map<TestKey, Integer> ref) {
+		MapAssert.assertOrder(m, ref);
+		MapAssert.assertEqualMaps(m, ref);
+		List<Object> visited = new ArrayList<>(), expected = new ArrayList<>();
+		m.forEach((k, v) -> {
+			visited.add(k);
+			visited.add(v);
+		});
+		ref.forEach((k, v) -> {
+			expected.add(k);
+			expected.add(v);
+		});
+		assertEquals(expected, visited);
+		if (m.table == null)
+			return;
+		int live = 0, removed = 0;
+		for (int i = 0; i < m.keys.length; i++) {
+			Object k = m.keys[i];
+			if (i < m.head || i >= m.end)
+				assertTrue("garbage at " + i, k == null && m.vals[i] == null);
+			else if (k == CompactLinkedHashMap.REMOVED) {
+				removed++;
+				assertTrue(i != m.head && m.vals[i] == null);
+			} else {
+				live++;
+				assertEquals(i, m.indexOf(k));
+			}
+		}
+		assertEquals(m.size, live);
+		assertEquals(m.removed, removed);
+		int n = 0;
+		for (int b = 0; b < m.table.length; b++) {
+			for (int i = m.table[b] - 1; i >= 0; i = m.next[i] - 1) {
+				n++;
+				assertEquals(b, m.hashes[i] & (m.table.length - 1));
+				assertTrue(m.keys[i] != CompactLinkedHashMap.REMOVED);
+			}
+		}
+		assertEquals(m.size, n);
+		assertTrue("keys " + m.keys.length, m.keys.length <= 64 || m.keys.length <= 8 * Math.max(m.size, m.threshold) + 300);
+	}
+}
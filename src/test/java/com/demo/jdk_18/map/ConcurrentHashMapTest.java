@@ -0,0 +1,118 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link ConcurrentHashMap} against {@code java.util.HashMap} and
+ * under concurrent writers, with colliding keys that form tree bins.
+ */
+public class ConcurrentHashMapTest {
+
+	@Test
+	public void singleThreadMatchesJavaUtil() {
+		Random r = new Random(31);
+		for (int round = 0; round < 100; round++) {
+			ConcurrentHashMap<TestKey, Integer> m = new ConcurrentHashMap<>(r.nextInt(64));
+			java.util.HashMap<TestKey, Integer> ref = new java.util.HashMap<>();
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 4 : 100000);
+			for (int i = r.nextInt(4000); i > 0; i--) {
+				TestKey k = new TestKey(r.nextInt(3000), r.nextInt(hashes));
+				final int v = i;
+				switch (r.nextInt(8)) {
+				case 0:
+				case 1:
+				case 2:
+					assertEquals(ref.put(k, v), m.put(k, v));
+					break;
+				case 3:
+					assertEquals(ref.remove(k), m.remove(k));
+					break;
+				case 4:
+					assertEquals(ref.get(k), m.get(k));
+					break;
+				case 5:
+					assertEquals(ref.merge(k, 1, Integer::sum), m.merge(k, 1, Integer::sum));
+					break;
+				case 6:
+					assertEquals(ref.computeIfAbsent(k, x -> v), m.computeIfAbsent(k, x -> v));
+					break;
+				default:
+					if (r.nextInt(100) == 0) {
+						m.clear();
+						ref.clear();
+					} else
+						assertEquals(ref.replace(k, -v), m.replace(k, -v));
+				}
+			}
+			MapAssert.assertEqualMaps(m, ref);
+		}
+	}
+
+	@Test
+	public void concurrentWritersLoseNoUpdates() throws Exception {
+		for (int round = 0; round < 5; round++) {
+			ConcurrentHashMap<TestKey, Integer> m = new ConcurrentHashMap<>();
+			ConcurrentHashMap<Integer, Integer> counts = new ConcurrentHashMap<>(2);
+			int threads = 4, n = 20000;
+			Thread[] ts = new Thread[threads];
+			for (int t = 0; t < threads; t++) {
+				int id = t;
+				ts[t] = new Thread(() -> {
+					for (int i = 0; i < n; i++) {
+						int k = id * n + i;
+						// 只有97个hash,桶会变成红黑树
+						m.put(new TestKey(k, k % 97), k);
+						counts.put(k, k);
+						counts.merge(-1, 1, Integer::sum);
+						if (i % 3 == 0) {
+							m.remove(new TestKey(k, k % 97));
+							counts.remove(k);
+						}
+					}
+				});
+				ts[t].start();
+			}
+			for (Thread t : ts)
+				t.join();
+			int expected = threads * (n - (n + 2) / 3);
+			assertEquals(expected, m.size());
+			assertEquals(expected + 1, counts.size());
+			assertEquals(Integer.valueOf(threads * n), counts.get(-1));
+			for (int k = 0; k < threads * n; k++) {
+				if ((k % n) % 3 == 0) {
+					assertNull(m.get(new TestKey(k, k % 97)));
+					assertNull(counts.get(k));
+				} else {
+					assertEquals(Integer.valueOf(k), m.get(new TestKey(k, k % 97)));
+					assertEquals(Integer.valueOf(k), counts.get(k));
+				}
+			}
+			int c = 0;
+			for (Integer v : counts.values())
+				c += v == null ? 0 : 1;
+			assertEquals(expected + 1, c);
+		}
+	}
+
+	@Test
+	public void serializationCopiesTheMappings() throws Exception {
+		ConcurrentHashMap<String, Integer> m = new ConcurrentHashMap<>();
+		for (int i = 0; i < 1000; i++)
+			m.put("k" + i, i);
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bo)) {
+			out.writeObject(m);
+		}
+		Object back = new ObjectInputStream(new ByteArrayInputStream(bo.toByteArray())).readObject();
+		assertEquals(m, back);
+	}
+}
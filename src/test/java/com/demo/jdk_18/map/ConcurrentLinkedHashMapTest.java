@@ -0,0 +1,150 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link ConcurrentLinkedHashMap} against an access-ordered,
+ * size-bounded {@code java.util.LinkedHashMap}, and under concurrent use.
+ */
+public class ConcurrentLinkedHashMapTest {
+
+	@Test
+	public void singleThreadMatchesBoundedAccessOrderedMap() {
+		Random r = new Random(22);
+		for (int round = 0; round < 200; round++) {
+			int max = 1 + r.nextInt(40);
+			ConcurrentLinkedHashMap<Integer, Integer> m = new ConcurrentLinkedHashMap<>(r.nextInt(64), max);
+			java.util.LinkedHashMap<Integer, Integer> ref = new java.util.LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+					return size() > max;
+				}
+			};
+			for (int i = 0; i < 3000; i++) {
+				int k = r.nextInt(max * 2);
+				switch (r.nextInt(12)) {
+				case 0:
+				case 1:
+				case 2:
+				case 3:
+				case 4:
+					assertEquals(ref.get(k), m.get(k));
+					break;
+				case 5:
+				case 6:
+					assertEquals(ref.put(k, i), m.put(k, i));
+					break;
+				case 7: {
+					Integer v = ref.get(k);
+					assertEquals(v == null ? ref.put(k, i) : v, m.putIfAbsent(k, i));
+					break;
+				}
+				case 8:
+					assertEquals(ref.remove(k), m.remove(k));
+					break;
+				case 9: {
+					// 不读ref,以免改变访问顺序
+					boolean present = false;
+					for (Map.Entry<Integer, Integer> e : ref.entrySet())
+						present |= e.getKey() == k && e.getValue() == i - 1;
+					if (present)
+						ref.remove(k);
+					assertEquals(present, m.remove(k, i - 1));
+					break;
+				}
+				case 10:
+					assertEquals(ref.containsKey(k) ? ref.put(k, -i) : null, m.replace(k, -i));
+					break;
+				default:
+					if (r.nextInt(30) == 0) {
+						m.clear();
+						ref.clear();
+					} else
+						assertEquals(ref.containsKey(k), m.containsKey(k));
+				}
+				assertEquals(ref.size(), m.size());
+			}
+			assertStructure(m);
+			assertEquals(new ArrayList<>(ref.keySet()), m.keysInAccessOrder());
+			MapAssert.assertEqualMaps(m, ref);
+			for (Map.Entry<Integer, Integer> e : m.entrySet())
+				e.setValue(7);
+			for (Integer v : m.values())
+				assertEquals(Integer.valueOf(7), v);
+		}
+	}
+
+	@Test
+	public void concurrentUseKeepsTheListConsistent() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			for (int round = 0; round < 5; round++) {
+				ConcurrentLinkedHashMap<Integer, Integer> m = new ConcurrentLinkedHashMap<>(16, 50 + round * 10);
+				List<Future<?>> tasks = new ArrayList<>();
+				for (int t = 0; t < 4; t++) {
+					Random r = new Random(t);
+					tasks.add(pool.submit(() -> {
+						for (int i = 0; i < 50000; i++) {
+							int k = r.nextInt(400), op = r.nextInt(20);
+							if (op < 16) {
+								Integer v = m.get(k);
+								assertTrue(v == null || v == k);
+							} else if (op < 18)
+								m.put(k, k);
+							else if (op < 19)
+								m.remove(k);
+							else
+								m.replace(k, k);
+						}
+					}));
+				}
+				for (Future<?> f : tasks)
+					f.get();
+				assertStructure(m);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * 处理完读缓冲区之后,链表中的节点正好是data中的节点,且不超过最大数量
+	 */
+	static void assertStructure(ConcurrentLinkedHashMap<Integer, Integer> m) {
+		m.lock.lock();
+		try {
+			m.drainReadBuffers();
+			Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+			ConcurrentLinkedHashMap.Node<Integer, Integer> prev = null;
+			for (ConcurrentLinkedHashMap.Node<Integer, Integer> e = m.head; e != null; e = e.after) {
+				assertSame(prev, e.before);
+				assertTrue(e.linked);
+				assertSame(e, m.data.get(e.key));
+				assertTrue(seen.add(e));
+				prev = e;
+			}
+			assertSame(prev, m.tail);
+			assertEquals(m.data.size(), seen.size());
+			assertTrue(m.data.size() <= m.maximumSize);
+			assertEquals(m.data.isEmpty(), m.head == null);
+		} finally {
+			m.lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link FrozenHashMap} built from {@link HashMap} and from other
+ * maps.
+ */
+public class FrozenHashMapTest {
+
+	@Test
+	public void frozenCopiesMatchTheSource() throws Exception {
+		Random r = new Random(14);
+		for (int round = 0; round < 80; round++) {
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 50 : Integer.MAX_VALUE);
+			HashMap<Object, Integer> m = new HashMap<>();
+			if (r.nextInt(4) == 0)
+				m.enableKeyedHashing();
+			if (r.nextInt(4) == 0)
+				m.setIncrementalResize(true);
+			for (int i = r.nextInt(r.nextInt(20) == 0 ? 50000 : 3000); i > 0; i--)
+				m.put(HashMapTest.key(r, 1 << 20, hashes), i);
+			FrozenHashMap<Object, Integer> f = m.freeze();
+			MapAssert.assertEqualMaps(f, m);
+			for (int i = 0; i < 2000; i++) {
+				Object k = HashMapTest.key(r, 1 << 20, hashes);
+				assertEquals(m.get(k), f.get(k));
+				assertEquals(m.containsKey(k), f.containsKey(k));
+			}
+			MapAssert.assertEqualMaps(FrozenHashMap.copyOf(new java.util.HashMap<>(m)), m);
+			assertThrows(UnsupportedOperationException.class, () -> f.put(1, 1));
+			assertThrows(UnsupportedOperationException.class, () -> f.remove(1));
+			assertThrows(UnsupportedOperationException.class, f::clear);
+		}
+	}
+
+	@Test
+	public void serializationCopiesTheMappings() throws Exception {
+		java.util.HashMap<Object, Integer> m = new java.util.HashMap<>();
+		for (int i = 0; i < 100; i++)
+			m.put("k" + i, i);
+		m.put(null, 3);
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bo)) {
+			out.writeObject(FrozenHashMap.copyOf(m));
+		}
+		Object back = new ObjectInputStream(new ByteArrayInputStream(bo.toByteArray())).readObject();
+		assertTrue(back instanceof FrozenHashMap);
+		assertEquals(m, back);
+	}
+
+	@Test
+	public void emptyMapsFreeze() {
+		FrozenHashMap<Object, Object> f = new HashMap<>().freeze();
+		assertTrue(f.isEmpty());
+		assertNull(f.get("x"));
+		assertEquals(new java.util.HashMap<>(), f);
+	}
+}
@@ -0,0 +1,192 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Round-trip tests of {@link HashMapCodec}; decoded maps must have the same
+ * mappings, bins and trees as maps built by {@code put}.
+ */
+public class HashMapCodecTest {
+
+	static final Serializer<TestKey> KEYS = new Serializer<TestKey>() {
+
+		public int sizeOf(TestKey k) {
+			return 8;
+		}
+
+		public void write(ByteBuffer buf, TestKey k) {
+			buf.putInt(k.v).putInt(k.h);
+		}
+
+		public TestKey read(ByteBuffer buf, int length) {
+			return new TestKey(buf.getInt(), buf.getInt());
+		}
+	};
+
+	@Test
+	public void roundTripsRandomMaps() throws IOException {
+		Random r = new Random(20);
+		HashMapCodec<TestKey, Integer> codec = new HashMapCodec<>(KEYS, Serializer.INT);
+		for (int round = 0; round < 600; round++) {
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 4 : 1000);
+			boolean linked = r.nextBoolean();
+			HashMap<TestKey, Integer> src = linked ? new LinkedHashMap<>()
+					: new HashMap<>(r.nextInt(100), r.nextBoolean() ? 0.75f : 0.5f + r.nextFloat());
+			if (r.nextInt(4) == 0)
+				src.enableKeyedHashing();
+			if (r.nextInt(4) == 0)
+				src.setIncrementalResize(true);
+			for (int i = r.nextInt(r.nextBoolean() ? 20 : 3000); i > 0; i--)
+				src.put(new TestKey(r.nextInt(5000), r.nextInt(hashes)), r.nextInt(10) == 0 ? null : i);
+			if (r.nextInt(5) == 0)
+				src.put(null, 7);
+			Map<TestKey, Integer> ref = new java.util.LinkedHashMap<>(src);
+			ByteArrayOutputStream bo = new ByteArrayOutputStream();
+			codec.writeTo(src, Channels.newChannel(bo));
+			byte[] bytes = bo.toByteArray();
+			HashMap<TestKey, Integer> d;
+			boolean ordered = false;
+			switch (r.nextInt(4)) {
+			case 0:
+				d = codec.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes)));
+				break;
+			case 1:
+				d = codec.readFrom(ByteBuffer.wrap(bytes));
+				break;
+			case 2:
+				d = codec.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes)),
+						new LinkedHashMap<>(r.nextInt(5000), 0.75f));
+				ordered = linked;
+				break;
+			default:
+				// 读入用过的空map
+				d = new HashMap<>(r.nextInt(5000), 0.5f + r.nextFloat());
+				d.put(new TestKey(1, 1), 1);
+				d.clear();
+				codec.readFrom(ByteBuffer.wrap(bytes), d);
+			}
+			if (ordered)
+				MapAssert.assertMappings(d, ref);
+			else if (d instanceof LinkedHashMap) {
+				// 源map没有顺序,只比较内容和结构
+				MapAssert.assertEqualMaps(d, ref);
+				MapAssert.assertMappings(d, new java.util.LinkedHashMap<>(d));
+			} else
+				MapAssert.assertMappings(d, new java.util.HashMap<>(ref));
+			assertTreeified(d);
+			assertTrue(d.size() == 0 || d.threshold >= d.size());
+			d.put(new TestKey(99999, 3), 1);
+			d.remove(new TestKey(99999, 3));
+			MapAssert.assertEqualMaps(d, ref);
+		}
+	}
+
+	@Test
+	public void largeValuesPassThroughTheBuffer() throws IOException {
+		HashMapCodec<String, byte[]> codec = new HashMapCodec<>(Serializer.STRING, Serializer.BYTES);
+		HashMap<String, byte[]> m = new HashMap<>();
+		m.put("a", new byte[200000]);
+		m.put("b", new byte[5]);
+		m.get("a")[199999] = 9;
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		codec.writeTo(m, Channels.newChannel(bo));
+		HashMap<String, byte[]> back = codec.readFrom(Channels.newChannel(new ByteArrayInputStream(bo.toByteArray())));
+		assertEquals(2, back.size());
+		assertArrayEquals(m.get("a"), back.get("a"));
+		assertArrayEquals(m.get("b"), back.get("b"));
+	}
+
+	@Test
+	public void primitiveSerializersRoundTrip() throws IOException {
+		HashMapCodec<Double, Boolean> codec = new HashMapCodec<>(Serializer.DOUBLE, Serializer.BOOLEAN);
+		HashMap<Double, Boolean> m = new HashMap<>();
+		for (int i = 0; i < 1000; i++)
+			m.put(i / 3.0, i % 2 == 0);
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		codec.writeTo(m, Channels.newChannel(bo));
+		assertEquals(m, codec.readFrom(ByteBuffer.wrap(bo.toByteArray())));
+	}
+
+	/**
+	 * 单独的代理字符也要原样还原,否则读取的key和保存的hash对应不上
+	 */
+	@Test
+	public void stringKeysRoundTripLosslessly() throws IOException {
+		Random r = new Random(20);
+		HashMap<String, Integer> m = new HashMap<>();
+		m.put("x\uD800", 1);
+		m.put("\uDC00", 2);
+		m.put("\uDBFF\uDFFF\uD800", 3);
+		for (int i = 0; i < 5000; i++) {
+			StringBuilder sb = new StringBuilder();
+			for (int c = r.nextInt(8); c > 0; c--)
+				sb.append((char) (r.nextBoolean() ? r.nextInt(0x10000) : 0xd800 + r.nextInt(0x800)));
+			String s = sb.toString();
+			ByteBuffer b = ByteBuffer.allocate(Serializer.STRING.sizeOf(s));
+			Serializer.STRING.write(b, s);
+			assertFalse(b.hasRemaining());
+			b.flip();
+			assertEquals(s, Serializer.STRING.read(b, b.remaining()));
+			// 合法的字符串和标准UTF-8相同
+			if (s.equals(new String(s.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8)))
+				assertArrayEquals(s.getBytes(StandardCharsets.UTF_8), b.array());
+			m.put(s, i);
+		}
+		HashMapCodec<String, Integer> codec = new HashMapCodec<>(Serializer.STRING, Serializer.INT);
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		codec.writeTo(m, Channels.newChannel(bo));
+		HashMap<String, Integer> back = codec.readFrom(ByteBuffer.wrap(bo.toByteArray()));
+		MapAssert.assertMappings(back, m);
+		assertNull(back.get("x?"));
+		back.put("x\uD800", 4);
+		assertEquals(m.size(), back.size());
+	}
+
+	@Test
+	public void rejectsTruncatedOrForeignInput() throws IOException {
+		HashMapCodec<String, byte[]> codec = new HashMapCodec<>(Serializer.STRING, Serializer.BYTES);
+		HashMap<String, byte[]> m = new HashMap<>();
+		for (int i = 0; i < 100; i++)
+			m.put("k" + i, new byte[i]);
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		codec.writeTo(m, Channels.newChannel(bo));
+		byte[] truncated = Arrays.copyOf(bo.toByteArray(), 40);
+		IOException e = assertThrows(IOException.class, () -> codec.readFrom(ByteBuffer.wrap(truncated)));
+		assertTrue(e instanceof EOFException || e instanceof StreamCorruptedException);
+		assertThrows(StreamCorruptedException.class, () -> codec.readFrom(ByteBuffer.wrap(new byte[64])));
+	}
+
+	/**
+	 * 和put一样,超过阈值的桶变成红黑树
+	 */
+	static void assertTreeified(HashMap<TestKey, Integer> m) {
+		HashMap.Node<TestKey, Integer>[] tab = m.table;
+		if (tab == null || tab.length < HashMap.MIN_TREEIFY_CAPACITY || m.adaptiveTreeify)
+			return;
+		for (HashMap.Node<TestKey, Integer> first : tab) {
+			int n = 0;
+			for (HashMap.Node<TestKey, Integer> e = first; e != null; e = e.next)
+				n++;
+			assertFalse("untreeified bin of " + n, n > HashMap.TREEIFY_THRESHOLD && !(first instanceof HashMap.TreeNode));
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+
+import org.junit.Test;
+
+/**
+ * Tests of the balanced spliterators and the {@link MapCursor} of
+ * {@link HashMap}.
+ */
+public class HashMapIterationTest {
+
+	@Test
+	public void balancedSpliteratorsReportExactSizes() {
+		Random r = new Random(16);
+		for (int round = 0; round < 600; round++) {
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 4 : 1 << 20);
+			HashMap<TestKey, Integer> m = new HashMap<>(r.nextInt(1 << 12));
+			m.setBalancedSpliterators(true);
+			int n = r.nextInt(r.nextBoolean() ? 50 : 20000);
+			for (int i = 0; i < n; i++)
+				m.put(new TestKey(r.nextInt(1 << 20), r.nextInt(hashes)), i);
+			if (r.nextBoolean())
+				for (int i = 0; i < n / 2; i++)
+					m.remove(new TestKey(r.nextInt(1 << 20), r.nextInt(hashes)));
+			int which = r.nextInt(3);
+			@SuppressWarnings("unchecked")
+			Spliterator<Object> root = (Spliterator<Object>) (which == 0 ? m.keySet().spliterator()
+					: which == 1 ? m.values().spliterator() : m.entrySet().spliterator());
+			assertSized(root);
+			assertEquals(m.size(), root.estimateSize());
+			int total = 0;
+			// 有时先消费几个元素再拆分
+			if (r.nextInt(4) == 0)
+				for (int k = r.nextInt(5); k > 0 && root.tryAdvance(x -> {
+				}); k--)
+					total++;
+			List<Spliterator<Object>> parts = new ArrayList<>();
+			split(root, parts, r, 0);
+			for (Spliterator<Object> p : parts) {
+				long est = p.estimateSize();
+				int[] c = { 0 };
+				if (r.nextBoolean()) {
+					while (p.tryAdvance(x -> c[0]++))
+						assertEquals(est - c[0], p.estimateSize());
+				} else
+					p.forEachRemaining(x -> c[0]++);
+				assertEquals(est, c[0]);
+				total += c[0];
+			}
+			assertEquals(m.size(), total);
+		}
+	}
+
+	/**
+	 * 大数组中只有前面的桶有数据时,平衡拆分仍然得到大小相近的部分
+	 */
+	@Test
+	public void balancedSpliteratorsSplitSkewedTablesEvenly() {
+		HashMap<Integer, Integer> m = new HashMap<>(1 << 20);
+		m.setBalancedSpliterators(true);
+		for (int i = 0; i < 100000; i++)
+			m.put(i, i);
+		List<Spliterator<Integer>> parts = new ArrayList<>();
+		parts.add(m.keySet().spliterator());
+		for (int level = 0; level < 3; level++) {
+			List<Spliterator<Integer>> next = new ArrayList<>();
+			for (Spliterator<Integer> s : parts) {
+				Spliterator<Integer> p = s.trySplit();
+				if (p != null)
+					next.add(p);
+				next.add(s);
+			}
+			parts = next;
+		}
+		assertEquals(8, parts.size());
+		for (Spliterator<Integer> s : parts) {
+			int[] c = { 0 };
+			s.forEachRemaining(x -> c[0]++);
+			assertTrue("part of " + c[0], c[0] > 100000 / 16 && c[0] < 100000 / 4);
+		}
+		assertEquals(99999L * 100000 / 2, m.keySet().parallelStream().mapToLong(x -> x).sum());
+	}
+
+	@Test
+	public void cursorVisitsMappingsInIterationOrder() {
+		Random r = new Random(17);
+		for (int round = 0; round < 1500; round++) {
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 3 : 1000);
+			int kind = r.nextInt(3);
+			HashMap<TestKey, Integer> m = kind == 0 ? new HashMap<>() : new LinkedHashMap<>(16, 0.75f, kind == 2);
+			for (int i = r.nextInt(300); i > 0; i--)
+				m.put(new TestKey(r.nextInt(1000), r.nextInt(hashes)), i);
+			MapCursor<TestKey, Integer> c = m.cursor();
+			for (int pass = 0; pass < 3; pass++) {
+				List<Map.Entry<TestKey, Integer>> expected = new ArrayList<>(m.entrySet());
+				List<Map.Entry<TestKey, Integer>> got = new ArrayList<>();
+				if (pass > 0)
+					c.reset();
+				while (c.advance())
+					got.add(new AbstractMap.SimpleEntry<>(c.key(), c.value()));
+				assertEquals(expected, got);
+			}
+
+			java.util.HashMap<TestKey, Integer> ref = new java.util.HashMap<>(m);
+			c.reset();
+			while (c.advance()) {
+				switch (r.nextInt(3)) {
+				case 0:
+					assertEquals(ref.put(c.key(), -1), c.setValue(-1));
+					break;
+				case 1:
+					ref.remove(c.key());
+					c.remove();
+					assertThrows(NoSuchElementException.class, c::key);
+					break;
+				default:
+				}
+			}
+			MapAssert.assertEqualMaps(m, ref);
+			c.reset();
+			if (m.size() > 0) {
+				m.put(new TestKey(5000 + round, 0), 1);
+				assertThrows(ConcurrentModificationException.class, c::advance);
+			}
+			HashMap<TestKey, Integer> other = new HashMap<>();
+			other.put(new TestKey(1, 1), 1);
+			c.reset(other);
+			assertTrue(c.advance());
+			assertEquals(new TestKey(1, 1), c.key());
+			assertFalse(c.advance());
+		}
+	}
+
+	static <T> void split(Spliterator<T> s, List<Spliterator<T>> out, Random r, int depth) {
+		if (depth < 20 && r.nextInt(8) != 0) {
+			Spliterator<T> p = s.trySplit();
+			if (p != null) {
+				assertSized(p);
+				assertSized(s);
+				split(p, out, r, depth + 1);
+			}
+		}
+		out.add(s);
+	}
+
+	static void assertSized(Spliterator<?> s) {
+		assertTrue(s.hasCharacteristics(Spliterator.SIZED) && s.hasCharacteristics(Spliterator.SUBSIZED));
+	}
+}
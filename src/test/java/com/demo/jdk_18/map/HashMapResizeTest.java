@@ -0,0 +1,461 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Tests of incremental, parallel and shrinking resizes of {@link HashMap},
+ * including tables with tree bins.
+ */
+public class HashMapResizeTest {
+
+	@Test
+	public void incrementalResizeMatchesJavaUtil() {
+		Random r = new Random(11);
+		for (int round = 0; round < 10; round++) {
+			HashMap<TestKey, Integer> m = round % 2 == 0 ? new HashMap<>() : new LinkedHashMap<>();
+			Map<TestKey, Integer> ref = round % 2 == 0 ? new java.util.HashMap<>() : new java.util.LinkedHashMap<>();
+			m.setIncrementalResize(true);
+			int migrating = 0;
+			for (int i = 0; i < 60000; i++) {
+				int v = r.nextInt(20000);
+				// 每97个key中有一个hash相同,制造红黑树
+				TestKey k = new TestKey(v, v % 97 == 0 ? 12345 : v * 31);
+				switch (r.nextInt(10)) {
+				case 0:
+				case 1:
+				case 2:
+				case 3:
+				case 4:
+					assertEquals(ref.put(k, i), m.put(k, i));
+					break;
+				case 5:
+				case 6:
+					assertEquals(ref.get(k), m.get(k));
+					break;
+				case 7:
+					assertEquals(ref.remove(k), m.remove(k));
+					break;
+				case 8:
+					assertEquals(ref.computeIfAbsent(k, x -> 7), m.computeIfAbsent(k, x -> 7));
+					break;
+				default:
+					assertEquals(ref.merge(k, 1, Integer::sum), m.merge(k, 1, Integer::sum));
+				}
+				if (m.oldTable != null && migrating++ % 1000 == 0)
+					MapAssert.assertMappings(m, ref);
+			}
+			assertTrue("never migrating", migrating > 0);
+			MapAssert.assertMappings(m, ref);
+			MapAssert.assertEqualMaps(m, ref);
+			assertEquals(ref.size(), m.keySet().parallelStream().count());
+		}
+	}
+
+	/**
+	 * 迁移过程中的各种遍历都要看到每个映射正好一次,并且遍历本身不推进迁移
+	 */
+	@Test
+	public void iterationDuringMigrationSeesEveryMappingOnce() {
+		Random r = new Random(26);
+		for (int round = 0; round < 140; round++) {
+			HashMap<TestKey, Integer> m = new HashMap<>();
+			m.setIncrementalResize(true);
+			if (r.nextBoolean())
+				m.setBalancedSpliterators(true);
+			java.util.HashMap<TestKey, Integer> ref = new java.util.HashMap<>();
+			int keys = 2000 + r.nextInt(20000), hashes = 1 + r.nextInt(keys);
+			for (int i = 1000 + r.nextInt(8000); i > 0; i--) {
+				int v = r.nextInt(keys);
+				TestKey k = new TestKey(v, v % hashes);
+				m.put(k, i);
+				ref.put(k, i);
+			}
+			// 继续添加,直到下一次扩容开始
+			while (m.oldTable == null) {
+				int v = keys + r.nextInt(keys);
+				TestKey k = new TestKey(v, v % hashes);
+				m.put(k, v);
+				ref.put(k, v);
+			}
+			HashMap.Node<TestKey, Integer>[] old = m.oldTable;
+			int oldNodes = 0;
+			for (HashMap.Node<TestKey, Integer> e : old)
+				for (; e != null; e = e.next)
+					oldNodes++;
+			List<Map.Entry<TestKey, Integer>> seen = new ArrayList<>();
+			int mode = r.nextInt(7);
+			switch (mode) {
+			case 0:
+				for (Map.Entry<TestKey, Integer> e : m.entrySet())
+					seen.add(new AbstractMap.SimpleEntry<>(e));
+				break;
+			case 1:
+				m.forEach((k, v) -> seen.add(new AbstractMap.SimpleEntry<>(k, v)));
+				break;
+			case 2:
+				m.entrySet().spliterator().forEachRemaining(e -> seen.add(new AbstractMap.SimpleEntry<>(e)));
+				break;
+			case 3: {
+				Deque<Spliterator<Map.Entry<TestKey, Integer>>> q = new ArrayDeque<>();
+				q.add(m.entrySet().spliterator());
+				while (!q.isEmpty()) {
+					Spliterator<Map.Entry<TestKey, Integer>> s = q.poll(), t = r.nextInt(3) > 0 ? s.trySplit() : null;
+					if (t != null) {
+						q.add(t);
+						q.add(s);
+					} else
+						while (s.tryAdvance(e -> seen.add(new AbstractMap.SimpleEntry<>(e))))
+							;
+				}
+				break;
+			}
+			case 4: {
+				MapCursor<TestKey, Integer> c = m.cursor();
+				while (c.advance())
+					seen.add(new AbstractMap.SimpleEntry<>(c.key(), c.value()));
+				break;
+			}
+			case 5:
+				assertTrue(m.containsValue(ref.values().iterator().next()));
+				assertFalse(m.containsValue(-7));
+				seen.addAll(ref.entrySet());
+				break;
+			default:
+				for (Iterator<TestKey> it = m.keySet().iterator(); it.hasNext();) {
+					TestKey k = it.next();
+					if (r.nextInt(3) == 0) {
+						it.remove();
+						ref.remove(k);
+					}
+				}
+				seen.addAll(ref.entrySet());
+			}
+			if (mode != 6) {
+				// 只读的遍历不迁移
+				assertNotNull(m.oldTable);
+				int left = 0;
+				for (HashMap.Node<TestKey, Integer> e : old)
+					for (; e != null; e = e.next)
+						left++;
+				assertEquals(oldNodes, left);
+			}
+			java.util.HashMap<TestKey, Integer> got = new java.util.HashMap<>();
+			for (Map.Entry<TestKey, Integer> e : seen)
+				assertNull("twice " + e, got.put(e.getKey(), e.getValue()));
+			assertEquals(ref, got);
+			MapAssert.assertMappings(m, ref);
+
+			// 迁移中的遍历顺序和迁移完成后的一样
+			List<TestKey> before = new ArrayList<>(m.keySet());
+			m.setIncrementalResize(false);
+			assertNull(m.oldTable);
+			assertEquals(before, new ArrayList<>(m.keySet()));
+		}
+	}
+
+	/**
+	 * 只有读操作时迁移也会完成,LinkedHashMap覆盖的读方法也一样
+	 */
+	@Test
+	public void readsAdvanceTheMigration() {
+		for (int kind = 0; kind < 3; kind++) {
+			for (int op = 0; op < 3; op++) {
+				HashMap<Integer, Integer> m = kind == 0 ? new HashMap<>() : new LinkedHashMap<>(16, 0.75f, kind == 2);
+				m.setIncrementalResize(true);
+				for (int i = 0; m.oldTable == null; i++)
+					m.put(i, i);
+				int size = m.size(), oldCap = m.oldTable.length;
+				for (int i = 0; i < oldCap / HashMap.INCREMENTAL_RESIZE_STEP; i++) {
+					Integer k = i % (2 * size);
+					if (op == 0)
+						assertEquals(k < size ? k : null, m.get(k));
+					else if (op == 1)
+						assertEquals(k < size ? k : Integer.valueOf(-1), m.getOrDefault(k, -1));
+					else
+						assertEquals(k < size, m.containsKey(k));
+				}
+				assertNull(m.oldTable);
+				assertEquals(size, m.size());
+			}
+		}
+	}
+
+	/**
+	 * 遍历中的get和更新已有key会迁移桶(不修改modCount),红黑树拆分后迭代器和MapCursor拿到的节点仍然要在map中,
+	 * 通过它们写入的值不能丢失
+	 */
+	@Test
+	public void readsDuringMigrationKeepIteratedNodes() {
+		Random r = new Random(27);
+		for (int round = 0; round < 300; round++) {
+			boolean linked = r.nextBoolean();
+			HashMap<Object, Integer> m = linked ? new LinkedHashMap<>(16, 0.75f, false) : new HashMap<>();
+			Map<Object, Integer> ref = linked ? new java.util.LinkedHashMap<>() : new java.util.HashMap<>();
+			m.setIncrementalResize(true);
+			int i = 0;
+			for (; i < 700; i++) {
+				m.put(i, i);
+				ref.put(i, i);
+			}
+			// 1024个桶中的一个桶放入相互碰撞的key形成红黑树,扩容时拆分成两个很小的部分
+			int bin = 800 + r.nextInt(1024 - 800), colliding = 9 + r.nextInt(12);
+			List<TestKey> trees = new ArrayList<>();
+			for (int j = 0; j < colliding; j++) {
+				TestKey k = new TestKey(-1 - j, bin + (r.nextBoolean() ? 1024 : 0));
+				trees.add(k);
+				m.put(k, j);
+				ref.put(k, j);
+			}
+			for (; m.oldTable == null; i++) {
+				m.put(i, i);
+				ref.put(i, i);
+			}
+			assertEquals(2048, m.table.length);
+			assertTrue(m.oldTable[bin] instanceof HashMap.TreeNode);
+			int updated = 0;
+			if (r.nextBoolean()) {
+				List<Map.Entry<Object, Integer>> entries = new ArrayList<>();
+				for (Map.Entry<Object, Integer> e : m.entrySet()) {
+					entries.add(e);
+					if (e.getKey() instanceof TestKey)
+						readOrUpdate(r, m, ref, trees);
+				}
+				for (Map.Entry<Object, Integer> e : entries) {
+					if (e.getKey() instanceof TestKey) {
+						e.setValue(-10 - updated);
+						ref.put(e.getKey(), -10 - updated++);
+					}
+				}
+			} else {
+				MapCursor<Object, Integer> c = m.cursor();
+				while (c.advance()) {
+					if (c.key() instanceof TestKey) {
+						readOrUpdate(r, m, ref, trees);
+						c.setValue(-10 - updated);
+						ref.put(c.key(), -10 - updated++);
+					}
+				}
+			}
+			assertEquals(colliding, updated);
+			MapAssert.assertMappings(m, ref);
+			for (TestKey k : trees)
+				assertTrue(m.get(k) <= -10);
+		}
+	}
+
+	/**
+	 * 在红黑树所在的桶中读取或者更新已有的key,会迁移这个桶
+	 */
+	static void readOrUpdate(Random r, HashMap<Object, Integer> m, Map<Object, Integer> ref, List<TestKey> trees) {
+		TestKey k = trees.get(r.nextInt(trees.size()));
+		if (r.nextBoolean())
+			assertEquals(ref.get(k), m.get(k));
+		else if (m.get(k) > -10) {
+			m.put(k, -1);
+			ref.put(k, -1);
+		}
+	}
+
+	@Test
+	public void shrinkAndTrimAcrossTreeBins() {
+		Random r = new Random(18);
+		for (int round = 0; round < 400; round++) {
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 3 : 100000);
+			int kind = r.nextInt(3);
+			HashMap<TestKey, Integer> m = kind == 0 ? new HashMap<>() : new LinkedHashMap<>(16, 0.75f, kind == 2);
+			Map<TestKey, Integer> ref = kind == 0 ? new java.util.HashMap<>()
+					: new java.util.LinkedHashMap<>(16, 0.75f, kind == 2);
+			m.setShrinkRatio(r.nextBoolean() ? 0.25f : 0.1f + r.nextFloat() * 0.39f);
+			if (r.nextInt(4) == 0)
+				m.setIncrementalResize(true);
+			int keys = 1 + r.nextInt(5000);
+			for (int i = r.nextInt(12000); i > 0; i--) {
+				// 交替出现以添加为主和以删除为主的阶段
+				int phase = (i / (1 + r.nextInt(3000))) % 2;
+				TestKey k = new TestKey(r.nextInt(keys), r.nextInt(hashes));
+				int op = r.nextInt(100);
+				if (op < (phase == 0 ? 60 : 20))
+					assertEquals(ref.put(k, i), m.put(k, i));
+				else if (op < 95)
+					assertEquals(ref.remove(k), m.remove(k));
+				else if (op < 97)
+					assertEquals(ref.compute(k, (x, v) -> v == null || v % 2 == 0 ? null : v + 1),
+							m.compute(k, (x, v) -> v == null || v % 2 == 0 ? null : v + 1));
+				else if (op < 98)
+					m.trimToSize();
+				else if (op < 99) {
+					Iterator<TestKey> it = m.keySet().iterator();
+					for (int c = r.nextInt(50); it.hasNext() && c > 0; c--) {
+						TestKey x = it.next();
+						if (r.nextBoolean()) {
+							it.remove();
+							ref.remove(x);
+						}
+					}
+				} else if (r.nextInt(10) == 0) {
+					m.clear();
+					ref.clear();
+				}
+				if (kind == 2 && r.nextInt(5) == 0)
+					assertEquals(ref.get(k), m.get(k));
+			}
+			MapAssert.assertMappings(m, ref);
+			if (m.table != null && m.size() > 0 && m.size() < m.threshold * m.shrinkRatio && m.table.length > 16) {
+				// 下一次删除一定会缩容
+				TestKey any = m.keySet().iterator().next();
+				int before = m.table.length;
+				m.remove(any);
+				ref.remove(any);
+				assertEquals(before / 2, m.table.length);
+				MapAssert.assertMappings(m, ref);
+			}
+			m.trimToSize();
+			MapAssert.assertMappings(m, ref);
+			if (m.size() == 0)
+				assertNull(m.table);
+			else {
+				int cap = m.table.length;
+				assertTrue("trim " + m.size() + " " + cap,
+						m.size() <= (int) (cap * 0.75f) && (cap == 1 || m.size() > (int) (cap / 2 * 0.75f)));
+			}
+		}
+	}
+
+	/**
+	 * 缩容到64个桶以下时红黑树要还原成链表
+	 */
+	@Test
+	public void trimBelowMinTreeifyCapacityUntreeifies() {
+		Random r = new Random(27);
+		for (int round = 0; round < 200; round++) {
+			HashMap<TestKey, Integer> m = new HashMap<>();
+			java.util.HashMap<TestKey, Integer> ref = new java.util.HashMap<>();
+			for (int i = 9 + r.nextInt(40); i > 0; i--) {
+				TestKey k = new TestKey(i, 0);
+				m.put(k, i);
+				ref.put(k, i);
+			}
+			for (int i = 100 + r.nextInt(2000); i > 0; i--) {
+				int v = 1000 + r.nextInt(100000);
+				TestKey k = new TestKey(v, v);
+				m.put(k, v);
+				ref.put(k, v);
+			}
+			assertTrue(m.table[0] instanceof HashMap.TreeNode);
+			for (Iterator<TestKey> it = ref.keySet().iterator(); it.hasNext();) {
+				TestKey k = it.next();
+				if (k.v >= 1000 && r.nextInt(20) > 0) {
+					it.remove();
+					m.remove(k);
+				}
+			}
+			m.trimToSize();
+			MapAssert.assertMappings(m, ref);
+			if (m.table.length < HashMap.MIN_TREEIFY_CAPACITY)
+				for (HashMap.Node<TestKey, Integer> e : m.table)
+					assertFalse("tree in " + m.table.length + " bins", e instanceof HashMap.TreeNode);
+		}
+	}
+
+	@Test
+	public void parallelResizeIsOptIn() {
+		assertEquals(0, HashMap.DEFAULT_PARALLEL_RESIZE_THRESHOLD);
+		HashMap<Integer, Integer> m = new HashMap<>();
+		assertEquals(0, m.parallelResizeThreshold);
+		assertThrows(IllegalArgumentException.class, () -> m.setParallelResizeThreshold(-1));
+		m.setParallelResizeThreshold(1 << 10);
+		assertEquals(1 << 10, m.parallelResizeThreshold);
+	}
+
+	/**
+	 * 不合法的系统属性不开启并行扩容,而不是让HashMap的静态初始化失败
+	 */
+	@Test
+	public void illegalParallelResizeThresholdPropertyIsIgnored() {
+		String name = "com.demo.jdk_18.map.parallelResizeThreshold";
+		try {
+			System.setProperty(name, " 4096 ");
+			assertEquals(4096, HashMap.parallelResizeThresholdProperty());
+			for (String s : new String[] { "abc", "", "0", "-5", "1e6" }) {
+				System.setProperty(name, s);
+				assertEquals(0, HashMap.parallelResizeThresholdProperty());
+			}
+		} finally {
+			System.clearProperty(name);
+		}
+	}
+
+	@Test
+	public void parallelResizeMatchesJavaUtil() {
+		Random r = new Random(3);
+		for (int round = 0; round < 2; round++) {
+			boolean linked = round % 2 == 0;
+			HashMap<TestKey, Integer> m = linked ? new LinkedHashMap<>() : new HashMap<>();
+			Map<TestKey, Integer> ref = linked ? new java.util.LinkedHashMap<>() : new java.util.HashMap<>();
+			m.setParallelResizeThreshold(1 << 10);
+			for (int i = 0; i < 200000; i++) {
+				TestKey k = new TestKey(i, r.nextInt(10) == 0 ? r.nextInt(64) * 1024 : r.nextInt());
+				m.put(k, i);
+				ref.put(k, i);
+			}
+			MapAssert.assertMappings(m, ref);
+		}
+	}
+
+	/**
+	 * 单处理器上resize()不会并行,这里直接在多个线程上运行扩容任务
+	 */
+	@Test
+	public void resizeTaskSplitsBinsOnSeveralThreads() {
+		Random r = new Random(5);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int round = 0; round < 4; round++) {
+				boolean linked = round % 2 == 0;
+				HashMap<TestKey, Integer> m = linked ? new LinkedHashMap<>() : new HashMap<>();
+				Map<TestKey, Integer> ref = linked ? new java.util.LinkedHashMap<>() : new java.util.HashMap<>();
+				// 填到下一次扩容之前
+				while (m.table == null || m.table.length <= 2 * HashMap.PARALLEL_RESIZE_GRANULARITY
+						|| m.size() < m.threshold) {
+					TestKey k = new TestKey(ref.size(), r.nextInt(10) == 0 ? r.nextInt(64) * 1024 : r.nextInt());
+					m.put(k, 0);
+					ref.put(k, 0);
+				}
+				HashMap.Node<TestKey, Integer>[] oldTab = m.table;
+				@SuppressWarnings("unchecked")
+				HashMap.Node<TestKey, Integer>[] newTab = (HashMap.Node<TestKey, Integer>[]) new HashMap.Node[oldTab.length << 1];
+				HashMap.ResizeTask<TestKey, Integer> task = new HashMap.ResizeTask<>(m, oldTab, newTab, 0, oldTab.length);
+				pool.invoke(task);
+				assertTrue(task.skippedTreeBins);
+				for (int j = 0; j < oldTab.length; j++) {
+					if (oldTab[j] != null)
+						assertTrue(oldTab[j] instanceof HashMap.TreeNode);
+					m.transferBin(oldTab, newTab, j, false);
+				}
+				m.table = newTab;
+				m.threshold <<= 1;
+				MapAssert.assertMappings(m, ref);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
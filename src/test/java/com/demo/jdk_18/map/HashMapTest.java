@@ -0,0 +1,412 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Randomized differential tests of {@link HashMap} and its opt-in modes
+ * against {@code java.util.HashMap}.
+ */
+public class HashMapTest {
+
+	/**
+	 * 随机操作,每种模式的结果都要和java.util.HashMap相同
+	 */
+	@Test
+	public void randomOperationsMatchJavaUtil() throws Exception {
+		Random r = new Random(1);
+		for (int round = 0; round < 120; round++) {
+			HashMap<Object, Integer> m = newMap(r);
+			java.util.HashMap<Object, Integer> ref = new java.util.HashMap<>();
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 4 : 100000);
+			int ops = r.nextInt(4000);
+			for (int i = 0; i < ops; i++) {
+				Object k = key(r, 3000, hashes);
+				final int v = i;
+				switch (r.nextInt(16)) {
+				case 0:
+				case 1:
+				case 2:
+				case 3:
+					assertEquals(ref.put(k, v), m.put(k, v));
+					break;
+				case 4:
+					assertEquals(ref.get(k), m.get(k));
+					assertEquals(ref.containsKey(k), m.containsKey(k));
+					break;
+				case 5:
+				case 6:
+					assertEquals(ref.remove(k), m.remove(k));
+					break;
+				case 7:
+					assertEquals(ref.putIfAbsent(k, v), m.putIfAbsent(k, v));
+					break;
+				case 8:
+					assertEquals(ref.computeIfAbsent(k, x -> v), m.computeIfAbsent(k, x -> v));
+					break;
+				case 9:
+					assertEquals(ref.compute(k, (x, o) -> o == null ? Integer.valueOf(v) : (o % 3 == 0 ? null : o + 1)),
+							m.compute(k, (x, o) -> o == null ? Integer.valueOf(v) : (o % 3 == 0 ? null : o + 1)));
+					break;
+				case 10:
+					assertEquals(ref.computeIfPresent(k, (x, o) -> o % 2 == 0 ? null : -o),
+							m.computeIfPresent(k, (x, o) -> o % 2 == 0 ? null : -o));
+					break;
+				case 11:
+					assertEquals(ref.merge(k, 1, Integer::sum), m.merge(k, 1, Integer::sum));
+					break;
+				case 12:
+					assertEquals(ref.replace(k, v), m.replace(k, v));
+					assertEquals(ref.remove(k, v - 1), m.remove(k, v - 1));
+					break;
+				case 13:
+					if (r.nextInt(20) == 0) {
+						int mod = 2 + r.nextInt(3);
+						for (Iterator<Map.Entry<Object, Integer>> it = m.entrySet().iterator(); it.hasNext();) {
+							Map.Entry<Object, Integer> e = it.next();
+							if (e.getValue() % mod == 0) {
+								it.remove();
+								ref.remove(e.getKey());
+							}
+						}
+					}
+					break;
+				case 14:
+					if (r.nextInt(10) == 0) {
+						Map<Object, Integer> add = new java.util.HashMap<>();
+						for (int j = r.nextInt(100); j > 0; j--)
+							add.put(key(r, 3000, hashes), j);
+						m.putAll(add);
+						ref.putAll(add);
+					}
+					break;
+				default:
+					if (r.nextInt(100) == 0) {
+						m.clear();
+						ref.clear();
+					} else if (r.nextInt(20) == 0)
+						m.trimToSize();
+				}
+				if (i % 500 == 0)
+					MapAssert.assertMappings(m, ref);
+			}
+			MapAssert.assertMappings(m, ref);
+			MapAssert.assertEqualMaps(m, ref);
+			assertEquals(ref.containsValue(ops - 1), m.containsValue(ops - 1));
+		}
+	}
+
+	@Test
+	public void cloneAndSerializationCopyTheMappings() throws Exception {
+		Random r = new Random(2);
+		for (int round = 0; round < 40; round++) {
+			HashMap<Object, Integer> m = newMap(r);
+			java.util.HashMap<Object, Integer> ref = new java.util.HashMap<>();
+			for (int i = r.nextInt(3000); i > 0; i--) {
+				Object k = key(r, 5000, 1 + r.nextInt(64));
+				m.put(k, i);
+				ref.put(k, i);
+			}
+			@SuppressWarnings("unchecked")
+			HashMap<Object, Integer> c = (HashMap<Object, Integer>) m.clone();
+			MapAssert.assertMappings(c, ref);
+			assertEquals(m.isKeyedHashing(), c.isKeyedHashing());
+			c.put("only in clone", 1);
+			assertFalse(m.containsKey("only in clone"));
+
+			ByteArrayOutputStream bo = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bo)) {
+				out.writeObject(m);
+			}
+			@SuppressWarnings("unchecked")
+			HashMap<Object, Integer> back = (HashMap<Object, Integer>) new ObjectInputStream(
+					new ByteArrayInputStream(bo.toByteArray())).readObject();
+			MapAssert.assertMappings(back, ref);
+		}
+	}
+
+	/**
+	 * 源map也是HashMap时的putAll和复制构造,目标map为空或者已经有内容,链表和红黑树的桶都会被搬运
+	 */
+	@Test
+	public void putAllFromHashMapMatchesJavaUtil() {
+		Random r = new Random(7);
+		for (int round = 0; round < 200; round++) {
+			HashMap<Object, Integer> src = r.nextBoolean() ? new LinkedHashMap<>() : newMap(r);
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 4 : 100000);
+			for (int i = r.nextInt(2000); i > 0; i--)
+				src.put(key(r, 3000, hashes), i);
+			HashMap<Object, Integer> m = r.nextBoolean() ? new LinkedHashMap<>() : newMap(r);
+			Map<Object, Integer> ref = m instanceof LinkedHashMap ? new java.util.LinkedHashMap<>()
+					: new java.util.HashMap<>();
+			for (int i = r.nextInt(3) == 0 ? 0 : r.nextInt(2000); i > 0; i--) {
+				Object k = key(r, 3000, hashes);
+				m.put(k, -i);
+				ref.put(k, -i);
+			}
+			m.putAll(src);
+			ref.putAll(src);
+			MapAssert.assertMappings(m, ref);
+			MapAssert.assertMappings(src instanceof LinkedHashMap ? new LinkedHashMap<>(src) : new HashMap<>(src),
+					src instanceof LinkedHashMap ? new java.util.LinkedHashMap<>(src) : new java.util.HashMap<>(src));
+		}
+	}
+
+	@Test
+	public void keyedHashingSpreadsCollidingStrings() {
+		HashMap<Object, Integer> m = new HashMap<>();
+		m.enableKeyedHashing();
+		// "Aa"和"BB"的hashCode相同,4096个key的hashCode全部相同
+		for (int i = 0; i < 4096; i++)
+			m.put(colliding(i, 12), i);
+		int max = 0;
+		for (HashMap.Node<Object, Integer> e : m.table) {
+			int c = 0;
+			for (; e != null; e = e.next)
+				c++;
+			max = Math.max(max, c);
+		}
+		assertTrue("longest chain " + max, max <= HashMap.TREEIFY_THRESHOLD);
+		for (int i = 0; i < 4096; i++)
+			assertEquals(Integer.valueOf(i), m.get(colliding(i, 12)));
+		assertThrows(IllegalStateException.class, m::enableKeyedHashing);
+		HashMap<Object, Integer> plain = new HashMap<>(m);
+		assertFalse(plain.isKeyedHashing());
+		MapAssert.assertEqualMaps(plain, m);
+	}
+
+	@Test
+	public void hashedKeysMatchPlainOperations() {
+		Random r = new Random(3);
+		for (int round = 0; round < 100; round++) {
+			HashMap<Object, Integer> m = newMap(r);
+			java.util.HashMap<Object, Integer> ref = new java.util.HashMap<>();
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 4 : 100000);
+			for (int i = r.nextInt(3000); i > 0; i--) {
+				Object k = key(r, 3000, hashes);
+				HashedKey<Object> t = HashedKey.of(k);
+				final int v = i;
+				switch (r.nextInt(6)) {
+				case 0:
+				case 1:
+					assertEquals(ref.put(k, v), m.putHashed(t, v));
+					break;
+				case 2:
+					assertEquals(ref.remove(k), m.removeHashed(t));
+					break;
+				case 3:
+					assertEquals(ref.get(k), m.getHashed(t));
+					assertEquals(ref.containsKey(k), m.containsKeyHashed(t));
+					break;
+				case 4:
+					assertEquals(ref.compute(k, (x, o) -> o == null ? Integer.valueOf(v) : (o % 3 == 0 ? null : o + 1)),
+							m.computeHashed(t, (x, o) -> o == null ? Integer.valueOf(v) : (o % 3 == 0 ? null : o + 1)));
+					break;
+				default:
+					assertEquals(ref.computeIfAbsent(k, x -> -v), m.computeIfAbsentHashed(t, x -> -v));
+				}
+			}
+			MapAssert.assertMappings(m, ref);
+			HashedKey<?>[] ks = new HashedKey<?>[r.nextInt(200)];
+			int expected = 0;
+			for (int i = 0; i < ks.length; i++) {
+				ks[i] = HashedKey.of(key(r, 6000, hashes));
+				if (ref.containsKey(ks[i].key()))
+					expected++;
+			}
+			Integer[] vs = new Integer[ks.length + 3];
+			assertEquals(expected, m.getAllHashed(ks, vs));
+			for (int i = 0; i < ks.length; i++)
+				assertEquals(ref.get(ks[i].key()), vs[i]);
+		}
+	}
+
+	@Test
+	public void batchPutAllAndGetAllMatchSingleOperations() {
+		Random r = new Random(4);
+		for (int round = 0; round < 100; round++) {
+			HashMap<Object, Integer> m = r.nextBoolean() ? new LinkedHashMap<>() : new HashMap<>(r.nextInt(100));
+			if (r.nextBoolean())
+				m.setIncrementalResize(true);
+			Map<Object, Integer> ref = m instanceof LinkedHashMap ? new java.util.LinkedHashMap<>()
+					: new java.util.HashMap<>();
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 4 : 100000);
+			for (int b = 0; b < 4; b++) {
+				int n = r.nextInt(2000);
+				Object[] ks = new Object[n];
+				Integer[] vs = new Integer[n];
+				for (int i = 0; i < n; i++) {
+					ks[i] = key(r, 5000, hashes);
+					vs[i] = r.nextInt();
+					ref.put(ks[i], vs[i]);
+				}
+				m.putAll(ks, vs);
+				MapAssert.assertMappings(m, ref);
+				Object[] q = new Object[r.nextInt(300)];
+				int expected = 0;
+				for (int i = 0; i < q.length; i++) {
+					q[i] = key(r, 10000, hashes);
+					if (ref.containsKey(q[i]))
+						expected++;
+				}
+				Integer[] out = new Integer[q.length];
+				assertEquals(expected, m.getAll(q, out));
+				for (int i = 0; i < q.length; i++)
+					assertEquals(ref.get(q[i]), out[i]);
+			}
+		}
+		assertThrows(IllegalArgumentException.class, () -> new HashMap<Object, Integer>().getAll(new Object[2], new Integer[1]));
+	}
+
+	/**
+	 * hashCode/equals中再次调用批量操作时,外层的批量操作不受影响;equals抛出异常后线程的临时数组不再引用节点
+	 */
+	@Test
+	public void batchOperationsAreReentrant() {
+		HashMap<Object, Integer> inner = new HashMap<>();
+		Object[] innerKeys = new Object[70];
+		for (int i = 0; i < innerKeys.length; i++)
+			inner.put(innerKeys[i] = "k" + i, i);
+		Random r = new Random(5);
+		for (int round = 0; round < 50; round++) {
+			HashMap<Object, Integer> m = new HashMap<>();
+			java.util.HashMap<Object, Integer> ref = new java.util.HashMap<>();
+			int n = 1 + r.nextInt(200);
+			Object[] ks = new Object[n];
+			Integer[] vs = new Integer[n];
+			for (int i = 0; i < n; i++) {
+				ks[i] = new NestingKey(r.nextInt(300), inner, innerKeys, false);
+				vs[i] = i;
+				ref.put(ks[i], vs[i]);
+			}
+			m.putAll(ks, vs);
+			MapAssert.assertEqualMaps(m, ref);
+			Object[] q = new Object[n];
+			for (int i = 0; i < n; i++)
+				q[i] = new NestingKey(r.nextInt(400), inner, innerKeys, false);
+			Integer[] out = new Integer[n];
+			m.getAll(q, out);
+			for (int i = 0; i < n; i++)
+				assertEquals(ref.get(q[i]), out[i]);
+
+			Object[] failing = { new NestingKey(((NestingKey) ks[0]).v, inner, innerKeys, true) };
+			assertThrows(IllegalStateException.class, () -> m.getAll(failing, new Integer[1]));
+			HashMap.BatchScratch s = HashMap.BATCH_SCRATCH.get();
+			assertFalse(s.busy);
+			for (Object b : s.bins)
+				assertNull(b);
+		}
+	}
+
+	/**
+	 * 自适应树化: 查找结果不变,hash完全相同且不能比较的key保持链表
+	 */
+	@Test
+	public void adaptiveTreeificationKeepsLookupsCorrect() {
+		Random r = new Random(6);
+		for (int round = 0; round < 200; round++) {
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 3 : 300);
+			HashMap<Object, Integer> m = r.nextBoolean() ? new HashMap<>() : new LinkedHashMap<>();
+			Map<Object, Integer> ref = m instanceof LinkedHashMap ? new java.util.LinkedHashMap<>()
+					: new java.util.HashMap<>();
+			m.setAdaptiveTreeification(true);
+			boolean ordered = r.nextBoolean();
+			for (int i = r.nextInt(3000); i > 0; i--) {
+				int v = r.nextInt(2000), h = r.nextInt(hashes) * (r.nextBoolean() ? 1 : 65536);
+				Object k = ordered ? new TestKey(v, h) : new TestKey.Unordered(v, h);
+				if (r.nextInt(4) == 0)
+					assertEquals(ref.remove(k), m.remove(k));
+				else
+					assertEquals(ref.put(k, i), m.put(k, i));
+			}
+			MapAssert.assertMappings(m, ref);
+		}
+		HashMap<Object, Integer> m = new HashMap<>();
+		m.setAdaptiveTreeification(true);
+		for (int i = 0; i < 64 * 200; i++)
+			m.put(new TestKey.Unordered(i, (i & 63) * 0x10000), i);
+		for (HashMap.Node<Object, Integer> e : m.table)
+			assertFalse(e instanceof HashMap.TreeNode);
+		for (int i = 0; i < 64 * 200; i++)
+			assertEquals(Integer.valueOf(i), m.get(new TestKey.Unordered(i, (i & 63) * 0x10000)));
+	}
+
+	static HashMap<Object, Integer> newMap(Random r) {
+		HashMap<Object, Integer> m = new HashMap<>(r.nextInt(100), r.nextBoolean() ? 0.75f : 0.5f + r.nextFloat());
+		if (r.nextBoolean())
+			m.setIncrementalResize(true);
+		if (r.nextInt(4) == 0)
+			m.enableKeyedHashing();
+		if (r.nextInt(4) == 0)
+			m.setAdaptiveTreeification(true);
+		if (r.nextInt(3) == 0)
+			m.setShrinkRatio(0.1f + r.nextFloat() * 0.39f);
+		return m;
+	}
+
+	static Object key(Random r, int range, int hashes) {
+		switch (r.nextInt(8)) {
+		case 0:
+			return r.nextInt(20) == 0 ? null : "s" + r.nextInt(range);
+		case 1:
+			return r.nextInt(range);
+		default:
+			return new TestKey(r.nextInt(range), r.nextInt(hashes));
+		}
+	}
+
+	static String colliding(int i, int bits) {
+		StringBuilder sb = new StringBuilder();
+		for (int b = 0; b < bits; b++)
+			sb.append(((i >> b) & 1) == 0 ? "Aa" : "BB");
+		return sb.toString();
+	}
+
+	/**
+	 * hashCode中查询另一个map的批量操作,equals可以抛出异常
+	 */
+	static final class NestingKey {
+
+		final int v;
+
+		final HashMap<Object, Integer> inner;
+
+		final Object[] innerKeys;
+
+		final boolean failing;
+
+		NestingKey(int v, HashMap<Object, Integer> inner, Object[] innerKeys, boolean failing) {
+			this.v = v;
+			this.inner = inner;
+			this.innerKeys = innerKeys;
+			this.failing = failing;
+		}
+
+		public int hashCode() {
+			Integer[] out = new Integer[innerKeys.length];
+			assertEquals(innerKeys.length, inner.getAll(innerKeys, out));
+			for (int i = 0; i < out.length; i++)
+				assertEquals(Integer.valueOf(i), out[i]);
+			return v % 7;
+		}
+
+		public boolean equals(Object o) {
+			if (failing)
+				throw new IllegalStateException();
+			return o instanceof NestingKey && ((NestingKey) o).v == v;
+		}
+	}
+}
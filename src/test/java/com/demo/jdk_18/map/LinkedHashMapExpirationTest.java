@@ -0,0 +1,266 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests of the time-based expiration of {@link LinkedHashMap} on a fake
+ * ticker, including tickers that overflow.
+ */
+public class LinkedHashMapExpirationTest {
+
+	static final long[] DURATIONS = { 0, TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(5),
+			TimeUnit.MINUTES.toNanos(2), TimeUnit.HOURS.toNanos(3), TimeUnit.DAYS.toNanos(2), TimeUnit.DAYS.toNanos(10) };
+
+	static final long[] STEPS = { TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(500),
+			TimeUnit.SECONDS.toNanos(2), TimeUnit.SECONDS.toNanos(90), TimeUnit.HOURS.toNanos(2), TimeUnit.DAYS.toNanos(3) };
+
+	long now;
+
+	long expireAfterWrite, expireAfterAccess;
+
+	/**
+	 * 随机操作和随机推进时钟,每个映射在截止时间之前可见,之后不可见;
+	 * 时钟可以从接近Long.MAX_VALUE或负数开始,中途溢出
+	 */
+	@Test
+	public void mappingsExpireAtTheirDeadline() {
+		Random r = new Random(23);
+		for (int round = 0; round < 200; round++) {
+			now = round % 4 == 1 ? Long.MAX_VALUE - r.nextInt(100) * TimeUnit.SECONDS.toNanos(1)
+					: round % 4 == 2 ? -r.nextInt(100) * TimeUnit.SECONDS.toNanos(1) : r.nextLong();
+			LinkedHashMap<TestKey, Integer> m = new LinkedHashMap<>(16, 0.75f, r.nextBoolean());
+			m.setTicker(() -> now);
+			// 值为{value, 写入时间, 访问时间}
+			java.util.HashMap<TestKey, long[]> ref = new java.util.HashMap<>();
+			int keys = 1 + r.nextInt(300), hashes = 1 + r.nextInt(keys);
+			// 先放一些数据再开启过期
+			for (int i = r.nextInt(50); i > 0; i--) {
+				int v = r.nextInt(keys);
+				TestKey k = new TestKey(v, v % hashes);
+				m.put(k, i);
+				ref.put(k, new long[] { i, now, now });
+			}
+			expireAfterWrite = DURATIONS[r.nextInt(DURATIONS.length)];
+			expireAfterAccess = DURATIONS[r.nextInt(DURATIONS.length)];
+			if (expireAfterWrite == 0 && expireAfterAccess == 0)
+				expireAfterWrite = DURATIONS[1];
+			m.setExpireAfterWrite(expireAfterWrite, TimeUnit.NANOSECONDS);
+			m.setExpireAfterAccess(expireAfterAccess, TimeUnit.NANOSECONDS);
+			for (int i = 0; i < 3000; i++) {
+				if (r.nextInt(4) == 0)
+					now += STEPS[r.nextInt(STEPS.length)] / (1 + r.nextInt(4));
+				int v = r.nextInt(keys);
+				TestKey k = new TestKey(v, v % hashes);
+				long[] x = ref.get(k);
+				if (x != null && deadline(x) - now <= 0) {
+					ref.remove(k);
+					x = null;
+				}
+				Integer old = x == null ? null : (int) x[0];
+				// 写操作不检查过期,先用containsKey移除已经过期的映射
+				final int value = i;
+				switch (r.nextInt(12)) {
+				case 0:
+				case 1:
+					assertEquals(old, m.get(k));
+					if (x != null)
+						x[2] = now;
+					break;
+				case 2:
+					assertEquals(x == null ? Integer.valueOf(-1) : old, m.getOrDefault(k, -1));
+					if (x != null)
+						x[2] = now;
+					break;
+				case 3:
+					assertEquals(x != null, m.containsKey(k));
+					break;
+				case 4:
+				case 5:
+					m.containsKey(k);
+					assertEquals(old, m.put(k, i));
+					ref.put(k, new long[] { i, now, now });
+					break;
+				case 6:
+					m.containsKey(k);
+					assertEquals(old, m.putIfAbsent(k, i));
+					if (x == null)
+						ref.put(k, new long[] { i, now, now });
+					else
+						x[2] = now;
+					break;
+				case 7:
+					m.containsKey(k);
+					assertEquals(x == null ? Integer.valueOf(value) : old, m.computeIfAbsent(k, q -> value));
+					if (x == null)
+						ref.put(k, new long[] { i, now, now });
+					else
+						x[2] = now;
+					break;
+				case 8:
+					m.containsKey(k);
+					assertEquals(old, m.remove(k));
+					ref.remove(k);
+					break;
+				case 9:
+					m.containsKey(k);
+					m.compute(k, (q, o) -> o == null ? value : o + 1);
+					if (x == null)
+						ref.put(k, new long[] { i, now, now });
+					else {
+						x[0]++;
+						x[1] = x[2] = now;
+					}
+					break;
+				case 10:
+					m.cleanUp();
+					check(m, ref);
+					break;
+				default:
+					if (r.nextInt(50) == 0) {
+						m.clear();
+						ref.clear();
+					} else if (r.nextInt(30) == 0) {
+						// 复制的map中所有映射从现在开始计时
+						@SuppressWarnings("unchecked")
+						LinkedHashMap<TestKey, Integer> c = (LinkedHashMap<TestKey, Integer>) m.clone();
+						m = c;
+						ref.clear();
+						for (LinkedHashMap.Entry<TestKey, Integer> e = m.head; e != null; e = e.after)
+							ref.put(e.key, new long[] { e.value, now, now });
+					}
+				}
+			}
+			m.cleanUp();
+			check(m, ref);
+			m.setExpireAfterWrite(0, TimeUnit.SECONDS);
+			m.setExpireAfterAccess(0, TimeUnit.SECONDS);
+			assertNull(m.timerWheel);
+			for (LinkedHashMap.Entry<TestKey, Integer> e = m.head; e != null; e = e.after)
+				assertNull(e.timer);
+			now += STEPS[5];
+			int size = m.size();
+			m.cleanUp();
+			assertEquals(size, m.size());
+		}
+	}
+
+	@Test
+	public void expiresAcrossTickerOverflow() {
+		for (long start : new long[] { Long.MAX_VALUE - TimeUnit.SECONDS.toNanos(1), -TimeUnit.SECONDS.toNanos(1) }) {
+			now = start;
+			LinkedHashMap<Integer, Integer> m = new LinkedHashMap<>();
+			m.setTicker(() -> now);
+			m.setExpireAfterWrite(10, TimeUnit.SECONDS);
+			for (int i = 0; i < 100; i++) {
+				m.put(i, i);
+				now += TimeUnit.MILLISECONDS.toNanos(100);
+			}
+			// 第i个映射在start + i * 100ms + 10s过期
+			now = start + TimeUnit.SECONDS.toNanos(10) + TimeUnit.MILLISECONDS.toNanos(4950);
+			for (int i = 0; i < 100; i++)
+				assertEquals(i < 50 ? null : Integer.valueOf(i), m.get(i));
+			// 时间轮按桶回收,截止时间之后的一个桶内才会移除
+			m.cleanUp();
+			assertTrue(m.size() >= 50 && m.size() < 100);
+			now = start + TimeUnit.SECONDS.toNanos(25);
+			m.cleanUp();
+			assertEquals(0, m.size());
+			assertNull(m.head);
+		}
+	}
+
+	@Test
+	public void expireAfterAccessIsExtendedByReads() {
+		now = -TimeUnit.MINUTES.toNanos(1);
+		LinkedHashMap<String, Integer> m = new LinkedHashMap<>(16, 0.75f, true);
+		m.setTicker(() -> now);
+		m.setExpireAfterAccess(1, TimeUnit.MINUTES);
+		m.put("a", 1);
+		m.put("b", 2);
+		for (int i = 0; i < 10; i++) {
+			now += TimeUnit.SECONDS.toNanos(30);
+			assertEquals(Integer.valueOf(1), m.get("a"));
+		}
+		assertFalse(m.containsKey("b"));
+		m.cleanUp();
+		assertEquals(1, m.size());
+		assertSame(m.head, m.tail);
+		assertNotNull(m.head.timer);
+	}
+
+	/**
+	 * replaceAll和MapCursor.setValue替换value后重新开始写入后过期的计时
+	 */
+	@Test
+	public void replacingValuesRestartsExpireAfterWrite() {
+		now = 0;
+		LinkedHashMap<String, Integer> m = new LinkedHashMap<>();
+		m.setTicker(() -> now);
+		m.setExpireAfterWrite(1, TimeUnit.MINUTES);
+		m.put("a", 1);
+		m.put("b", 2);
+		now += TimeUnit.SECONDS.toNanos(40);
+		m.replaceAll((k, v) -> k.equals("a") ? v + 10 : v);
+		MapCursor<String, Integer> c = m.cursor();
+		while (c.advance())
+			if (c.key().equals("b"))
+				c.setValue(20);
+		now += TimeUnit.SECONDS.toNanos(40);
+		assertEquals(Integer.valueOf(11), m.get("a"));
+		assertEquals(Integer.valueOf(20), m.get("b"));
+		now += TimeUnit.SECONDS.toNanos(40);
+		assertNull(m.get("a"));
+		m.cleanUp();
+		assertEquals(0, m.size());
+	}
+
+	long deadline(long[] x) {
+		if (expireAfterWrite == 0)
+			return x[2] + expireAfterAccess;
+		long d = x[1] + expireAfterWrite;
+		if (expireAfterAccess != 0 && x[2] + expireAfterAccess - d < 0)
+			d = x[2] + expireAfterAccess;
+		return d;
+	}
+
+	/**
+	 * 没有过期的映射和截止时间与ref相同,过期的映射最多在时间轮中多停留一圈
+	 */
+	void check(LinkedHashMap<TestKey, Integer> m, java.util.HashMap<TestKey, long[]> ref) {
+		ref.values().removeIf(x -> deadline(x) - now <= 0);
+		int live = 0;
+		for (LinkedHashMap.Entry<TestKey, Integer> e = m.head; e != null; e = e.after) {
+			TimerWheel.Timer<TestKey, Integer> t = e.timer;
+			assertTrue(t != null && t.entry == e && t.next != null);
+			assertTrue("not reclaimed " + (now - t.deadline), t.deadline - (now - (1L << 31)) > 0);
+			long[] x = ref.get(e.key);
+			if (x != null) {
+				live++;
+				assertEquals(x[0], (long) e.value);
+				assertEquals(deadline(x), t.deadline);
+			}
+		}
+		assertEquals(ref.size(), live);
+		int n = 0;
+		HashMap.Node<TestKey, Integer>[] tab = m.table;
+		if (tab != null) {
+			for (HashMap.Node<TestKey, Integer> e : tab) {
+				if (e instanceof HashMap.TreeNode)
+					assertTrue(HashMap.TreeNode.checkInvariants((HashMap.TreeNode<TestKey, Integer>) e));
+				for (; e != null; e = e.next, n++)
+					assertSame(e, ((LinkedHashMap.Entry<TestKey, Integer>) e).timer.entry);
+			}
+		}
+		assertEquals(m.size(), n);
+	}
+}
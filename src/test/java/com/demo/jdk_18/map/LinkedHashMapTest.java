@@ -0,0 +1,196 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Randomized differential tests of {@link LinkedHashMap} against
+ * {@code java.util.LinkedHashMap}, in insertion and access order.
+ */
+public class LinkedHashMapTest {
+
+	@Test
+	public void randomOperationsKeepTheOrderOfJavaUtil() {
+		Random r = new Random(21);
+		for (int round = 0; round < 120; round++) {
+			boolean accessOrder = r.nextBoolean();
+			int max = r.nextBoolean() ? Integer.MAX_VALUE : 1 + r.nextInt(500);
+			LinkedHashMap<Object, Integer> m = new LinkedHashMap<Object, Integer>(16, 0.75f, accessOrder) {
+				private static final long serialVersionUID = 1L;
+
+				protected boolean removeEldestEntry(Map.Entry<Object, Integer> eldest) {
+					return size() > max;
+				}
+			};
+			java.util.LinkedHashMap<Object, Integer> ref = new java.util.LinkedHashMap<Object, Integer>(16, 0.75f,
+					accessOrder) {
+				private static final long serialVersionUID = 1L;
+
+				protected boolean removeEldestEntry(Map.Entry<Object, Integer> eldest) {
+					return size() > max;
+				}
+			};
+			if (r.nextBoolean())
+				m.setIncrementalResize(true);
+			if (r.nextInt(4) == 0)
+				m.setShrinkRatio(0.25f);
+			int hashes = 1 + r.nextInt(r.nextBoolean() ? 4 : 100000);
+			for (int i = r.nextInt(4000); i > 0; i--) {
+				Object k = HashMapTest.key(r, 2000, hashes);
+				final int v = i;
+				switch (r.nextInt(12)) {
+				case 0:
+				case 1:
+				case 2:
+					assertEquals(ref.put(k, v), m.put(k, v));
+					break;
+				case 3:
+				case 4:
+					assertEquals(ref.get(k), m.get(k));
+					break;
+				case 5:
+					assertEquals(ref.getOrDefault(k, -1), m.getOrDefault(k, -1));
+					break;
+				case 6:
+					assertEquals(ref.remove(k), m.remove(k));
+					break;
+				case 7:
+					assertEquals(ref.putIfAbsent(k, v), m.putIfAbsent(k, v));
+					break;
+				case 8:
+					assertEquals(ref.computeIfAbsent(k, x -> v), m.computeIfAbsent(k, x -> v));
+					break;
+				case 9:
+					assertEquals(ref.merge(k, 1, Integer::sum), m.merge(k, 1, Integer::sum));
+					break;
+				case 10:
+					assertEquals(ref.replace(k, v), m.replace(k, v));
+					break;
+				default:
+					if (r.nextInt(10) == 0) {
+						Iterator<Object> it = m.keySet().iterator(), rt = ref.keySet().iterator();
+						for (int c = r.nextInt(20); it.hasNext() && c > 0; c--) {
+							assertEquals(rt.next(), it.next());
+							if (r.nextBoolean()) {
+								it.remove();
+								rt.remove();
+							}
+						}
+					} else if (r.nextInt(50) == 0) {
+						m.clear();
+						ref.clear();
+					}
+				}
+			}
+			MapAssert.assertMappings(m, ref);
+			List<Integer> values = new ArrayList<>();
+			m.forEach((k, v) -> values.add(v));
+			assertEquals(new ArrayList<>(ref.values()), values);
+		}
+	}
+
+	@Test
+	public void evictMethodsRemoveTheEldestEntriesInBatches() {
+		Random r = new Random(25);
+		for (int round = 0; round < 300; round++) {
+			boolean accessOrder = r.nextBoolean();
+			LinkedHashMap<TestKey, Integer> m = new LinkedHashMap<>(16, 0.75f, accessOrder);
+			java.util.LinkedHashMap<TestKey, Integer> ref = new java.util.LinkedHashMap<>(16, 0.75f, accessOrder);
+			long[] now = { 0 };
+			if (r.nextBoolean()) {
+				m.setTicker(() -> now[0]);
+				m.setExpireAfterWrite(1, TimeUnit.DAYS);
+			}
+			if (r.nextBoolean())
+				m.setIncrementalResize(true);
+			int keys = 1 + r.nextInt(500), hashes = 1 + r.nextInt(keys);
+			for (int i = 0; i < 2000; i++) {
+				int v = r.nextInt(keys);
+				TestKey k = new TestKey(v, v % hashes);
+				int op = r.nextInt(10);
+				if (op < 5)
+					assertEquals(ref.put(k, i), m.put(k, i));
+				else if (op < 7)
+					assertEquals(ref.get(k), m.get(k));
+				else if (op < 8)
+					assertEquals(ref.remove(k), m.remove(k));
+				else
+					evict(r, m, ref, keys);
+			}
+			MapAssert.assertMappings(m, ref);
+			if (m.timerWheel != null) {
+				now[0] += TimeUnit.DAYS.toNanos(2);
+				m.cleanUp();
+				assertEquals(0, m.size());
+			}
+		}
+		LinkedHashMap<Integer, Integer> m = new LinkedHashMap<>();
+		for (int i = 0; i < 10; i++)
+			m.put(i, i);
+		assertThrows(ConcurrentModificationException.class, () -> m.evictWhile(e -> m.put(100, 1) == null, 1, null));
+		assertThrows(IllegalArgumentException.class, () -> m.evictToSize(0, 0, null));
+	}
+
+	static void evict(Random r, LinkedHashMap<TestKey, Integer> m, java.util.LinkedHashMap<TestKey, Integer> ref,
+			int keys) {
+		int batchSize = 1 + r.nextInt(20);
+		List<List<Map.Entry<TestKey, Integer>>> batches = new ArrayList<>();
+		List<Map.Entry<TestKey, Integer>> expected = new ArrayList<>();
+		int n;
+		switch (r.nextInt(3)) {
+		case 0: {
+			int max = r.nextInt(ref.size() + 1);
+			while (ref.size() > max)
+				expected.add(removeEldest(ref));
+			n = m.evictToSize(max, batchSize, r.nextInt(4) == 0 ? null : batches::add);
+			break;
+		}
+		case 1: {
+			long weight = r.nextInt(3000), sum = 0;
+			while (sum < weight && !ref.isEmpty()) {
+				Map.Entry<TestKey, Integer> e = removeEldest(ref);
+				expected.add(e);
+				sum += e.getKey().v;
+			}
+			assertEquals(sum, m.evictWeight(weight, (k, v) -> k.v, batchSize, batches::add));
+			n = expected.size();
+			break;
+		}
+		default: {
+			int limit = r.nextInt(keys);
+			while (!ref.isEmpty() && ref.keySet().iterator().next().v < limit)
+				expected.add(removeEldest(ref));
+			n = m.evictWhile(e -> e.getKey().v < limit, batchSize, batches::add);
+		}
+		}
+		assertEquals(expected.size(), n);
+		List<Map.Entry<TestKey, Integer>> evicted = new ArrayList<>();
+		for (int j = 0; j < batches.size(); j++) {
+			List<Map.Entry<TestKey, Integer>> b = batches.get(j);
+			// 只有最后一批可以不满
+			assertTrue(!b.isEmpty() && b.size() <= batchSize && (j == batches.size() - 1 || b.size() == batchSize));
+			evicted.addAll(b);
+		}
+		if (!batches.isEmpty())
+			assertEquals(expected, evicted);
+		assertEquals(ref.size(), m.size());
+	}
+
+	static <K, V> Map.Entry<K, V> removeEldest(Map<K, V> ref) {
+		Map.Entry<K, V> e = new AbstractMap.SimpleEntry<>(ref.entrySet().iterator().next());
+		ref.remove(e.getKey());
+		return e;
+	}
+}
@@ -0,0 +1,81 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 和java.util中的map比较的断言,同时检查HashMap内部的结构.
+ */
+final class MapAssert {
+
+	private MapAssert() {
+	}
+
+	/**
+	 * 内容和ref相同,并且每个节点在正确的桶中: 渐进式扩容中没有迁移的旧桶对应的新桶为空,红黑树满足约束.
+	 * LinkedHashMap还要求顺序相同
+	 */
+	static <K, V> void assertMappings(HashMap<K, V> m, Map<K, V> ref) {
+		assertEquals("size", ref.size(), m.size());
+		if (m instanceof LinkedHashMap)
+			assertOrder(m, ref);
+		// 直接查找节点,不改变访问顺序
+		for (Map.Entry<K, V> e : ref.entrySet()) {
+			HashMap.Node<K, V> p = m.getNode(m.hashOf(e.getKey()), e.getKey());
+			if (p == null || !Objects.equals(p.value, e.getValue()))
+				fail("mapping " + e);
+		}
+		HashMap.Node<K, V>[] tab = m.table;
+		int n = 0;
+		if (tab != null) {
+			for (int i = 0; i < tab.length; i++) {
+				for (HashMap.Node<K, V> e = tab[i]; e != null; e = e.next) {
+					n++;
+					assertEquals("bin", i, e.hash & (tab.length - 1));
+				}
+				if (tab[i] instanceof HashMap.TreeNode)
+					assertTrue("tree", HashMap.TreeNode.checkInvariants((HashMap.TreeNode<K, V>) tab[i]));
+			}
+		}
+		HashMap.Node<K, V>[] old = m.oldTable;
+		if (old != null) {
+			for (int j = 0; j < old.length; j++) {
+				for (HashMap.Node<K, V> e = old[j]; e != null; e = e.next) {
+					n++;
+					assertEquals("old bin", j, e.hash & (old.length - 1));
+					assertNull("migrated twice", tab[e.hash & (tab.length - 1)]);
+				}
+			}
+		}
+		assertEquals("nodes", ref.size(), n);
+	}
+
+	/**
+	 * 遍历顺序和ref相同
+	 */
+	static <K, V> void assertOrder(Map<K, V> m, Map<K, V> ref) {
+		assertEquals("order", new ArrayList<>(ref.entrySet()), new ArrayList<>(m.entrySet()));
+	}
+
+	/**
+	 * 内容相同,并且equals和hashCode双向一致
+	 */
+	static <K, V> void assertEqualMaps(Map<K, V> m, Map<K, V> ref) {
+		assertEquals("size", ref.size(), m.size());
+		assertTrue("equals", m.equals(ref) && ref.equals(m));
+		assertEquals("hashCode", ref.hashCode(), m.hashCode());
+		List<K> keys = new ArrayList<>();
+		for (Map.Entry<K, V> e : m.entrySet()) {
+			keys.add(e.getKey());
+			assertEquals(ref.get(e.getKey()), e.getValue());
+		}
+		assertEquals("iteration", ref.size(), keys.size());
+	}
+}
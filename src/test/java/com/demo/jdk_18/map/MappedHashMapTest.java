@@ -0,0 +1,87 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Randomized differential tests of {@link MappedHashMap} against
+ * {@code java.util.HashMap}, reopening the file in between.
+ */
+public class MappedHashMapTest {
+
+	@Test
+	public void randomOperationsSurviveReopening() throws IOException {
+		File f = tempFile();
+		Random r = new Random(5);
+		java.util.HashMap<String, String> ref = new java.util.HashMap<>();
+		MappedHashMap<String, String> m = new MappedHashMap<>(f, Serializer.STRING, Serializer.STRING);
+		try {
+			for (int i = 0; i < 60000; i++) {
+				String k = "k" + r.nextInt(20000) + (r.nextInt(50) == 0 ? "\u00e9\ud83d\ude00" : "");
+				int op = r.nextInt(10);
+				if (op < 6) {
+					String v = "v" + r.nextInt(1000000);
+					assertEquals(ref.put(k, v), m.put(k, v));
+				} else if (op < 8)
+					assertEquals(ref.remove(k), m.remove(k));
+				else
+					assertEquals(ref.get(k), m.get(k));
+				if (i % 20000 == 0) {
+					m.close();
+					m = new MappedHashMap<>(f, Serializer.STRING, Serializer.STRING);
+				}
+			}
+			MapAssert.assertEqualMaps(m, ref);
+			for (Iterator<Map.Entry<String, String>> it = m.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<String, String> e = it.next();
+				if (e.getKey().hashCode() % 3 == 0) {
+					it.remove();
+					ref.remove(e.getKey());
+				}
+			}
+			m.close();
+			m = new MappedHashMap<>(f, Serializer.STRING, Serializer.STRING);
+			MapAssert.assertEqualMaps(m, ref);
+			m.clear();
+			assertTrue(m.isEmpty());
+			assertNull(m.get("k1"));
+			m.put("a", "b");
+			m.close();
+			m = new MappedHashMap<>(f, Serializer.STRING, Serializer.STRING);
+			assertEquals(1, m.size());
+			assertEquals("b", m.get("a"));
+		} finally {
+			m.close();
+		}
+	}
+
+	@Test
+	public void fixedSizeKeysGrowTheFile() throws IOException {
+		MappedHashMap<Long, byte[]> m = new MappedHashMap<>(tempFile(), Serializer.LONG, Serializer.BYTES);
+		try {
+			for (long i = 0; i < 200000; i++)
+				m.put(i, new byte[] { (byte) i });
+			assertEquals(200000, m.size());
+			for (long i = 0; i < 200000; i++)
+				assertEquals((byte) i, m.get(i)[0]);
+		} finally {
+			m.close();
+		}
+	}
+
+	static File tempFile() throws IOException {
+		File f = File.createTempFile("mapped", ".bin");
+		f.delete();
+		f.deleteOnExit();
+		return f;
+	}
+}
@@ -0,0 +1,92 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Randomized differential tests of {@link PersistentHashMap} against
+ * {@code java.util.HashMap}; every earlier version must stay unchanged.
+ */
+public class PersistentHashMapTest {
+
+	@Test
+	public void versionsMatchJavaUtilSnapshots() throws Exception {
+		Random r = new Random(15);
+		for (int round = 0; round < 150; round++) {
+			int hashes = r.nextBoolean() ? 1 + r.nextInt(4) : r.nextBoolean() ? Integer.MAX_VALUE : 1000;
+			PersistentHashMap<TestKey, Integer> m = PersistentHashMap.empty();
+			java.util.HashMap<TestKey, Integer> ref = new java.util.HashMap<>();
+			List<PersistentHashMap<TestKey, Integer>> versions = new ArrayList<>();
+			List<Map<TestKey, Integer>> snapshots = new ArrayList<>();
+			for (int i = r.nextInt(2000); i > 0; i--) {
+				TestKey k = r.nextInt(50) == 0 ? null : key(r, hashes);
+				int op = r.nextInt(10);
+				if (op < 6) {
+					Integer v = r.nextInt(20) == 0 ? null : i;
+					m = m.plus(k, v);
+					ref.put(k, v);
+				} else if (op < 9) {
+					m = m.minus(k);
+					ref.remove(k);
+				} else {
+					versions.add(m);
+					snapshots.add(new java.util.HashMap<>(ref));
+				}
+			}
+			MapAssert.assertEqualMaps(m, ref);
+
+			PersistentHashMap.Builder<TestKey, Integer> b = m.toBuilder();
+			java.util.HashMap<TestKey, Integer> built = new java.util.HashMap<>(ref);
+			for (int i = 0; i < 500; i++) {
+				TestKey k = key(r, hashes);
+				if (r.nextBoolean()) {
+					b.put(k, -i);
+					built.put(k, -i);
+				} else {
+					b.remove(k);
+					built.remove(k);
+				}
+				assertEquals(built.size(), b.size());
+			}
+			PersistentHashMap<TestKey, Integer> p = b.build();
+			assertThrows(IllegalStateException.class, () -> b.put(null, 1));
+			MapAssert.assertEqualMaps(p, built);
+			MapAssert.assertEqualMaps(m, ref);
+			for (int i = 0; i < versions.size(); i++)
+				MapAssert.assertEqualMaps(versions.get(i), snapshots.get(i));
+
+			HashMap<TestKey, Integer> source = new HashMap<>(built);
+			if (r.nextBoolean())
+				source.setIncrementalResize(true);
+			MapAssert.assertEqualMaps(PersistentHashMap.copyOf(source), built);
+			java.util.HashMap<TestKey, Integer> merged = new java.util.HashMap<>(ref);
+			merged.putAll(built);
+			MapAssert.assertEqualMaps(m.plusAll(built), merged);
+
+			ByteArrayOutputStream bo = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bo)) {
+				out.writeObject(p);
+			}
+			@SuppressWarnings("unchecked")
+			PersistentHashMap<TestKey, Integer> back = (PersistentHashMap<TestKey, Integer>) new ObjectInputStream(
+					new ByteArrayInputStream(bo.toByteArray())).readObject();
+			MapAssert.assertEqualMaps(back, built);
+		}
+	}
+
+	static TestKey key(Random r, int hashes) {
+		int v = r.nextInt(500);
+		return new TestKey(v, hashes == Integer.MAX_VALUE ? v * 0x9E3779B9 : (v * 31) % hashes);
+	}
+}
@@ -0,0 +1,124 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Randomized differential tests of the primitive-keyed maps against
+ * {@code java.util.HashMap}; missing keys read as 0 or {@code null}.
+ */
+public class PrimitiveHashMapTest {
+
+	@Test
+	public void intIntMatchesJavaUtil() {
+		Random r = new Random(2);
+		for (int round = 0; round < 200; round++) {
+			IntIntHashMap m = new IntIntHashMap(r.nextInt(16));
+			java.util.HashMap<Integer, Integer> ref = new java.util.HashMap<>();
+			int range = 1 + r.nextInt(1000);
+			for (int i = 0; i < 3000; i++) {
+				int k = r.nextInt(range) - range / 4;
+				switch (r.nextInt(6)) {
+				case 0:
+				case 1:
+					assertEquals(orZero(ref.put(k, i)), m.put(k, i));
+					break;
+				case 2:
+					assertEquals(orZero(ref.remove(k)), m.remove(k));
+					break;
+				case 3:
+					assertEquals(orZero(ref.get(k)), m.get(k));
+					assertEquals(ref.containsKey(k), m.containsKey(k));
+					break;
+				case 4:
+					assertEquals(orZero(ref.get(k)), m.addTo(k, 3));
+					ref.merge(k, 3, Integer::sum);
+					break;
+				default:
+					for (Iterator<Map.Entry<Integer, Integer>> it = m.asMap().entrySet().iterator(); it.hasNext();) {
+						Map.Entry<Integer, Integer> e = it.next();
+						assertEquals(ref.get(e.getKey()), e.getValue());
+						if (r.nextInt(3) == 0) {
+							it.remove();
+							ref.remove(e.getKey());
+						}
+					}
+				}
+				assertEquals(ref.size(), m.size());
+			}
+			MapAssert.assertEqualMaps(m.asMap(), ref);
+			assertEquals(m, m.clone());
+		}
+	}
+
+	@Test
+	public void objectAndLongKeyedMapsMatchJavaUtil() {
+		Random r = new Random(1);
+		for (int round = 0; round < 200; round++) {
+			IntObjectHashMap<String> m = new IntObjectHashMap<>(2);
+			LongLongHashMap l = new LongLongHashMap(2);
+			LongObjectHashMap<Integer> lo = new LongObjectHashMap<>();
+			java.util.HashMap<Integer, String> ref = new java.util.HashMap<>();
+			java.util.HashMap<Long, Long> lref = new java.util.HashMap<>();
+			int range = 1 + r.nextInt(300);
+			for (int i = 0; i < 3000; i++) {
+				int k = r.nextInt(range) - range / 4;
+				long lk = ((long) k) << 32 ^ k * 31L;
+				switch (r.nextInt(4)) {
+				case 0:
+				case 1:
+					String v = "v" + i;
+					assertEquals(ref.put(k, v), m.put(k, v));
+					assertEquals(orZero(lref.put(lk, (long) i)), l.put(lk, i));
+					lo.put(lk, i);
+					break;
+				case 2:
+					assertEquals(ref.remove(k), m.remove(k));
+					assertEquals(orZero(lref.remove(lk)), l.remove(lk));
+					lo.remove(lk);
+					break;
+				default:
+					for (Iterator<Map.Entry<Integer, String>> it = m.asMap().entrySet().iterator(); it.hasNext();) {
+						Map.Entry<Integer, String> e = it.next();
+						assertEquals(ref.get(e.getKey()), e.getValue());
+						if (r.nextInt(3) == 0) {
+							it.remove();
+							ref.remove(e.getKey());
+						}
+					}
+					for (Iterator<Map.Entry<Long, Long>> it = l.asMap().entrySet().iterator(); it.hasNext();) {
+						Map.Entry<Long, Long> e = it.next();
+						assertEquals(lref.get(e.getKey()), e.getValue());
+						if (r.nextInt(3) == 0) {
+							it.remove();
+							lref.remove(e.getKey());
+							lo.remove(e.getKey());
+						}
+					}
+				}
+				assertEquals(ref.size(), m.size());
+				assertEquals(lref.size(), l.size());
+				assertEquals(lref.size(), lo.size());
+			}
+			MapAssert.assertEqualMaps(m.asMap(), ref);
+			MapAssert.assertEqualMaps(l.asMap(), lref);
+			for (Long k : lref.keySet())
+				assertTrue(lo.containsKey(k));
+			assertEquals(m, m.clone());
+		}
+	}
+
+	static int orZero(Integer v) {
+		return v == null ? 0 : v;
+	}
+
+	static long orZero(Long v) {
+		return v == null ? 0 : v;
+	}
+}
@@ -0,0 +1,123 @@
+package com.demo.jdk_18.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that the {@code CharSequence} and UTF-8 lookups of
+ * {@link StringKeyHashMap} find the same mappings as {@code get}.
+ */
+public class StringKeyHashMapTest {
+
+	@Test
+	public void charAndUtf8LookupsMatchGet() {
+		Random r = new Random(11);
+		for (int round = 0; round < 100; round++) {
+			StringKeyHashMap<Integer> m = new StringKeyHashMap<>();
+			if (r.nextBoolean())
+				m.enableKeyedHashing();
+			if (r.nextBoolean())
+				m.setIncrementalResize(true);
+			List<String> keys = new ArrayList<>();
+			for (int i = r.nextInt(3000); i > 0; i--) {
+				String s = randomString(r);
+				keys.add(s);
+				m.put(s, i);
+			}
+			for (int i = 0; i < 3000; i++) {
+				String s = r.nextBoolean() && !keys.isEmpty() ? keys.get(r.nextInt(keys.size())) : randomString(r);
+				Integer expected = m.get(s);
+				assertEquals(expected, m.getByChars(s));
+				assertEquals(expected, m.getByChars("xy" + s + "z", 2, 2 + s.length()));
+				assertEquals(expected, m.getByChars(new StringBuilder(s)));
+				byte[] u = ("q" + s).getBytes(StandardCharsets.UTF_8);
+				assertEquals(expected, m.getByUtf8(u, 1, u.length - 1));
+				assertEquals(m.containsKey(s), m.containsKeyByUtf8(u, 1, u.length - 1));
+				if (r.nextInt(10) == 0)
+					m.put(randomString(r), 1);
+			}
+		}
+	}
+
+	/**
+	 * 不合法的UTF-8按String的解码规则替换成U+FFFD
+	 */
+	@Test
+	public void malformedUtf8DecodesLikeString() {
+		StringKeyHashMap<Integer> m = new StringKeyHashMap<>();
+		byte[][] malformed = { { (byte) 0xff, 'a' }, { (byte) 0xe4, (byte) 0xb8 }, { (byte) 0xed, (byte) 0xa0, (byte) 0x80 },
+				{ (byte) 0xc0, (byte) 0x80 }, { (byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80 } };
+		for (int i = 0; i < malformed.length; i++)
+			m.put(new String(malformed[i], StandardCharsets.UTF_8), i);
+		for (int i = 0; i < malformed.length; i++)
+			assertEquals(m.get(new String(malformed[i], StandardCharsets.UTF_8)), m.getByUtf8(malformed[i]));
+	}
+
+	/**
+	 * "\0...\0a"的hashCode都是97,只有长度不同;超过8个时桶被树化,树节点没有存长度
+	 */
+	@Test
+	public void sameHashDifferentLengths() {
+		for (int keyed = 0; keyed < 2; keyed++) {
+			StringKeyHashMap<Integer> m = new StringKeyHashMap<>();
+			if (keyed == 1)
+				m.enableKeyedHashing();
+			String k = "a";
+			for (int i = 0; i < 20; i++, k = "\0" + k) {
+				m.put(k, i);
+				if (keyed == 0 && i == 0)
+					assertTrue(m.getNode(m.hashOf(k), k) instanceof StringKeyHashMap.StringNode);
+				String q = "a";
+				for (int j = 0; j < 22; j++, q = "\0" + q) {
+					Integer expected = (j <= i) ? j : null;
+					assertEquals(expected, m.get(new String(q)));
+					assertEquals(j <= i, m.containsKey(q));
+					assertEquals(expected == null ? -1 : expected, (int) m.getOrDefault(q, -1));
+					assertEquals(expected, m.getByChars(new StringBuilder(q)));
+					assertEquals(expected, m.getByUtf8(q.getBytes(StandardCharsets.UTF_8)));
+				}
+			}
+			m.put(null, -2);
+			assertEquals(Integer.valueOf(-2), m.get(null));
+			assertNull(m.get(1));
+			assertNull(m.getByChars(""));
+		}
+	}
+
+	/**
+	 * 随机字符串: ASCII,2到3字节的字符,代理对,以及hashCode相同的"Aa"和"BB"
+	 */
+	static String randomString(Random r) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = r.nextInt(12); i > 0; i--) {
+			switch (r.nextInt(6)) {
+			case 0:
+				sb.append((char) ('a' + r.nextInt(3)));
+				break;
+			case 1:
+				sb.append((char) (0x80 + r.nextInt(0x700)));
+				break;
+			case 2:
+				sb.append((char) (0x800 + r.nextInt(0xd000)));
+				break;
+			case 3:
+				sb.appendCodePoint(0x10000 + r.nextInt(0x100000));
+				break;
+			case 4:
+				sb.append(r.nextBoolean() ? "Aa" : "BB");
+				break;
+			default:
+				sb.append((char) (0xe000 + r.nextInt(0x2000)));
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,63 @@
+package com.demo.jdk_18.map;
+
+import java.io.Serializable;
+
+/**
+ * 测试用的key,hash由测试指定,用来制造碰撞,按v比较大小.
+ */
+final class TestKey implements Comparable<TestKey>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	final int v;
+
+	final int h;
+
+	TestKey(int v, int h) {
+		this.v = v;
+		this.h = h;
+	}
+
+	public int hashCode() {
+		return h;
+	}
+
+	public boolean equals(Object o) {
+		return o instanceof TestKey && ((TestKey) o).v == v;
+	}
+
+	public int compareTo(TestKey o) {
+		return Integer.compare(v, o.v);
+	}
+
+	public String toString() {
+		return "k" + v;
+	}
+
+	/**
+	 * 不能比较大小的key,红黑树中只能按hash排序
+	 */
+	static final class Unordered {
+
+		final int v;
+
+		final int h;
+
+		Unordered(int v, int h) {
+			this.v = v;
+			this.h = h;
+		}
+
+		public int hashCode() {
+			return h;
+		}
+
+		public boolean equals(Object o) {
+			return o instanceof Unordered && ((Unordered) o).v == v;
+		}
+
+		public String toString() {
+			return "u" + v;
+		}
+	}
+}